@@ -0,0 +1,257 @@
+package com.example.excelexport.annotation;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.DataFormat;
+import org.apache.poi.ss.usermodel.Workbook;
+
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-export typed cell writing shared by the generated row writers and the runtime path. Numbers,
+ * booleans and dates become native cells: dates and {@code java.time} values are written as Excel
+ * serial dates with a number-format style derived from the column's {@code dateFormat}, created
+ * once per workbook for each (pattern, locale). Values Excel cannot hold as a date (before 1900)
+ * are formatted as text with a cached, thread-safe {@link DateTimeFormatter}.
+ * <p>
+ * Columns are addressed by index. One context is created per workbook and is not thread-safe.
+ */
+public class ExcelRowContext {
+
+    private static final Map<String, DateTimeFormatter> FORMATTERS = new ConcurrentHashMap<>();
+
+    private static final int FIRST_EXCEL_YEAR = 1900;
+    private static final double SECONDS_PER_DAY = 86_400d;
+
+    /**
+     * Windows locale ids for the {@code [$-xxx]} prefix Excel needs to render month and day names
+     */
+    private static final Map<String, String> LOCALE_IDS = Map.of(
+        "en", "409", "en_GB", "809", "es", "C0A", "es_MX", "80A", "fr", "40C",
+        "de", "407", "it", "410", "pt", "816", "pt_BR", "416", "ja", "411");
+
+    private final Workbook workbook;
+    private final Locale locale;
+    private final String[] datePatterns;
+    private final CellStyle[] amountStyles;
+    private final CellStyle[] dateStyles;
+    private final Map<String, CellStyle> stylesByPattern = new HashMap<>();
+    private final long firstExcelDateMillis;
+
+    /**
+     * @param datePatterns   {@code dateFormat} of each column
+     * @param amountFormats  {@code amountFormat} of each amount column, null for the other columns
+     */
+    public ExcelRowContext(Workbook workbook, Locale locale, String[] datePatterns, String[] amountFormats) {
+        this.workbook = workbook;
+        this.locale = locale;
+        this.datePatterns = datePatterns;
+        this.amountStyles = new CellStyle[amountFormats.length];
+        this.dateStyles = new CellStyle[datePatterns.length];
+        this.firstExcelDateMillis = LocalDate.of(FIRST_EXCEL_YEAR, 1, 1)
+            .atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+
+        DataFormat dataFormat = workbook.createDataFormat();
+        Map<String, CellStyle> amountStylesByFormat = new HashMap<>();
+        for (int i = 0; i < amountFormats.length; i++) {
+            if (amountFormats[i] != null) {
+                amountStyles[i] = amountStylesByFormat.computeIfAbsent(amountFormats[i], format -> {
+                    CellStyle style = workbook.createCellStyle();
+                    style.setDataFormat(dataFormat.getFormat(format));
+                    return style;
+                });
+            }
+        }
+    }
+
+    public CellStyle getAmountStyle(int column) {
+        return amountStyles[column];
+    }
+
+    public void setDate(Cell cell, int column, Date value) {
+        if (value.getTime() < firstExcelDateMillis) {
+            setText(cell, column, LocalDateTime.ofInstant(value.toInstant(), ZoneId.systemDefault()));
+        } else {
+            cell.setCellValue(value);
+            cell.setCellStyle(getDateStyle(column));
+        }
+    }
+
+    public void setDate(Cell cell, int column, LocalDate value) {
+        if (value.getYear() < FIRST_EXCEL_YEAR) {
+            setText(cell, column, value);
+        } else {
+            cell.setCellValue(value);
+            cell.setCellStyle(getDateStyle(column));
+        }
+    }
+
+    public void setDate(Cell cell, int column, LocalDateTime value) {
+        if (value.getYear() < FIRST_EXCEL_YEAR) {
+            setText(cell, column, value);
+        } else {
+            cell.setCellValue(value);
+            cell.setCellStyle(getDateStyle(column));
+        }
+    }
+
+    /**
+     * Writes a value whose type is only known at runtime. Null leaves the cell blank.
+     */
+    public void writeValue(Cell cell, int column, Object value) {
+        if (value == null) {
+            return;
+        }
+        if (value instanceof Number) {
+            cell.setCellValue(((Number) value).doubleValue());
+            if (amountStyles[column] != null) {
+                cell.setCellStyle(amountStyles[column]);
+            }
+        } else if (value instanceof String) {
+            cell.setCellValue((String) value);
+        } else if (value instanceof Boolean) {
+            cell.setCellValue((Boolean) value);
+        } else if (value instanceof Date) {
+            setDate(cell, column, (Date) value);
+        } else if (value instanceof LocalDateTime) {
+            setDate(cell, column, (LocalDateTime) value);
+        } else if (value instanceof LocalDate) {
+            setDate(cell, column, (LocalDate) value);
+        } else if (value instanceof ZonedDateTime) {
+            setDate(cell, column, ((ZonedDateTime) value).toLocalDateTime());
+        } else if (value instanceof OffsetDateTime) {
+            setDate(cell, column, ((OffsetDateTime) value).toLocalDateTime());
+        } else if (value instanceof Instant) {
+            setDate(cell, column, LocalDateTime.ofInstant((Instant) value, ZoneId.systemDefault()));
+        } else if (value instanceof LocalTime) {
+            // Excel times are fractions of a day
+            cell.setCellValue(((LocalTime) value).toSecondOfDay() / SECONDS_PER_DAY);
+            cell.setCellStyle(getDateStyle(column));
+        } else if (value instanceof TemporalAccessor) {
+            setText(cell, column, (TemporalAccessor) value);
+        } else {
+            cell.setCellValue(value.toString());
+        }
+    }
+
+    private CellStyle getDateStyle(int column) {
+        CellStyle style = dateStyles[column];
+        if (style == null) {
+            style = stylesByPattern.computeIfAbsent(datePatterns[column], pattern -> {
+                CellStyle dateStyle = workbook.createCellStyle();
+                dateStyle.setDataFormat(workbook.createDataFormat().getFormat(toExcelFormat(pattern, locale)));
+                return dateStyle;
+            });
+            dateStyles[column] = style;
+        }
+        return style;
+    }
+
+    private void setText(Cell cell, int column, TemporalAccessor value) {
+        try {
+            cell.setCellValue(getFormatter(datePatterns[column], locale).format(value));
+        } catch (DateTimeException | IllegalArgumentException e) {
+            // The pattern asks for fields the value does not have (or is not a valid pattern)
+            cell.setCellValue(value.toString());
+        }
+    }
+
+    static DateTimeFormatter getFormatter(String pattern, Locale locale) {
+        return FORMATTERS.computeIfAbsent(pattern + '|' + locale.toLanguageTag(),
+            key -> DateTimeFormatter.ofPattern(pattern, locale));
+    }
+
+    /**
+     * Translates a {@code SimpleDateFormat}/{@code DateTimeFormatter} pattern into an Excel number
+     * format. Letters Excel has no equivalent for (zones, eras, week numbers) are dropped.
+     */
+    static String toExcelFormat(String pattern, Locale locale) {
+        StringBuilder format = new StringBuilder();
+        boolean hasText = false;
+        int i = 0;
+        while (i < pattern.length()) {
+            char c = pattern.charAt(i);
+            if (c == '\'') {
+                int end = pattern.indexOf('\'', i + 1);
+                if (end < 0) {
+                    end = pattern.length();
+                }
+                String literal = end == i + 1 ? "'" : pattern.substring(i + 1, end);
+                format.append('"').append(literal.replace("\"", "")).append('"');
+                i = end + 1;
+                continue;
+            }
+
+            int run = 1;
+            while (i + run < pattern.length() && pattern.charAt(i + run) == c) {
+                run++;
+            }
+            if (Character.isLetter(c)) {
+                switch (c) {
+                    case 'y':
+                    case 'u':
+                        format.append(run == 2 ? "yy" : "yyyy");
+                        break;
+                    case 'M':
+                    case 'L':
+                        format.append(run >= 4 ? "mmmm" : run == 3 ? "mmm" : run == 2 ? "mm" : "m");
+                        hasText |= run >= 3;
+                        break;
+                    case 'd':
+                        format.append(run >= 2 ? "dd" : "d");
+                        break;
+                    case 'E':
+                        format.append(run >= 4 ? "dddd" : "ddd");
+                        hasText = true;
+                        break;
+                    case 'H':
+                    case 'k':
+                    case 'h':
+                    case 'K':
+                        format.append(run >= 2 ? "hh" : "h");
+                        break;
+                    case 'm':
+                        format.append(run >= 2 ? "mm" : "m");
+                        break;
+                    case 's':
+                        format.append(run >= 2 ? "ss" : "s");
+                        break;
+                    case 'S':
+                        format.append("0".repeat(Math.min(run, 3)));
+                        break;
+                    case 'a':
+                        format.append("AM/PM");
+                        break;
+                    default:
+                        // no Excel equivalent
+                        break;
+                }
+            } else {
+                for (int j = 0; j < run; j++) {
+                    if (" -/:.,".indexOf(c) < 0) {
+                        format.append('\\');
+                    }
+                    format.append(c);
+                }
+            }
+            i += run;
+        }
+
+        String localeId = LOCALE_IDS.getOrDefault(locale.toString(), LOCALE_IDS.get(locale.getLanguage()));
+        return hasText && localeId != null ? "[$-" + localeId + "]" + format : format.toString();
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.excelexport.annotation;
+
+import org.apache.poi.ss.usermodel.Row;
+
+/**
+ * Writes the {@link ExcelColumn} cells of one DTO into a row, in column order. An implementation
+ * named {@code <DTO>ExcelRowWriter} is generated next to every DTO with annotated fields by
+ * {@code ExcelColumnProcessor}; it reads the fields through their getters with no reflection.
+ * Implementations are stateless and shared between exports.
+ */
+public interface ExcelRowWriter<T> {
+
+    void writeRow(Row row, T item, ExcelRowContext context);
+
+    /**
+     * Annotated field names in the column order the writer was generated with
+     */
+    String[] getFieldNames();
+}
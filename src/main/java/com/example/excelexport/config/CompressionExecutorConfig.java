@@ -0,0 +1,34 @@
+package com.example.excelexport.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Threads that deflate blocks of large xlsx parts in parallel (SpreadsheetML engine). Every export
+ * bounds its own blocks in flight; when the queue is full anyway, the exporting thread compresses
+ * the block itself.
+ */
+@Configuration
+public class CompressionExecutorConfig {
+
+    @Value("${excel.export.compression.threads:8}")
+    private int threads;
+
+    @Value("${excel.export.compression.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Bean
+    public ThreadPoolTaskExecutor exportCompressionExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("excel-deflate-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return executor;
+    }
+}
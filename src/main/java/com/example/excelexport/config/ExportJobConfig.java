@@ -0,0 +1,33 @@
+package com.example.excelexport.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Bounded executor for asynchronous export jobs. Jobs beyond the queue capacity are rejected
+ * rather than piling up, so a burst of large exports cannot starve the node.
+ */
+@Configuration
+@EnableScheduling
+public class ExportJobConfig {
+
+    @Value("${excel.export.jobs.pool-size:2}")
+    private int poolSize;
+
+    @Value("${excel.export.jobs.queue-capacity:20}")
+    private int queueCapacity;
+
+    @Bean
+    public ThreadPoolTaskExecutor exportJobExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("excel-job-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        return executor;
+    }
+}
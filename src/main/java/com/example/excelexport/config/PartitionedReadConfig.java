@@ -0,0 +1,26 @@
+package com.example.excelexport.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Threads that fetch id-range slices for partitioned exports. Each thread holds a pooled connection
+ * while it fetches, so keep {@code excel.export.partitions.threads} below the datasource pool size.
+ */
+@Configuration
+public class PartitionedReadConfig {
+
+    @Value("${excel.export.partitions.threads:4}")
+    private int threads;
+
+    @Bean
+    public ThreadPoolTaskExecutor partitionReadExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setThreadNamePrefix("excel-partition-");
+        return executor;
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.excelexport.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Threads that render worksheets while the exporting thread keeps reading rows (FastExcel engine).
+ * There is no queue: when every render thread is busy, an export renders on its own thread instead
+ * of waiting for one.
+ */
+@Configuration
+public class RenderExecutorConfig {
+
+    @Value("${excel.export.render.threads:8}")
+    private int threads;
+
+    @Bean
+    public ThreadPoolTaskExecutor exportRenderExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("excel-render-");
+        return executor;
+    }
+}
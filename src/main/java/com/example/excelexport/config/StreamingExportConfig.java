@@ -0,0 +1,85 @@
+package com.example.excelexport.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.i18n.LocaleContext;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Executor and timeout for {@code StreamingResponseBody} exports. The workbook is written on these
+ * threads after the controller returns, so the request locale is carried over for localized headers.
+ * In the virtual-thread mode ({@code excel.export.threads.virtual=true}, Java 21+) every body gets
+ * a new virtual thread instead of a pool thread.
+ */
+@Slf4j
+@Configuration
+public class StreamingExportConfig implements WebMvcConfigurer {
+
+    @Value("${excel.export.stream.pool-size:8}")
+    private int poolSize;
+
+    @Value("${excel.export.stream.queue-capacity:32}")
+    private int queueCapacity;
+
+    @Value("${excel.export.stream.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${excel.export.threads.virtual:false}")
+    private boolean virtualThreads;
+
+    @Bean
+    public ThreadPoolTaskExecutor exportStreamExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("excel-stream-");
+        executor.setTaskDecorator(carryLocale());
+        return executor;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(streamBodyExecutor());
+        configurer.setDefaultTimeout(timeoutMs);
+    }
+
+    private AsyncTaskExecutor streamBodyExecutor() {
+        if (!virtualThreads) {
+            return exportStreamExecutor();
+        }
+        Optional<ThreadFactory> threadFactory = VirtualThreads.factory("excel-stream-");
+        if (threadFactory.isEmpty()) {
+            log.warn("Virtual threads need Java 21, streaming exports stay on the excel-stream pool");
+            return exportStreamExecutor();
+        }
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadFactory.get());
+        executor.setTaskDecorator(carryLocale());
+        return executor;
+    }
+
+    private static TaskDecorator carryLocale() {
+        return task -> {
+            LocaleContext localeContext = LocaleContextHolder.getLocaleContext();
+            return () -> {
+                LocaleContextHolder.setLocaleContext(localeContext);
+                try {
+                    task.run();
+                } finally {
+                    LocaleContextHolder.resetLocaleContext();
+                }
+            };
+        };
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.excelexport.config;
+
+import com.example.excelexport.metrics.ExportMetrics;
+import com.example.excelexport.service.writer.SxssfTempStorage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Paths;
+
+/**
+ * Temp storage of the SXSSF (POI) exports. {@code excel.export.temp.directory} can point at a
+ * tmpfs mount; {@code compression} is always, never or auto (gzip only below
+ * {@code compress-below-free-bytes} of free space or past half the global quota). Quotas of 0
+ * leave the spill unlimited.
+ */
+@Configuration
+public class TempStorageConfig {
+
+    @Bean
+    public SxssfTempStorage sxssfTempStorage(ExportMetrics exportMetrics,
+                                             @Value("${excel.export.temp.directory:${java.io.tmpdir}/excel-export}") String directory,
+                                             @Value("${excel.export.temp.compression:auto}") String compression,
+                                             @Value("${excel.export.temp.compress-below-free-bytes:1073741824}") long compressBelowFreeBytes,
+                                             @Value("${excel.export.temp.export-quota-bytes:0}") long exportQuotaBytes,
+                                             @Value("${excel.export.temp.global-quota-bytes:0}") long globalQuotaBytes) {
+        SxssfTempStorage storage = new SxssfTempStorage(Paths.get(directory), SxssfTempStorage.Compression.parse(compression),
+            compressBelowFreeBytes, exportQuotaBytes, globalQuotaBytes);
+        exportMetrics.registerTempStorage(storage);
+        return storage;
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.excelexport.config;
+
+import com.example.excelexport.metrics.ExportMetrics;
+import com.example.excelexport.metrics.PinnedThreadMonitor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Virtual-thread execution mode, enabled with {@code excel.export.threads.virtual=true} on Java 21+.
+ * Tomcat then runs every request, and so every export controller, on a new virtual thread instead
+ * of its bounded worker pool; {@link StreamingExportConfig} does the same for the streaming bodies
+ * that read the employee cursor. A thread blocked on JDBC or on a slow client then parks without
+ * holding a platform thread, so concurrent downloads are bounded by the admission budgets and the
+ * connection pool rather than by thread counts. Pinned virtual threads are reported by a
+ * {@link PinnedThreadMonitor}.
+ * <p>
+ * On an older JVM the mode logs a warning and everything stays on platform threads.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "excel.export.threads.virtual", havingValue = "true")
+public class VirtualThreadConfig {
+
+    @Value("${excel.export.threads.pinned-threshold-ms:20}")
+    private long pinnedThresholdMs;
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandlerCustomizer() {
+        Optional<ThreadFactory> threadFactory = VirtualThreads.factory("tomcat-handler-");
+        if (threadFactory.isEmpty()) {
+            log.warn("Virtual threads need Java 21, requests stay on Tomcat's worker pool");
+            return protocolHandler -> { };
+        }
+        return protocolHandler -> protocolHandler.setExecutor(task -> threadFactory.get().newThread(task).start());
+    }
+
+    @Bean(destroyMethod = "close")
+    public PinnedThreadMonitor pinnedThreadMonitor(ExportMetrics exportMetrics) {
+        PinnedThreadMonitor monitor = new PinnedThreadMonitor(exportMetrics);
+        if (VirtualThreads.isSupported()) {
+            monitor.start(Duration.ofMillis(pinnedThresholdMs));
+        }
+        return monitor;
+    }
+}
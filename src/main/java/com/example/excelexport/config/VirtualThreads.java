@@ -0,0 +1,36 @@
+package com.example.excelexport.config;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Virtual threads (Java 21), looked up reflectively since the application is compiled for Java 11
+ * and must keep running on older JVMs.
+ */
+public final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    public static boolean isSupported() {
+        return factory("virtual-").isPresent();
+    }
+
+    /**
+     * Factory of virtual threads named {@code namePrefix} followed by a counter, or empty on a JVM
+     * without (or with only preview) virtual threads
+     */
+    public static Optional<ThreadFactory> factory(String namePrefix) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = Class.forName("java.lang.Thread$Builder$OfVirtual")
+                .getMethod("name", String.class, long.class)
+                .invoke(builder, namePrefix, 0L);
+            return Optional.of((ThreadFactory) Class.forName("java.lang.Thread$Builder")
+                .getMethod("factory")
+                .invoke(builder));
+        } catch (ReflectiveOperationException e) {
+            return Optional.empty();
+        }
+    }
+}
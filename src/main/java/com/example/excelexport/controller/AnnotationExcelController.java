@@ -1,16 +1,28 @@
 package com.example.excelexport.controller;
 
 import com.example.excelexport.dto.UserDTO;
+import com.example.excelexport.metrics.ExportMetrics;
 import com.example.excelexport.service.AnnotationExcelExportService;
+import com.example.excelexport.service.ExportAdmissionService;
+import com.example.excelexport.service.ExportRejectedException;
+import com.example.excelexport.service.JsonRowReader;
+import com.example.excelexport.service.writer.TempStorageQuotaExceededException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.MessageSource;
 import org.springframework.context.i18n.LocaleContextHolder;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
@@ -20,8 +32,16 @@ import java.util.List;
 @RequiredArgsConstructor
 public class AnnotationExcelController {
 
+    /**
+     * Engine tag of the export metrics; the annotation exports are written with POI SXSSF
+     */
+    private static final String ENGINE = "poi";
+
     private final AnnotationExcelExportService annotationExcelExportService;
     private final MessageSource messageSource;
+    private final ObjectMapper objectMapper;
+    private final ExportMetrics exportMetrics;
+    private final ExportAdmissionService exportAdmissionService;
 
     /**
      * Exports a list of DTOs to Excel using annotations
@@ -34,7 +54,8 @@ public class AnnotationExcelController {
             @RequestBody List<T> data,
             @RequestHeader(name = "Accept-Language", required = false) String locale) throws IOException {
             
-        byte[] excelContent = annotationExcelExportService.generateExcelFromDTO(data);
+        byte[] excelContent = buffered("/annotation/export", data.size(),
+            () -> annotationExcelExportService.generateExcelFromDTO(data));
         
         String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
         String baseFilename = messageSource.getMessage(
@@ -58,7 +79,8 @@ public class AnnotationExcelController {
             @RequestBody List<UserDTO> users,
             @RequestHeader(name = "Accept-Language", required = false) String locale) throws IOException {
             
-        byte[] excelContent = annotationExcelExportService.generateExcelFromDTO(users);
+        byte[] excelContent = buffered("/annotation/users/export", users.size(),
+            () -> annotationExcelExportService.generateExcelFromDTO(users));
         
         String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
         String baseFilename = messageSource.getMessage(
@@ -72,6 +94,103 @@ public class AnnotationExcelController {
         return createExcelResponse(excelContent, filename);
     }
 
+    /**
+     * Streaming variant of {@link #exportToExcel}: the workbook is written straight into the response
+     * @param data List of DTOs to export
+     * @param <T> Type of the DTO
+     * @return Excel file streamed to the client
+     */
+    @PostMapping("/export/stream")
+    public <T> ResponseEntity<StreamingResponseBody> streamToExcel(
+            @RequestBody List<T> data,
+            @RequestHeader(name = "Accept-Language", required = false) String locale) {
+
+        String filename = createFilename("excel.filename.generic", "data_export");
+        return createStreamingExcelResponse("/annotation/export/stream",
+            outputStream -> annotationExcelExportService.generateExcelFromDTO(data, outputStream), filename);
+    }
+
+    /**
+     * Streaming variant of {@link #exportUsers}. The body, a JSON array or NDJSON (one object per line),
+     * is parsed one element at a time while the rows are written, so heap use does not grow with the
+     * payload size. An empty array produces a workbook with just the header row.
+     * @param body Raw request body
+     * @return Excel file streamed to the client
+     */
+    @PostMapping(value = "/users/export/stream",
+        consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<StreamingResponseBody> streamUsers(
+            InputStream body,
+            @RequestHeader(name = "Accept-Language", required = false) String locale) {
+
+        String filename = createFilename("excel.filename.users", "users_export");
+        return createStreamingExcelResponse("/annotation/users/export/stream", outputStream -> {
+            try (JsonRowReader<UserDTO> users = new JsonRowReader<>(objectMapper, body, UserDTO.class)) {
+                annotationExcelExportService.generateExcelFromDTO(UserDTO.class, users, outputStream);
+            } catch (JsonProcessingException e) {
+                throw invalidBody(e);
+            } catch (UncheckedIOException e) {
+                if (e.getCause() instanceof JsonProcessingException) {
+                    throw invalidBody((JsonProcessingException) e.getCause());
+                }
+                throw e;
+            }
+        }, filename);
+    }
+
+    @ExceptionHandler(ExportRejectedException.class)
+    public ResponseEntity<Void> handleExportRejected(ExportRejectedException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+            .build();
+    }
+
+    /**
+     * The export would spool more to disk than the SXSSF temp file quotas allow
+     */
+    @ExceptionHandler(TempStorageQuotaExceededException.class)
+    public ResponseEntity<Void> handleTempStorageQuotaExceeded() {
+        return ResponseEntity.status(HttpStatus.INSUFFICIENT_STORAGE).build();
+    }
+
+    /**
+     * The workbook is only written out after the last row, so a malformed body is still reported as 400
+     */
+    private ResponseStatusException invalidBody(JsonProcessingException e) {
+        return new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid request body: " + e.getOriginalMessage(), e);
+    }
+
+    /**
+     * Renders the posted rows into a byte array once the export is admitted
+     */
+    private byte[] buffered(String endpoint, int rowCount, ExportMetrics.BufferedExport export) throws IOException {
+        try (ExportAdmissionService.Permit permit = exportAdmissionService.admitBuffered(ENGINE, rowCount)) {
+            return exportMetrics.recordBuffered(ENGINE, endpoint, export);
+        }
+    }
+
+    private String createFilename(String messageKey, String defaultName) {
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
+        String baseFilename = messageSource.getMessage(
+            messageKey,
+            null,
+            defaultName,
+            LocaleContextHolder.getLocale()
+        );
+        return baseFilename + "_" + timestamp + ".xlsx";
+    }
+
+    private ResponseEntity<StreamingResponseBody> createStreamingExcelResponse(String endpoint, StreamingResponseBody body, String filename) {
+        StreamingResponseBody meteredBody = outputStream -> exportMetrics.record(ENGINE, endpoint, outputStream, body::writeTo);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"));
+        headers.setContentDispositionFormData("attachment", filename);
+
+        return ResponseEntity.ok()
+                .headers(headers)
+                .body(meteredBody);
+    }
+
     private ResponseEntity<byte[]> createExcelResponse(byte[] content, String filename) {
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"));
@@ -1,37 +1,91 @@
 package com.example.excelexport.controller;
 
+import com.example.excelexport.metrics.ExportMetrics;
+import com.example.excelexport.service.CopyExcelExportService;
+import com.example.excelexport.service.EmployeeDataset;
 import com.example.excelexport.service.ExcelExportService;
+import com.example.excelexport.service.ExportAdmissionService;
+import com.example.excelexport.service.ExportCursor;
+import com.example.excelexport.service.ExportDataset;
+import com.example.excelexport.service.ExportRejectedException;
+import com.example.excelexport.service.ExportResultCache;
 import com.example.excelexport.service.FastExcelExportService;
+import com.example.excelexport.service.IncrementalExport;
 import com.example.excelexport.service.DirectExcelExportService;
 import com.example.excelexport.service.EasyExcelExportService;
+import com.example.excelexport.service.JdbcExcelExportService;
+import com.example.excelexport.service.PartitionLayout;
+import com.example.excelexport.service.PartitionedExportService;
+import com.example.excelexport.service.SpreadsheetExportService;
+import com.example.excelexport.service.ZipEntryMode;
+import com.example.excelexport.service.engine.CompressionProfile;
+import com.example.excelexport.service.engine.ExportFormat;
+import com.example.excelexport.service.writer.TempStorageQuotaExceededException;
 import com.example.excelexport.entity.Employee;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.i18n.LocaleContextHolder;
 import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.servlet.AsyncContext;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 
 @RestController
 @RequestMapping("/api/excel")
 @RequiredArgsConstructor
 public class ExcelExportController {
 
+    private static final String STREAM_ENDPOINT = "/export/stream";
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final int NON_BLOCKING_CHUNK_BYTES = 64 << 10;
+
     private final ExcelExportService excelExportService;
     private final FastExcelExportService fastExcelExportService;
     private final DirectExcelExportService directExcelExportService;
     private final EasyExcelExportService easyExcelExportService;
+    private final PartitionedExportService partitionedExportService;
+    private final JdbcExcelExportService jdbcExcelExportService;
+    private final CopyExcelExportService copyExcelExportService;
+    private final SpreadsheetExportService spreadsheetExportService;
+    private final EmployeeDataset employeeDataset;
+    private final ExportMetrics exportMetrics;
+    private final ExportResultCache exportResultCache;
+    private final ExportAdmissionService exportAdmissionService;
+
+    @Value("${excel.export.stream.timeout-ms:1800000}")
+    private long streamTimeoutMs;
 
     // Export Endpoints
     @GetMapping("/export/zip/poi")
     public ResponseEntity<Resource> exportExcelZipPoi() throws IOException {
-        byte[] zipContent = excelExportService.exportEmployeesToExcelZip();
+        byte[] zipContent = buffered("poi", "/export/zip", excelExportService::exportEmployeesToExcelZip);
         String filename = "employees_poi_" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + ".zip";
         
         ByteArrayResource resource = new ByteArrayResource(zipContent);
@@ -45,7 +99,7 @@ public class ExcelExportController {
 
     @GetMapping("/export/zip/fastexcel")
     public ResponseEntity<Resource> exportExcelZipFastExcel() throws IOException {
-        byte[] zipContent = fastExcelExportService.exportEmployeesToExcelZip();
+        byte[] zipContent = buffered("fastexcel", "/export/zip", fastExcelExportService::exportEmployeesToExcelZip);
         String filename = "employees_fastexcel_" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + ".zip";
         
         ByteArrayResource resource = new ByteArrayResource(zipContent);
@@ -59,7 +113,7 @@ public class ExcelExportController {
 
     @GetMapping("/export/excel/direct")
     public ResponseEntity<Resource> exportExcelDirect() throws IOException {
-        byte[] excelContent = directExcelExportService.exportEmployeesToExcel();
+        byte[] excelContent = buffered("direct", "/export/excel", directExcelExportService::exportEmployeesToExcel);
         String filename = "employees_direct_" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + ".xlsx";
         
         ByteArrayResource resource = new ByteArrayResource(excelContent);
@@ -73,7 +127,7 @@ public class ExcelExportController {
 
     @GetMapping("/export/excel/easyexcel")
     public ResponseEntity<Resource> exportExcelEasyExcel() throws IOException {
-        byte[] excelContent = easyExcelExportService.exportEmployeesToExcel();
+        byte[] excelContent = buffered("easyexcel", "/export/excel", easyExcelExportService::exportEmployeesToExcel);
         String filename = "employees_easyexcel_" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + ".xlsx";
         
         ByteArrayResource resource = new ByteArrayResource(excelContent);
@@ -85,6 +139,375 @@ public class ExcelExportController {
             .body(resource);
     }
 
+    // Streaming Export Endpoints
+
+    /**
+     * Streams the employee workbook, or one department of it, with the engine named by {@code engine}
+     * (poi, fastexcel, direct, easyexcel). {@code format=csv|tsv|csv-gzip}, or an Accept header
+     * asking for text/csv, text/tab-separated-values or application/gzip, streams delimited text
+     * instead. {@code compression=fast|small} trades CPU for size where the engine can set a deflate
+     * level. Finished files are cached per dataset version: the response carries an ETag, a
+     * matching {@code If-None-Match} gets a 304 after only the version probe, and a cache hit is
+     * streamed from disk instead of being rendered again. Exports that do not fit the admission
+     * budgets within a short wait get 429 with Retry-After.
+     */
+    @GetMapping("/export/stream")
+    public ResponseEntity<StreamingResponseBody> streamExcel(@RequestParam(name = "engine", defaultValue = "fastexcel") String requestedEngine,
+                                                             @RequestParam(required = false) String format,
+                                                             @RequestParam(required = false) String department,
+                                                             @RequestParam(defaultValue = "default") String compression,
+                                                             @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                                             WebRequest request) throws IOException {
+        String engine = selectEngine(requestedEngine, format, accept);
+        ExportFormat exportFormat = checkEngine(engine);
+        CompressionProfile compressionProfile = parseCompression(compression);
+        EmployeeDataset dataset = StringUtils.hasText(department) ? employeeDataset.forDepartment(department) : employeeDataset;
+        String filenamePrefix = "employees_" + engine + "_";
+        String cacheKey = exportResultCache.getKey(dataset, engine, compressionProfile, LocaleContextHolder.getLocale());
+        if (cacheKey == null) {
+            return admitted(fileResponse(filenamePrefix, exportFormat), engine, STREAM_ENDPOINT, dataset,
+                outputStream -> spreadsheetExportService.export(engine, dataset, compressionProfile, outputStream));
+        }
+
+        String eTag = exportResultCache.getETag(cacheKey);
+        if (request.checkNotModified(eTag)) {
+            exportMetrics.recordCacheLookup(STREAM_ENDPOINT, "not-modified");
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(CacheControl.noCache().cachePrivate()).build();
+        }
+
+        Optional<ExportResultCache.CachedExport> cached = exportResultCache.open(cacheKey);
+        if (cached.isPresent()) {
+            ExportResultCache.CachedExport export = cached.get();
+            exportMetrics.recordCacheLookup(STREAM_ENDPOINT, "hit");
+            ResponseEntity.BodyBuilder hit = fileResponse(filenamePrefix, exportFormat)
+                .eTag(eTag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .contentLength(export.getSize());
+            return releasedByBody(export::close, export::writeTo, hit::body);
+        }
+
+        ResponseEntity.BodyBuilder response = fileResponse(filenamePrefix, exportFormat)
+            .eTag(eTag)
+            .cacheControl(CacheControl.noCache().cachePrivate());
+        ResponseEntity<StreamingResponseBody> miss = admitted(response, engine, STREAM_ENDPOINT, dataset,
+            outputStream -> exportResultCache.write(cacheKey, outputStream,
+                cacheStream -> spreadsheetExportService.export(engine, dataset, compressionProfile, cacheStream)));
+        exportMetrics.recordCacheLookup(STREAM_ENDPOINT, "miss");
+        return miss;
+    }
+
+    /**
+     * Streams only the employees inserted or updated after the {@code since} cursor (all of them
+     * without one). The cursor to pass next time is returned in the {@code X-Next-Cursor} header;
+     * when nothing changed the response is 204 with the same cursor. Changes younger than
+     * {@code excel.export.delta.max-transaction-duration} are left for the next call. Formats as for
+     * {@code /export/stream}.
+     */
+    @GetMapping("/export/stream/delta")
+    public ResponseEntity<StreamingResponseBody> streamExcelDelta(@RequestParam(name = "engine", defaultValue = "fastexcel") String requestedEngine,
+                                                                  @RequestParam(required = false) String format,
+                                                                  @RequestParam(required = false) String since,
+                                                                  @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        String engine = selectEngine(requestedEngine, format, accept);
+        ExportFormat exportFormat = checkEngine(engine);
+        ExportCursor from = parseCursor(since);
+        ExportCursor until = employeeDataset.getLatestCursor();
+        if (until == null || until.compareTo(from) <= 0) {
+            return ResponseEntity.noContent().header(NEXT_CURSOR_HEADER, from.toString()).build();
+        }
+
+        EmployeeDataset delta = employeeDataset.changedBetween(from, until);
+        ResponseEntity.BodyBuilder response = fileResponse("employees_delta_" + engine + "_", exportFormat)
+            .header(NEXT_CURSOR_HEADER, until.toString());
+        return admitted(response, engine, "/export/stream/delta", delta,
+            outputStream -> spreadsheetExportService.export(engine, delta, outputStream));
+    }
+
+    @GetMapping("/export/stream/poi")
+    public ResponseEntity<StreamingResponseBody> streamExcelPoi() {
+        return createStreamingExcelResponse("poi", "/export/stream/poi", "employees_poi_", excelExportService::exportEmployeesToExcel);
+    }
+
+    @GetMapping("/export/stream/fastexcel")
+    public ResponseEntity<StreamingResponseBody> streamExcelFastExcel() {
+        return createStreamingExcelResponse("fastexcel", "/export/stream/fastexcel", "employees_fastexcel_", fastExcelExportService::exportEmployeesToExcel);
+    }
+
+    @GetMapping("/export/stream/direct")
+    public ResponseEntity<StreamingResponseBody> streamExcelDirect() {
+        return createStreamingExcelResponse("direct", "/export/stream/direct", "employees_direct_", directExcelExportService::exportEmployeesToExcel);
+    }
+
+    @GetMapping("/export/stream/easyexcel")
+    public ResponseEntity<StreamingResponseBody> streamExcelEasyExcel() {
+        return createStreamingExcelResponse("easyexcel", "/export/stream/easyexcel", "employees_easyexcel_", easyExcelExportService::exportEmployeesToExcel);
+    }
+
+    @GetMapping("/export/stream/zip/poi")
+    public ResponseEntity<StreamingResponseBody> streamExcelZipPoi(
+            @RequestParam(defaultValue = "DEFLATED") ZipEntryMode compression) {
+        return createStreamingZipResponse("poi", "employees_poi_",
+            outputStream -> excelExportService.exportEmployeesToExcelZip(outputStream, compression));
+    }
+
+    @GetMapping("/export/stream/zip/fastexcel")
+    public ResponseEntity<StreamingResponseBody> streamExcelZipFastExcel(
+            @RequestParam(defaultValue = "DEFLATED") ZipEntryMode compression) {
+        return createStreamingZipResponse("fastexcel", "employees_fastexcel_",
+            outputStream -> fastExcelExportService.exportEmployeesToExcelZip(outputStream, compression));
+    }
+
+    /**
+     * Same workbook as the JPA-based stream endpoints, but rows are read with a JDBC row callback
+     * and written without building Employee entities.
+     */
+    @GetMapping("/export/stream/jdbc")
+    public ResponseEntity<StreamingResponseBody> streamExcelJdbc(@RequestParam(defaultValue = "fastexcel") String engine) {
+        ExportFormat format = checkEngine(engine);
+        return createStreamingResponse(engine, format, "/export/stream/jdbc", "employees_jdbc_" + engine + "_",
+            outputStream -> jdbcExcelExportService.exportEmployees(engine, outputStream));
+    }
+
+    /**
+     * Rows come from PostgreSQL's {@code COPY ... TO STDOUT} and are parsed straight into the worksheet.
+     */
+    @GetMapping("/export/stream/copy")
+    public ResponseEntity<StreamingResponseBody> streamExcelCopy(@RequestParam(defaultValue = "fastexcel") String engine) {
+        ExportFormat format = checkEngine(engine);
+        return createStreamingResponse(engine, format, "/export/stream/copy", "employees_copy_" + engine + "_",
+            outputStream -> copyExcelExportService.exportEmployees(engine, outputStream));
+    }
+
+    /**
+     * Same rows as {@code /export/stream/jdbc}, written with non-blocking servlet I/O: rows are read
+     * from the cursor only while the response accepts more output, so a slow client throttles the
+     * database read instead of holding a thread. Needs an engine that writes incrementally
+     * (csv, tsv, csv-gzip, spreadsheetml, direct).
+     */
+    @GetMapping("/export/stream/nonblocking")
+    public void streamNonBlocking(@RequestParam(defaultValue = "csv") String engine,
+                                  HttpServletRequest request, HttpServletResponse response) throws IOException, SQLException {
+        if (!jdbcExcelExportService.supportsIncrementalExport(engine)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Engine " + engine + " cannot write incrementally");
+        }
+        ExportAdmissionService.Permit permit = exportAdmissionService.admit(engine, employeeDataset, false);
+        IncrementalExport export;
+        try {
+            export = jdbcExcelExportService.openIncrementalExport(engine);
+        } catch (SQLException | IOException | RuntimeException e) {
+            permit.close();
+            throw e;
+        }
+
+        NonBlockingExportWriter writer = new NonBlockingExportWriter(export, permit, exportMetrics, engine,
+            "/export/stream/nonblocking", NON_BLOCKING_CHUNK_BYTES);
+        try {
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=" + filename("employees_nonblocking_" + engine + "_", export.getFormat()));
+            response.setContentType(export.getFormat().getMediaType());
+            AsyncContext asyncContext = request.startAsync();
+            asyncContext.setTimeout(streamTimeoutMs);
+            writer.start(asyncContext, response.getOutputStream());
+        } catch (IOException | RuntimeException e) {
+            writer.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Same workbook as the per-engine stream endpoints, but rows are fetched by id-range slices in parallel.
+     * {@code layout=SHEETS} writes one worksheet per slice (FastExcel only).
+     */
+    @GetMapping("/export/stream/partitioned")
+    public ResponseEntity<StreamingResponseBody> streamExcelPartitioned(
+            @RequestParam(defaultValue = "fastexcel") String engine,
+            @RequestParam(defaultValue = "MERGED") PartitionLayout layout) {
+        if (!partitionedExportService.supports(engine, layout)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Engine " + engine + " does not support layout " + layout);
+        }
+        ExportFormat format = spreadsheetExportService.getFormat(engine);
+        return createStreamingResponse(engine, format, "/export/stream/partitioned", "employees_" + engine + "_partitioned_",
+            outputStream -> partitionedExportService.exportEmployees(engine, layout, outputStream));
+    }
+
+    /**
+     * @return the format the engine produces
+     */
+    private ExportFormat checkEngine(String engine) {
+        if (!spreadsheetExportService.supports(engine)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                "Unknown engine: " + engine + ", expected one of " + spreadsheetExportService.getEngineNames());
+        }
+        return spreadsheetExportService.getFormat(engine);
+    }
+
+    /**
+     * Engine for the requested format: a {@code format} other than xlsx names the text engine, else
+     * the most preferred concrete media type of the Accept header that some text engine produces
+     * selects it. Otherwise, or for xlsx, the {@code engine} parameter decides.
+     */
+    private String selectEngine(String engine, String format, String accept) {
+        if (StringUtils.hasText(format)) {
+            return format.equalsIgnoreCase(ExportFormat.XLSX.getFileExtension()) ? engine : format;
+        }
+        if (!StringUtils.hasText(accept)) {
+            return engine;
+        }
+
+        List<MediaType> mediaTypes;
+        try {
+            mediaTypes = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return engine;
+        }
+        MediaType.sortBySpecificityAndQuality(mediaTypes);
+        for (MediaType mediaType : mediaTypes) {
+            if (!mediaType.isConcrete()) {
+                continue;
+            }
+            String type = mediaType.getType() + "/" + mediaType.getSubtype();
+            if (type.equalsIgnoreCase(ExportFormat.XLSX.getMediaType())) {
+                return engine;
+            }
+            Optional<String> textEngine = spreadsheetExportService.findEngineByMediaType(type);
+            if (textEngine.isPresent()) {
+                return textEngine.get();
+            }
+        }
+        return engine;
+    }
+
+    private CompressionProfile parseCompression(String compression) {
+        try {
+            return CompressionProfile.parse(compression);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    private ExportCursor parseCursor(String since) {
+        if (!StringUtils.hasText(since)) {
+            return ExportCursor.START;
+        }
+        try {
+            return ExportCursor.parse(since);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Builds a chunked response whose body is rendered by the given writer on the async executor,
+     * so no Content-Length is known up front and nothing is buffered as a byte array. The export is
+     * recorded in the export metrics under the given engine and endpoint.
+     */
+    private ResponseEntity<StreamingResponseBody> createStreamingExcelResponse(String engine, String endpoint,
+                                                                               String filenamePrefix, StreamingResponseBody body) {
+        return createStreamingResponse(engine, ExportFormat.XLSX, endpoint, filenamePrefix, body);
+    }
+
+    private ResponseEntity<StreamingResponseBody> createStreamingResponse(String engine, ExportFormat format, String endpoint,
+                                                                          String filenamePrefix, StreamingResponseBody body) {
+        return admitted(fileResponse(filenamePrefix, format), engine, endpoint, employeeDataset, body);
+    }
+
+    private ResponseEntity.BodyBuilder fileResponse(String filenamePrefix, ExportFormat format) {
+        return ResponseEntity.ok()
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename(filenamePrefix, format))
+            .contentType(MediaType.parseMediaType(format.getMediaType()));
+    }
+
+    private static String filename(String filenamePrefix, ExportFormat format) {
+        return filenamePrefix + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"))
+            + "." + format.getFileExtension();
+    }
+
+    private StreamingResponseBody metered(String engine, String endpoint, StreamingResponseBody body) {
+        return outputStream -> exportMetrics.record(engine, endpoint, outputStream, body::writeTo);
+    }
+
+    /**
+     * Admits the export now and completes the response with its metered body, which releases the
+     * budget once it has been written.
+     * @throws ExportRejectedException if the export budgets are used up
+     */
+    private ResponseEntity<StreamingResponseBody> admitted(ResponseEntity.BodyBuilder response, String engine, String endpoint,
+                                                           ExportDataset<?> dataset, StreamingResponseBody body) {
+        ExportAdmissionService.Permit permit = exportAdmissionService.admit(engine, dataset, false);
+        return releasedByBody(permit::close, metered(engine, endpoint, body), response::body);
+    }
+
+    /**
+     * Builds the response with a body that runs {@code release} when it is done. Only a body that
+     * never started leaves it to the end of the async request, e.g. when the executor rejected it
+     * or the request timed out while it was queued; the body is then skipped should it start later.
+     * Runs it right away if building the response fails, since the request then never goes async.
+     */
+    private ResponseEntity<StreamingResponseBody> releasedByBody(Runnable release, StreamingResponseBody body,
+                                                                 Function<StreamingResponseBody, ResponseEntity<StreamingResponseBody>> response) {
+        AtomicBoolean started = new AtomicBoolean();
+        Runnable releaseUnstarted = () -> {
+            if (started.compareAndSet(false, true)) {
+                release.run();
+            }
+        };
+        try {
+            HttpServletRequest request = ((ServletRequestAttributes) RequestContextHolder.currentRequestAttributes()).getRequest();
+            WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor(release, new CallableProcessingInterceptor() {
+                @Override
+                public <T> void afterCompletion(NativeWebRequest webRequest, Callable<T> task) {
+                    releaseUnstarted.run();
+                }
+            });
+            return response.apply(outputStream -> {
+                if (!started.compareAndSet(false, true)) {
+                    return;
+                }
+                try {
+                    body.writeTo(outputStream);
+                } finally {
+                    release.run();
+                }
+            });
+        } catch (RuntimeException e) {
+            releaseUnstarted.run();
+            throw e;
+        }
+    }
+
+    /**
+     * Renders an export of the employee table into a byte array once it is admitted
+     */
+    private byte[] buffered(String engine, String endpoint, ExportMetrics.BufferedExport export) throws IOException {
+        try (ExportAdmissionService.Permit permit = exportAdmissionService.admit(engine, employeeDataset, true)) {
+            return exportMetrics.recordBuffered(engine, endpoint, export);
+        }
+    }
+
+    @ExceptionHandler(ExportRejectedException.class)
+    public ResponseEntity<Void> handleExportRejected(ExportRejectedException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+            .build();
+    }
+
+    /**
+     * The export would spool more to disk than the SXSSF temp file quotas allow
+     */
+    @ExceptionHandler(TempStorageQuotaExceededException.class)
+    public ResponseEntity<Void> handleTempStorageQuotaExceeded() {
+        return ResponseEntity.status(HttpStatus.INSUFFICIENT_STORAGE).build();
+    }
+
+    private ResponseEntity<StreamingResponseBody> createStreamingZipResponse(String engine, String filenamePrefix, StreamingResponseBody body) {
+        String filename = filenamePrefix + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + ".zip";
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename)
+            .contentType(MediaType.parseMediaType("application/zip"));
+        return admitted(response, engine, "/export/stream/zip", employeeDataset, body);
+    }
+
     // Employee Endpoints
     @GetMapping("/employees")
     public List<Employee> getAllEmployees() {
@@ -0,0 +1,86 @@
+package com.example.excelexport.controller;
+
+import com.example.excelexport.dto.ExportJobRequest;
+import com.example.excelexport.dto.ExportJobStatus;
+import com.example.excelexport.service.ExportJob;
+import com.example.excelexport.service.ExportJobService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.net.URI;
+
+@RestController
+@RequestMapping("/api/excel/jobs")
+@RequiredArgsConstructor
+public class ExportJobController {
+
+    private static final String JOBS_PATH = "/api/excel/jobs/";
+
+    private final ExportJobService exportJobService;
+
+    /**
+     * Queues an export job; poll the returned Location for progress
+     */
+    @PostMapping
+    public ResponseEntity<ExportJobStatus> submitJob(@RequestBody ExportJobRequest request) {
+        ExportJob job;
+        try {
+            job = exportJobService.submit(request);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        } catch (TaskRejectedException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Export queue is full, retry later", e);
+        }
+
+        return ResponseEntity.accepted()
+            .location(URI.create(JOBS_PATH + job.getId()))
+            .body(toStatus(job));
+    }
+
+    @GetMapping("/{id}")
+    public ExportJobStatus getJob(@PathVariable String id) {
+        return toStatus(findJob(id));
+    }
+
+    @GetMapping("/{id}/download")
+    public ResponseEntity<Resource> downloadJob(@PathVariable String id) {
+        ExportJob job = findJob(id);
+        if (job.getState() != ExportJob.State.COMPLETED) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Export job is " + job.getState());
+        }
+
+        return ResponseEntity.ok()
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + exportJobService.getDownloadFilename(job))
+            .contentType(MediaType.parseMediaType(job.getMediaType()))
+            .body(new FileSystemResource(job.getFile()));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteJob(@PathVariable String id) {
+        if (!exportJobService.cancel(id)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Export job not found: " + id);
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    private ExportJob findJob(String id) {
+        return exportJobService.getJob(id)
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Export job not found: " + id));
+    }
+
+    private ExportJobStatus toStatus(ExportJob job) {
+        ExportJobStatus status = exportJobService.toStatus(job);
+        if (job.getState() == ExportJob.State.COMPLETED) {
+            status.setDownloadUrl(JOBS_PATH + job.getId() + "/download");
+        }
+        return status;
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.excelexport.controller;
+
+import com.example.excelexport.metrics.ExportMetrics;
+import com.example.excelexport.metrics.ExportRecording;
+import com.example.excelexport.service.ExportAdmissionService;
+import com.example.excelexport.service.IncrementalExport;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Writes an {@link IncrementalExport} with Servlet 3.1 non-blocking I/O. Whenever the container
+ * reports the response writable, the pending chunk is written and the next one rendered; once the
+ * response stops accepting data the listener returns and the container calls back when the client
+ * has caught up. A slow client thus throttles the database cursor, and no thread waits for it.
+ * The export and its admission permit are released when the request completes, fails or times out.
+ * The export is recorded in the export metrics from the first write callback until then.
+ */
+@Slf4j
+class NonBlockingExportWriter implements WriteListener, AsyncListener {
+
+    private final IncrementalExport export;
+    private final ExportAdmissionService.Permit permit;
+    private final ExportMetrics exportMetrics;
+    private final String engine;
+    private final String endpoint;
+    private final int chunkBytes;
+    private AsyncContext asyncContext;
+    private ServletOutputStream outputStream;
+    private ExportRecording recording;
+    private OutputStream meteredStream;
+    private long rowsRecorded;
+
+    NonBlockingExportWriter(IncrementalExport export, ExportAdmissionService.Permit permit,
+                            ExportMetrics exportMetrics, String engine, String endpoint, int chunkBytes) {
+        this.export = export;
+        this.permit = permit;
+        this.exportMetrics = exportMetrics;
+        this.engine = engine;
+        this.endpoint = endpoint;
+        this.chunkBytes = chunkBytes;
+    }
+
+    /**
+     * Starts writing to the response of the given async request
+     */
+    void start(AsyncContext asyncContext, ServletOutputStream outputStream) {
+        this.asyncContext = asyncContext;
+        this.outputStream = outputStream;
+        asyncContext.addListener(this);
+        outputStream.setWriteListener(this);
+    }
+
+    @Override
+    public void onWritePossible() throws IOException {
+        if (recording == null) {
+            recording = exportMetrics.startDetached(engine, endpoint);
+            meteredStream = recording.wrap(outputStream);
+        }
+        while (outputStream.isReady()) {
+            if (export.hasPending()) {
+                export.writePendingTo(meteredStream);
+            } else if (export.isComplete()) {
+                recording.renderFinished();
+                recording.succeeded();
+                asyncContext.complete();
+                return;
+            } else {
+                export.render(chunkBytes);
+                recording.rowsWritten(export.getRowCount() - rowsRecorded);
+                rowsRecorded = export.getRowCount();
+            }
+        }
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        log.warn("Non-blocking export failed after {} rows", export.getRowCount(), t);
+        failed(t);
+        close();
+    }
+
+    @Override
+    public void onComplete(AsyncEvent event) {
+        close();
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {
+        log.warn("Non-blocking export timed out after {} rows", export.getRowCount());
+        failed(new TimeoutException("Async request timed out"));
+        close();
+        event.getAsyncContext().complete();
+    }
+
+    @Override
+    public void onError(AsyncEvent event) {
+        failed(event.getThrowable());
+        close();
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+    }
+
+    void close() {
+        try (permit) {
+            export.close();
+        } finally {
+            if (recording != null) {
+                recording.close();
+            }
+        }
+    }
+
+    private void failed(Throwable error) {
+        if (recording != null) {
+            recording.failed(error);
+        }
+    }
+}
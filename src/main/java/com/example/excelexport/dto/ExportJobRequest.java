@@ -0,0 +1,21 @@
+package com.example.excelexport.dto;
+
+import lombok.Data;
+
+@Data
+public class ExportJobRequest {
+    /**
+     * Name of an export engine, e.g. fastexcel, poi or csv
+     */
+    private String engine = "fastexcel";
+
+    /**
+     * zip, or the engine's own format (xlsx, csv, tsv or csv.gz), which is the default
+     */
+    private String format;
+
+    /**
+     * Optional filter; exports every employee when empty
+     */
+    private String department;
+}
@@ -0,0 +1,24 @@
+package com.example.excelexport.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+@Builder
+public class ExportJobStatus {
+    private String id;
+    private String state;
+    private String engine;
+    private String format;
+    private String department;
+    private long rowsWritten;
+    private long totalRows;
+    private Long fileSize;
+    private Instant createdAt;
+    private Instant finishedAt;
+    private Instant expiresAt;
+    private String error;
+    private String downloadUrl;
+}
@@ -1,16 +1,22 @@
 package com.example.excelexport.entity;
 
+import com.alibaba.excel.annotation.ExcelIgnore;
 import com.alibaba.excel.annotation.ExcelProperty;
 import com.alibaba.excel.annotation.write.style.ColumnWidth;
-import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
-import jakarta.persistence.Id;
-import jakarta.persistence.Table;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
 import lombok.Data;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.Instant;
 
 @Entity
-@Table(name = "employees")
+@Table(name = "employees", indexes = @Index(name = "idx_employees_updated_at_id", columnList = "updated_at, id"))
 @Data
 public class Employee {
     
@@ -38,4 +44,14 @@ public class Employee {
     @ExcelProperty("Salary")
     @ColumnWidth(15)
     private Double salary;
+
+    /**
+     * Last insert or update, the change order of delta exports. Set by Hibernate on every write and
+     * by the column default for rows inserted with plain SQL; updates made with plain SQL must set it.
+     * It is the time of the write, not of the commit, so a row can become visible behind newer ones.
+     */
+    @UpdateTimestamp
+    @Column(name = "updated_at", nullable = false, columnDefinition = "timestamp with time zone default current_timestamp")
+    @ExcelIgnore
+    private Instant updatedAt;
 }
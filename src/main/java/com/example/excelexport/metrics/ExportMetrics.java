@@ -0,0 +1,276 @@
+package com.example.excelexport.metrics;
+
+import com.example.excelexport.service.writer.SxssfTempStorage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Micrometer instrumentation of exports, published through Actuator. Every meter is tagged with
+ * {@code engine} and {@code endpoint}:
+ * <ul>
+ *   <li>{@code excel.export.active} - exports in progress</li>
+ *   <li>{@code excel.export.duration} - whole export, tagged {@code outcome}</li>
+ *   <li>{@code excel.export.phase} - tagged {@code phase}: query-open, first-row, render, compression, response-write</li>
+ *   <li>{@code excel.export.failures} - tagged {@code exception}</li>
+ *   <li>{@code excel.export.rows}, {@code excel.export.throughput} (rows per second)</li>
+ *   <li>{@code excel.export.output.bytes}, {@code excel.export.temp.bytes} (SXSSF temp files)</li>
+ * </ul>
+ * plus {@code excel.export.cache}, result cache lookups tagged {@code endpoint} and {@code result}
+ * (hit, miss, not-modified), {@code excel.export.admission}, admission decisions tagged {@code engine} and
+ * {@code result} (admitted, queued, rejected), and the {@code excel.export.admission.memory} and
+ * {@code excel.export.admission.threads} gauges of what admitted exports reserve,
+ * {@code excel.export.virtual.pinned}, virtual threads pinned to their carrier, tagged {@code site}, and
+ * the {@code excel.export.temp.usage} and {@code excel.export.temp.files} gauges and
+ * {@code excel.export.temp.rejected} counter of the SXSSF temp storage.
+ * Entry points (controllers, background jobs) open an {@link ExportRecording} with {@link #start};
+ * the writing code reports progress to {@link #current()}, the recording of the export running on
+ * the calling thread, without having to be handed one.
+ */
+@Component
+public class ExportMetrics {
+
+    private static final ThreadLocal<ExportRecording> CURRENT = new ThreadLocal<>();
+
+    private final MeterRegistry meterRegistry;
+    private final Map<Tags, AtomicInteger> activeExports = new ConcurrentHashMap<>();
+
+    public ExportMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Recording of the export running on this thread, or a no-op recording outside of one
+     */
+    public static ExportRecording current() {
+        ExportRecording recording = CURRENT.get();
+        return recording == null ? ExportRecording.NONE : recording;
+    }
+
+    /**
+     * Starts recording an export on the calling thread. Close the recording on the same thread.
+     */
+    public ExportRecording start(String engine, String endpoint) {
+        Tags tags = Tags.of("engine", engine, "endpoint", endpoint);
+        AtomicInteger active = activate(tags);
+
+        ExportRecording recording = new ExportRecording(this, tags, active, CURRENT.get(), true);
+        CURRENT.set(recording);
+        return recording;
+    }
+
+    /**
+     * Starts recording an export whose callbacks run on whatever thread the container picks, such
+     * as a non-blocking one. It never becomes the {@link #current()} recording, so the writing code
+     * has to report to it directly; it can be closed on any thread.
+     */
+    public ExportRecording startDetached(String engine, String endpoint) {
+        Tags tags = Tags.of("engine", engine, "endpoint", endpoint);
+        AtomicInteger active = activate(tags);
+        return new ExportRecording(this, tags, active, null, false);
+    }
+
+    /**
+     * Records an export written by {@code body}; the output stream it gets counts bytes and write time.
+     */
+    public void record(String engine, String endpoint, OutputStream outputStream, ExportBody body) throws IOException {
+        try (ExportRecording recording = start(engine, endpoint)) {
+            try {
+                body.writeTo(recording.wrap(outputStream));
+                recording.succeeded();
+            } catch (IOException | RuntimeException | Error e) {
+                recording.failed(e);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Records an export that is rendered into a byte array before it is sent.
+     */
+    public byte[] recordBuffered(String engine, String endpoint, BufferedExport export) throws IOException {
+        try (ExportRecording recording = start(engine, endpoint)) {
+            try {
+                byte[] content = export.get();
+                recording.outputBytes(content.length);
+                recording.succeeded();
+                return content;
+            } catch (IOException | RuntimeException | Error e) {
+                recording.failed(e);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Counts one lookup in the export result cache
+     */
+    public void recordCacheLookup(String endpoint, String result) {
+        Counter.builder("excel.export.cache")
+            .description("Export result cache lookups")
+            .tag("endpoint", endpoint)
+            .tag("result", result)
+            .register(meterRegistry)
+            .increment();
+    }
+
+    /**
+     * Counts one admission decision; {@code queued} exports were admitted after waiting
+     */
+    public void recordAdmission(String engine, String result) {
+        Counter.builder("excel.export.admission")
+            .description("Export admission decisions")
+            .tag("engine", engine)
+            .tag("result", result)
+            .register(meterRegistry)
+            .increment();
+    }
+
+    /**
+     * Registers the gauges of the memory and threads reserved by admitted exports
+     */
+    public void registerAdmissionGauges(Supplier<Number> memoryBytes, Supplier<Number> threads) {
+        Gauge.builder("excel.export.admission.memory", memoryBytes)
+            .description("Estimated memory reserved by admitted exports")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+        Gauge.builder("excel.export.admission.threads", threads)
+            .description("Threads reserved by admitted exports")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Registers the gauges of the bytes and files SXSSF workbooks hold in the temp storage, and the
+     * counter of workbooks its quotas failed, tagged {@code quota}
+     */
+    public void registerTempStorage(SxssfTempStorage storage) {
+        Gauge.builder("excel.export.temp.usage", storage, SxssfTempStorage::getBytesInUse)
+            .description("Bytes SXSSF workbooks currently hold in temp files")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+        Gauge.builder("excel.export.temp.files", storage, SxssfTempStorage::getFilesInUse)
+            .description("SXSSF temp files not yet deleted")
+            .register(meterRegistry);
+        FunctionCounter.builder("excel.export.temp.rejected", storage, SxssfTempStorage::getExportQuotaRejections)
+            .description("SXSSF workbooks failed by a temp file quota")
+            .tag("quota", "export")
+            .register(meterRegistry);
+        FunctionCounter.builder("excel.export.temp.rejected", storage, SxssfTempStorage::getGlobalQuotaRejections)
+            .description("SXSSF workbooks failed by a temp file quota")
+            .tag("quota", "global")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Records a virtual thread that blocked while pinned to its carrier at the given code site
+     */
+    public void recordPinnedThread(String site, Duration duration) {
+        Timer.builder("excel.export.virtual.pinned")
+            .description("Time virtual threads blocked while pinned to their carrier thread")
+            .tag("site", site)
+            .register(meterRegistry)
+            .record(duration);
+    }
+
+    private AtomicInteger activate(Tags tags) {
+        AtomicInteger active = activeExports.computeIfAbsent(tags,
+            key -> meterRegistry.gauge("excel.export.active", key, new AtomicInteger()));
+        active.incrementAndGet();
+        return active;
+    }
+
+    void restore(ExportRecording previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    void recordPhase(Tags tags, String phase, long nanos) {
+        Timer.builder("excel.export.phase")
+            .description("Time spent in one phase of an export")
+            .tags(tags)
+            .tag("phase", phase)
+            .register(meterRegistry)
+            .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void recordDuration(Tags tags, String outcome, long nanos) {
+        Timer.builder("excel.export.duration")
+            .description("Total time of an export")
+            .tags(tags)
+            .tag("outcome", outcome)
+            .publishPercentileHistogram()
+            .maximumExpectedValue(Duration.ofMinutes(30))
+            .register(meterRegistry)
+            .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void recordFailure(Tags tags, Throwable error) {
+        Counter.builder("excel.export.failures")
+            .description("Exports that ended with an exception")
+            .tags(tags)
+            .tag("exception", error == null ? "none" : error.getClass().getSimpleName())
+            .register(meterRegistry)
+            .increment();
+    }
+
+    void recordRows(Tags tags, long rows, long nanos) {
+        Counter.builder("excel.export.rows")
+            .description("Data rows written")
+            .tags(tags)
+            .register(meterRegistry)
+            .increment(rows);
+        if (nanos > 0) {
+            DistributionSummary.builder("excel.export.throughput")
+                .description("Rows written per second of export time")
+                .baseUnit("rows/s")
+                .tags(tags)
+                .register(meterRegistry)
+                .record(rows * 1e9 / nanos);
+        }
+    }
+
+    void recordOutputBytes(Tags tags, long bytes) {
+        DistributionSummary.builder("excel.export.output.bytes")
+            .description("Size of the produced file")
+            .baseUnit("bytes")
+            .tags(tags)
+            .register(meterRegistry)
+            .record(bytes);
+    }
+
+    void recordTempFileBytes(Tags tags, long bytes) {
+        DistributionSummary.builder("excel.export.temp.bytes")
+            .description("Bytes spooled to SXSSF temp files")
+            .baseUnit("bytes")
+            .tags(tags)
+            .register(meterRegistry)
+            .record(bytes);
+    }
+
+    @FunctionalInterface
+    public interface ExportBody {
+        void writeTo(OutputStream outputStream) throws IOException;
+    }
+
+    @FunctionalInterface
+    public interface BufferedExport {
+        byte[] get() throws IOException;
+    }
+}
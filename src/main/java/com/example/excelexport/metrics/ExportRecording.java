@@ -0,0 +1,200 @@
+package com.example.excelexport.metrics;
+
+import com.example.excelexport.service.writer.SheetWriter;
+import io.micrometer.core.instrument.Tags;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Timestamps and counters of one export, published when it is closed. Phases are measured between
+ * the marks the writing code sets; a mark that is never set skips its phase. Rendering overlaps
+ * with response-write for engines that stream while rendering, and compression is the final
+ * workbook write. Not thread-safe: used by the thread running the export, or by one callback at a
+ * time for a {@linkplain ExportMetrics#startDetached detached} recording.
+ */
+public class ExportRecording implements AutoCloseable {
+
+    /**
+     * Recording used outside of a recorded export; ignores every call
+     */
+    static final ExportRecording NONE = new ExportRecording(null, Tags.empty(), null, null, false);
+
+    private final ExportMetrics metrics;
+    private final Tags tags;
+    private final AtomicInteger active;
+    private final ExportRecording previous;
+    /**
+     * Whether this is the current recording of the thread that started it
+     */
+    private final boolean bound;
+
+    private final long startNanos = System.nanoTime();
+    private long queryOpenedNanos;
+    private long firstRowNanos;
+    private long renderFinishedNanos;
+    private long finishedNanos;
+
+    private long rows;
+    private long outputBytes;
+    private long writeNanos;
+    private long tempFileBytes;
+    private boolean wrapped;
+
+    private boolean succeeded;
+    private Throwable error;
+    private boolean closed;
+
+    ExportRecording(ExportMetrics metrics, Tags tags, AtomicInteger active, ExportRecording previous, boolean bound) {
+        this.metrics = metrics;
+        this.tags = tags;
+        this.active = active;
+        this.previous = previous;
+        this.bound = bound;
+    }
+
+    /**
+     * Output stream that counts the bytes written to {@code out} and the time spent writing them
+     */
+    public OutputStream wrap(OutputStream out) {
+        if (metrics == null) {
+            return out;
+        }
+        wrapped = true;
+        return new MeteredOutputStream(out);
+    }
+
+    /**
+     * Sheet writer that reports rows, the first row and the finish phases of {@code writer}
+     */
+    public SheetWriter meter(SheetWriter writer) {
+        return metrics == null ? writer : new MeteredSheetWriter(writer, this);
+    }
+
+    /**
+     * The row source is open; only the first call counts
+     */
+    public void queryOpened() {
+        if (queryOpenedNanos == 0) {
+            queryOpenedNanos = System.nanoTime();
+        }
+    }
+
+    public void rowWritten() {
+        if (rows++ == 0) {
+            firstRowNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * Rows the caller counted itself, such as a renderer that writes several at a time
+     */
+    public void rowsWritten(long count) {
+        if (count > 0 && rows == 0) {
+            firstRowNanos = System.nanoTime();
+        }
+        rows += count;
+    }
+
+    /**
+     * Every row has been handed to the engine; what follows is the final workbook write
+     */
+    public void renderFinished() {
+        renderFinishedNanos = System.nanoTime();
+    }
+
+    public void finished() {
+        finishedNanos = System.nanoTime();
+    }
+
+    public void tempFileBytes(long bytes) {
+        tempFileBytes += bytes;
+    }
+
+    void outputBytes(long bytes) {
+        outputBytes += bytes;
+    }
+
+    public void succeeded() {
+        succeeded = true;
+    }
+
+    public void failed(Throwable error) {
+        this.error = error;
+    }
+
+    @Override
+    public void close() {
+        if (metrics == null || closed) {
+            return;
+        }
+        closed = true;
+        long endNanos = System.nanoTime();
+        try {
+            long mark = startNanos;
+            if (queryOpenedNanos != 0) {
+                metrics.recordPhase(tags, "query-open", queryOpenedNanos - mark);
+                mark = queryOpenedNanos;
+            }
+            if (firstRowNanos != 0) {
+                metrics.recordPhase(tags, "first-row", firstRowNanos - mark);
+                mark = firstRowNanos;
+            }
+            if (renderFinishedNanos != 0) {
+                metrics.recordPhase(tags, "render", renderFinishedNanos - mark);
+                if (finishedNanos != 0) {
+                    metrics.recordPhase(tags, "compression", finishedNanos - renderFinishedNanos);
+                }
+            }
+            if (wrapped) {
+                metrics.recordPhase(tags, "response-write", writeNanos);
+            }
+
+            metrics.recordDuration(tags, succeeded ? "success" : "failure", endNanos - startNanos);
+            if (succeeded) {
+                metrics.recordRows(tags, rows, endNanos - startNanos);
+                metrics.recordOutputBytes(tags, outputBytes);
+                metrics.recordTempFileBytes(tags, tempFileBytes);
+            } else {
+                metrics.recordFailure(tags, error);
+            }
+        } finally {
+            active.decrementAndGet();
+            if (bound) {
+                metrics.restore(previous);
+            }
+        }
+    }
+
+    private final class MeteredOutputStream extends FilterOutputStream {
+
+        MeteredOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            long start = System.nanoTime();
+            out.write(b);
+            writeNanos += System.nanoTime() - start;
+            outputBytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            long start = System.nanoTime();
+            out.write(b, off, len);
+            writeNanos += System.nanoTime() - start;
+            outputBytes += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            long start = System.nanoTime();
+            out.flush();
+            writeNanos += System.nanoTime() - start;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.excelexport.metrics;
+
+import com.example.excelexport.service.writer.SheetWriter;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Reports the progress of a {@link SheetWriter} to an {@link ExportRecording}.
+ */
+class MeteredSheetWriter implements SheetWriter {
+
+    private final SheetWriter delegate;
+    private final ExportRecording recording;
+
+    MeteredSheetWriter(SheetWriter delegate, ExportRecording recording) {
+        this.delegate = delegate;
+        this.recording = recording;
+    }
+
+    @Override
+    public void writeHeader(List<String> headers) throws IOException {
+        delegate.writeHeader(headers);
+    }
+
+    @Override
+    public void setColumnFormat(int column, String numberFormat) {
+        delegate.setColumnFormat(column, numberFormat);
+    }
+
+    @Override
+    public void startRow() throws IOException {
+        // Row sources that push rows (JDBC, COPY) are open once the first row arrives
+        recording.queryOpened();
+        delegate.startRow();
+    }
+
+    @Override
+    public void writeNumber(long value) {
+        delegate.writeNumber(value);
+    }
+
+    @Override
+    public void writeNumber(double value) {
+        delegate.writeNumber(value);
+    }
+
+    @Override
+    public void writeString(String value) {
+        delegate.writeString(value);
+    }
+
+    @Override
+    public void writeBlank() {
+        delegate.writeBlank();
+    }
+
+    @Override
+    public void endRow() throws IOException {
+        delegate.endRow();
+        recording.rowWritten();
+    }
+
+    @Override
+    public void startSheet(String sheetName) throws IOException {
+        delegate.startSheet(sheetName);
+    }
+
+    @Override
+    public long getRowCount() {
+        return delegate.getRowCount();
+    }
+
+    @Override
+    public long getTempFileBytes() {
+        return delegate.getTempFileBytes();
+    }
+
+    @Override
+    public void finish() throws IOException {
+        recording.queryOpened();
+        recording.renderFinished();
+        delegate.finish();
+        recording.tempFileBytes(delegate.getTempFileBytes());
+        recording.finished();
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+}
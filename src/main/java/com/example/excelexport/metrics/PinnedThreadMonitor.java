@@ -0,0 +1,119 @@
+package com.example.excelexport.metrics;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Reports virtual threads that block while pinned to their carrier thread, e.g. inside a
+ * {@code synchronized} block around JDBC or file I/O, from the JFR {@code jdk.VirtualThreadPinned}
+ * events of this JVM. Each pinning is timed in {@code excel.export.virtual.pinned}, tagged with the
+ * first frame outside the JDK; the first pinning at a site is logged with its stack trace.
+ * <p>
+ * JFR event streaming is Java 14+ API, so the recording stream is driven reflectively; on a JVM
+ * without it, or until it is started, the monitor does nothing.
+ */
+@Slf4j
+public class PinnedThreadMonitor implements AutoCloseable {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int LOGGED_FRAMES = 16;
+
+    private final ExportMetrics exportMetrics;
+    private final Set<String> loggedSites = ConcurrentHashMap.newKeySet();
+    private AutoCloseable recordingStream;
+
+    public PinnedThreadMonitor(ExportMetrics exportMetrics) {
+        this.exportMetrics = exportMetrics;
+    }
+
+    /**
+     * Starts streaming pinned events that lasted at least {@code threshold}
+     */
+    public synchronized void start(Duration threshold) {
+        if (recordingStream == null) {
+            recordingStream = startRecordingStream(threshold);
+        }
+    }
+
+    private AutoCloseable startRecordingStream(Duration threshold) {
+        try {
+            Class<?> streamClass = Class.forName("jdk.jfr.consumer.RecordingStream");
+            Class<?> settingsClass = Class.forName("jdk.jfr.EventSettings");
+            AutoCloseable stream = (AutoCloseable) streamClass.getConstructor().newInstance();
+            Object settings = streamClass.getMethod("enable", String.class).invoke(stream, PINNED_EVENT);
+            settings = settingsClass.getMethod("withThreshold", Duration.class).invoke(settings, threshold);
+            settingsClass.getMethod("withStackTrace").invoke(settings);
+            Consumer<RecordedEvent> handler = this::report;
+            streamClass.getMethod("onEvent", String.class, Consumer.class).invoke(stream, PINNED_EVENT, handler);
+            streamClass.getMethod("startAsync").invoke(stream);
+            return stream;
+        } catch (ReflectiveOperationException e) {
+            log.warn("JFR event streaming is not available, pinned virtual threads will not be reported", e);
+            return null;
+        }
+    }
+
+    void report(RecordedEvent event) {
+        RecordedStackTrace stackTrace = event.getStackTrace();
+        String site = getSite(stackTrace);
+        exportMetrics.recordPinnedThread(site, event.getDuration());
+        if (loggedSites.add(site)) {
+            log.warn("Virtual thread pinned to its carrier for {} ms at {}{}",
+                event.getDuration().toMillis(), site, formatFrames(stackTrace));
+        } else {
+            log.debug("Virtual thread pinned to its carrier for {} ms at {}", event.getDuration().toMillis(), site);
+        }
+    }
+
+    /**
+     * The first frame outside the JDK: the application or library code holding the monitor or
+     * making the native call
+     */
+    static String getSite(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return "unknown";
+        }
+        for (RecordedFrame frame : stackTrace.getFrames()) {
+            if (frame.getMethod() == null) {
+                continue;
+            }
+            String type = frame.getMethod().getType().getName();
+            if (!type.startsWith("java.") && !type.startsWith("jdk.") && !type.startsWith("sun.")) {
+                return type + "." + frame.getMethod().getName();
+            }
+        }
+        return "jdk";
+    }
+
+    private static String formatFrames(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return "";
+        }
+        StringBuilder frames = new StringBuilder();
+        List<RecordedFrame> recorded = stackTrace.getFrames();
+        for (RecordedFrame frame : recorded.subList(0, Math.min(LOGGED_FRAMES, recorded.size()))) {
+            if (frame.getMethod() == null) {
+                continue;
+            }
+            frames.append("\n\tat ").append(frame.getMethod().getType().getName())
+                .append('.').append(frame.getMethod().getName())
+                .append(':').append(frame.getLineNumber());
+        }
+        return frames.toString();
+    }
+
+    @Override
+    public synchronized void close() throws Exception {
+        if (recordingStream != null) {
+            recordingStream.close();
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.example.excelexport.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates a {@code <DTO>ExcelRowWriter} for every class with {@code @ExcelColumn} fields. The
+ * writer reads each column through its getter (Lombok naming: {@code isX} for primitive booleans,
+ * {@code getX} otherwise) or directly when the field is not private, and writes it with the typed
+ * cell call for its declared type, so primitives are never boxed and no dispatch happens per cell.
+ * Only types without a specialized write go through {@code ExcelRowContext.writeValue}.
+ * <p>
+ * The cell values match the runtime path of {@code AnnotationExcelExportService}. Compiled in its
+ * own execution ahead of {@code default-compile}; see the compiler plugin setup in pom.xml.
+ */
+@SupportedAnnotationTypes(ExcelColumnProcessor.EXCEL_COLUMN)
+public class ExcelColumnProcessor extends AbstractProcessor {
+
+    static final String EXCEL_COLUMN = "com.example.excelexport.annotation.ExcelColumn";
+    static final String WRITER_SUFFIX = "ExcelRowWriter";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            Map<TypeElement, List<VariableElement>> fieldsByType = new LinkedHashMap<>();
+            for (VariableElement field : ElementFilter.fieldsIn(roundEnv.getElementsAnnotatedWith(annotation))) {
+                fieldsByType.computeIfAbsent((TypeElement) field.getEnclosingElement(), type -> new ArrayList<>()).add(field);
+            }
+            fieldsByType.forEach(this::generateWriter);
+        }
+        return false;
+    }
+
+    private void generateWriter(TypeElement type, List<VariableElement> fields) {
+        if (!isAccessible(type)) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                "Not generating an ExcelRowWriter for inaccessible " + type + "; the runtime path will be used", type);
+            return;
+        }
+
+        // Stable sort keeps declaration order for equal order() values, like the runtime path
+        List<VariableElement> columns = new ArrayList<>(fields);
+        columns.sort(Comparator.comparingInt(field -> intValue(field, "order")));
+
+        String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        String writerName = writerSimpleName(type);
+        String typeName = type.getQualifiedName().toString();
+
+        try {
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(
+                packageName.isEmpty() ? writerName : packageName + "." + writerName, type);
+            try (PrintWriter out = new PrintWriter(file.openWriter())) {
+                if (!packageName.isEmpty()) {
+                    out.println("package " + packageName + ";");
+                    out.println();
+                }
+                out.println("@javax.annotation.processing.Generated(\"" + getClass().getName() + "\")");
+                out.println("public final class " + writerName
+                    + " implements com.example.excelexport.annotation.ExcelRowWriter<" + typeName + "> {");
+                out.println();
+                out.print("    private static final String[] FIELD_NAMES = {");
+                for (int i = 0; i < columns.size(); i++) {
+                    out.print((i == 0 ? "" : ", ") + "\"" + columns.get(i).getSimpleName() + "\"");
+                }
+                out.println("};");
+                out.println();
+                out.println("    @Override");
+                out.println("    public String[] getFieldNames() {");
+                out.println("        return FIELD_NAMES.clone();");
+                out.println("    }");
+                out.println();
+                out.println("    @Override");
+                out.println("    public void writeRow(org.apache.poi.ss.usermodel.Row row, " + typeName + " item,");
+                out.println("                         com.example.excelexport.annotation.ExcelRowContext context) {");
+                for (int i = 0; i < columns.size(); i++) {
+                    writeColumn(out, i, columns.get(i), type);
+                }
+                out.println("    }");
+                out.println("}");
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                "Could not generate " + writerName + ": " + e.getMessage(), type);
+        }
+    }
+
+    private void writeColumn(PrintWriter out, int column, VariableElement field, TypeElement type) {
+        TypeMirror fieldType = field.asType();
+        String cell = "cell" + column;
+        String value = "value" + column;
+
+        out.println("        org.apache.poi.ss.usermodel.Cell " + cell + " = row.createCell(" + column + ");");
+        out.println("        " + fieldType + " " + value + " = " + accessor(field, type) + ";");
+
+        TypeKind kind = fieldType.getKind();
+        String write;
+        if (kind == TypeKind.BOOLEAN || isSubtype(fieldType, "java.lang.Boolean")) {
+            write = cell + ".setCellValue(" + (kind.isPrimitive() ? value : value + ".booleanValue()") + ");";
+        } else if (kind == TypeKind.CHAR) {
+            write = cell + ".setCellValue(String.valueOf(" + value + "));";
+        } else if (isNumber(fieldType)) {
+            String number = kind.isPrimitive() ? "(double) " + value : value + ".doubleValue()";
+            write = cell + ".setCellValue(" + number + ");";
+            if (booleanValue(field, "isAmount")) {
+                write += "\n" + indent(fieldType) + cell + ".setCellStyle(context.getAmountStyle(" + column + "));";
+            }
+        } else if (isSubtype(fieldType, "java.lang.String")) {
+            write = cell + ".setCellValue(" + value + ");";
+        } else if (isSubtype(fieldType, "java.util.Date")
+                || isSubtype(fieldType, "java.time.LocalDate")
+                || isSubtype(fieldType, "java.time.LocalDateTime")) {
+            write = "context.setDate(" + cell + ", " + column + ", " + value + ");";
+        } else {
+            // java.time types Excel has no native form for, Object-typed fields, enums, ...
+            write = "context.writeValue(" + cell + ", " + column + ", " + value + ");";
+        }
+
+        if (fieldType.getKind().isPrimitive()) {
+            out.println("        " + write);
+        } else {
+            out.println("        if (" + value + " != null) {");
+            out.println("            " + write);
+            out.println("        }");
+        }
+    }
+
+    private static String indent(TypeMirror fieldType) {
+        return fieldType.getKind().isPrimitive() ? "        " : "            ";
+    }
+
+    private String accessor(VariableElement field, TypeElement type) {
+        String name = field.getSimpleName().toString();
+        if (!field.getModifiers().contains(Modifier.PRIVATE)) {
+            return "item." + name;
+        }
+        String suffix = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        String getter = (field.asType().getKind() == TypeKind.BOOLEAN ? "is" : "get") + suffix;
+
+        // Prefer a declared getter; otherwise assume Lombok generates one with the conventional name
+        for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+            String methodName = method.getSimpleName().toString();
+            if (method.getParameters().isEmpty()
+                    && (methodName.equals("get" + suffix) || methodName.equals("is" + suffix))
+                    && processingEnv.getTypeUtils().isSameType(method.getReturnType(), field.asType())) {
+                return "item." + methodName + "()";
+            }
+        }
+        return "item." + getter + "()";
+    }
+
+    private boolean isNumber(TypeMirror type) {
+        if (type.getKind().isPrimitive()) {
+            return type.getKind() != TypeKind.BOOLEAN && type.getKind() != TypeKind.CHAR;
+        }
+        return isSubtype(type, "java.lang.Number");
+    }
+
+    private boolean isSubtype(TypeMirror type, String className) {
+        TypeElement element = processingEnv.getElementUtils().getTypeElement(className);
+        return element != null && !type.getKind().isPrimitive()
+            && processingEnv.getTypeUtils().isAssignable(type, element.asType());
+    }
+
+    private static boolean isAccessible(TypeElement type) {
+        for (Element element = type; !(element instanceof PackageElement); element = element.getEnclosingElement()) {
+            if (element.getModifiers().contains(Modifier.PRIVATE)) {
+                return false;
+            }
+            if (element != type && element.getKind() != ElementKind.CLASS) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Top-level {@code UserDTO} gets {@code UserDTOExcelRowWriter}; nested {@code Outer.Inner} gets {@code Outer_InnerExcelRowWriter}
+     */
+    static String writerSimpleName(TypeElement type) {
+        StringBuilder name = new StringBuilder(type.getSimpleName());
+        for (Element element = type.getEnclosingElement(); element instanceof TypeElement; element = element.getEnclosingElement()) {
+            name.insert(0, element.getSimpleName() + "_");
+        }
+        return name.append(WRITER_SUFFIX).toString();
+    }
+
+    private static int intValue(VariableElement field, String attribute) {
+        Object value = annotationValue(field, attribute);
+        return value == null ? 0 : (Integer) value;
+    }
+
+    private static boolean booleanValue(VariableElement field, String attribute) {
+        Object value = annotationValue(field, attribute);
+        return value != null && (Boolean) value;
+    }
+
+    private static Object annotationValue(VariableElement field, String attribute) {
+        for (AnnotationMirror mirror : field.getAnnotationMirrors()) {
+            if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(EXCEL_COLUMN)) {
+                for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : mirror.getElementValues().entrySet()) {
+                    if (entry.getKey().getSimpleName().contentEquals(attribute)) {
+                        return entry.getValue().getValue();
+                    }
+                }
+            }
+        }
+        return null;
+    }
+}
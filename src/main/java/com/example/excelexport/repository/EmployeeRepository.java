@@ -6,16 +6,60 @@ import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 import com.example.excelexport.entity.Employee;
 
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
 import java.util.stream.Stream;
 
 @Repository
-public interface EmployeeRepository extends JpaRepository<Employee, Long> {
+public interface EmployeeRepository extends JpaRepository<Employee, Long>, EmployeeStreamingRepository {
     // You can add custom query methods here if needed
     // For example:
     // List<Employee> findByDepartment(String department);
     // List<Employee> findBySalaryGreaterThan(Double salary);
     
-    @Query("SELECT e FROM Employee e")
+    @Override
     @Transactional(readOnly = true)
     Stream<Employee> streamAll();
+
+    @Override
+    @Transactional(readOnly = true)
+    Stream<Employee> streamByDepartment(String department);
+
+    @Override
+    @Transactional(readOnly = true)
+    Stream<Employee> streamChangedBetween(Instant since, long sinceId, Instant until, long untilId);
+
+    long countByDepartment(String department);
+
+    /**
+     * The most recently changed employee up to {@code latest}, the upper bound of a delta export
+     */
+    Optional<Employee> findFirstByUpdatedAtLessThanEqualOrderByUpdatedAtDescIdDesc(Instant latest);
+
+    @Query("SELECT MIN(e.id) FROM Employee e")
+    Long findMinId();
+
+    @Query("SELECT MAX(e.id) FROM Employee e")
+    Long findMaxId();
+
+    /**
+     * Version of the table contents, a counter that the trigger from schema.sql bumps with every
+     * statement that writes the table; null without the trigger
+     */
+    @Query(value = "SELECT CAST(version AS text) FROM dataset_versions WHERE name = 'employees'", nativeQuery = true)
+    String findDatasetVersion();
+
+    /**
+     * Row count from the planner statistics, without scanning; negative while the table has never
+     * been vacuumed or analyzed
+     */
+    @Query(value = "SELECT CAST(reltuples AS bigint) FROM pg_class WHERE oid = CAST('employees' AS regclass)", nativeQuery = true)
+    long estimateRowCount();
+
+    /**
+     * Loads one id-range slice; used by the partitioned reader, which runs one slice per thread and connection
+     */
+    @Transactional(readOnly = true)
+    List<Employee> findByIdBetweenOrderByIdAsc(Long fromId, Long toId);
 }
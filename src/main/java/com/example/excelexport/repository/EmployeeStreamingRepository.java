@@ -0,0 +1,22 @@
+package com.example.excelexport.repository;
+
+import com.example.excelexport.entity.Employee;
+
+import java.time.Instant;
+import java.util.stream.Stream;
+
+/**
+ * Cursor-based reads for exports. Implementations keep memory flat regardless of table size,
+ * so callers must consume the stream inside a (read-only) transaction and close it.
+ */
+public interface EmployeeStreamingRepository {
+
+    Stream<Employee> streamAll();
+
+    Stream<Employee> streamByDepartment(String department);
+
+    /**
+     * Employees whose (updatedAt, id) lies after (since, sinceId) and up to (until, untilId), in that order
+     */
+    Stream<Employee> streamChangedBetween(Instant since, long sinceId, Instant until, long untilId);
+}
@@ -0,0 +1,69 @@
+package com.example.excelexport.repository;
+
+import com.example.excelexport.entity.Employee;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+
+import java.time.Instant;
+import java.util.stream.Stream;
+
+/**
+ * Streams employees through a server-side cursor without letting the persistence context grow.
+ * <ul>
+ *     <li>the fetch size hint makes the PostgreSQL driver use a cursor instead of buffering the whole
+ *     result set (it only does so inside a transaction, i.e. with auto-commit off)</li>
+ *     <li>entities are loaded read-only, so Hibernate keeps no dirty-check snapshot per row</li>
+ *     <li>the persistence context is cleared every FETCH_SIZE rows, so already exported rows can be collected</li>
+ * </ul>
+ * Clearing detaches every entity of the current session, which is fine for the dedicated read-only
+ * export transactions this is used from.
+ */
+public class EmployeeStreamingRepositoryImpl implements EmployeeStreamingRepository {
+
+    static final int FETCH_SIZE = 1000;
+
+    private static final String HINT_FETCH_SIZE = "org.hibernate.fetchSize";
+    private static final String HINT_READ_ONLY = "org.hibernate.readOnly";
+    private static final String HINT_CACHEABLE = "org.hibernate.cacheable";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Stream<Employee> streamAll() {
+        return stream(entityManager.createQuery("SELECT e FROM Employee e", Employee.class));
+    }
+
+    @Override
+    public Stream<Employee> streamByDepartment(String department) {
+        return stream(entityManager.createQuery("SELECT e FROM Employee e WHERE e.department = :department", Employee.class)
+            .setParameter("department", department));
+    }
+
+    @Override
+    public Stream<Employee> streamChangedBetween(Instant since, long sinceId, Instant until, long untilId) {
+        return stream(entityManager.createQuery(
+                "SELECT e FROM Employee e " +
+                "WHERE (e.updatedAt > :since OR (e.updatedAt = :since AND e.id > :sinceId)) " +
+                "AND (e.updatedAt < :until OR (e.updatedAt = :until AND e.id <= :untilId)) " +
+                "ORDER BY e.updatedAt, e.id", Employee.class)
+            .setParameter("since", since)
+            .setParameter("sinceId", sinceId)
+            .setParameter("until", until)
+            .setParameter("untilId", untilId));
+    }
+
+    private Stream<Employee> stream(TypedQuery<Employee> query) {
+        query.setHint(HINT_FETCH_SIZE, FETCH_SIZE);
+        query.setHint(HINT_READ_ONLY, true);
+        query.setHint(HINT_CACHEABLE, false);
+
+        long[] rowCount = {0};
+        return query.getResultStream().peek(employee -> {
+            if (++rowCount[0] % FETCH_SIZE == 0) {
+                entityManager.clear();
+            }
+        });
+    }
+}
@@ -1,47 +1,84 @@
 package com.example.excelexport.service;
 
-import com.example.excelexport.annotation.ExcelColumn;
-import lombok.RequiredArgsConstructor;
+import com.example.excelexport.annotation.ExcelRowContext;
+import com.example.excelexport.annotation.ExcelRowWriter;
+import com.example.excelexport.metrics.ExportMetrics;
+import com.example.excelexport.metrics.ExportRecording;
+import com.example.excelexport.service.writer.AdaptiveFlushPolicy;
+import com.example.excelexport.service.writer.SxssfTempStorage;
+import com.example.excelexport.service.writer.TempFileTrackingWorkbook;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.xssf.streaming.SXSSFSheet;
 import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.MessageSource;
 import org.springframework.context.i18n.LocaleContextHolder;
 import org.springframework.stereotype.Service;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.lang.reflect.Field;
-import java.math.BigDecimal;
-import java.text.DecimalFormat;
-import java.text.SimpleDateFormat;
+import java.io.OutputStream;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
 
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class AnnotationExcelExportService {
-    
-    private static final int CHUNK_SIZE = 1000;
-    private static final int WINDOW_SIZE = 100;
 
     private final MessageSource messageSource;
+    private final SxssfTempStorage tempStorage;
+
+    /**
+     * Spools to the default temp storage
+     */
+    public AnnotationExcelExportService(MessageSource messageSource) {
+        this(messageSource, SxssfTempStorage.getDefault());
+    }
+
+    @Autowired
+    public AnnotationExcelExportService(MessageSource messageSource, SxssfTempStorage tempStorage) {
+        this.messageSource = messageSource;
+        this.tempStorage = tempStorage;
+    }
 
     /**
      * Generates an Excel file from a list of DTOs using ExcelColumn annotations
      */
     public <T> byte[] generateExcelFromDTO(List<T> data) throws IOException {
+        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+            generateExcelFromDTO(data, outputStream);
+            return outputStream.toByteArray();
+        }
+    }
+
+    /**
+     * Writes the Excel file for the given DTOs straight into the output stream, leaving it open
+     */
+    public <T> void generateExcelFromDTO(List<T> data, OutputStream outputStream) throws IOException {
         if (data == null || data.isEmpty()) {
             throw new IllegalArgumentException("Data cannot be null or empty");
         }
 
-        Class<?> dtoClass = data.get(0).getClass();
-        List<Field> annotatedFields = getAnnotatedFields(dtoClass);
+        writeExcel(ExcelColumnModel.of(data.get(0).getClass()), data.iterator(), outputStream);
+    }
+
+    /**
+     * Writes one row per element as the iterator produces it, so only the SXSSF window of rows is
+     * held in memory; used for request bodies that are parsed while the workbook is written.
+     * An empty iterator produces a workbook with just the header row.
+     */
+    public <T> void generateExcelFromDTO(Class<T> type, Iterator<? extends T> items, OutputStream outputStream) throws IOException {
+        writeExcel(ExcelColumnModel.of(type), items, outputStream);
+    }
+
+    private void writeExcel(ExcelColumnModel model, Iterator<?> items, OutputStream outputStream) throws IOException {
+        List<ExcelColumnModel.Column> columns = model.getColumns();
+        ExportRecording recording = ExportMetrics.current();
+        recording.queryOpened();
         
-        try (SXSSFWorkbook workbook = new SXSSFWorkbook(WINDOW_SIZE)) {
-            workbook.setCompressTempFiles(true);
+        AdaptiveFlushPolicy windowPolicy = AdaptiveFlushPolicy.sxssfWindow();
+        try (TempFileTrackingWorkbook workbook = new TempFileTrackingWorkbook(windowPolicy.getRows(), tempStorage)) {
             
             String sheetName = messageSource.getMessage(
                 "excel.sheet.data", 
@@ -51,130 +88,81 @@ public class AnnotationExcelExportService {
             );
             SXSSFSheet sheet = workbook.createSheet(sheetName);
 
-            // Create cell styles for different data types
-            Map<String, CellStyle> cellStyles = createCellStyles(workbook);
+            // Typed cell writing with the styles and formatters resolved once for the export
+            ExcelRowContext context = createRowContext(workbook, columns);
+            ExcelRowWriter<Object> rowWriter = model.getRowWriter();
 
             // Create and populate header row
-            createHeaderRow(sheet, annotatedFields);
+            createHeaderRow(sheet, columns);
 
             // Create data rows
             AtomicInteger rowNum = new AtomicInteger(1);
-            for (T item : data) {
+            while (items.hasNext()) {
+                Object item = items.next();
                 Row row = sheet.createRow(rowNum.getAndIncrement());
-                populateRow(row, item, annotatedFields, cellStyles);
+                if (rowWriter != null) {
+                    rowWriter.writeRow(row, item, context);
+                } else {
+                    populateRow(row, item, columns, context);
+                }
+                recording.rowWritten();
 
-                // Flush rows to disk every CHUNK_SIZE rows
-                if (rowNum.get() % CHUNK_SIZE == 0) {
-                    sheet.flushRows(CHUNK_SIZE);
+                // SXSSF flushes the rows beyond the window to disk as new ones are created; typed
+                // DTO cells are sized by their count alone
+                if (windowPolicy.rowWritten(columns.size(), 0)) {
+                    sheet.setRandomAccessWindowSize(windowPolicy.getRows());
                 }
             }
 
-            // Write to byte array
-            try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-                workbook.write(outputStream);
-                return outputStream.toByteArray();
-            }
+            recording.renderFinished();
+            workbook.write(outputStream);
+            recording.tempFileBytes(workbook.getTempFileBytes());
+            recording.finished();
         }
     }
 
-    private Map<String, CellStyle> createCellStyles(SXSSFWorkbook workbook) {
-        Map<String, CellStyle> styles = new HashMap<>();
-        DataFormat dataFormat = workbook.createDataFormat();
-        Locale currentLocale = LocaleContextHolder.getLocale();
-
-        // Create amount style
-        CellStyle amountStyle = workbook.createCellStyle();
-        amountStyle.setDataFormat(dataFormat.getFormat("#,##0.00"));
-        styles.put("default_amount", amountStyle);
-
-        return styles;
-    }
-
-    private List<Field> getAnnotatedFields(Class<?> dtoClass) {
-        List<Field> annotatedFields = new ArrayList<>();
-        for (Field field : dtoClass.getDeclaredFields()) {
-            if (field.isAnnotationPresent(ExcelColumn.class)) {
-                field.setAccessible(true);
-                annotatedFields.add(field);
-            }
+    private ExcelRowContext createRowContext(SXSSFWorkbook workbook, List<ExcelColumnModel.Column> columns) {
+        String[] datePatterns = new String[columns.size()];
+        String[] amountFormats = new String[columns.size()];
+        for (int i = 0; i < columns.size(); i++) {
+            ExcelColumnModel.Column column = columns.get(i);
+            datePatterns[i] = column.getDateFormat();
+            amountFormats[i] = column.isAmount() ? column.getAmountFormat() : null;
         }
-        
-        annotatedFields.sort(Comparator.comparingInt(field -> 
-            field.getAnnotation(ExcelColumn.class).order()));
-        
-        return annotatedFields;
+        return new ExcelRowContext(workbook, LocaleContextHolder.getLocale(), datePatterns, amountFormats);
     }
 
-    private void createHeaderRow(SXSSFSheet sheet, List<Field> annotatedFields) {
+    private void createHeaderRow(SXSSFSheet sheet, List<ExcelColumnModel.Column> columns) {
         Row headerRow = sheet.createRow(0);
         Locale currentLocale = LocaleContextHolder.getLocale();
 
-        for (int i = 0; i < annotatedFields.size(); i++) {
+        for (int i = 0; i < columns.size(); i++) {
             Cell cell = headerRow.createCell(i);
-            ExcelColumn annotation = annotatedFields.get(i).getAnnotation(ExcelColumn.class);
+            ExcelColumnModel.Column column = columns.get(i);
             
             String headerName;
-            if (!annotation.messageKey().isEmpty()) {
+            if (!column.getMessageKey().isEmpty()) {
                 headerName = messageSource.getMessage(
-                    annotation.messageKey(), 
+                    column.getMessageKey(), 
                     null, 
-                    annotation.name().isEmpty() ? annotatedFields.get(i).getName() : annotation.name(),
+                    column.getName(),
                     currentLocale
                 );
             } else {
-                headerName = annotation.name().isEmpty() ? 
-                    annotatedFields.get(i).getName() : annotation.name();
+                headerName = column.getName();
             }
             
             cell.setCellValue(headerName);
         }
     }
 
-    private <T> void populateRow(Row row, T item, List<Field> annotatedFields, Map<String, CellStyle> cellStyles) {
-        for (int i = 0; i < annotatedFields.size(); i++) {
+    /**
+     * Runtime path for DTOs without a generated {@link ExcelRowWriter}
+     */
+    private void populateRow(Row row, Object item, List<ExcelColumnModel.Column> columns, ExcelRowContext context) {
+        for (int i = 0; i < columns.size(); i++) {
             Cell cell = row.createCell(i);
-            Field field = annotatedFields.get(i);
-            ExcelColumn annotation = field.getAnnotation(ExcelColumn.class);
-            
-            try {
-                Object value = field.get(item);
-                if (value != null) {
-                    if (annotation.isAmount()) {
-                        setAmountCellValue(cell, value, annotation, cellStyles);
-                    } else if (value instanceof Date) {
-                        SimpleDateFormat dateFormat = new SimpleDateFormat(
-                            annotation.dateFormat(), 
-                            LocaleContextHolder.getLocale()
-                        );
-                        cell.setCellValue(dateFormat.format((Date) value));
-                    } else {
-                        cell.setCellValue(value.toString());
-                    }
-                }
-            } catch (IllegalAccessException e) {
-                log.error("Error accessing field: " + field.getName(), e);
-                cell.setCellValue("");
-            }
-        }
-    }
-
-    private void setAmountCellValue(Cell cell, Object value, ExcelColumn annotation, Map<String, CellStyle> cellStyles) {
-        if (value instanceof Number) {
-            double amount = ((Number) value).doubleValue();
-            cell.setCellValue(amount);
-            
-            // Get or create style for this format
-            String styleKey = annotation.amountFormat();
-            CellStyle amountStyle = cellStyles.computeIfAbsent(styleKey, k -> {
-                CellStyle style = cell.getSheet().getWorkbook().createCellStyle();
-                DataFormat dataFormat = cell.getSheet().getWorkbook().createDataFormat();
-                style.setDataFormat(dataFormat.getFormat(annotation.amountFormat()));
-                return style;
-            });
-            
-            cell.setCellStyle(amountStyle);
-        } else {
-            cell.setCellValue(value.toString());
+            context.writeValue(cell, i, columns.get(i).getValue(item));
         }
     }
 }
@@ -0,0 +1,76 @@
+package com.example.excelexport.service;
+
+import com.example.excelexport.metrics.ExportMetrics;
+import com.example.excelexport.service.CopyTextRowParser.ColumnType;
+import com.example.excelexport.service.engine.ExportEngineRegistry;
+import com.example.excelexport.service.writer.SheetWriter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Employee export fed by {@code COPY (SELECT ...) TO STDOUT}. The driver's CopyManager pushes the
+ * server's text-format output into a {@link CopyTextRowParser}, which writes each field into the
+ * worksheet as it is decoded; no ResultSet, entity or row object is created.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CopyExcelExportService {
+
+    private static final String COPY_EMPLOYEES =
+        "COPY (SELECT id, first_name, last_name, email, department, salary FROM employees ORDER BY id) TO STDOUT";
+
+    private static final ColumnType[] EMPLOYEE_COLUMNS = {
+        ColumnType.LONG, ColumnType.STRING, ColumnType.STRING, ColumnType.STRING, ColumnType.STRING, ColumnType.DOUBLE
+    };
+
+    private final DataSource dataSource;
+    private final EmployeeExportLabels labels;
+    private final ExportEngineRegistry engineRegistry;
+
+    /**
+     * @throws IllegalArgumentException if the engine is unknown
+     */
+    @Transactional(readOnly = true)
+    public void exportEmployees(String engine, OutputStream outputStream) throws IOException {
+        String sheetName = labels.getSheetName(LocaleContextHolder.getLocale());
+        try (SheetWriter writer = ExportMetrics.current().meter(engineRegistry.createSheetWriter(engine, outputStream, sheetName))) {
+            exportEmployees(writer);
+        }
+    }
+
+    /**
+     * Writes the header and every employee row into the given writer, then finishes the workbook.
+     * Uses the transaction's connection when one is active.
+     */
+    public void exportEmployees(SheetWriter writer) throws IOException {
+        writer.writeHeader(labels.getHeaders(LocaleContextHolder.getLocale()));
+
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+            try (CopyTextRowParser parser = new CopyTextRowParser(writer, EMPLOYEE_COLUMNS)) {
+                copyManager.copyOut(COPY_EMPLOYEES, parser);
+                log.debug("Exported {} employees through COPY", parser.getRowCount());
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error copying employees from PostgreSQL", e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+
+        writer.finish();
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.excelexport.service;
+
+import com.example.excelexport.service.writer.SheetWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Incremental parser for PostgreSQL's COPY text format, fed by {@code CopyManager.copyOut} as the
+ * server sends data. Fields are decoded into one reusable byte buffer and written straight to the
+ * {@link SheetWriter}: numbers are parsed from the bytes, and only string cells allocate a String.
+ */
+class CopyTextRowParser extends OutputStream {
+
+    enum ColumnType { LONG, DOUBLE, STRING }
+
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final SheetWriter writer;
+    private final ColumnType[] columns;
+
+    private byte[] field = new byte[256];
+    private int length;
+    private boolean escape;
+    private boolean nullField;
+    private int column;
+    private long rows;
+
+    CopyTextRowParser(SheetWriter writer, ColumnType... columns) {
+        this.writer = writer;
+        this.columns = columns;
+    }
+
+    long getRowCount() {
+        return rows;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        accept((byte) b);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int count) throws IOException {
+        for (int i = offset; i < offset + count; i++) {
+            accept(bytes[i]);
+        }
+    }
+
+    /**
+     * Fails if the stream ended in the middle of a row
+     */
+    @Override
+    public void close() throws IOException {
+        if (column > 0 || length > 0 || escape || nullField) {
+            throw new IOException("COPY data ended in the middle of row " + (rows + 1));
+        }
+    }
+
+    private void accept(byte b) throws IOException {
+        if (escape) {
+            escape = false;
+            switch (b) {
+                case 'N': nullField = true; break;
+                case 't': append((byte) '\t'); break;
+                case 'n': append((byte) '\n'); break;
+                case 'r': append((byte) '\r'); break;
+                case 'b': append((byte) '\b'); break;
+                case 'f': append((byte) '\f'); break;
+                case 'v': append((byte) 0x0B); break;
+                default: append(b);
+            }
+        } else if (b == '\\') {
+            escape = true;
+        } else if (b == '\t') {
+            endField();
+        } else if (b == '\n') {
+            endField();
+            endRow();
+        } else {
+            append(b);
+        }
+    }
+
+    private void append(byte b) {
+        if (length == field.length) {
+            field = Arrays.copyOf(field, length * 2);
+        }
+        field[length++] = b;
+    }
+
+    private void endField() throws IOException {
+        if (column >= columns.length) {
+            throw new IOException("Row " + (rows + 1) + " has more than " + columns.length + " columns");
+        }
+        if (column == 0) {
+            writer.startRow();
+        }
+        if (nullField) {
+            writer.writeBlank();
+        } else {
+            switch (columns[column]) {
+                case LONG:
+                    writer.writeNumber(parseLong());
+                    break;
+                case DOUBLE:
+                    writer.writeNumber(parseDouble());
+                    break;
+                default:
+                    writer.writeString(new String(field, 0, length, StandardCharsets.UTF_8));
+            }
+        }
+        column++;
+        length = 0;
+        nullField = false;
+    }
+
+    private void endRow() throws IOException {
+        if (column != columns.length) {
+            throw new IOException("Row " + (rows + 1) + " has " + column + " columns, expected " + columns.length);
+        }
+        writer.endRow();
+        column = 0;
+        rows++;
+    }
+
+    private long parseLong() throws IOException {
+        int i = 0;
+        boolean negative = length > 0 && field[0] == '-';
+        if (negative) {
+            i++;
+        }
+        if (i == length) {
+            throw new IOException("Invalid integer in row " + (rows + 1));
+        }
+        long value = 0;
+        for (; i < length; i++) {
+            int digit = field[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new IOException("Invalid integer in row " + (rows + 1));
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Plain decimals with up to 15 significant digits are exact as mantissa / 10^scale;
+     * anything else (exponents, Infinity, NaN, long fractions) goes through Double.parseDouble.
+     */
+    private double parseDouble() {
+        int i = 0;
+        boolean negative = length > 0 && field[0] == '-';
+        if (negative) {
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int scale = -1;
+        for (; i < length; i++) {
+            byte b = field[i];
+            if (b == '.' && scale < 0) {
+                scale = 0;
+            } else if (b >= '0' && b <= '9') {
+                mantissa = mantissa * 10 + (b - '0');
+                if (mantissa != 0) {
+                    digits++;
+                }
+                if (scale >= 0) {
+                    scale++;
+                }
+            } else {
+                return Double.parseDouble(new String(field, 0, length, StandardCharsets.US_ASCII));
+            }
+        }
+        if (digits > 15 || scale >= POWERS_OF_TEN.length || length == (negative ? 1 : 0)) {
+            return Double.parseDouble(new String(field, 0, length, StandardCharsets.US_ASCII));
+        }
+        double value = scale > 0 ? mantissa / POWERS_OF_TEN[scale] : mantissa;
+        return negative ? -value : value;
+    }
+}
@@ -1,7 +1,10 @@
 package com.example.excelexport.service;
 
 import com.example.excelexport.entity.Employee;
+import com.example.excelexport.metrics.ExportMetrics;
+import com.example.excelexport.metrics.ExportRecording;
 import com.example.excelexport.repository.EmployeeRepository;
+import com.example.excelexport.service.writer.AdaptiveFlushPolicy;
 import lombok.extern.slf4j.Slf4j;
 import org.dhatim.fastexcel.Workbook;
 import org.dhatim.fastexcel.Worksheet;
@@ -11,6 +14,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -20,71 +24,94 @@ import java.util.stream.Stream;
 @Service
 public class DirectExcelExportService {
 
-    private static final int CHUNK_SIZE = 1000;
-
     @Autowired
     private EmployeeRepository employeeRepository;
 
     @Transactional(readOnly = true)
     public byte[] exportEmployeesToExcel() throws IOException {
-        List<String> headers = Arrays.asList("ID", "First Name", "Last Name", "Email", "Department", "Salary");
-        
         try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-            Workbook workbook = new Workbook(outputStream, "Employees", "1.0");
-            Worksheet worksheet = workbook.newWorksheet("Employees");
+            exportEmployeesToExcel(outputStream);
+            return outputStream.toByteArray();
+        }
+    }
 
-            // Write headers with styling
-            for (int i = 0; i < headers.size(); i++) {
-                worksheet.value(0, i, headers.get(i));
-                worksheet.style(0, i).bold().fillColor("C0C0C0").set();
-                worksheet.width(i, 15); // Set column width
-            }
-            
-            // Write data using streaming
-            AtomicInteger rowNum = new AtomicInteger(1);
-            
-            try (Stream<Employee> employeeStream = employeeRepository.streamAll()) {
-                employeeStream.forEach(employee -> {
-                    try {
-                        // Write data with alternating row colors
-                        if (rowNum.get() % 2 == 0) {
-                            for (int i = 0; i < 6; i++) {
-                                worksheet.style(rowNum.get(), i).fillColor("F5F5F5").set();
-                            }
-                        }
+    /**
+     * Streams the styled employee workbook into the given output stream as rows come off the repository cursor.
+     */
+    @Transactional(readOnly = true)
+    public void exportEmployeesToExcel(OutputStream outputStream) throws IOException {
+        try (Stream<Employee> employeeStream = employeeRepository.streamAll()) {
+            exportEmployeesToExcel(employeeStream, outputStream);
+        }
+    }
+
+    /**
+     * Writes the given employees into the output stream. The caller owns the stream of employees
+     * (and the transaction it was opened in) and is responsible for closing it.
+     */
+    public void exportEmployeesToExcel(Stream<Employee> employees, OutputStream outputStream) throws IOException {
+        List<String> headers = Arrays.asList("ID", "First Name", "Last Name", "Email", "Department", "Salary");
+        ExportRecording recording = ExportMetrics.current();
+        recording.queryOpened();
+        
+        Workbook workbook = new Workbook(outputStream, "Employees", "1.0");
+        Worksheet worksheet = workbook.newWorksheet("Employees");
 
-                        worksheet.value(rowNum.get(), 0, employee.getId());
-                        worksheet.value(rowNum.get(), 1, employee.getFirstName());
-                        worksheet.value(rowNum.get(), 2, employee.getLastName());
-                        worksheet.value(rowNum.get(), 3, employee.getEmail());
-                        worksheet.value(rowNum.get(), 4, employee.getDepartment());
-                        worksheet.value(rowNum.get(), 5, employee.getSalary());
-                        
-                        // Add currency format to salary column
-                        worksheet.style(rowNum.get(), 5).format("$#,##0.00").set();
-                        
-                        rowNum.incrementAndGet();
-                        
-                        // Flush every CHUNK_SIZE rows
-                        if (rowNum.get() % CHUNK_SIZE == 0) {
-                            worksheet.flush();
-                            log.debug("Processed {} rows", rowNum.get());
-                        }
-                    } catch (IOException e) {
-                        throw new RuntimeException("Error writing to Excel file", e);
+        // Write headers with styling
+        for (int i = 0; i < headers.size(); i++) {
+            worksheet.value(0, i, headers.get(i));
+            worksheet.style(0, i).bold().fillColor("C0C0C0").set();
+            worksheet.width(i, 15); // Set column width
+        }
+        
+        // Write data using streaming
+        AtomicInteger rowNum = new AtomicInteger(1);
+        AtomicInteger rowsSinceFlush = new AtomicInteger();
+        AdaptiveFlushPolicy flushPolicy = AdaptiveFlushPolicy.fastExcelFlush();
+        
+        employees.forEach(employee -> {
+            try {
+                // Write data with alternating row colors
+                if (rowNum.get() % 2 == 0) {
+                    for (int i = 0; i < 6; i++) {
+                        worksheet.style(rowNum.get(), i).fillColor("F5F5F5").set();
                     }
-                });
+                }
+
+                worksheet.value(rowNum.get(), 0, employee.getId());
+                worksheet.value(rowNum.get(), 1, employee.getFirstName());
+                worksheet.value(rowNum.get(), 2, employee.getLastName());
+                worksheet.value(rowNum.get(), 3, employee.getEmail());
+                worksheet.value(rowNum.get(), 4, employee.getDepartment());
+                worksheet.value(rowNum.get(), 5, employee.getSalary());
+                
+                // Add currency format to salary column
+                worksheet.style(rowNum.get(), 5).format("$#,##0.00").set();
+                
+                rowNum.incrementAndGet();
+                recording.rowWritten();
+                
+                flushPolicy.rowWritten(6, AdaptiveFlushPolicy.textLength(employee.getFirstName(),
+                    employee.getLastName(), employee.getEmail(), employee.getDepartment()));
+                if (rowsSinceFlush.incrementAndGet() >= flushPolicy.getRows()) {
+                    worksheet.flush();
+                    rowsSinceFlush.set(0);
+                    log.debug("Processed {} rows", rowNum.get());
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("Error writing to Excel file", e);
             }
-            
-            // Add auto-filter to headers
-            worksheet.range(0, 0, rowNum.get() - 1, headers.size() - 1).autoFilter();
-            
-            // Freeze the header row
-            worksheet.freezePane(1, 0);
-            
-            // Finish and close the workbook
-            workbook.finish();
-            return outputStream.toByteArray();
-        }
+        });
+        
+        // Add auto-filter to headers
+        worksheet.setAutoFilter(0, 0, headers.size() - 1);
+        
+        // Freeze the header row
+        worksheet.freezePane(1, 0);
+        
+        // Finish and close the workbook
+        recording.renderFinished();
+        workbook.finish();
+        recording.finished();
     }
 }
@@ -1,10 +1,14 @@
 package com.example.excelexport.service;
 
 import com.alibaba.excel.EasyExcel;
+import com.alibaba.excel.ExcelWriter;
+import com.alibaba.excel.write.metadata.WriteSheet;
 import com.alibaba.excel.write.metadata.style.WriteCellStyle;
 import com.alibaba.excel.write.metadata.style.WriteFont;
 import com.alibaba.excel.write.style.HorizontalCellStyleStrategy;
 import com.example.excelexport.entity.Employee;
+import com.example.excelexport.metrics.ExportMetrics;
+import com.example.excelexport.metrics.ExportRecording;
 import com.example.excelexport.repository.EmployeeRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.poi.ss.usermodel.FillPatternType;
@@ -15,6 +19,9 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.stream.Stream;
 
 @Slf4j
@@ -29,31 +36,72 @@ public class EasyExcelExportService {
     @Transactional(readOnly = true)
     public byte[] exportEmployeesToExcel() throws IOException {
         try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-            // Create header style
-            WriteCellStyle headerStyle = new WriteCellStyle();
-            headerStyle.setFillForegroundColor(IndexedColors.GREY_25_PERCENT.getIndex());
-            headerStyle.setFillPatternType(FillPatternType.SOLID_FOREGROUND);
-            WriteFont headerFont = new WriteFont();
-            headerFont.setBold(true);
-            headerFont.setFontHeightInPoints((short) 12);
-            headerStyle.setWriteFont(headerFont);
-
-            // Create content style
-            WriteCellStyle contentStyle = new WriteCellStyle();
-            contentStyle.setWrapped(true);
-
-            // Combine the styles
-            HorizontalCellStyleStrategy styleStrategy = new HorizontalCellStyleStrategy(headerStyle, contentStyle);
-
-            // Configure EasyExcel
-            EasyExcel.write(outputStream, Employee.class)
-                    .registerWriteHandler(styleStrategy)
-                    .sheet("Employees")
+            exportEmployeesToExcel(outputStream);
+            return outputStream.toByteArray();
+        }
+    }
+
+    /**
+     * Streams the employee workbook into the given output stream, handing rows to EasyExcel in
+     * BATCH_SIZE slices as they come off the repository cursor. The stream is left open.
+     */
+    @Transactional(readOnly = true)
+    public void exportEmployeesToExcel(OutputStream outputStream) throws IOException {
+        try (Stream<Employee> employeeStream = fetchData()) {
+            exportEmployeesToExcel(employeeStream, outputStream);
+        }
+    }
+
+    /**
+     * Writes the given employees into the output stream. The caller owns the stream of employees
+     * (and the transaction it was opened in) and is responsible for closing it.
+     */
+    public void exportEmployeesToExcel(Stream<Employee> employees, OutputStream outputStream) throws IOException {
+        ExportRecording recording = ExportMetrics.current();
+        recording.queryOpened();
+
+        // Create header style
+        WriteCellStyle headerStyle = new WriteCellStyle();
+        headerStyle.setFillForegroundColor(IndexedColors.GREY_25_PERCENT.getIndex());
+        headerStyle.setFillPatternType(FillPatternType.SOLID_FOREGROUND);
+        WriteFont headerFont = new WriteFont();
+        headerFont.setBold(true);
+        headerFont.setFontHeightInPoints((short) 12);
+        headerStyle.setWriteFont(headerFont);
+
+        // Create content style
+        WriteCellStyle contentStyle = new WriteCellStyle();
+        contentStyle.setWrapped(true);
+
+        // Combine the styles
+        HorizontalCellStyleStrategy styleStrategy = new HorizontalCellStyleStrategy(headerStyle, contentStyle);
+
+        // Configure EasyExcel
+        ExcelWriter excelWriter = EasyExcel.write(outputStream, Employee.class)
+                .registerWriteHandler(styleStrategy)
+                .autoCloseStream(false)
+                .build();
+        try {
+            WriteSheet writeSheet = EasyExcel.writerSheet("Employees")
                     .useDefaultStyle(false)
-                    .doWrite(this::fetchData);
+                    .build();
 
-            return outputStream.toByteArray();
+            List<Employee> batch = new ArrayList<>(BATCH_SIZE);
+            employees.forEach(employee -> {
+                batch.add(employee);
+                recording.rowWritten();
+                if (batch.size() == BATCH_SIZE) {
+                    excelWriter.write(batch, writeSheet);
+                    batch.clear();
+                }
+            });
+            // Always write the last (possibly empty) batch so the sheet and its header exist
+            excelWriter.write(batch, writeSheet);
+            recording.renderFinished();
+        } finally {
+            excelWriter.finish();
         }
+        recording.finished();
     }
 
     private Stream<Employee> fetchData() {
@@ -0,0 +1,145 @@
+package com.example.excelexport.service;
+
+import com.example.excelexport.entity.Employee;
+import com.example.excelexport.repository.EmployeeRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * The six-column employee export read through {@link EmployeeRepository#streamAll()}, or one
+ * department of it, or the employees changed within a window of {@link ExportCursor}s.
+ */
+@Component
+public class EmployeeDataset implements ExportDataset<Employee> {
+
+    private static final List<ExportColumn<Employee>> COLUMNS = Arrays.asList(
+        ExportColumn.number(Employee::getId),
+        ExportColumn.text(Employee::getFirstName),
+        ExportColumn.text(Employee::getLastName),
+        ExportColumn.text(Employee::getEmail),
+        ExportColumn.text(Employee::getDepartment),
+        ExportColumn.<Employee>number(Employee::getSalary).withFormat("$#,##0.00")
+    );
+
+    private final EmployeeRepository employeeRepository;
+    private final EmployeeExportLabels labels;
+    private final Duration maxTransactionDuration;
+    private final String department;
+    private final ExportCursor since;
+    private final ExportCursor until;
+
+    @Autowired
+    public EmployeeDataset(EmployeeRepository employeeRepository, EmployeeExportLabels labels,
+                           @Value("${excel.export.delta.max-transaction-duration:PT1M}") Duration maxTransactionDuration) {
+        this(employeeRepository, labels, maxTransactionDuration, null, null, null);
+    }
+
+    private EmployeeDataset(EmployeeRepository employeeRepository, EmployeeExportLabels labels, Duration maxTransactionDuration,
+                            String department, ExportCursor since, ExportCursor until) {
+        this.employeeRepository = employeeRepository;
+        this.labels = labels;
+        this.maxTransactionDuration = maxTransactionDuration;
+        this.department = department;
+        this.since = since;
+        this.until = until;
+    }
+
+    /**
+     * The employees of one department
+     */
+    public EmployeeDataset forDepartment(String department) {
+        return new EmployeeDataset(employeeRepository, labels, maxTransactionDuration, department, null, null);
+    }
+
+    /**
+     * The employees inserted or updated after {@code since} and up to {@code until}, in change order.
+     * The upper bound keeps rows changed while the export runs for the next delta.
+     */
+    public EmployeeDataset changedBetween(ExportCursor since, ExportCursor until) {
+        return new EmployeeDataset(employeeRepository, labels, maxTransactionDuration, null, since, until);
+    }
+
+    /**
+     * Cursor of the most recently changed employee that is at least the longest write transaction
+     * old, or null if there is none. A row is stamped when it is written but seen when its transaction
+     * commits, so a younger cursor could pass rows that are still uncommitted; they would never be
+     * exported. Younger rows wait for the next delta instead.
+     */
+    public ExportCursor getLatestCursor() {
+        Instant latest = Instant.now().minus(maxTransactionDuration);
+        return employeeRepository.findFirstByUpdatedAtLessThanEqualOrderByUpdatedAtDescIdDesc(latest)
+            .map(employee -> new ExportCursor(employee.getUpdatedAt(), employee.getId()))
+            .orElse(null);
+    }
+
+    @Override
+    public String getName() {
+        return "employees";
+    }
+
+    @Override
+    public List<ExportColumn<Employee>> getColumns() {
+        return COLUMNS;
+    }
+
+    @Override
+    public List<String> getHeaders(Locale locale) {
+        return labels.getHeaders(locale);
+    }
+
+    @Override
+    public String getSheetName(Locale locale) {
+        return labels.getSheetName(locale);
+    }
+
+    @Override
+    public Map<String, String> getFilters() {
+        Map<String, String> filters = new LinkedHashMap<>();
+        if (department != null) {
+            filters.put("department", department);
+        }
+        if (since != null) {
+            filters.put("since", since.toString());
+            filters.put("until", until.toString());
+        }
+        return filters.isEmpty() ? Collections.emptyMap() : filters;
+    }
+
+    /**
+     * Version of the whole table, also for a single department. Deltas are not versioned: their
+     * rows leave the window as soon as they change again.
+     */
+    @Override
+    public String getVersion() {
+        return since == null ? employeeRepository.findDatasetVersion() : null;
+    }
+
+    /**
+     * Planner estimate of the whole table, counted when there are no statistics yet. A department or
+     * delta is bounded by the whole table, which is as close as a cheap estimate gets.
+     */
+    @Override
+    public long estimateRowCount() {
+        long estimate = employeeRepository.estimateRowCount();
+        return estimate >= 0 ? estimate : employeeRepository.count();
+    }
+
+    @Override
+    public Stream<Employee> openRows() {
+        if (since != null) {
+            return employeeRepository.streamChangedBetween(since.getUpdatedAt(), since.getId(), until.getUpdatedAt(), until.getId());
+        }
+        return department == null ? employeeRepository.streamAll() : employeeRepository.streamByDepartment(department);
+    }
+}
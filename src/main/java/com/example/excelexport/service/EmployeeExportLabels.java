@@ -0,0 +1,35 @@
+package com.example.excelexport.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.MessageSource;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Localized header row and sheet name of the six-column employee export, shared by the
+ * row sources that write cells directly (JDBC, COPY).
+ */
+@Component
+@RequiredArgsConstructor
+public class EmployeeExportLabels {
+
+    private final MessageSource messageSource;
+
+    public List<String> getHeaders(Locale locale) {
+        return Arrays.asList(
+            messageSource.getMessage("excel.header.userId", null, "ID", locale),
+            messageSource.getMessage("excel.header.firstName", null, "First Name", locale),
+            messageSource.getMessage("excel.header.lastName", null, "Last Name", locale),
+            messageSource.getMessage("excel.header.email", null, "Email", locale),
+            messageSource.getMessage("excel.header.department", null, "Department", locale),
+            messageSource.getMessage("excel.header.salary", null, "Salary", locale)
+        );
+    }
+
+    public String getSheetName(Locale locale) {
+        return messageSource.getMessage("excel.sheet.users", null, "Employees", locale);
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.excelexport.service;
+
+import com.example.excelexport.annotation.ExcelColumn;
+import com.example.excelexport.annotation.ExcelRowWriter;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * The {@link ExcelColumn} columns of a DTO class, resolved once per class and cached for the
+ * lifetime of the class: ordered columns, their formats and style keys, and a compiled accessor
+ * per column. Getters are bound through {@link LambdaMetafactory}, so reading a cell value is a
+ * plain interface call to the getter; fields without a getter fall back to a field method handle.
+ * When the annotation processor generated an {@link ExcelRowWriter} for the class, it is picked up
+ * here and replaces the per-column accessors for writing rows.
+ */
+@Slf4j
+@Getter
+public final class ExcelColumnModel {
+
+    private static final ClassValue<ExcelColumnModel> CACHE = new ClassValue<ExcelColumnModel>() {
+        @Override
+        protected ExcelColumnModel computeValue(Class<?> type) {
+            return new ExcelColumnModel(type);
+        }
+    };
+
+    private final Class<?> type;
+    private final List<Column> columns;
+
+    /**
+     * Distinct amount formats used by the columns; one cell style is needed per format
+     */
+    private final Set<String> amountFormats;
+
+    /**
+     * Compile-time generated writer for the class, or null when there is none
+     */
+    private final ExcelRowWriter<Object> rowWriter;
+
+    private ExcelColumnModel(Class<?> type) {
+        this.type = type;
+
+        List<Field> annotatedFields = new ArrayList<>();
+        for (Field field : type.getDeclaredFields()) {
+            if (field.isAnnotationPresent(ExcelColumn.class)) {
+                annotatedFields.add(field);
+            }
+        }
+        annotatedFields.sort(Comparator.comparingInt(field -> field.getAnnotation(ExcelColumn.class).order()));
+
+        List<Column> resolved = new ArrayList<>();
+        Set<String> formats = new LinkedHashSet<>();
+        MethodHandles.Lookup lookup = privateLookup(type);
+        for (Field field : annotatedFields) {
+            Column column = new Column(field, createAccessor(lookup, type, field));
+            resolved.add(column);
+            if (column.isAmount()) {
+                formats.add(column.getAmountFormat());
+            }
+        }
+        this.columns = Collections.unmodifiableList(resolved);
+        this.amountFormats = Collections.unmodifiableSet(formats);
+        this.rowWriter = loadGeneratedWriter(type, resolved);
+    }
+
+    public static ExcelColumnModel of(Class<?> type) {
+        return CACHE.get(type);
+    }
+
+    /**
+     * Looks up {@code <DTO>ExcelRowWriter} in the DTO's package. A writer generated from an older
+     * version of the class (different columns or order) is ignored.
+     */
+    @SuppressWarnings("unchecked")
+    private static ExcelRowWriter<Object> loadGeneratedWriter(Class<?> type, List<Column> columns) {
+        String simpleName = type.getName().substring(type.getName().lastIndexOf('.') + 1).replace('$', '_');
+        String packagePrefix = type.getPackageName().isEmpty() ? "" : type.getPackageName() + ".";
+        try {
+            Class<?> writerClass = Class.forName(packagePrefix + simpleName + "ExcelRowWriter", true, type.getClassLoader());
+            ExcelRowWriter<Object> writer = (ExcelRowWriter<Object>) writerClass.getDeclaredConstructor().newInstance();
+            String[] fieldNames = columns.stream().map(Column::getFieldName).toArray(String[]::new);
+            if (!Arrays.equals(fieldNames, writer.getFieldNames())) {
+                log.warn("Ignoring {}: its columns do not match {}", writerClass.getName(), type.getName());
+                return null;
+            }
+            return writer;
+        } catch (ClassNotFoundException e) {
+            return null;
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            log.warn("Cannot use the generated row writer of {}", type.getName(), e);
+            return null;
+        }
+    }
+
+    private static MethodHandles.Lookup privateLookup(Class<?> type) {
+        try {
+            return MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot access " + type.getName(), e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Function<Object, Object> createAccessor(MethodHandles.Lookup lookup, Class<?> type, Field field) {
+        try {
+            Method getter = findGetter(type, field);
+            if (getter != null) {
+                MethodHandle handle = lookup.unreflect(getter);
+                CallSite site = LambdaMetafactory.metafactory(
+                    lookup,
+                    "apply",
+                    MethodType.methodType(Function.class),
+                    MethodType.methodType(Object.class, Object.class),
+                    handle,
+                    handle.type().wrap());
+                return (Function<Object, Object>) site.getTarget().invokeExact();
+            }
+
+            MethodHandle handle = lookup.unreflectGetter(field)
+                .asType(MethodType.methodType(Object.class, Object.class));
+            return dto -> {
+                try {
+                    return handle.invokeExact(dto);
+                } catch (Throwable e) {
+                    throw new IllegalStateException("Error reading field " + field.getName(), e);
+                }
+            };
+        } catch (Throwable e) {
+            throw new IllegalStateException("Cannot create accessor for " + type.getName() + "." + field.getName(), e);
+        }
+    }
+
+    private static Method findGetter(Class<?> type, Field field) {
+        String suffix = Character.toUpperCase(field.getName().charAt(0)) + field.getName().substring(1);
+        for (String name : new String[] {"get" + suffix, "is" + suffix}) {
+            try {
+                Method method = type.getDeclaredMethod(name);
+                if (method.getReturnType() == field.getType()) {
+                    return method;
+                }
+            } catch (NoSuchMethodException e) {
+                // try the next naming convention
+            }
+        }
+        return null;
+    }
+
+    /**
+     * One resolved column: annotation values plus the compiled accessor. {@code name} is the header
+     * text when no message key is set, and the default when the key has no message.
+     */
+    @Getter
+    public static final class Column {
+
+        private final String fieldName;
+        private final String name;
+        private final String messageKey;
+        private final String dateFormat;
+        private final String amountFormat;
+        private final boolean amount;
+        private final Class<?> valueType;
+        @Getter(AccessLevel.NONE)
+        private final Function<Object, Object> accessor;
+
+        private Column(Field field, Function<Object, Object> accessor) {
+            ExcelColumn annotation = field.getAnnotation(ExcelColumn.class);
+            this.fieldName = field.getName();
+            this.name = annotation.name().isEmpty() ? field.getName() : annotation.name();
+            this.messageKey = annotation.messageKey();
+            this.dateFormat = annotation.dateFormat();
+            this.amountFormat = annotation.amountFormat();
+            this.amount = annotation.isAmount();
+            this.valueType = field.getType();
+            this.accessor = accessor;
+        }
+
+        public Object getValue(Object dto) {
+            return accessor.apply(dto);
+        }
+    }
+}
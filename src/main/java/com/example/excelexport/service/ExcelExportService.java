@@ -1,36 +1,42 @@
 package com.example.excelexport.service;
 
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.xssf.streaming.SXSSFSheet;
-import org.apache.poi.xssf.streaming.SXSSFWorkbook;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import com.example.excelexport.repository.EmployeeRepository;
 import com.example.excelexport.entity.Employee;
+import com.example.excelexport.metrics.ExportMetrics;
+import com.example.excelexport.metrics.ExportRecording;
+import com.example.excelexport.service.engine.ExportEngineRegistry;
+import com.example.excelexport.service.writer.AdaptiveFlushPolicy;
+import com.example.excelexport.service.writer.SheetWriter;
+import com.example.excelexport.service.writer.SxssfTempStorage;
+import com.example.excelexport.service.writer.TempFileTrackingWorkbook;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Arrays;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
 @Slf4j
 @Service
+@RequiredArgsConstructor
 public class ExcelExportService {
     
-    private static final int CHUNK_SIZE = 1000;
-    private static final int WINDOW_SIZE = 100;
+    private final EmployeeRepository employeeRepository;
 
-    @Autowired
-    private EmployeeRepository employeeRepository;
+    private final ExportEngineRegistry engineRegistry;
+
+    private final SxssfTempStorage tempStorage;
 
     public List<Employee> getAllEmployees() {
         return employeeRepository.findAll();
@@ -50,8 +56,22 @@ public class ExcelExportService {
     }
 
     public byte[] generateExcel(Stream<List<String>> dataStream, List<String> headers) throws IOException {
-        try (SXSSFWorkbook workbook = new SXSSFWorkbook(WINDOW_SIZE)) {
-            workbook.setCompressTempFiles(true);
+        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+            generateExcel(dataStream, headers, outputStream);
+            return outputStream.toByteArray();
+        }
+    }
+
+    /**
+     * Writes the rows straight into the given stream instead of materializing the workbook as a byte array.
+     * The stream is left open so callers can keep writing (e.g. the servlet response or a ZIP entry).
+     */
+    public void generateExcel(Stream<List<String>> dataStream, List<String> headers, OutputStream outputStream) throws IOException {
+        ExportRecording recording = ExportMetrics.current();
+        recording.queryOpened();
+
+        AdaptiveFlushPolicy windowPolicy = AdaptiveFlushPolicy.sxssfWindow();
+        try (TempFileTrackingWorkbook workbook = new TempFileTrackingWorkbook(windowPolicy.getRows(), tempStorage)) {
             SXSSFSheet sheet = workbook.createSheet("Data");
             
             // Create header row
@@ -66,36 +86,84 @@ public class ExcelExportService {
             // Process data in chunks
             dataStream.forEach(rowData -> {
                 Row row = sheet.createRow(rowNum.getAndIncrement());
+                int chars = 0;
                 for (int i = 0; i < rowData.size(); i++) {
                     Cell cell = row.createCell(i);
                     cell.setCellValue(rowData.get(i));
+                    chars += rowData.get(i) == null ? 0 : rowData.get(i).length();
                 }
+                recording.rowWritten();
                 
-                // Flush rows to disk every CHUNK_SIZE rows
-                if (rowNum.get() % CHUNK_SIZE == 0) {
-                    try {
-                        sheet.flushRows(CHUNK_SIZE);
-                    } catch (IOException e) {
-                        log.error("Error flushing rows to disk", e);
-                        throw new RuntimeException("Error while generating Excel file", e);
+                // SXSSF flushes the rows beyond the window to disk as new ones are created
+                if (windowPolicy.rowWritten(rowData.size(), chars)) {
+                    sheet.setRandomAccessWindowSize(windowPolicy.getRows());
+                }
+            });
+
+            recording.renderFinished();
+            workbook.write(outputStream);
+            recording.tempFileBytes(workbook.getTempFileBytes());
+            recording.finished();
+        }
+    }
+
+    /**
+     * Writes the rows with the named engine, e.g. {@code csv}, {@code tsv} or {@code csv-gzip} for
+     * delimited text, leaving the stream open like {@link #generateExcel(Stream, List, OutputStream)}.
+     * @throws IllegalArgumentException if the engine is unknown
+     */
+    public void generate(String engine, Stream<List<String>> dataStream, List<String> headers, OutputStream outputStream) throws IOException {
+        ExportRecording recording = ExportMetrics.current();
+        recording.queryOpened();
+
+        SheetWriter sheetWriter = engineRegistry.createSheetWriter(engine, outputStream, "Data");
+        try (SheetWriter writer = recording.meter(sheetWriter)) {
+            writer.writeHeader(headers);
+
+            dataStream.forEach(rowData -> {
+                try {
+                    writer.startRow();
+                    for (String value : rowData) {
+                        writer.writeString(value);
                     }
+                    writer.endRow();
+                } catch (IOException e) {
+                    throw new RuntimeException("Error while generating " + engine + " file", e);
                 }
             });
 
-            // Write to byte array
-            try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-                workbook.write(outputStream);
-                return outputStream.toByteArray();
-            }
+            writer.finish();
         }
     }
 
     @Transactional(readOnly = true)
     public byte[] exportEmployeesToExcel() throws IOException {
+        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+            writeEmployeesWorkbook(outputStream);
+            return outputStream.toByteArray();
+        }
+    }
+
+    /**
+     * Streams the employee workbook into the given output stream as rows come off the repository cursor.
+     */
+    @Transactional(readOnly = true)
+    public void exportEmployeesToExcel(OutputStream outputStream) throws IOException {
+        writeEmployeesWorkbook(outputStream);
+    }
+
+    /**
+     * Writes the given employees into the output stream. The caller owns the stream of employees
+     * (and the transaction it was opened in) and is responsible for closing it.
+     */
+    public void exportEmployeesToExcel(Stream<Employee> employees, OutputStream outputStream) throws IOException {
         List<String> headers = Arrays.asList("ID", "First Name", "Last Name", "Email", "Department", "Salary");
         
-        try (SXSSFWorkbook workbook = new SXSSFWorkbook(WINDOW_SIZE)) {
-            workbook.setCompressTempFiles(true);
+        ExportRecording recording = ExportMetrics.current();
+        recording.queryOpened();
+
+        AdaptiveFlushPolicy windowPolicy = AdaptiveFlushPolicy.sxssfWindow();
+        try (TempFileTrackingWorkbook workbook = new TempFileTrackingWorkbook(windowPolicy.getRows(), tempStorage)) {
             SXSSFSheet sheet = workbook.createSheet("Employees");
             
             // Create header row
@@ -108,102 +176,56 @@ public class ExcelExportService {
             // Create data rows using streaming
             AtomicInteger rowNum = new AtomicInteger(1);
             
-            try (Stream<Employee> employeeStream = employeeRepository.streamAll()) {
-                employeeStream.forEach(employee -> {
-                    Row row = sheet.createRow(rowNum.getAndIncrement());
-                    row.createCell(0).setCellValue(employee.getId());
-                    row.createCell(1).setCellValue(employee.getFirstName());
-                    row.createCell(2).setCellValue(employee.getLastName());
-                    row.createCell(3).setCellValue(employee.getEmail());
-                    row.createCell(4).setCellValue(employee.getDepartment());
-                    row.createCell(5).setCellValue(employee.getSalary());
-                    
-                    // Flush rows to disk every CHUNK_SIZE rows
-                    if (rowNum.get() % CHUNK_SIZE == 0) {
-                        try {
-                            sheet.flushRows(CHUNK_SIZE);
-                        } catch (IOException e) {
-                            throw new RuntimeException("Error flushing rows to disk", e);
-                        }
-                    }
-                });
-            }
+            employees.forEach(employee -> {
+                Row row = sheet.createRow(rowNum.getAndIncrement());
+                row.createCell(0).setCellValue(employee.getId());
+                row.createCell(1).setCellValue(employee.getFirstName());
+                row.createCell(2).setCellValue(employee.getLastName());
+                row.createCell(3).setCellValue(employee.getEmail());
+                row.createCell(4).setCellValue(employee.getDepartment());
+                row.createCell(5).setCellValue(employee.getSalary());
+                recording.rowWritten();
+                
+                // SXSSF flushes the rows beyond the window to disk as new ones are created
+                if (windowPolicy.rowWritten(6, AdaptiveFlushPolicy.textLength(employee.getFirstName(),
+                        employee.getLastName(), employee.getEmail(), employee.getDepartment()))) {
+                    sheet.setRandomAccessWindowSize(windowPolicy.getRows());
+                }
+            });
             
-            // Write to byte array
-            try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-                workbook.write(outputStream);
-                return outputStream.toByteArray();
-            }
+            recording.renderFinished();
+            workbook.write(outputStream);
+            recording.tempFileBytes(workbook.getTempFileBytes());
+            recording.finished();
         }
     }
 
     @Transactional(readOnly = true)
     public byte[] exportEmployeesToExcelZip() throws IOException {
-        ByteArrayOutputStream zipByteStream = new ByteArrayOutputStream();
-        try (ZipOutputStream zipOutputStream = new ZipOutputStream(zipByteStream)) {
-            
-            // Generate timestamp for filename
-            String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
-            String excelFilename = "employees_" + timestamp + ".xlsx";
-            
-            // Create ZIP entry
-            ZipEntry zipEntry = new ZipEntry(excelFilename);
-            zipOutputStream.putNextEntry(zipEntry);
-            
-            // Generate Excel content
-            byte[] excelContent = generateExcelContent();
-            
-            // Write Excel content to ZIP
-            zipOutputStream.write(excelContent);
-            zipOutputStream.closeEntry();
+        try (ByteArrayOutputStream zipByteStream = new ByteArrayOutputStream()) {
+            exportEmployeesToExcelZip(zipByteStream, ZipEntryMode.DEFLATED);
+            return zipByteStream.toByteArray();
         }
-        
-        return zipByteStream.toByteArray();
     }
 
-    private byte[] generateExcelContent() throws IOException {
-        List<String> headers = Arrays.asList("ID", "First Name", "Last Name", "Email", "Department", "Salary");
+    /**
+     * Writes a ZIP containing the employee workbook in a single pass: the workbook writer goes straight
+     * into the open ZIP entry. Use {@link ZipEntryMode#STORED} to avoid deflating the already-compressed xlsx.
+     */
+    @Transactional(readOnly = true)
+    public void exportEmployeesToExcelZip(OutputStream outputStream, ZipEntryMode mode) throws IOException {
+        // Generate timestamp for filename
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
+        String excelFilename = "employees_" + timestamp + ".xlsx";
         
-        try (SXSSFWorkbook workbook = new SXSSFWorkbook(WINDOW_SIZE)) {
-            workbook.setCompressTempFiles(true);
-            SXSSFSheet sheet = workbook.createSheet("Employees");
-            
-            // Create header row
-            Row headerRow = sheet.createRow(0);
-            for (int i = 0; i < headers.size(); i++) {
-                Cell cell = headerRow.createCell(i);
-                cell.setCellValue(headers.get(i));
-            }
+        try (ZipExportWriter zipWriter = new ZipExportWriter(outputStream, mode)) {
+            zipWriter.writeEntry(excelFilename, this::writeEmployeesWorkbook);
+        }
+    }
 
-            // Create data rows using streaming
-            AtomicInteger rowNum = new AtomicInteger(1);
-            
-            try (Stream<Employee> employeeStream = employeeRepository.streamAll()) {
-                employeeStream.forEach(employee -> {
-                    Row row = sheet.createRow(rowNum.getAndIncrement());
-                    row.createCell(0).setCellValue(employee.getId());
-                    row.createCell(1).setCellValue(employee.getFirstName());
-                    row.createCell(2).setCellValue(employee.getLastName());
-                    row.createCell(3).setCellValue(employee.getEmail());
-                    row.createCell(4).setCellValue(employee.getDepartment());
-                    row.createCell(5).setCellValue(employee.getSalary());
-                    
-                    // Flush rows to disk every CHUNK_SIZE rows
-                    if (rowNum.get() % CHUNK_SIZE == 0) {
-                        try {
-                            sheet.flushRows(CHUNK_SIZE);
-                        } catch (IOException e) {
-                            throw new RuntimeException("Error flushing rows to disk", e);
-                        }
-                    }
-                });
-            }
-            
-            // Write to byte array
-            try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-                workbook.write(outputStream);
-                return outputStream.toByteArray();
-            }
+    private void writeEmployeesWorkbook(OutputStream outputStream) throws IOException {
+        try (Stream<Employee> employeeStream = employeeRepository.streamAll()) {
+            exportEmployeesToExcel(employeeStream, outputStream);
         }
     }
 }
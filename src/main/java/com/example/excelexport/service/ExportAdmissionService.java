@@ -0,0 +1,227 @@
+package com.example.excelexport.service;
+
+import com.example.excelexport.metrics.ExportMetrics;
+import com.example.excelexport.service.engine.ExportEngineRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Admission control for exports, so that concurrent exports degrade into 429s instead of an
+ * OutOfMemoryError. Every export is charged an estimated cost before it starts: the working set
+ * and threads of its engine, plus, for exports rendered into a byte array, the estimated row count
+ * times {@code buffered-bytes-per-row}. Exports are admitted while the costs of those running fit
+ * the memory and thread budgets; otherwise they wait up to {@code queue-timeout-ms}, at most
+ * {@code max-queued} at a time, and are rejected after that. An export costing more than a whole
+ * budget is charged the budget, so it still runs, alone. Background jobs are never rejected; they
+ * wait for the budgets in their job queue instead.
+ * <p>
+ * Waiting uses a lock and condition rather than a monitor, so a virtual thread queued here does
+ * not pin its carrier.
+ */
+@Slf4j
+@Service
+public class ExportAdmissionService {
+
+    private static final long DEFAULT_WORKING_SET_BYTES = 8L << 20;
+
+    private final ExportEngineRegistry engineRegistry;
+    private final ExportMetrics exportMetrics;
+    private final long memoryBudget;
+    private final int threadBudget;
+    private final long queueTimeoutNanos;
+    private final int maxQueued;
+    private final long bufferedBytesPerRow;
+    private final long retryAfterSeconds;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition capacityFreed = lock.newCondition();
+    private long memoryInUse;
+    private int threadsInUse;
+    private int queued;
+
+    /**
+     * @param memoryBudget bytes, or 0 for half the maximum heap
+     * @param threadBudget threads, or 0 for twice the available processors
+     */
+    public ExportAdmissionService(ExportEngineRegistry engineRegistry,
+                                  ExportMetrics exportMetrics,
+                                  @Value("${excel.export.admission.memory-budget:0}") long memoryBudget,
+                                  @Value("${excel.export.admission.threads:0}") int threadBudget,
+                                  @Value("${excel.export.admission.queue-timeout-ms:2000}") long queueTimeoutMs,
+                                  @Value("${excel.export.admission.max-queued:16}") int maxQueued,
+                                  @Value("${excel.export.admission.buffered-bytes-per-row:256}") long bufferedBytesPerRow,
+                                  @Value("${excel.export.admission.retry-after-seconds:5}") long retryAfterSeconds) {
+        this.engineRegistry = engineRegistry;
+        this.exportMetrics = exportMetrics;
+        this.memoryBudget = memoryBudget > 0 ? memoryBudget : Runtime.getRuntime().maxMemory() / 2;
+        this.threadBudget = threadBudget > 0 ? threadBudget : 2 * Runtime.getRuntime().availableProcessors();
+        this.queueTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(queueTimeoutMs);
+        this.maxQueued = maxQueued;
+        this.bufferedBytesPerRow = bufferedBytesPerRow;
+        this.retryAfterSeconds = retryAfterSeconds;
+        exportMetrics.registerAdmissionGauges(this::getMemoryInUse, this::getThreadsInUse);
+    }
+
+    /**
+     * Admits an export of the dataset with the named engine, waiting briefly for running exports to
+     * finish if the budgets are used up. Close the permit once the export is done.
+     *
+     * @param buffered whether the whole file is held in memory before it is sent
+     * @throws ExportRejectedException if the export was not admitted in time
+     */
+    public Permit admit(String engine, ExportDataset<?> dataset, boolean buffered) {
+        return admit(engine, memoryCost(engine, buffered ? dataset.estimateRowCount() : 0), threadCost(engine));
+    }
+
+    /**
+     * Admits an export of rows the caller already holds, rendered into a byte array, like
+     * {@link #admit(String, ExportDataset, boolean)} for a buffered dataset export
+     *
+     * @throws ExportRejectedException if the export was not admitted in time
+     */
+    public Permit admitBuffered(String engine, long rowCount) {
+        return admit(engine, memoryCost(engine, rowCount), threadCost(engine));
+    }
+
+    /**
+     * Admits an export that already waits in a queue of its own, such as a background job: it waits
+     * for as long as the budgets are used up and does not count against {@code max-queued}. Close the
+     * permit once the export is done.
+     *
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public Permit awaitAdmission(String engine) throws InterruptedException {
+        long memory = memoryCost(engine, 0);
+        int threads = threadCost(engine);
+        lock.lockInterruptibly();
+        try {
+            String result = "admitted";
+            while (!fits(memory, threads)) {
+                result = "queued";
+                capacityFreed.await();
+            }
+            return grant(engine, memory, threads, result);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Working set of the engine plus the bytes of {@code bufferedRows} rows held in memory
+     */
+    private long memoryCost(String engine, long bufferedRows) {
+        long memory = engineRegistry.contains(engine) ? engineRegistry.getEngine(engine).getWorkingSetBytes() : DEFAULT_WORKING_SET_BYTES;
+        return Math.min(memory + Math.max(0, bufferedRows) * bufferedBytesPerRow, memoryBudget);
+    }
+
+    private int threadCost(String engine) {
+        int threads = engineRegistry.contains(engine) ? engineRegistry.getEngine(engine).getThreads() : 1;
+        return Math.min(threads, threadBudget);
+    }
+
+    private Permit admit(String engine, long memory, int threads) {
+        lock.lock();
+        try {
+            if (fits(memory, threads)) {
+                return grant(engine, memory, threads, "admitted");
+            }
+            if (queued >= maxQueued) {
+                throw reject(engine, memory);
+            }
+
+            queued++;
+            try {
+                long remaining = queueTimeoutNanos;
+                while (!fits(memory, threads)) {
+                    if (remaining <= 0) {
+                        throw reject(engine, memory);
+                    }
+                    remaining = capacityFreed.awaitNanos(remaining);
+                }
+                return grant(engine, memory, threads, "queued");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw reject(engine, memory);
+            } finally {
+                queued--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean fits(long memory, int threads) {
+        return memoryInUse + memory <= memoryBudget && threadsInUse + threads <= threadBudget;
+    }
+
+    private Permit grant(String engine, long memory, int threads, String result) {
+        memoryInUse += memory;
+        threadsInUse += threads;
+        exportMetrics.recordAdmission(engine, result);
+        return new Permit(memory, threads);
+    }
+
+    private ExportRejectedException reject(String engine, long memory) {
+        exportMetrics.recordAdmission(engine, "rejected");
+        log.warn("Rejected {} export needing {} bytes: {} of {} bytes and {} of {} threads reserved",
+            engine, memory, memoryInUse, memoryBudget, threadsInUse, threadBudget);
+        return new ExportRejectedException("Too many exports in progress, retry later", retryAfterSeconds);
+    }
+
+    private void release(long memory, int threads) {
+        lock.lock();
+        try {
+            memoryInUse -= memory;
+            threadsInUse -= threads;
+            capacityFreed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getMemoryInUse() {
+        lock.lock();
+        try {
+            return memoryInUse;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getThreadsInUse() {
+        lock.lock();
+        try {
+            return threadsInUse;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Budget reserved by one admitted export; closing it again has no effect
+     */
+    public final class Permit implements AutoCloseable {
+
+        private final long memory;
+        private final int threads;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(long memory, int threads) {
+            this.memory = memory;
+            this.threads = threads;
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                release(memory, threads);
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.excelexport.service;
+
+import com.example.excelexport.service.writer.SheetWriter;
+
+import java.util.function.Function;
+
+/**
+ * One column of an {@link ExportDataset}: how to read the value from a row and whether it is
+ * written as a number or as text. Whole numbers keep their {@code long} precision.
+ */
+public final class ExportColumn<T> {
+
+    private final Function<T, ?> getter;
+    private final boolean numeric;
+    private final String numberFormat;
+
+    private ExportColumn(Function<T, ?> getter, boolean numeric, String numberFormat) {
+        this.getter = getter;
+        this.numeric = numeric;
+        this.numberFormat = numberFormat;
+    }
+
+    public static <T> ExportColumn<T> number(Function<T, ? extends Number> getter) {
+        return new ExportColumn<>(getter, true, null);
+    }
+
+    public static <T> ExportColumn<T> text(Function<T, String> getter) {
+        return new ExportColumn<>(getter, false, null);
+    }
+
+    /**
+     * Copy of this column with an Excel number format, e.g. {@code "#,##0.00"}
+     */
+    public ExportColumn<T> withFormat(String numberFormat) {
+        return new ExportColumn<>(getter, numeric, numberFormat);
+    }
+
+    public String getNumberFormat() {
+        return numberFormat;
+    }
+
+    public void write(SheetWriter writer, T row) {
+        Object value = getter.apply(row);
+        if (value == null) {
+            writer.writeBlank();
+        } else if (!numeric) {
+            writer.writeString(value.toString());
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            writer.writeNumber(((Number) value).longValue());
+        } else {
+            writer.writeNumber(((Number) value).doubleValue());
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.excelexport.service;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Comparator;
+import java.util.Objects;
+
+/**
+ * Position in the change order of employees, (updatedAt, id). Delta exports hand it to consumers
+ * as {@code <ISO-8601 instant>_<id>}; the rows after it are the rows inserted or updated since.
+ */
+public final class ExportCursor implements Comparable<ExportCursor> {
+
+    /**
+     * Before every row, so a delta export from here returns the whole table
+     */
+    public static final ExportCursor START = new ExportCursor(Instant.EPOCH, 0);
+
+    private static final Comparator<ExportCursor> ORDER = Comparator
+        .comparing(ExportCursor::getUpdatedAt)
+        .thenComparingLong(ExportCursor::getId);
+
+    private final Instant updatedAt;
+    private final long id;
+
+    public ExportCursor(Instant updatedAt, long id) {
+        this.updatedAt = Objects.requireNonNull(updatedAt, "updatedAt");
+        this.id = id;
+    }
+
+    /**
+     * Parses a cursor from its {@link #toString()} form
+     *
+     * @throws IllegalArgumentException if the value is not a cursor
+     */
+    public static ExportCursor parse(String value) {
+        int separator = value.lastIndexOf('_');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Invalid cursor: " + value);
+        }
+        try {
+            return new ExportCursor(Instant.parse(value.substring(0, separator)), Long.parseLong(value.substring(separator + 1)));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + value, e);
+        }
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    @Override
+    public int compareTo(ExportCursor other) {
+        return ORDER.compare(this, other);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ExportCursor)) {
+            return false;
+        }
+        ExportCursor other = (ExportCursor) o;
+        return id == other.id && updatedAt.equals(other.updatedAt);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(updatedAt, id);
+    }
+
+    @Override
+    public String toString() {
+        return updatedAt + "_" + id;
+    }
+}
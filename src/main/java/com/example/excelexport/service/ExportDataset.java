@@ -0,0 +1,48 @@
+package com.example.excelexport.service;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Row source and column model of an export, independent of the engine that writes it.
+ */
+public interface ExportDataset<T> {
+
+    String getName();
+
+    List<ExportColumn<T>> getColumns();
+
+    List<String> getHeaders(Locale locale);
+
+    String getSheetName(Locale locale);
+
+    /**
+     * Filters applied to the rows, part of the result cache key
+     */
+    default Map<String, String> getFilters() {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * Cheap marker that changes whenever the rows may have changed, or null when the dataset cannot
+     * be versioned; exports of unversioned datasets are never cached.
+     */
+    default String getVersion() {
+        return null;
+    }
+
+    /**
+     * Cheap estimate of the number of rows, e.g. from planner statistics, or -1 when unknown
+     */
+    default long estimateRowCount() {
+        return -1;
+    }
+
+    /**
+     * Opens a stream over every row. Must be called inside a read-only transaction; the caller closes it.
+     */
+    Stream<T> openRows();
+}
@@ -0,0 +1,89 @@
+package com.example.excelexport.service;
+
+import com.example.excelexport.service.engine.ExportFormat;
+import lombok.Getter;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Mutable state of an asynchronous export job. Fields are written by the worker thread
+ * and read by pollers, so everything that changes after submission is volatile or atomic.
+ */
+@Getter
+public class ExportJob {
+
+    public enum State { QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED }
+
+    private final String id;
+    private final String engine;
+    /**
+     * What the engine writes
+     */
+    private final ExportFormat engineFormat;
+    /**
+     * Extension of the result: the engine format's, or zip
+     */
+    private final String format;
+    private final String department;
+    private final Locale locale;
+    private final Instant createdAt = Instant.now();
+    private final AtomicLong rowsWritten = new AtomicLong();
+
+    private volatile State state = State.QUEUED;
+    private volatile long totalRows;
+    private volatile Path file;
+    private volatile Instant finishedAt;
+    private volatile String error;
+    private volatile Future<?> future;
+
+    public ExportJob(String id, String engine, ExportFormat engineFormat, String format, String department, Locale locale) {
+        this.id = id;
+        this.engine = engine;
+        this.engineFormat = engineFormat;
+        this.format = format;
+        this.department = department;
+        this.locale = locale;
+    }
+
+    void markRunning(long totalRows) {
+        this.totalRows = totalRows;
+        this.state = State.RUNNING;
+    }
+
+    void markCompleted(Path file) {
+        this.file = file;
+        this.finishedAt = Instant.now();
+        this.state = State.COMPLETED;
+    }
+
+    void markFailed(String error) {
+        this.error = error;
+        this.finishedAt = Instant.now();
+        this.state = State.FAILED;
+    }
+
+    void markCancelled() {
+        this.finishedAt = Instant.now();
+        this.state = State.CANCELLED;
+    }
+
+    void setFuture(Future<?> future) {
+        this.future = future;
+    }
+
+    public boolean isZipped() {
+        return ExportJobService.ZIP.equals(format);
+    }
+
+    public String getMediaType() {
+        return isZipped() ? "application/zip" : engineFormat.getMediaType();
+    }
+
+    public boolean isFinished() {
+        return state == State.COMPLETED || state == State.FAILED || state == State.CANCELLED;
+    }
+}
@@ -0,0 +1,274 @@
+package com.example.excelexport.service;
+
+import com.example.excelexport.dto.ExportJobRequest;
+import com.example.excelexport.dto.ExportJobStatus;
+import com.example.excelexport.entity.Employee;
+import com.example.excelexport.metrics.ExportMetrics;
+import com.example.excelexport.repository.EmployeeRepository;
+import com.example.excelexport.service.engine.ExportFormat;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Runs exports in the background: jobs are queued on a bounded executor, wait there for admission
+ * while the export budgets are used up, write their result to local disk, and are purged together
+ * with their file once the TTL has passed.
+ */
+@Slf4j
+@Service
+public class ExportJobService {
+
+    static final String ZIP = "zip";
+
+    private final SpreadsheetExportService spreadsheetExportService;
+    private final EmployeeDataset employeeDataset;
+    private final ExportMetrics exportMetrics;
+    private final ExportAdmissionService exportAdmissionService;
+    private final EmployeeRepository employeeRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolTaskExecutor exportJobExecutor;
+    private final Path jobDirectory;
+    private final Duration ttl;
+
+    private final Map<String, ExportJob> jobs = new ConcurrentHashMap<>();
+
+    public ExportJobService(SpreadsheetExportService spreadsheetExportService,
+                            EmployeeDataset employeeDataset,
+                            ExportMetrics exportMetrics,
+                            ExportAdmissionService exportAdmissionService,
+                            EmployeeRepository employeeRepository,
+                            PlatformTransactionManager transactionManager,
+                            @Qualifier("exportJobExecutor") ThreadPoolTaskExecutor exportJobExecutor,
+                            @Value("${excel.export.jobs.directory:${java.io.tmpdir}/excel-export-jobs}") String jobDirectory,
+                            @Value("${excel.export.jobs.ttl-minutes:60}") long ttlMinutes) throws IOException {
+        this.spreadsheetExportService = spreadsheetExportService;
+        this.employeeDataset = employeeDataset;
+        this.exportMetrics = exportMetrics;
+        this.exportAdmissionService = exportAdmissionService;
+        this.employeeRepository = employeeRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.exportJobExecutor = exportJobExecutor;
+        this.jobDirectory = Files.createDirectories(Paths.get(jobDirectory));
+        this.ttl = Duration.ofMinutes(ttlMinutes);
+    }
+
+    /**
+     * Queues a new export job. Its result is the engine's own format (xlsx, csv, ...) or a zip of it.
+     * @throws IllegalArgumentException if the engine is unknown or the format is neither
+     * @throws org.springframework.core.task.TaskRejectedException if the job queue is full
+     */
+    public ExportJob submit(ExportJobRequest request) {
+        String engine = request.getEngine() == null ? "" : request.getEngine().toLowerCase();
+        if (!spreadsheetExportService.supports(engine)) {
+            throw new IllegalArgumentException("Unknown engine: " + request.getEngine());
+        }
+        ExportFormat engineFormat = spreadsheetExportService.getFormat(engine);
+        String format = StringUtils.hasText(request.getFormat())
+            ? request.getFormat().toLowerCase()
+            : engineFormat.getFileExtension();
+        if (!format.equals(ZIP) && !format.equals(engineFormat.getFileExtension())) {
+            throw new IllegalArgumentException("Engine " + engine + " writes " + engineFormat.getFileExtension()
+                + ", format must be " + engineFormat.getFileExtension() + " or " + ZIP + ": " + request.getFormat());
+        }
+        String department = StringUtils.hasText(request.getDepartment()) ? request.getDepartment() : null;
+
+        ExportJob job = new ExportJob(UUID.randomUUID().toString(), engine, engineFormat, format, department,
+            LocaleContextHolder.getLocale());
+        jobs.put(job.getId(), job);
+        try {
+            job.setFuture(exportJobExecutor.submit(() -> run(job)));
+        } catch (RuntimeException e) {
+            jobs.remove(job.getId());
+            throw e;
+        }
+        log.info("Queued export job {} (engine={}, format={}, department={})", job.getId(), engine, format, department);
+        return job;
+    }
+
+    public Optional<ExportJob> getJob(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    /**
+     * Cancels a job if it is still running and removes it together with its file.
+     */
+    public boolean cancel(String id) {
+        ExportJob job = jobs.remove(id);
+        if (job == null) {
+            return false;
+        }
+        if (!job.isFinished() && job.getFuture() != null) {
+            job.getFuture().cancel(true);
+            job.markCancelled();
+        }
+        deleteQuietly(job.getFile());
+        return true;
+    }
+
+    public ExportJobStatus toStatus(ExportJob job) {
+        Long fileSize = null;
+        if (job.getFile() != null) {
+            try {
+                fileSize = Files.size(job.getFile());
+            } catch (IOException e) {
+                log.warn("Could not read size of {}", job.getFile(), e);
+            }
+        }
+        return ExportJobStatus.builder()
+            .id(job.getId())
+            .state(job.getState().name())
+            .engine(job.getEngine())
+            .format(job.getFormat())
+            .department(job.getDepartment())
+            .rowsWritten(job.getRowsWritten().get())
+            .totalRows(job.getTotalRows())
+            .fileSize(fileSize)
+            .createdAt(job.getCreatedAt())
+            .finishedAt(job.getFinishedAt())
+            .expiresAt(job.getFinishedAt() == null ? null : job.getFinishedAt().plus(ttl))
+            .error(job.getError())
+            .build();
+    }
+
+    public String getDownloadFilename(ExportJob job) {
+        String timestamp = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")
+            .withZone(ZoneId.systemDefault())
+            .format(job.getCreatedAt());
+        return "employees_" + job.getEngine() + "_" + timestamp + "." + job.getFormat();
+    }
+
+    @Scheduled(fixedDelayString = "${excel.export.jobs.cleanup-interval-ms:60000}")
+    public void purgeExpiredJobs() {
+        Instant cutoff = Instant.now().minus(ttl);
+        jobs.values().removeIf(job -> {
+            if (job.isFinished() && job.getFinishedAt().isBefore(cutoff)) {
+                deleteQuietly(job.getFile());
+                log.info("Purged expired export job {}", job.getId());
+                return true;
+            }
+            return false;
+        });
+    }
+
+    private void run(ExportJob job) {
+        LocaleContextHolder.setLocale(job.getLocale());
+        Path partFile = jobDirectory.resolve(job.getId() + ".part");
+        try {
+            try (ExportAdmissionService.Permit permit = exportAdmissionService.awaitAdmission(job.getEngine())) {
+                transactionTemplate.executeWithoutResult(status -> {
+                    try {
+                        writeJob(job, partFile);
+                    } catch (IOException e) {
+                        throw new RuntimeException("Error writing export job " + job.getId(), e);
+                    }
+                });
+            }
+            Path resultFile = Files.move(partFile, jobDirectory.resolve(job.getId() + "." + job.getFormat()),
+                StandardCopyOption.REPLACE_EXISTING);
+            job.markCompleted(resultFile);
+            if (!jobs.containsKey(job.getId())) {
+                // cancel() removed the job before it had a file to delete
+                deleteQuietly(resultFile);
+                job.markCancelled();
+                log.info("Export job {} cancelled as it completed", job.getId());
+                return;
+            }
+            log.info("Export job {} completed with {} rows", job.getId(), job.getRowsWritten().get());
+        } catch (CancellationException | InterruptedException e) {
+            job.markCancelled();
+            log.info("Export job {} cancelled", job.getId());
+        } catch (Exception e) {
+            job.markFailed(e.getMessage());
+            log.error("Export job {} failed", job.getId(), e);
+        } finally {
+            deleteQuietly(partFile);
+            LocaleContextHolder.resetLocaleContext();
+        }
+    }
+
+    private void writeJob(ExportJob job, Path partFile) throws IOException {
+        long totalRows = job.getDepartment() == null
+            ? employeeRepository.count()
+            : employeeRepository.countByDepartment(job.getDepartment());
+        job.markRunning(totalRows);
+
+        try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(partFile))) {
+            exportMetrics.record(job.getEngine(), "job", outputStream, meteredStream -> writeJob(job, meteredStream));
+        }
+    }
+
+    private void writeJob(ExportJob job, OutputStream outputStream) throws IOException {
+        try (Stream<Employee> employees = openEmployeeStream(job)) {
+            ExportMetrics.current().queryOpened();
+
+            Stream<Employee> trackedEmployees = employees.peek(employee -> {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new CancellationException("Export job " + job.getId() + " was cancelled");
+                }
+                job.getRowsWritten().incrementAndGet();
+            });
+
+            if (job.isZipped()) {
+                // xlsx and csv.gz are already deflated, so store them as-is instead of compressing them twice
+                ExportFormat engineFormat = job.getEngineFormat();
+                ZipEntryMode entryMode = engineFormat == ExportFormat.XLSX || engineFormat == ExportFormat.CSV_GZIP
+                    ? ZipEntryMode.STORED
+                    : ZipEntryMode.DEFLATED;
+                try (ZipExportWriter zipWriter = new ZipExportWriter(outputStream, entryMode)) {
+                    String entryName = getDownloadFilename(job).replaceAll("\\.zip$", "." + engineFormat.getFileExtension());
+                    zipWriter.writeEntry(entryName, entryStream -> writeWorkbook(job.getEngine(), trackedEmployees, entryStream));
+                }
+            } else {
+                writeWorkbook(job.getEngine(), trackedEmployees, outputStream);
+            }
+        }
+    }
+
+    private Stream<Employee> openEmployeeStream(ExportJob job) {
+        return job.getDepartment() == null
+            ? employeeRepository.streamAll()
+            : employeeRepository.streamByDepartment(job.getDepartment());
+    }
+
+    private void writeWorkbook(String engine, Stream<Employee> employees, OutputStream outputStream) throws IOException {
+        spreadsheetExportService.export(engine, employeeDataset, employees, outputStream);
+    }
+
+    private void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete export file {}", file, e);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.excelexport.service;
+
+/**
+ * Thrown when an export is not admitted because the export budgets are used up
+ */
+public class ExportRejectedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public ExportRejectedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * Seconds after which a retry may be admitted
+     */
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
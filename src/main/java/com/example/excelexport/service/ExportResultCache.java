@@ -0,0 +1,282 @@
+package com.example.excelexport.service;
+
+import com.example.excelexport.metrics.ExportMetrics.ExportBody;
+import com.example.excelexport.service.engine.CompressionProfile;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Finished exports kept on local disk, keyed by (dataset, filters, dataset version, engine, locale).
+ * A key changes as soon as the dataset version does, so entries never go stale; superseded versions
+ * simply stop being read and are evicted least recently used first once the files exceed
+ * {@code max-bytes}. The cache's files left in the directory are deleted on startup since keys are
+ * only held in memory; other files there are left alone.
+ */
+@Slf4j
+@Service
+public class ExportResultCache {
+
+    private static final String PART_PREFIX = "export-";
+    private static final String PART_SUFFIX = ".part";
+    private static final String FILE_SUFFIX = ".export";
+
+    private final Path directory;
+    private final long maxBytes;
+    /**
+     * Guards the entries; a lock rather than a monitor since file operations run under it, which
+     * would pin a virtual thread
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, CachedFile> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    public ExportResultCache(@Value("${excel.export.cache.directory:${java.io.tmpdir}/excel-export-cache}") String directory,
+                             @Value("${excel.export.cache.max-bytes:1073741824}") long maxBytes) throws IOException {
+        this.directory = Files.createDirectories(Paths.get(directory));
+        this.maxBytes = maxBytes;
+        try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(this.directory,
+                "{" + PART_PREFIX + "*" + PART_SUFFIX + ",*" + FILE_SUFFIX + "}")) {
+            leftovers.forEach(this::deleteQuietly);
+        }
+    }
+
+    /**
+     * Cache key of an export, or null when the dataset has no version and cannot be cached. Runs the
+     * dataset's version probe.
+     */
+    public String getKey(ExportDataset<?> dataset, String engine, Locale locale) {
+        return getKey(dataset, engine, CompressionProfile.DEFAULT, locale);
+    }
+
+    /**
+     * Key of an export compressed with the given profile, or null if the dataset is not versioned
+     */
+    public String getKey(ExportDataset<?> dataset, String engine, CompressionProfile compression, Locale locale) {
+        String version = dataset.getVersion();
+        if (version == null) {
+            return null;
+        }
+        StringBuilder key = new StringBuilder(dataset.getName());
+        new TreeMap<>(dataset.getFilters()).forEach((name, value) -> key.append('|').append(name).append('=').append(value));
+        return key.append('|').append(version)
+            .append('|').append(engine)
+            .append('|').append(compression)
+            .append('|').append(locale.toLanguageTag())
+            .toString();
+    }
+
+    /**
+     * Entity tag of the export with the given key. It is weak because files rendered from the same
+     * rows differ in their creation timestamps.
+     */
+    public String getETag(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            StringBuilder eTag = new StringBuilder("W/\"");
+            for (int i = 0; i < 16; i++) {
+                eTag.append(String.format("%02x", digest[i]));
+            }
+            return eTag.append('"').toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Opens the cached export with the given key. The file stays readable through the returned
+     * stream even if it is evicted meanwhile; close it when done, whether or not it was written.
+     */
+    public Optional<CachedExport> open(String key) throws IOException {
+        lock.lock();
+        try {
+            CachedFile entry = entries.get(key);
+            if (entry == null) {
+                return Optional.empty();
+            }
+            return Optional.of(new CachedExport(Files.newInputStream(entry.file), entry.size));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Runs the export into the output stream and keeps a copy under the given key if it completes.
+     */
+    public void write(String key, OutputStream outputStream, ExportBody body) throws IOException {
+        Path partFile = Files.createTempFile(directory, PART_PREFIX, PART_SUFFIX);
+        boolean stored = false;
+        try {
+            try (OutputStream fileStream = new BufferedOutputStream(Files.newOutputStream(partFile))) {
+                body.writeTo(new TeeOutputStream(outputStream, fileStream));
+            }
+            store(key, partFile);
+            stored = true;
+        } finally {
+            if (!stored) {
+                deleteQuietly(partFile);
+            }
+        }
+    }
+
+    long getTotalBytes() {
+        lock.lock();
+        try {
+            return totalBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void store(String key, Path partFile) throws IOException {
+        lock.lock();
+        try {
+            Path file = Files.move(partFile, directory.resolve(UUID.randomUUID() + FILE_SUFFIX), StandardCopyOption.ATOMIC_MOVE);
+            CachedFile entry = new CachedFile(file, Files.size(file));
+            CachedFile previous = entries.put(key, entry);
+            totalBytes += entry.size;
+            if (previous != null) {
+                // Two concurrent misses for the same key; keep the newer file
+                remove(previous);
+            }
+
+            Iterator<CachedFile> eldest = entries.values().iterator();
+            while (totalBytes > maxBytes && eldest.hasNext()) {
+                CachedFile evicted = eldest.next();
+                eldest.remove();
+                remove(evicted);
+                log.debug("Evicted cached export {} ({} bytes)", evicted.file, evicted.size);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void remove(CachedFile entry) {
+        totalBytes -= entry.size;
+        deleteQuietly(entry.file);
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete cached export {}", file, e);
+        }
+    }
+
+    private static final class CachedFile {
+        final Path file;
+        final long size;
+
+        CachedFile(Path file, long size) {
+            this.file = file;
+            this.size = size;
+        }
+    }
+
+    /**
+     * An open cached export
+     */
+    public static final class CachedExport implements AutoCloseable {
+        private final InputStream inputStream;
+        private final long size;
+
+        CachedExport(InputStream inputStream, long size) {
+            this.inputStream = inputStream;
+            this.size = size;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        /**
+         * Copies the export into the output stream and closes the cached file
+         */
+        public void writeTo(OutputStream outputStream) throws IOException {
+            try (InputStream in = inputStream) {
+                in.transferTo(outputStream);
+            }
+        }
+
+        /**
+         * Closes the cached file without writing it; closing again has no effect
+         */
+        @Override
+        public void close() {
+            try {
+                inputStream.close();
+            } catch (IOException e) {
+                log.warn("Could not close cached export", e);
+            }
+        }
+    }
+
+    /**
+     * Writes to the response and the cache file at once
+     */
+    private static final class TeeOutputStream extends OutputStream {
+        private final OutputStream first;
+        private final OutputStream second;
+
+        TeeOutputStream(OutputStream first, OutputStream second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            first.write(b);
+            second.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            first.write(b, off, len);
+            second.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            first.flush();
+            second.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            // Both streams are owned by the caller
+            flush();
+        }
+    }
+}
@@ -1,7 +1,10 @@
 package com.example.excelexport.service;
 
 import com.example.excelexport.entity.Employee;
+import com.example.excelexport.metrics.ExportMetrics;
+import com.example.excelexport.metrics.ExportRecording;
 import com.example.excelexport.repository.EmployeeRepository;
+import com.example.excelexport.service.writer.AdaptiveFlushPolicy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.dhatim.fastexcel.Workbook;
@@ -13,6 +16,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
@@ -20,54 +24,114 @@ import java.util.List;
 import java.util.Locale;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class FastExcelExportService {
 
-    private static final int CHUNK_SIZE = 1000;
-
     private final EmployeeRepository employeeRepository;
     private final MessageSource messageSource;
 
+    /**
+     * Streams the employee workbook into the given output stream; FastExcel emits the zip parts as
+     * worksheets are flushed, so the client starts receiving bytes after the first chunk.
+     */
+    @Transactional(readOnly = true)
+    public void exportEmployeesToExcel(OutputStream outputStream) throws IOException {
+        writeExcelContent(outputStream);
+    }
+
     @Transactional(readOnly = true)
     public byte[] exportEmployeesToExcelZip() throws IOException {
-        ByteArrayOutputStream zipByteStream = new ByteArrayOutputStream();
-        try (ZipOutputStream zipOutputStream = new ZipOutputStream(zipByteStream)) {
-            
-            // Generate timestamp for filename
-            String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
-            String baseFilename = messageSource.getMessage(
-                "excel.filename.users",
-                null,
-                "employees_fastexcel",
-                LocaleContextHolder.getLocale()
-            );
-            String excelFilename = baseFilename + "_" + timestamp + ".xlsx";
-            
-            // Create ZIP entry
-            ZipEntry zipEntry = new ZipEntry(excelFilename);
-            zipOutputStream.putNextEntry(zipEntry);
-            
-            // Generate Excel content
-            byte[] excelContent = generateExcelContent();
-            
-            // Write Excel content to ZIP
-            zipOutputStream.write(excelContent);
-            zipOutputStream.closeEntry();
+        try (ByteArrayOutputStream zipByteStream = new ByteArrayOutputStream()) {
+            exportEmployeesToExcelZip(zipByteStream, ZipEntryMode.DEFLATED);
+            return zipByteStream.toByteArray();
         }
+    }
+
+    /**
+     * Writes a ZIP containing the employee workbook in a single pass: the workbook writer goes straight
+     * into the open ZIP entry. Use {@link ZipEntryMode#STORED} to avoid deflating the already-compressed xlsx.
+     */
+    @Transactional(readOnly = true)
+    public void exportEmployeesToExcelZip(OutputStream outputStream, ZipEntryMode mode) throws IOException {
+        // Generate timestamp for filename
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
+        String baseFilename = messageSource.getMessage(
+            "excel.filename.users",
+            null,
+            "employees_fastexcel",
+            LocaleContextHolder.getLocale()
+        );
+        String excelFilename = baseFilename + "_" + timestamp + ".xlsx";
         
-        return zipByteStream.toByteArray();
+        try (ZipExportWriter zipWriter = new ZipExportWriter(outputStream, mode)) {
+            zipWriter.writeEntry(excelFilename, this::writeExcelContent);
+        }
     }
 
-    private byte[] generateExcelContent() throws IOException {
+    private void writeExcelContent(OutputStream outputStream) throws IOException {
+        try (Stream<Employee> employeeStream = employeeRepository.streamAll()) {
+            exportEmployeesToExcel(employeeStream, outputStream);
+        }
+    }
+
+    /**
+     * Writes the given employees into the output stream. The caller owns the stream of employees
+     * (and the transaction it was opened in) and is responsible for closing it.
+     */
+    public void exportEmployeesToExcel(Stream<Employee> employees, OutputStream outputStream) throws IOException {
         Locale currentLocale = LocaleContextHolder.getLocale();
+        List<String> headers = getLocalizedHeaders(currentLocale);
+        String sheetName = getLocalizedSheetName(currentLocale);
+        
+        ExportRecording recording = ExportMetrics.current();
+        recording.queryOpened();
+
+        Workbook workbook = new Workbook(outputStream, sheetName, "1.0");
+        Worksheet worksheet = workbook.newWorksheet(sheetName);
+        writeWorksheet(worksheet, headers, employees);
         
-        // Get localized headers
-        List<String> headers = Arrays.asList(
+        // Finish and close the workbook
+        recording.renderFinished();
+        workbook.finish();
+        recording.finished();
+    }
+
+    /**
+     * Writes one worksheet per id-range partition of the reader. Each worksheet is finished before the
+     * next one starts, while the reader keeps fetching the following partitions in the background.
+     */
+    public void exportEmployeePartitionsToExcel(PartitionedEmployeeReader reader, OutputStream outputStream) throws IOException {
+        Locale currentLocale = LocaleContextHolder.getLocale();
+        List<String> headers = getLocalizedHeaders(currentLocale);
+        String sheetName = getLocalizedSheetName(currentLocale);
+
+        ExportRecording recording = ExportMetrics.current();
+        Workbook workbook = new Workbook(outputStream, sheetName, "1.0");
+        AtomicInteger sheetCount = new AtomicInteger();
+
+        reader.readPartitions((partition, employees) -> {
+            recording.queryOpened();
+            Worksheet worksheet = workbook.newWorksheet(sheetName + " " + (partition + 1));
+            writeWorksheet(worksheet, headers, employees);
+            worksheet.finish();
+            sheetCount.incrementAndGet();
+        });
+
+        // An empty table still needs one worksheet to be a valid workbook
+        if (sheetCount.get() == 0) {
+            writeWorksheet(workbook.newWorksheet(sheetName), headers, Stream.empty());
+        }
+
+        recording.renderFinished();
+        workbook.finish();
+        recording.finished();
+    }
+
+    private List<String> getLocalizedHeaders(Locale currentLocale) {
+        return Arrays.asList(
             messageSource.getMessage("excel.header.userId", null, "ID", currentLocale),
             messageSource.getMessage("excel.header.firstName", null, "First Name", currentLocale),
             messageSource.getMessage("excel.header.lastName", null, "Last Name", currentLocale),
@@ -75,51 +139,51 @@ public class FastExcelExportService {
             messageSource.getMessage("excel.header.department", null, "Department", currentLocale),
             messageSource.getMessage("excel.header.salary", null, "Salary", currentLocale)
         );
+    }
+
+    private String getLocalizedSheetName(Locale currentLocale) {
+        return messageSource.getMessage(
+            "excel.sheet.users",
+            null,
+            "Employees",
+            currentLocale
+        );
+    }
+
+    private void writeWorksheet(Worksheet worksheet, List<String> headers, Stream<Employee> employees) {
+        ExportRecording recording = ExportMetrics.current();
+
+        // Write headers
+        for (int i = 0; i < headers.size(); i++) {
+            worksheet.value(0, i, headers.get(i));
+        }
         
-        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-            String sheetName = messageSource.getMessage(
-                "excel.sheet.users",
-                null,
-                "Employees",
-                currentLocale
-            );
-            
-            Workbook workbook = new Workbook(outputStream, sheetName, "1.0");
-            Worksheet worksheet = workbook.newWorksheet(sheetName);
-
-            // Write headers
-            for (int i = 0; i < headers.size(); i++) {
-                worksheet.value(0, i, headers.get(i));
-            }
-            
-            // Write data using streaming
-            AtomicInteger rowNum = new AtomicInteger(1);
-            
-            try (Stream<Employee> employeeStream = employeeRepository.streamAll()) {
-                employeeStream.forEach(employee -> {
-                    try {
-                        worksheet.value(rowNum.get(), 0, employee.getId());
-                        worksheet.value(rowNum.get(), 1, employee.getFirstName());
-                        worksheet.value(rowNum.get(), 2, employee.getLastName());
-                        worksheet.value(rowNum.get(), 3, employee.getEmail());
-                        worksheet.value(rowNum.get(), 4, employee.getDepartment());
-                        worksheet.value(rowNum.get(), 5, employee.getSalary());
-                        
-                        rowNum.incrementAndGet();
-                        
-                        // Flush every CHUNK_SIZE rows
-                        if (rowNum.get() % CHUNK_SIZE == 0) {
-                            worksheet.flush();
-                        }
-                    } catch (IOException e) {
-                        throw new RuntimeException("Error writing to Excel file", e);
-                    }
-                });
+        // Write data using streaming
+        AtomicInteger rowNum = new AtomicInteger(1);
+        AtomicInteger rowsSinceFlush = new AtomicInteger();
+        AdaptiveFlushPolicy flushPolicy = AdaptiveFlushPolicy.fastExcelFlush();
+        
+        employees.forEach(employee -> {
+            try {
+                worksheet.value(rowNum.get(), 0, employee.getId());
+                worksheet.value(rowNum.get(), 1, employee.getFirstName());
+                worksheet.value(rowNum.get(), 2, employee.getLastName());
+                worksheet.value(rowNum.get(), 3, employee.getEmail());
+                worksheet.value(rowNum.get(), 4, employee.getDepartment());
+                worksheet.value(rowNum.get(), 5, employee.getSalary());
+                
+                rowNum.incrementAndGet();
+                recording.rowWritten();
+                
+                flushPolicy.rowWritten(6, AdaptiveFlushPolicy.textLength(employee.getFirstName(),
+                    employee.getLastName(), employee.getEmail(), employee.getDepartment()));
+                if (rowsSinceFlush.incrementAndGet() >= flushPolicy.getRows()) {
+                    worksheet.flush();
+                    rowsSinceFlush.set(0);
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("Error writing to Excel file", e);
             }
-            
-            // Finish and close the workbook
-            workbook.finish();
-            return outputStream.toByteArray();
-        }
+        });
     }
 }
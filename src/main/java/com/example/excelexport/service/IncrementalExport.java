@@ -0,0 +1,113 @@
+package com.example.excelexport.service;
+
+import com.example.excelexport.service.engine.ExportFormat;
+import com.example.excelexport.service.writer.SheetWriter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Employee export rendered on demand by its caller: each {@link #render} reads just enough rows
+ * from an open database cursor to produce the next chunk of the file, so the cursor advances only
+ * as fast as the output is consumed. Owns its connection, which stays in a read-only transaction
+ * until the export is closed.
+ * <p>
+ * Not thread-safe; calls may come from different threads but must not overlap.
+ */
+@Slf4j
+public class IncrementalExport implements AutoCloseable {
+
+    private final Connection connection;
+    private final Statement statement;
+    private final ResultSet resultSet;
+    private final SheetWriter writer;
+    private final ByteArrayOutputStream pending;
+    private final ExportFormat format;
+    private boolean finished;
+    private boolean closed;
+
+    IncrementalExport(Connection connection, Statement statement, ResultSet resultSet,
+                      SheetWriter writer, ByteArrayOutputStream pending, ExportFormat format) {
+        this.connection = connection;
+        this.statement = statement;
+        this.resultSet = resultSet;
+        this.writer = writer;
+        this.pending = pending;
+        this.format = format;
+    }
+
+    public ExportFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * Writes rows until at least {@code minBytes} of output are pending; after the last row the
+     * workbook is finished and the cursor closed
+     */
+    public void render(int minBytes) throws IOException {
+        try {
+            while (!finished && pending.size() < minBytes) {
+                if (resultSet.next()) {
+                    JdbcExcelExportService.writeRow(resultSet, writer);
+                } else {
+                    writer.finish();
+                    finished = true;
+                    log.debug("Exported {} employees incrementally", writer.getRowCount());
+                    close();
+                }
+            }
+        } catch (SQLException e) {
+            throw new IOException("Error reading employees", e);
+        }
+    }
+
+    public boolean hasPending() {
+        return pending.size() > 0;
+    }
+
+    /**
+     * Whether every row has been rendered and taken with {@link #writePendingTo}
+     */
+    public boolean isComplete() {
+        return finished && !hasPending();
+    }
+
+    /**
+     * Moves the pending output to the given stream
+     */
+    public void writePendingTo(OutputStream outputStream) throws IOException {
+        pending.writeTo(outputStream);
+        pending.reset();
+    }
+
+    public long getRowCount() {
+        return writer.getRowCount();
+    }
+
+    /**
+     * Releases the cursor and connection; pending output stays available. Closing again has no effect.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            writer.close();
+        } catch (IOException e) {
+            log.warn("Could not close the {} writer", format, e);
+        }
+        try (Connection ignored = connection; Statement ignoredStatement = statement; ResultSet ignoredResultSet = resultSet) {
+            connection.rollback();
+        } catch (SQLException e) {
+            log.warn("Could not release the employee cursor", e);
+        }
+    }
+}
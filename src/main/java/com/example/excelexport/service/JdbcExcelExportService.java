@@ -0,0 +1,138 @@
+package com.example.excelexport.service;
+
+import com.example.excelexport.metrics.ExportMetrics;
+import com.example.excelexport.service.engine.ExportEngine;
+import com.example.excelexport.service.engine.ExportEngineRegistry;
+import com.example.excelexport.service.writer.SheetWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Locale;
+
+/**
+ * Employee export that skips entity hydration: the six columns are read with a {@link JdbcTemplate}
+ * row callback and each value goes straight from the ResultSet into the worksheet. Runs in a
+ * read-only transaction so PostgreSQL honours the fetch size and streams the result with a cursor.
+ */
+@Slf4j
+@Service
+public class JdbcExcelExportService {
+
+    static final int FETCH_SIZE = 1000;
+
+    static final String EMPLOYEE_QUERY =
+        "SELECT id, first_name, last_name, email, department, salary FROM employees ORDER BY id";
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final EmployeeExportLabels labels;
+    private final ExportEngineRegistry engineRegistry;
+
+    public JdbcExcelExportService(DataSource dataSource, EmployeeExportLabels labels, ExportEngineRegistry engineRegistry) {
+        this.dataSource = dataSource;
+        // Own template so the fetch size does not leak into other users of the shared JdbcTemplate
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+        this.labels = labels;
+        this.engineRegistry = engineRegistry;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the engine is unknown
+     */
+    @Transactional(readOnly = true)
+    public void exportEmployees(String engine, OutputStream outputStream) throws IOException {
+        String sheetName = labels.getSheetName(LocaleContextHolder.getLocale());
+        try (SheetWriter writer = ExportMetrics.current().meter(engineRegistry.createSheetWriter(engine, outputStream, sheetName))) {
+            exportEmployees(writer);
+        }
+    }
+
+    /**
+     * Writes the header and every employee row into the given writer, then finishes the workbook.
+     * Must run inside a transaction for the fetch size to take effect.
+     */
+    public void exportEmployees(SheetWriter writer) throws IOException {
+        writer.writeHeader(labels.getHeaders(LocaleContextHolder.getLocale()));
+
+        jdbcTemplate.query(EMPLOYEE_QUERY, resultSet -> {
+            try {
+                writeRow(resultSet, writer);
+            } catch (IOException e) {
+                throw new RuntimeException("Error writing to Excel file", e);
+            }
+        });
+
+        writer.finish();
+        log.debug("Exported {} employees through JDBC", writer.getRowCount());
+    }
+
+    public boolean supportsIncrementalExport(String engine) {
+        return engineRegistry.contains(engine) && engineRegistry.getEngine(engine).writesIncrementally();
+    }
+
+    /**
+     * Opens a cursor over the employees on a connection of its own and prepares the workbook for
+     * rendering a chunk at a time, e.g. as a non-blocking response becomes writable. The caller
+     * must close the export.
+     *
+     * @throws IllegalArgumentException if the engine is unknown or cannot write incrementally
+     */
+    public IncrementalExport openIncrementalExport(String engine) throws SQLException, IOException {
+        if (!supportsIncrementalExport(engine)) {
+            throw new IllegalArgumentException("Engine " + engine + " cannot write incrementally");
+        }
+        ExportEngine exportEngine = engineRegistry.getEngine(engine);
+        Locale locale = LocaleContextHolder.getLocale();
+
+        Connection connection = dataSource.getConnection();
+        boolean opened = false;
+        try {
+            connection.setAutoCommit(false);
+            connection.setReadOnly(true);
+            PreparedStatement statement = connection.prepareStatement(EMPLOYEE_QUERY);
+            statement.setFetchSize(FETCH_SIZE);
+            ResultSet resultSet = statement.executeQuery();
+
+            ByteArrayOutputStream pending = new ByteArrayOutputStream();
+            SheetWriter writer = engineRegistry.createSheetWriter(engine, pending, labels.getSheetName(locale));
+            writer.writeHeader(labels.getHeaders(locale));
+            opened = true;
+            return new IncrementalExport(connection, statement, resultSet, writer, pending, exportEngine.getFormat());
+        } finally {
+            if (!opened) {
+                connection.close();
+            }
+        }
+    }
+
+    /**
+     * Writes the employee at the current row of an {@link #EMPLOYEE_QUERY} result
+     */
+    static void writeRow(ResultSet resultSet, SheetWriter writer) throws SQLException, IOException {
+        writer.startRow();
+        writer.writeNumber(resultSet.getLong(1));
+        writer.writeString(resultSet.getString(2));
+        writer.writeString(resultSet.getString(3));
+        writer.writeString(resultSet.getString(4));
+        writer.writeString(resultSet.getString(5));
+        double salary = resultSet.getDouble(6);
+        if (resultSet.wasNull()) {
+            writer.writeBlank();
+        } else {
+            writer.writeNumber(salary);
+        }
+        writer.endRow();
+    }
+}
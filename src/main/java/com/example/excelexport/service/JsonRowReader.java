@@ -0,0 +1,79 @@
+package com.example.excelexport.service;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads DTOs one at a time from a JSON array ({@code [{...}, {...}]}) or from NDJSON / a sequence of
+ * root-level objects, using a single {@link JsonParser} over the request body. Only the element being
+ * mapped is held in memory. Parse and mapping errors surface from {@link #hasNext}/{@link #next} as
+ * {@link UncheckedIOException}s wrapping Jackson's exception.
+ */
+public class JsonRowReader<T> implements Iterator<T>, Closeable {
+
+    private final JsonParser parser;
+    private final ObjectReader reader;
+    private final boolean array;
+    private JsonToken current;
+    private long count;
+
+    public JsonRowReader(ObjectMapper objectMapper, InputStream inputStream, Class<T> type) throws IOException {
+        this.parser = objectMapper.getFactory().createParser(inputStream);
+        this.reader = objectMapper.readerFor(type);
+        JsonToken first = parser.nextToken();
+        this.array = first == JsonToken.START_ARRAY;
+        this.current = array ? parser.nextToken() : first;
+    }
+
+    /**
+     * Number of elements returned so far
+     */
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (current == null) {
+            return false;
+        }
+        if (array && current == JsonToken.END_ARRAY) {
+            return false;
+        }
+        if (current != JsonToken.START_OBJECT) {
+            throw new UncheckedIOException(new JsonParseException(
+                parser, "Expected a JSON object for element " + (count + 1) + " but found " + current));
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        try {
+            T value = reader.readValue(parser);
+            count++;
+            current = parser.nextToken();
+            return value;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.excelexport.service;
+
+/**
+ * How rows read by the {@link PartitionedEmployeeReader} reach the workbook.
+ */
+public enum PartitionLayout {
+    /**
+     * A single worksheet with all rows in primary key order
+     */
+    MERGED,
+    /**
+     * One worksheet per id-range partition
+     */
+    SHEETS
+}
@@ -0,0 +1,207 @@
+package com.example.excelexport.service;
+
+import com.example.excelexport.entity.Employee;
+import com.example.excelexport.repository.EmployeeRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads the employees table in parallel by primary-key range. The [min(id), max(id)] range is split
+ * into partitions, and each partition into chunks of at most CHUNK_SIZE ids. Chunks are fetched on
+ * the partition read executor, each in its own read-only transaction and connection, while the
+ * caller consumes earlier chunks in key order. At most {@code prefetch} chunks are held in memory.
+ */
+@Slf4j
+@Service
+public class PartitionedEmployeeReader {
+
+    private final EmployeeRepository employeeRepository;
+    private final ThreadPoolTaskExecutor partitionReadExecutor;
+    private final int partitionCount;
+    private final int chunkSize;
+    private final int prefetch;
+
+    public PartitionedEmployeeReader(EmployeeRepository employeeRepository,
+                                     @Qualifier("partitionReadExecutor") ThreadPoolTaskExecutor partitionReadExecutor,
+                                     @Value("${excel.export.partitions.count:4}") int partitionCount,
+                                     @Value("${excel.export.partitions.chunk-size:5000}") int chunkSize,
+                                     @Value("${excel.export.partitions.prefetch:8}") int prefetch) {
+        this.employeeRepository = employeeRepository;
+        this.partitionReadExecutor = partitionReadExecutor;
+        this.partitionCount = partitionCount;
+        this.chunkSize = chunkSize;
+        this.prefetch = prefetch;
+    }
+
+    /**
+     * Streams every employee in primary key order. Close the stream to cancel outstanding fetches.
+     */
+    public Stream<Employee> streamMerged() {
+        ChunkIterator chunks = new ChunkIterator(planChunks());
+        return toStream(chunks)
+            .flatMap(chunk -> chunk.employees.stream())
+            .onClose(chunks::close);
+    }
+
+    /**
+     * Hands each partition to the consumer in order, as a stream of its rows in key order.
+     * Chunks of the following partitions are fetched while the current one is consumed.
+     */
+    public void readPartitions(PartitionConsumer consumer) throws IOException {
+        List<IdRange> plan = planChunks();
+        try (ChunkIterator chunks = new ChunkIterator(plan)) {
+            while (chunks.hasNext()) {
+                int partition = chunks.peekPartition();
+                Iterator<Chunk> partitionChunks = new Iterator<Chunk>() {
+                    @Override
+                    public boolean hasNext() {
+                        return chunks.hasNext() && chunks.peekPartition() == partition;
+                    }
+
+                    @Override
+                    public Chunk next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        return chunks.next();
+                    }
+                };
+                consumer.accept(partition, toStream(partitionChunks).flatMap(chunk -> chunk.employees.stream()));
+
+                // Skip whatever the consumer did not read so the next partition starts in the right place
+                partitionChunks.forEachRemaining(chunk -> { });
+            }
+        }
+    }
+
+    List<IdRange> planChunks() {
+        Long minId = employeeRepository.findMinId();
+        Long maxId = employeeRepository.findMaxId();
+        if (minId == null || maxId == null) {
+            return Collections.emptyList();
+        }
+
+        long span = maxId - minId + 1;
+        long partitionSpan = Math.max(1, (span + partitionCount - 1) / partitionCount);
+        List<IdRange> chunks = new ArrayList<>();
+        int partition = 0;
+        for (long partitionStart = minId; partitionStart <= maxId; partitionStart += partitionSpan, partition++) {
+            long partitionEnd = Math.min(maxId, partitionStart + partitionSpan - 1);
+            for (long chunkStart = partitionStart; chunkStart <= partitionEnd; chunkStart += chunkSize) {
+                chunks.add(new IdRange(partition, chunkStart, Math.min(partitionEnd, chunkStart + chunkSize - 1)));
+            }
+        }
+        log.debug("Planned {} chunks over {} partitions for ids {}..{}", chunks.size(), partition, minId, maxId);
+        return chunks;
+    }
+
+    private static <T> Stream<T> toStream(Iterator<T> iterator) {
+        return StreamSupport.stream(
+            Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    @FunctionalInterface
+    public interface PartitionConsumer {
+        void accept(int partition, Stream<Employee> employees) throws IOException;
+    }
+
+    static final class IdRange {
+        final int partition;
+        final long fromId;
+        final long toId;
+
+        IdRange(int partition, long fromId, long toId) {
+            this.partition = partition;
+            this.fromId = fromId;
+            this.toId = toId;
+        }
+    }
+
+    private static final class Chunk {
+        final int partition;
+        final List<Employee> employees;
+
+        Chunk(int partition, List<Employee> employees) {
+            this.partition = partition;
+            this.employees = employees;
+        }
+    }
+
+    /**
+     * Yields chunks in plan order while keeping up to {@code prefetch} fetches in flight.
+     */
+    private final class ChunkIterator implements Iterator<Chunk>, AutoCloseable {
+
+        private final Iterator<IdRange> pending;
+        private final Deque<IdRange> inFlightRanges = new ArrayDeque<>();
+        private final Deque<Future<List<Employee>>> inFlight = new ArrayDeque<>();
+
+        ChunkIterator(List<IdRange> plan) {
+            this.pending = plan.iterator();
+            for (int i = 0; i < prefetch && pending.hasNext(); i++) {
+                submitNext();
+            }
+        }
+
+        private void submitNext() {
+            IdRange range = pending.next();
+            inFlightRanges.addLast(range);
+            inFlight.addLast(partitionReadExecutor.submit(
+                () -> employeeRepository.findByIdBetweenOrderByIdAsc(range.fromId, range.toId)));
+        }
+
+        int peekPartition() {
+            return inFlightRanges.getFirst().partition;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !inFlight.isEmpty();
+        }
+
+        @Override
+        public Chunk next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            IdRange range = inFlightRanges.removeFirst();
+            Future<List<Employee>> future = inFlight.removeFirst();
+            if (pending.hasNext()) {
+                submitNext();
+            }
+            try {
+                return new Chunk(range.partition, future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while reading employees " + range.fromId + ".." + range.toId, e);
+            } catch (ExecutionException e) {
+                throw new RuntimeException("Error reading employees " + range.fromId + ".." + range.toId, e.getCause());
+            }
+        }
+
+        @Override
+        public void close() {
+            inFlight.forEach(future -> future.cancel(true));
+            inFlight.clear();
+            inFlightRanges.clear();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.excelexport.service;
+
+import com.example.excelexport.entity.Employee;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.stream.Stream;
+
+/**
+ * Employee exports fed by the {@link PartitionedEmployeeReader} instead of the single
+ * {@code streamAll()} cursor. The reader manages its own per-slice transactions.
+ */
+@Service
+@RequiredArgsConstructor
+public class PartitionedExportService {
+
+    private final PartitionedEmployeeReader partitionedEmployeeReader;
+    private final FastExcelExportService fastExcelExportService;
+    private final SpreadsheetExportService spreadsheetExportService;
+    private final EmployeeDataset employeeDataset;
+
+    /**
+     * Every engine can consume the merged stream; one worksheet per partition is only offered by FastExcel.
+     */
+    public boolean supports(String engine, PartitionLayout layout) {
+        return layout == PartitionLayout.SHEETS ? "fastexcel".equals(engine) : spreadsheetExportService.supports(engine);
+    }
+
+    public void exportEmployees(String engine, PartitionLayout layout, OutputStream outputStream) throws IOException {
+        if (!supports(engine, layout)) {
+            throw new IllegalArgumentException("Engine " + engine + " does not support layout " + layout);
+        }
+
+        if (layout == PartitionLayout.SHEETS) {
+            fastExcelExportService.exportEmployeePartitionsToExcel(partitionedEmployeeReader, outputStream);
+            return;
+        }
+
+        try (Stream<Employee> employees = partitionedEmployeeReader.streamMerged()) {
+            spreadsheetExportService.export(engine, employeeDataset, employees, outputStream);
+        }
+    }
+}
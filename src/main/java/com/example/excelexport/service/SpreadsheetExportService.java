@@ -0,0 +1,114 @@
+package com.example.excelexport.service;
+
+import com.example.excelexport.metrics.ExportMetrics;
+import com.example.excelexport.service.engine.CompressionProfile;
+import com.example.excelexport.service.engine.ExportEngine;
+import com.example.excelexport.service.engine.ExportEngineRegistry;
+import com.example.excelexport.service.engine.ExportFormat;
+import com.example.excelexport.service.writer.SheetWriter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Writes any {@link ExportDataset} with any registered {@link ExportEngine}: one header-rows-finish
+ * loop instead of one per engine and dataset.
+ */
+@Service
+@RequiredArgsConstructor
+public class SpreadsheetExportService {
+
+    private final ExportEngineRegistry engineRegistry;
+
+    public boolean supports(String engine) {
+        return engineRegistry.contains(engine);
+    }
+
+    public List<String> getEngineNames() {
+        return engineRegistry.getEngineNames();
+    }
+
+    /**
+     * @throws IllegalArgumentException if the engine is unknown
+     */
+    public ExportFormat getFormat(String engine) {
+        return engineRegistry.getEngine(engine).getFormat();
+    }
+
+    /**
+     * First engine producing the given media type, e.g. {@code text/csv}
+     */
+    public Optional<String> findEngineByMediaType(String mediaType) {
+        return engineRegistry.findEngineByMediaType(mediaType);
+    }
+
+    /**
+     * Streams every row of the dataset into the output stream.
+     * @throws IllegalArgumentException if the engine is unknown
+     */
+    @Transactional(readOnly = true)
+    public <T> void export(String engine, ExportDataset<T> dataset, OutputStream outputStream) throws IOException {
+        export(engine, dataset, CompressionProfile.DEFAULT, outputStream);
+    }
+
+    /**
+     * Streams every row of the dataset into the output stream, compressed with the given profile.
+     * @throws IllegalArgumentException if the engine is unknown
+     */
+    @Transactional(readOnly = true)
+    public <T> void export(String engine, ExportDataset<T> dataset, CompressionProfile compression,
+                           OutputStream outputStream) throws IOException {
+        engineRegistry.getEngine(engine);
+        try (Stream<T> rows = dataset.openRows()) {
+            ExportMetrics.current().queryOpened();
+            write(engine, dataset, rows, compression, outputStream);
+        }
+    }
+
+    /**
+     * Writes the given rows of the dataset. The caller owns the stream of rows (and the transaction
+     * it was opened in) and is responsible for closing it.
+     * @throws IllegalArgumentException if the engine is unknown
+     */
+    public <T> void export(String engine, ExportDataset<T> dataset, Stream<T> rows, OutputStream outputStream) throws IOException {
+        write(engine, dataset, rows, CompressionProfile.DEFAULT, outputStream);
+    }
+
+    private <T> void write(String engine, ExportDataset<T> dataset, Stream<T> rows, CompressionProfile compression,
+                           OutputStream outputStream) throws IOException {
+        Locale locale = LocaleContextHolder.getLocale();
+        List<ExportColumn<T>> columns = dataset.getColumns();
+
+        SheetWriter sheetWriter = engineRegistry.createSheetWriter(engine, outputStream, dataset.getSheetName(locale), compression);
+        try (SheetWriter writer = ExportMetrics.current().meter(sheetWriter)) {
+            writer.writeHeader(dataset.getHeaders(locale));
+            for (int i = 0; i < columns.size(); i++) {
+                if (columns.get(i).getNumberFormat() != null) {
+                    writer.setColumnFormat(i, columns.get(i).getNumberFormat());
+                }
+            }
+
+            rows.forEach(row -> {
+                try {
+                    writer.startRow();
+                    for (ExportColumn<T> column : columns) {
+                        column.write(writer, row);
+                    }
+                    writer.endRow();
+                } catch (IOException e) {
+                    throw new RuntimeException("Error writing to Excel file", e);
+                }
+            });
+
+            writer.finish();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.excelexport.service;
+
+/**
+ * How an entry is stored inside a ZIP export.
+ */
+public enum ZipEntryMode {
+    /**
+     * Deflate the entry while it is written; a single pass with no buffering.
+     */
+    DEFLATED,
+    /**
+     * Store the entry as-is. An xlsx is already a deflated zip, so this skips re-compressing it;
+     * the entry is spooled to a temp file first because STORED headers need the CRC and size up front.
+     */
+    STORED
+}
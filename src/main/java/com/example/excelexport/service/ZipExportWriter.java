@@ -0,0 +1,87 @@
+package com.example.excelexport.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.StreamUtils;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes one or more entries into a ZIP archive, letting each entry's producer write straight into
+ * the open entry instead of handing over a finished byte array.
+ */
+@Slf4j
+public class ZipExportWriter implements Closeable {
+
+    private final ZipOutputStream zipOutputStream;
+    private final ZipEntryMode mode;
+
+    public ZipExportWriter(OutputStream outputStream, ZipEntryMode mode) {
+        this.zipOutputStream = new ZipOutputStream(StreamUtils.nonClosing(outputStream));
+        this.mode = mode;
+    }
+
+    /**
+     * Adds an entry whose content is produced by the given writer. The stream handed to the writer
+     * must not be closed by it; closing is ignored so library writers can be used as-is.
+     */
+    public void writeEntry(String name, EntryWriter entryWriter) throws IOException {
+        if (mode == ZipEntryMode.STORED) {
+            writeStoredEntry(name, entryWriter);
+        } else {
+            zipOutputStream.putNextEntry(new ZipEntry(name));
+            entryWriter.writeTo(StreamUtils.nonClosing(zipOutputStream));
+            zipOutputStream.closeEntry();
+        }
+    }
+
+    private void writeStoredEntry(String name, EntryWriter entryWriter) throws IOException {
+        Path spoolFile = Files.createTempFile("zip-entry-", ".tmp");
+        try {
+            CRC32 crc = new CRC32();
+            try (OutputStream fileStream = new BufferedOutputStream(Files.newOutputStream(spoolFile));
+                 CheckedOutputStream checkedStream = new CheckedOutputStream(fileStream, crc)) {
+                entryWriter.writeTo(StreamUtils.nonClosing(checkedStream));
+            }
+
+            long size = Files.size(spoolFile);
+            ZipEntry zipEntry = new ZipEntry(name);
+            zipEntry.setMethod(ZipEntry.STORED);
+            zipEntry.setSize(size);
+            zipEntry.setCompressedSize(size);
+            zipEntry.setCrc(crc.getValue());
+
+            zipOutputStream.putNextEntry(zipEntry);
+            Files.copy(spoolFile, zipOutputStream);
+            zipOutputStream.closeEntry();
+        } finally {
+            try {
+                Files.deleteIfExists(spoolFile);
+            } catch (IOException e) {
+                log.warn("Could not delete ZIP spool file {}", spoolFile, e);
+            }
+        }
+    }
+
+    /**
+     * Writes the central directory. The underlying stream is left open.
+     */
+    @Override
+    public void close() throws IOException {
+        // The wrapped stream ignores close(), so this only finishes the archive and releases the deflater
+        zipOutputStream.close();
+    }
+
+    @FunctionalInterface
+    public interface EntryWriter {
+        void writeTo(OutputStream outputStream) throws IOException;
+    }
+}
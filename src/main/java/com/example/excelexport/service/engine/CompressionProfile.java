@@ -0,0 +1,50 @@
+package com.example.excelexport.service.engine;
+
+import java.util.Locale;
+import java.util.zip.Deflater;
+
+/**
+ * Deflate level an export is compressed with, chosen per request. Engines that cannot set the
+ * level ignore it.
+ */
+public enum CompressionProfile {
+
+    /**
+     * Whatever level the engine uses by itself
+     */
+    DEFAULT(null),
+    FAST(Deflater.BEST_SPEED),
+    SMALL(Deflater.BEST_COMPRESSION);
+
+    private final Integer level;
+
+    CompressionProfile(Integer level) {
+        this.level = level;
+    }
+
+    /**
+     * @param defaultLevel the engine's own level, used for {@link #DEFAULT}
+     */
+    public int getLevel(int defaultLevel) {
+        return level == null ? defaultLevel : level;
+    }
+
+    /**
+     * Parses a profile by case-insensitive name
+     *
+     * @throws IllegalArgumentException if no profile has this name
+     */
+    public static CompressionProfile parse(String value) {
+        for (CompressionProfile profile : values()) {
+            if (profile.name().equalsIgnoreCase(value)) {
+                return profile;
+            }
+        }
+        throw new IllegalArgumentException("Unknown compression: " + value + ", expected one of default, fast, small");
+    }
+
+    @Override
+    public String toString() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.excelexport.service.engine;
+
+import com.example.excelexport.service.writer.DelimitedSheetWriter;
+import com.example.excelexport.service.writer.SheetWriter;
+import org.springframework.stereotype.Component;
+
+import java.io.OutputStream;
+
+/**
+ * Comma-separated values, quoted as in RFC 4180.
+ */
+@Component
+public class CsvExportEngine implements ExportEngine {
+
+    @Override
+    public String getName() {
+        return "csv";
+    }
+
+    @Override
+    public ExportFormat getFormat() {
+        return ExportFormat.CSV;
+    }
+
+    @Override
+    public long getWorkingSetBytes() {
+        return 1L << 20;
+    }
+
+    @Override
+    public boolean writesIncrementally() {
+        return true;
+    }
+
+    @Override
+    public SheetWriter createSheetWriter(OutputStream outputStream, String sheetName) {
+        return DelimitedSheetWriter.csv(outputStream);
+    }
+}
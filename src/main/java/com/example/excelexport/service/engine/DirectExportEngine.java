@@ -0,0 +1,35 @@
+package com.example.excelexport.service.engine;
+
+import com.example.excelexport.service.writer.DirectSheetWriter;
+import com.example.excelexport.service.writer.SheetWriter;
+import org.springframework.stereotype.Component;
+
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+
+/**
+ * FastExcel with header styling, zebra rows, auto-filter and frozen header.
+ */
+@Component
+public class DirectExportEngine implements ExportEngine {
+
+    @Override
+    public String getName() {
+        return "direct";
+    }
+
+    @Override
+    public boolean writesIncrementally() {
+        return true;
+    }
+
+    @Override
+    public SheetWriter createSheetWriter(OutputStream outputStream, String sheetName) {
+        return new DirectSheetWriter(outputStream, sheetName);
+    }
+
+    @Override
+    public SheetWriter createSheetWriter(OutputStream outputStream, String sheetName, CompressionProfile compression) {
+        return new DirectSheetWriter(outputStream, sheetName, compression.getLevel(Deflater.DEFAULT_COMPRESSION));
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.excelexport.service.engine;
+
+import com.example.excelexport.service.writer.EasyExcelSheetWriter;
+import com.example.excelexport.service.writer.SheetWriter;
+import org.springframework.stereotype.Component;
+
+import java.io.OutputStream;
+
+/**
+ * EasyExcel, rows handed over in batches.
+ */
+@Component
+public class EasyExcelExportEngine implements ExportEngine {
+
+    @Override
+    public String getName() {
+        return "easyexcel";
+    }
+
+    /**
+     * Runs on POI SXSSF, plus its own head and style caches
+     */
+    @Override
+    public long getWorkingSetBytes() {
+        return 32L << 20;
+    }
+
+    @Override
+    public SheetWriter createSheetWriter(OutputStream outputStream, String sheetName) {
+        return new EasyExcelSheetWriter(outputStream, sheetName);
+    }
+}
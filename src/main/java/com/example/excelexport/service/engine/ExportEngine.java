@@ -0,0 +1,54 @@
+package com.example.excelexport.service.engine;
+
+import com.example.excelexport.service.writer.SheetWriter;
+
+import java.io.OutputStream;
+
+/**
+ * A spreadsheet library or text format behind the {@link SheetWriter} contract. Engines are Spring beans collected
+ * by the {@link ExportEngineRegistry}; a new engine only needs a new bean, not a new endpoint.
+ */
+public interface ExportEngine {
+
+    /**
+     * Name used to select the engine, e.g. the {@code engine} request parameter
+     */
+    String getName();
+
+    default ExportFormat getFormat() {
+        return ExportFormat.XLSX;
+    }
+
+    /**
+     * Memory one export holds whatever its row count (row windows, buffers, queued chunks), charged
+     * by the admission control. A rough upper figure is enough.
+     */
+    default long getWorkingSetBytes() {
+        return 8L << 20;
+    }
+
+    /**
+     * Threads one export keeps busy, charged by the admission control
+     */
+    default int getThreads() {
+        return 1;
+    }
+
+    /**
+     * Whether the writer only writes to its output stream on the calling thread and holds a bounded
+     * amount of output back, so an export can be rendered a few rows at a time as the client reads it
+     */
+    default boolean writesIncrementally() {
+        return false;
+    }
+
+    SheetWriter createSheetWriter(OutputStream outputStream, String sheetName);
+
+    /**
+     * Opens a writer compressing at the level of the given profile; engines that cannot set a
+     * level ignore it
+     */
+    default SheetWriter createSheetWriter(OutputStream outputStream, String sheetName, CompressionProfile compression) {
+        return createSheetWriter(outputStream, sheetName);
+    }
+}
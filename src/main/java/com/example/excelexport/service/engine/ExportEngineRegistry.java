@@ -0,0 +1,88 @@
+package com.example.excelexport.service.engine;
+
+import com.example.excelexport.service.writer.RollingSheetWriter;
+import com.example.excelexport.service.writer.SheetWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Looks up {@link ExportEngine} beans by name and opens their writers. Writers of spreadsheet
+ * formats roll over to a new worksheet every {@code excel.export.sheet.max-rows} data rows.
+ */
+@Component
+public class ExportEngineRegistry {
+
+    private final Map<String, ExportEngine> engines = new LinkedHashMap<>();
+    private final int maxRowsPerSheet;
+
+    public ExportEngineRegistry(List<ExportEngine> engines) {
+        this(engines, RollingSheetWriter.MAX_ROWS_PER_SHEET);
+    }
+
+    @Autowired
+    public ExportEngineRegistry(List<ExportEngine> engines,
+                                @Value("${excel.export.sheet.max-rows:1048575}") int maxRowsPerSheet) {
+        this.maxRowsPerSheet = maxRowsPerSheet;
+        for (ExportEngine engine : engines) {
+            if (this.engines.putIfAbsent(engine.getName(), engine) != null) {
+                throw new IllegalStateException("Duplicate export engine: " + engine.getName());
+            }
+        }
+    }
+
+    public boolean contains(String name) {
+        return name != null && engines.containsKey(name);
+    }
+
+    /**
+     * @throws IllegalArgumentException if no engine has this name
+     */
+    public ExportEngine getEngine(String name) {
+        ExportEngine engine = name == null ? null : engines.get(name);
+        if (engine == null) {
+            throw new IllegalArgumentException("Unknown engine: " + name);
+        }
+        return engine;
+    }
+
+    /**
+     * Opens a writer of the named engine for a workbook whose first worksheet is {@code sheetName}
+     * @throws IllegalArgumentException if no engine has this name
+     */
+    public SheetWriter createSheetWriter(String name, OutputStream outputStream, String sheetName) {
+        return createSheetWriter(name, outputStream, sheetName, CompressionProfile.DEFAULT);
+    }
+
+    /**
+     * Opens a writer of the named engine compressing with the given profile
+     * @throws IllegalArgumentException if no engine has this name
+     */
+    public SheetWriter createSheetWriter(String name, OutputStream outputStream, String sheetName, CompressionProfile compression) {
+        ExportEngine engine = getEngine(name);
+        SheetWriter writer = engine.createSheetWriter(outputStream, sheetName, compression);
+        return engine.getFormat().isRowLimited() ? new RollingSheetWriter(writer, sheetName, maxRowsPerSheet) : writer;
+    }
+
+    /**
+     * First engine producing the given media type, e.g. {@code text/csv}
+     */
+    public Optional<String> findEngineByMediaType(String mediaType) {
+        return engines.values().stream()
+            .filter(engine -> engine.getFormat().getMediaType().equalsIgnoreCase(mediaType))
+            .map(ExportEngine::getName)
+            .findFirst();
+    }
+
+    public List<String> getEngineNames() {
+        return Collections.unmodifiableList(new ArrayList<>(engines.keySet()));
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.excelexport.service.engine;
+
+/**
+ * File format an {@link ExportEngine} produces
+ */
+public enum ExportFormat {
+
+    XLSX("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", "xlsx", true),
+    CSV("text/csv", "csv", false),
+    TSV("text/tab-separated-values", "tsv", false),
+    CSV_GZIP("application/gzip", "csv.gz", false);
+
+    private final String mediaType;
+    private final String fileExtension;
+    private final boolean rowLimited;
+
+    ExportFormat(String mediaType, String fileExtension, boolean rowLimited) {
+        this.mediaType = mediaType;
+        this.fileExtension = fileExtension;
+        this.rowLimited = rowLimited;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public String getFileExtension() {
+        return fileExtension;
+    }
+
+    /**
+     * Whether a sheet holds a limited number of rows, so long exports have to continue in new sheets
+     */
+    public boolean isRowLimited() {
+        return rowLimited;
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.excelexport.service.engine;
+
+import com.example.excelexport.service.writer.AsyncSheetWriter;
+import com.example.excelexport.service.writer.FastExcelSheetWriter;
+import com.example.excelexport.service.writer.SheetWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.io.OutputStream;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.zip.Deflater;
+
+/**
+ * FastExcel, plain cells streamed in chunks. With a render executor the worksheets are rendered
+ * on one of its threads while the caller keeps reading rows; when all of them are busy the export
+ * renders on the calling thread instead.
+ */
+@Slf4j
+@Component
+public class FastExcelExportEngine implements ExportEngine {
+
+    private final Executor renderExecutor;
+
+    /**
+     * Renders on the calling thread
+     */
+    public FastExcelExportEngine() {
+        this.renderExecutor = null;
+    }
+
+    @Autowired
+    public FastExcelExportEngine(@Qualifier("exportRenderExecutor") ThreadPoolTaskExecutor renderExecutor) {
+        this.renderExecutor = renderExecutor;
+    }
+
+    @Override
+    public String getName() {
+        return "fastexcel";
+    }
+
+    /**
+     * The caller reading rows and, with a render executor, the render thread
+     */
+    @Override
+    public int getThreads() {
+        return renderExecutor == null ? 1 : 2;
+    }
+
+    @Override
+    public SheetWriter createSheetWriter(OutputStream outputStream, String sheetName) {
+        return createSheetWriter(outputStream, sheetName, CompressionProfile.DEFAULT);
+    }
+
+    @Override
+    public SheetWriter createSheetWriter(OutputStream outputStream, String sheetName, CompressionProfile compression) {
+        FastExcelSheetWriter writer = new FastExcelSheetWriter(outputStream, sheetName,
+            compression.getLevel(Deflater.DEFAULT_COMPRESSION));
+        if (renderExecutor == null) {
+            return writer;
+        }
+        try {
+            return new AsyncSheetWriter(writer, renderExecutor);
+        } catch (RejectedExecutionException e) {
+            log.debug("No render thread available, rendering on the calling thread");
+            return writer;
+        }
+    }
+}
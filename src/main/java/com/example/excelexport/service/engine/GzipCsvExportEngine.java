@@ -0,0 +1,45 @@
+package com.example.excelexport.service.engine;
+
+import com.example.excelexport.service.writer.DelimitedSheetWriter;
+import com.example.excelexport.service.writer.SheetWriter;
+import org.springframework.stereotype.Component;
+
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+
+/**
+ * CSV in a gzip stream, by default deflated at the fastest level: CSV compresses well even then.
+ */
+@Component
+public class GzipCsvExportEngine implements ExportEngine {
+
+    @Override
+    public String getName() {
+        return "csv-gzip";
+    }
+
+    @Override
+    public ExportFormat getFormat() {
+        return ExportFormat.CSV_GZIP;
+    }
+
+    @Override
+    public long getWorkingSetBytes() {
+        return 1L << 20;
+    }
+
+    @Override
+    public boolean writesIncrementally() {
+        return true;
+    }
+
+    @Override
+    public SheetWriter createSheetWriter(OutputStream outputStream, String sheetName) {
+        return DelimitedSheetWriter.gzipCsv(outputStream);
+    }
+
+    @Override
+    public SheetWriter createSheetWriter(OutputStream outputStream, String sheetName, CompressionProfile compression) {
+        return DelimitedSheetWriter.gzipCsv(outputStream, compression.getLevel(Deflater.BEST_SPEED));
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.excelexport.service.engine;
+
+import com.example.excelexport.service.writer.PoiSheetWriter;
+import com.example.excelexport.service.writer.SheetWriter;
+import com.example.excelexport.service.writer.SxssfTempStorage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.OutputStream;
+
+/**
+ * POI SXSSF, rows flushed to a temp file of the {@link SxssfTempStorage} past the window.
+ */
+@Component
+public class PoiExportEngine implements ExportEngine {
+
+    private final SxssfTempStorage tempStorage;
+
+    /**
+     * Spools to the default temp storage
+     */
+    public PoiExportEngine() {
+        this(SxssfTempStorage.getDefault());
+    }
+
+    @Autowired
+    public PoiExportEngine(SxssfTempStorage tempStorage) {
+        this.tempStorage = tempStorage;
+    }
+
+    @Override
+    public String getName() {
+        return "poi";
+    }
+
+    /**
+     * The XSSF part model and styles stay on the heap next to the row window
+     */
+    @Override
+    public long getWorkingSetBytes() {
+        return 32L << 20;
+    }
+
+    @Override
+    public SheetWriter createSheetWriter(OutputStream outputStream, String sheetName) {
+        return new PoiSheetWriter(outputStream, sheetName, tempStorage);
+    }
+}
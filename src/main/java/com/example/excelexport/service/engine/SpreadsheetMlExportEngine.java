@@ -0,0 +1,74 @@
+package com.example.excelexport.service.engine;
+
+import com.example.excelexport.service.writer.SheetWriter;
+import com.example.excelexport.service.writer.SpreadsheetMlSheetWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.io.OutputStream;
+import java.util.concurrent.Executor;
+import java.util.zip.Deflater;
+
+/**
+ * In-house SpreadsheetML writer for flat tables: inline strings, column number formats, no other
+ * styling. With a compression executor the parts are deflated in parallel blocks, by default at
+ * the fastest level.
+ */
+@Component
+public class SpreadsheetMlExportEngine implements ExportEngine {
+
+    private final Executor compressionExecutor;
+    private final int maxBlocksInFlight;
+
+    /**
+     * Compresses on the calling thread
+     */
+    public SpreadsheetMlExportEngine() {
+        this.compressionExecutor = null;
+        this.maxBlocksInFlight = 1;
+    }
+
+    @Autowired
+    public SpreadsheetMlExportEngine(@Qualifier("exportCompressionExecutor") ThreadPoolTaskExecutor compressionExecutor,
+                                     @Value("${excel.export.compression.blocks-in-flight:8}") int maxBlocksInFlight) {
+        this.compressionExecutor = compressionExecutor;
+        this.maxBlocksInFlight = maxBlocksInFlight;
+    }
+
+    @Override
+    public String getName() {
+        return "spreadsheetml";
+    }
+
+    /**
+     * Row buffer plus the input, dictionary and output buffers of every block in flight
+     */
+    @Override
+    public long getWorkingSetBytes() {
+        return (1L << 20) + maxBlocksInFlight * (320L << 10);
+    }
+
+    @Override
+    public int getThreads() {
+        return compressionExecutor == null ? 1 : 2;
+    }
+
+    @Override
+    public boolean writesIncrementally() {
+        return true;
+    }
+
+    @Override
+    public SheetWriter createSheetWriter(OutputStream outputStream, String sheetName) {
+        return createSheetWriter(outputStream, sheetName, CompressionProfile.DEFAULT);
+    }
+
+    @Override
+    public SheetWriter createSheetWriter(OutputStream outputStream, String sheetName, CompressionProfile compression) {
+        return new SpreadsheetMlSheetWriter(outputStream, sheetName, compression.getLevel(Deflater.BEST_SPEED),
+            compressionExecutor, maxBlocksInFlight);
+    }
+}
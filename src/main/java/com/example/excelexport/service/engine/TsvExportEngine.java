@@ -0,0 +1,39 @@
+package com.example.excelexport.service.engine;
+
+import com.example.excelexport.service.writer.DelimitedSheetWriter;
+import com.example.excelexport.service.writer.SheetWriter;
+import org.springframework.stereotype.Component;
+
+import java.io.OutputStream;
+
+/**
+ * Tab-separated values; tabs, line breaks and backslashes inside values are escaped.
+ */
+@Component
+public class TsvExportEngine implements ExportEngine {
+
+    @Override
+    public String getName() {
+        return "tsv";
+    }
+
+    @Override
+    public ExportFormat getFormat() {
+        return ExportFormat.TSV;
+    }
+
+    @Override
+    public long getWorkingSetBytes() {
+        return 1L << 20;
+    }
+
+    @Override
+    public boolean writesIncrementally() {
+        return true;
+    }
+
+    @Override
+    public SheetWriter createSheetWriter(OutputStream outputStream, String sheetName) {
+        return DelimitedSheetWriter.tsv(outputStream);
+    }
+}
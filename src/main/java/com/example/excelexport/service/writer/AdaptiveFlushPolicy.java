@@ -0,0 +1,98 @@
+package com.example.excelexport.service.writer;
+
+import java.util.function.DoubleSupplier;
+
+/**
+ * Number of rows an export holds on the heap before they are written out: the SXSSF row access
+ * window, or the rows FastExcel buffers between {@code worksheet.flush()} calls. Every
+ * {@code minRows} rows the limit is recomputed from the {@link HeapPressure} and the average row
+ * width seen since: with spare heap it is {@code maxRows}, as pressure rises it shrinks in
+ * proportion, and it never lets the buffered rows take more than BUFFER_BYTES or drops below
+ * {@code minRows}. Not thread-safe; one policy per sheet writer.
+ */
+public class AdaptiveFlushPolicy {
+
+    private static final long BUFFER_BYTES = 8L << 20;
+    /**
+     * Rough heap cost of a buffered row and of each cell in it, plus two bytes per character of text
+     */
+    private static final int ROW_BYTES = 64;
+    private static final int CELL_BYTES = 64;
+
+    private final int minRows;
+    private final int maxRows;
+    private final DoubleSupplier pressure;
+
+    private int rows;
+    private int rowsUntilUpdate;
+    private long sampledBytes;
+    private int sampledRows;
+
+    /**
+     * @param initialRows limit until the first update
+     * @param pressure    heap pressure between 0 and 1
+     */
+    public AdaptiveFlushPolicy(int minRows, int initialRows, int maxRows, DoubleSupplier pressure) {
+        this.minRows = minRows;
+        this.maxRows = maxRows;
+        this.pressure = pressure;
+        this.rows = initialRows;
+        this.rowsUntilUpdate = minRows;
+    }
+
+    /**
+     * SXSSF row access window, 100 rows to start with, between 20 and 1000
+     */
+    public static AdaptiveFlushPolicy sxssfWindow() {
+        return new AdaptiveFlushPolicy(20, 100, 1000, HeapPressure::current);
+    }
+
+    /**
+     * FastExcel rows between flushes, 1000 to start with, between 100 and 8000
+     */
+    public static AdaptiveFlushPolicy fastExcelFlush() {
+        return new AdaptiveFlushPolicy(100, 1000, 8000, HeapPressure::current);
+    }
+
+    /**
+     * Characters of text in the given cell values, null counting as none
+     */
+    public static int textLength(String... values) {
+        int length = 0;
+        for (String value : values) {
+            if (value != null) {
+                length += value.length();
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Current limit in rows
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Accounts one written row of {@code cells} cells holding {@code chars} characters of text
+     *
+     * @return true if the limit was recomputed and changed
+     */
+    public boolean rowWritten(int cells, int chars) {
+        sampledBytes += ROW_BYTES + (long) CELL_BYTES * cells + 2L * chars;
+        sampledRows++;
+        if (--rowsUntilUpdate > 0) {
+            return false;
+        }
+
+        long rowBytes = sampledBytes / sampledRows;
+        long limit = Math.min((long) (maxRows * (1 - pressure.getAsDouble())), BUFFER_BYTES / rowBytes);
+        int previous = rows;
+        rows = (int) Math.max(minRows, limit);
+        rowsUntilUpdate = minRows;
+        sampledBytes = 0;
+        sampledRows = 0;
+        return rows != previous;
+    }
+}
@@ -0,0 +1,236 @@
+package com.example.excelexport.service.writer;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Renders into the wrapped writer on a separate thread, so reading rows (cursor fetches, entity
+ * mapping) and rendering them (cell XML, deflate) run on two cores at the same time. Cells travel
+ * to the render thread in batches of BATCH_SIZE rows through a queue of QUEUE_CAPACITY batches,
+ * which bounds the memory held in between; a caller that gets further ahead blocks.
+ * <p>
+ * The wrapped writer is used by the render thread only, until {@link #finish} or {@link #close}
+ * returns. Failures of the render thread surface on the caller's next blocking call.
+ * The constructor throws {@link java.util.concurrent.RejectedExecutionException} when the
+ * executor has no thread to spare.
+ */
+public class AsyncSheetWriter implements SheetWriter {
+
+    private static final int BATCH_SIZE = 1000;
+    private static final int QUEUE_CAPACITY = 4;
+
+    private static final List<Object> END = Collections.emptyList();
+
+    private final SheetWriter delegate;
+    private final BlockingQueue<List<Object>> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final CompletableFuture<Void> renderer;
+
+    private volatile Throwable failure;
+    private volatile boolean aborted;
+
+    private List<Object> batch = new ArrayList<>();
+    private int rowsInBatch;
+    private Object[] row;
+    private int width = 8;
+    private int column;
+    private long rowCount;
+    private boolean ended;
+
+    public AsyncSheetWriter(SheetWriter delegate, Executor executor) {
+        this.delegate = delegate;
+        this.renderer = CompletableFuture.runAsync(this::render, executor);
+    }
+
+    @Override
+    public void writeHeader(List<String> headers) {
+        batch.add((Step) writer -> writer.writeHeader(headers));
+    }
+
+    @Override
+    public void setColumnFormat(int column, String numberFormat) {
+        batch.add((Step) writer -> writer.setColumnFormat(column, numberFormat));
+    }
+
+    @Override
+    public void startRow() {
+        row = new Object[width];
+        column = 0;
+    }
+
+    @Override
+    public void writeNumber(long value) {
+        add(value);
+    }
+
+    @Override
+    public void writeNumber(double value) {
+        add(value);
+    }
+
+    @Override
+    public void writeString(String value) {
+        add(value);
+    }
+
+    @Override
+    public void writeBlank() {
+        add(null);
+    }
+
+    private void add(Object value) {
+        if (column == row.length) {
+            row = Arrays.copyOf(row, row.length * 2);
+        }
+        row[column++] = value;
+    }
+
+    @Override
+    public void endRow() throws IOException {
+        width = Math.max(width, column);
+        batch.add(column == row.length ? row : Arrays.copyOf(row, column));
+        row = null;
+        rowCount++;
+        if (++rowsInBatch == BATCH_SIZE) {
+            sendBatch();
+        }
+    }
+
+    @Override
+    public void startSheet(String sheetName) throws IOException {
+        batch.add((Step) writer -> writer.startSheet(sheetName));
+        sendBatch();
+    }
+
+    @Override
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Bytes spooled by the wrapped writer; only up to date once {@link #finish} returned
+     */
+    @Override
+    public long getTempFileBytes() {
+        return renderer.isDone() ? delegate.getTempFileBytes() : 0;
+    }
+
+    @Override
+    public void finish() throws IOException {
+        batch.add((Step) SheetWriter::finish);
+        sendBatch();
+        end();
+        try {
+            renderer.join();
+        } catch (CompletionException e) {
+            failure = e.getCause();
+        }
+        rethrowFailure();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!ended) {
+            // Abandoned mid-export: drop what is queued and stop the render thread
+            aborted = true;
+            queue.clear();
+            queue.offer(END);
+            ended = true;
+        }
+        try {
+            renderer.join();
+        } catch (CompletionException e) {
+            // already reported by finish, or irrelevant after a failure on the calling side
+        } finally {
+            delegate.close();
+        }
+    }
+
+    private void sendBatch() throws IOException {
+        rethrowFailure();
+        put(batch);
+        batch = new ArrayList<>(rowsInBatch + 8);
+        rowsInBatch = 0;
+    }
+
+    private void end() throws IOException {
+        put(END);
+        ended = true;
+    }
+
+    private void put(List<Object> items) throws IOException {
+        try {
+            queue.put(items);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while handing rows to the render thread");
+        }
+    }
+
+    private void rethrowFailure() throws IOException {
+        Throwable error = failure;
+        if (error instanceof IOException) {
+            throw (IOException) error;
+        } else if (error instanceof RuntimeException) {
+            throw (RuntimeException) error;
+        } else if (error instanceof Error) {
+            throw (Error) error;
+        } else if (error != null) {
+            throw new IOException("Error rendering worksheet", error);
+        }
+    }
+
+    private void render() {
+        try {
+            List<Object> items;
+            while ((items = queue.take()) != END) {
+                // After a failure keep draining so the caller never blocks on a full queue
+                if (failure == null && !aborted) {
+                    try {
+                        replay(items);
+                    } catch (Throwable e) {
+                        failure = e;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            failure = e;
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void replay(List<Object> items) throws IOException {
+        for (Object item : items) {
+            if (item instanceof Step) {
+                ((Step) item).applyTo(delegate);
+                continue;
+            }
+            delegate.startRow();
+            for (Object value : (Object[]) item) {
+                if (value instanceof Long) {
+                    delegate.writeNumber((Long) value);
+                } else if (value instanceof Double) {
+                    delegate.writeNumber((Double) value);
+                } else if (value instanceof String) {
+                    delegate.writeString((String) value);
+                } else {
+                    delegate.writeBlank();
+                }
+            }
+            delegate.endRow();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Step {
+        void applyTo(SheetWriter writer) throws IOException;
+    }
+}
@@ -0,0 +1,288 @@
+package com.example.excelexport.service.writer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * {@link SheetWriter} for delimited text, UTF-8 encoded straight into a byte buffer that goes to
+ * the output stream once a row ends past FLUSH_THRESHOLD. Integers are formatted digit by digit
+ * and strings encoded char by char, so no String, byte array or row object is created per cell
+ * (only doubles with a fraction go through {@link Double#toString}). There are no cell styles and
+ * no sheets: column formats are ignored and {@link #startSheet} continues the same file.
+ * <p>
+ * CSV follows RFC 4180: CRLF line ends, and values containing the delimiter, a quote or a line
+ * break are quoted, with quotes doubled. TSV cannot quote, so tab, CR, LF and backslash are
+ * escaped as {@code \t}, {@code \r}, {@code \n} and {@code \\}, as in PostgreSQL's text format.
+ */
+public class DelimitedSheetWriter implements SheetWriter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int FLUSH_THRESHOLD = 48 * 1024;
+
+    /**
+     * Doubles beyond this are not written as integers; it is below 2^53, where doubles stop being exact
+     */
+    private static final double MAX_INTEGRAL = 1e15;
+
+    private static final byte[] CRLF = {'\r', '\n'};
+    private static final byte[] LF = {'\n'};
+
+    private final OutputStream outputStream;
+    private final LeveledGzipOutputStream gzipStream;
+    private final byte delimiter;
+    private final boolean quoting;
+    private final byte[] lineEnd;
+
+    private byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private int column;
+    private long rowCount;
+
+    private DelimitedSheetWriter(OutputStream outputStream, LeveledGzipOutputStream gzipStream, char delimiter,
+                                 boolean quoting, byte[] lineEnd) {
+        this.outputStream = gzipStream != null ? gzipStream : outputStream;
+        this.gzipStream = gzipStream;
+        this.delimiter = (byte) delimiter;
+        this.quoting = quoting;
+        this.lineEnd = lineEnd;
+    }
+
+    public static DelimitedSheetWriter csv(OutputStream outputStream) {
+        return new DelimitedSheetWriter(outputStream, null, ',', true, CRLF);
+    }
+
+    public static DelimitedSheetWriter tsv(OutputStream outputStream) {
+        return new DelimitedSheetWriter(outputStream, null, '\t', false, LF);
+    }
+
+    /**
+     * CSV compressed into a gzip stream at {@link Deflater#BEST_SPEED}
+     */
+    public static DelimitedSheetWriter gzipCsv(OutputStream outputStream) {
+        return gzipCsv(outputStream, Deflater.BEST_SPEED);
+    }
+
+    /**
+     * CSV compressed into a gzip stream at the given deflate level
+     */
+    public static DelimitedSheetWriter gzipCsv(OutputStream outputStream, int compressionLevel) {
+        try {
+            return new DelimitedSheetWriter(null, new LeveledGzipOutputStream(outputStream, compressionLevel), ',', true, CRLF);
+        } catch (IOException e) {
+            throw new RuntimeException("Error starting gzip stream", e);
+        }
+    }
+
+    @Override
+    public void writeHeader(List<String> headers) throws IOException {
+        startRow();
+        for (String header : headers) {
+            writeString(header);
+        }
+        endLine();
+    }
+
+    @Override
+    public void setColumnFormat(int column, String numberFormat) {
+        // not supported, see class comment
+    }
+
+    @Override
+    public void startRow() {
+        column = 0;
+    }
+
+    @Override
+    public void writeNumber(long value) {
+        startCell();
+        ensureCapacity(20);
+        if (value == Long.MIN_VALUE) {
+            writeAscii(Long.toString(value));
+            return;
+        }
+        if (value < 0) {
+            buffer[position++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        int end = position + digits;
+        for (int i = end - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        position = end;
+    }
+
+    @Override
+    public void writeNumber(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < MAX_INTEGRAL) {
+            writeNumber((long) value);
+        } else {
+            startCell();
+            writeAscii(Double.toString(value));
+        }
+    }
+
+    @Override
+    public void writeString(String value) {
+        startCell();
+        if (value == null) {
+            return;
+        }
+        if (quoting && needsQuotes(value)) {
+            ensureCapacity(1);
+            buffer[position++] = '"';
+            encode(value);
+            ensureCapacity(1);
+            buffer[position++] = '"';
+        } else {
+            encode(value);
+        }
+    }
+
+    @Override
+    public void writeBlank() {
+        startCell();
+    }
+
+    @Override
+    public void endRow() throws IOException {
+        endLine();
+        rowCount++;
+    }
+
+    @Override
+    public void startSheet(String sheetName) {
+        // one continuous file, see class comment
+    }
+
+    @Override
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public void finish() throws IOException {
+        flushBuffer();
+        if (gzipStream != null) {
+            gzipStream.finish();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (gzipStream != null) {
+            // Releases the deflater without closing the caller's stream
+            gzipStream.release();
+        }
+    }
+
+    private void startCell() {
+        if (column++ > 0) {
+            ensureCapacity(1);
+            buffer[position++] = delimiter;
+        }
+    }
+
+    private void endLine() throws IOException {
+        ensureCapacity(lineEnd.length);
+        for (byte b : lineEnd) {
+            buffer[position++] = b;
+        }
+        if (position >= FLUSH_THRESHOLD) {
+            flushBuffer();
+        }
+    }
+
+    private boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == delimiter || c == '"' || c == '\r' || c == '\n') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * UTF-8 encodes the value into the buffer, doubling quotes (CSV) or escaping (TSV) on the way
+     */
+    private void encode(String value) {
+        int length = value.length();
+        // At most 3 bytes per char (4 per surrogate pair), and 2 per escaped char
+        ensureCapacity(length * 3);
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                if (quoting) {
+                    if (c == '"') {
+                        buffer[position++] = '"';
+                    }
+                } else if (c == '\t' || c == '\r' || c == '\n' || c == '\\') {
+                    buffer[position++] = '\\';
+                    c = c == '\t' ? 't' : c == '\r' ? 'r' : c == '\n' ? 'n' : '\\';
+                }
+                buffer[position++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[position++] = (byte) (0xC0 | (c >> 6));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // Unpaired surrogate, not encodable
+                buffer[position++] = '?';
+            } else {
+                buffer[position++] = (byte) (0xE0 | (c >> 12));
+                buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    private void writeAscii(String value) {
+        ensureCapacity(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            buffer[position++] = (byte) value.charAt(i);
+        }
+    }
+
+    /**
+     * Grows the buffer for a value that does not fit; cell writes never do I/O
+     */
+    private void ensureCapacity(int bytes) {
+        if (position + bytes > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + bytes));
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        outputStream.write(buffer, 0, position);
+        position = 0;
+        if (buffer.length > BUFFER_SIZE) {
+            buffer = new byte[BUFFER_SIZE];
+        }
+    }
+
+    private static final class LeveledGzipOutputStream extends GZIPOutputStream {
+
+        LeveledGzipOutputStream(OutputStream outputStream, int level) throws IOException {
+            super(outputStream, BUFFER_SIZE);
+            def.setLevel(level);
+        }
+
+        void release() {
+            def.end();
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.excelexport.service.writer;
+
+import org.dhatim.fastexcel.Workbook;
+import org.dhatim.fastexcel.Worksheet;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.Deflater;
+
+/**
+ * Styled FastExcel {@link SheetWriter}: bold grey header, alternating row fill, per-column number
+ * formats, an auto-filter over the header and a frozen header row.
+ */
+public class DirectSheetWriter implements SheetWriter {
+
+    private static final int COLUMN_WIDTH = 15;
+
+    private final Workbook workbook;
+    private final AdaptiveFlushPolicy flushPolicy = AdaptiveFlushPolicy.fastExcelFlush();
+    private Worksheet worksheet;
+
+    private String[] columnFormats = new String[0];
+    private int columnCount;
+
+    private int rowNum;
+    private int column;
+    private int rowChars;
+    private int rowsSinceFlush;
+    private long rowCount;
+
+    public DirectSheetWriter(OutputStream outputStream, String sheetName) {
+        this(outputStream, sheetName, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * @param compressionLevel deflate level of the workbook parts
+     */
+    public DirectSheetWriter(OutputStream outputStream, String sheetName, int compressionLevel) {
+        this.workbook = new Workbook(outputStream, sheetName, "1.0");
+        workbook.setCompressionLevel(compressionLevel);
+        this.worksheet = workbook.newWorksheet(sheetName);
+    }
+
+    @Override
+    public void writeHeader(List<String> headers) {
+        columnCount = headers.size();
+        for (int i = 0; i < headers.size(); i++) {
+            worksheet.value(rowNum, i, headers.get(i));
+            worksheet.style(rowNum, i).bold().fillColor("C0C0C0").set();
+            worksheet.width(i, COLUMN_WIDTH);
+        }
+        rowNum++;
+    }
+
+    @Override
+    public void setColumnFormat(int column, String numberFormat) {
+        if (column >= columnFormats.length) {
+            columnFormats = Arrays.copyOf(columnFormats, column + 1);
+        }
+        columnFormats[column] = numberFormat;
+    }
+
+    @Override
+    public void startRow() {
+        column = 0;
+        rowChars = 0;
+    }
+
+    @Override
+    public void writeNumber(long value) {
+        worksheet.value(rowNum, column, value);
+        column++;
+    }
+
+    @Override
+    public void writeNumber(double value) {
+        worksheet.value(rowNum, column, value);
+        column++;
+    }
+
+    @Override
+    public void writeString(String value) {
+        if (value != null) {
+            worksheet.value(rowNum, column, value);
+            rowChars += value.length();
+        }
+        column++;
+    }
+
+    @Override
+    public void writeBlank() {
+        column++;
+    }
+
+    @Override
+    public void endRow() throws IOException {
+        // One style per cell: alternating fill, plus the column's number format
+        boolean shaded = rowNum % 2 == 0;
+        for (int i = 0; i < column; i++) {
+            String format = i < columnFormats.length ? columnFormats[i] : null;
+            if (shaded && format != null) {
+                worksheet.style(rowNum, i).fillColor("F5F5F5").format(format).set();
+            } else if (shaded) {
+                worksheet.style(rowNum, i).fillColor("F5F5F5").set();
+            } else if (format != null) {
+                worksheet.style(rowNum, i).format(format).set();
+            }
+        }
+
+        rowNum++;
+        rowCount++;
+        flushPolicy.rowWritten(column, rowChars);
+        if (++rowsSinceFlush >= flushPolicy.getRows()) {
+            worksheet.flush();
+            rowsSinceFlush = 0;
+        }
+    }
+
+    @Override
+    public void startSheet(String sheetName) throws IOException {
+        finishSheet();
+        worksheet.finish();
+        worksheet = workbook.newWorksheet(sheetName);
+        rowNum = 0;
+        rowsSinceFlush = 0;
+    }
+
+    @Override
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public void finish() throws IOException {
+        finishSheet();
+        workbook.finish();
+    }
+
+    private void finishSheet() {
+        if (columnCount > 0) {
+            worksheet.setAutoFilter(0, 0, columnCount - 1);
+        }
+        worksheet.freezePane(0, 1);
+    }
+
+    @Override
+    public void close() {
+        // FastExcel holds no resources beyond the caller's output stream
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.excelexport.service.writer;
+
+import com.alibaba.excel.EasyExcel;
+import com.alibaba.excel.ExcelWriter;
+import com.alibaba.excel.write.metadata.WriteSheet;
+import com.alibaba.excel.write.metadata.style.WriteCellStyle;
+import com.alibaba.excel.write.metadata.style.WriteFont;
+import com.alibaba.excel.write.style.HorizontalCellStyleStrategy;
+import org.apache.poi.ss.usermodel.FillPatternType;
+import org.apache.poi.ss.usermodel.IndexedColors;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * EasyExcel {@link SheetWriter}: rows are collected as value lists and handed to EasyExcel in
+ * BATCH_SIZE slices. EasyExcel styles cells through its own strategies, so column number formats
+ * are not applied.
+ */
+public class EasyExcelSheetWriter implements SheetWriter {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final ExcelWriter excelWriter;
+    private final List<List<Object>> batch = new ArrayList<>(BATCH_SIZE);
+
+    private String sheetName;
+    private int sheetNo;
+    private WriteSheet writeSheet;
+    private List<Object> row;
+    private long rowCount;
+    private boolean finished;
+
+    public EasyExcelSheetWriter(OutputStream outputStream, String sheetName) {
+        this.sheetName = sheetName;
+
+        // Create header style
+        WriteCellStyle headerStyle = new WriteCellStyle();
+        headerStyle.setFillForegroundColor(IndexedColors.GREY_25_PERCENT.getIndex());
+        headerStyle.setFillPatternType(FillPatternType.SOLID_FOREGROUND);
+        WriteFont headerFont = new WriteFont();
+        headerFont.setBold(true);
+        headerFont.setFontHeightInPoints((short) 12);
+        headerStyle.setWriteFont(headerFont);
+
+        // Create content style
+        WriteCellStyle contentStyle = new WriteCellStyle();
+        contentStyle.setWrapped(true);
+
+        this.excelWriter = EasyExcel.write(outputStream)
+            .registerWriteHandler(new HorizontalCellStyleStrategy(headerStyle, contentStyle))
+            .autoCloseStream(false)
+            .build();
+        this.writeSheet = EasyExcel.writerSheet(sheetNo, sheetName).build();
+    }
+
+    @Override
+    public void writeHeader(List<String> headers) {
+        List<List<String>> head = headers.stream()
+            .map(Collections::singletonList)
+            .collect(Collectors.toList());
+        writeSheet = EasyExcel.writerSheet(sheetNo, sheetName)
+            .head(head)
+            .useDefaultStyle(false)
+            .build();
+    }
+
+    @Override
+    public void setColumnFormat(int column, String numberFormat) {
+        // not supported, see class comment
+    }
+
+    @Override
+    public void startRow() {
+        row = new ArrayList<>();
+    }
+
+    @Override
+    public void writeNumber(long value) {
+        row.add(value);
+    }
+
+    @Override
+    public void writeNumber(double value) {
+        row.add(value);
+    }
+
+    @Override
+    public void writeString(String value) {
+        row.add(value);
+    }
+
+    @Override
+    public void writeBlank() {
+        row.add(null);
+    }
+
+    @Override
+    public void endRow() {
+        batch.add(row);
+        rowCount++;
+        if (batch.size() == BATCH_SIZE) {
+            excelWriter.write(batch, writeSheet);
+            batch.clear();
+        }
+    }
+
+    @Override
+    public void startSheet(String sheetName) {
+        // Always write the last (possibly empty) batch so the sheet and its header exist
+        excelWriter.write(batch, writeSheet);
+        batch.clear();
+        this.sheetName = sheetName;
+        sheetNo++;
+        writeSheet = EasyExcel.writerSheet(sheetNo, sheetName).build();
+    }
+
+    @Override
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public void finish() {
+        // Always write the last (possibly empty) batch so the sheet and its header exist
+        excelWriter.write(batch, writeSheet);
+        batch.clear();
+        excelWriter.finish();
+        finished = true;
+    }
+
+    /**
+     * Discards an unfinished workbook instead of writing out the rows so far, which would look
+     * like a complete export
+     */
+    @Override
+    public void close() {
+        if (!finished) {
+            excelWriter.writeContext().finish(true);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.excelexport.service.writer;
+
+import org.dhatim.fastexcel.Workbook;
+import org.dhatim.fastexcel.Worksheet;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.Deflater;
+
+/**
+ * {@link SheetWriter} backed by FastExcel; the sheet XML is flushed to the output stream whenever the
+ * buffered rows reach the limit of an {@link AdaptiveFlushPolicy}.
+ */
+public class FastExcelSheetWriter implements SheetWriter {
+
+    private final Workbook workbook;
+    private final AdaptiveFlushPolicy flushPolicy = AdaptiveFlushPolicy.fastExcelFlush();
+    private Worksheet worksheet;
+
+    private String[] columnFormats = new String[0];
+
+    private int rowNum;
+    private int column;
+    private int rowChars;
+    private int rowsSinceFlush;
+    private long rowCount;
+
+    public FastExcelSheetWriter(OutputStream outputStream, String sheetName) {
+        this(outputStream, sheetName, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * @param compressionLevel deflate level of the workbook parts
+     */
+    public FastExcelSheetWriter(OutputStream outputStream, String sheetName, int compressionLevel) {
+        this.workbook = new Workbook(outputStream, sheetName, "1.0");
+        workbook.setCompressionLevel(compressionLevel);
+        this.worksheet = workbook.newWorksheet(sheetName);
+    }
+
+    @Override
+    public void writeHeader(List<String> headers) {
+        for (int i = 0; i < headers.size(); i++) {
+            worksheet.value(rowNum, i, headers.get(i));
+        }
+        rowNum++;
+    }
+
+    @Override
+    public void setColumnFormat(int column, String numberFormat) {
+        if (column >= columnFormats.length) {
+            columnFormats = Arrays.copyOf(columnFormats, column + 1);
+        }
+        columnFormats[column] = numberFormat;
+    }
+
+    @Override
+    public void startRow() {
+        column = 0;
+        rowChars = 0;
+    }
+
+    @Override
+    public void writeNumber(long value) {
+        worksheet.value(rowNum, column, value);
+        applyFormat();
+        column++;
+    }
+
+    @Override
+    public void writeNumber(double value) {
+        worksheet.value(rowNum, column, value);
+        applyFormat();
+        column++;
+    }
+
+    private void applyFormat() {
+        if (column < columnFormats.length && columnFormats[column] != null) {
+            worksheet.style(rowNum, column).format(columnFormats[column]).set();
+        }
+    }
+
+    @Override
+    public void writeString(String value) {
+        if (value == null) {
+            writeBlank();
+        } else {
+            worksheet.value(rowNum, column++, value);
+            rowChars += value.length();
+        }
+    }
+
+    @Override
+    public void writeBlank() {
+        column++;
+    }
+
+    @Override
+    public void endRow() throws IOException {
+        rowNum++;
+        rowCount++;
+        flushPolicy.rowWritten(column, rowChars);
+        if (++rowsSinceFlush >= flushPolicy.getRows()) {
+            worksheet.flush();
+            rowsSinceFlush = 0;
+        }
+    }
+
+    @Override
+    public void startSheet(String sheetName) throws IOException {
+        worksheet.finish();
+        worksheet = workbook.newWorksheet(sheetName);
+        rowNum = 0;
+        rowsSinceFlush = 0;
+    }
+
+    @Override
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public void finish() throws IOException {
+        workbook.finish();
+    }
+
+    @Override
+    public void close() {
+        // FastExcel holds no resources beyond the caller's output stream
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.excelexport.service.writer;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Heap pressure of the JVM, from 0 with plenty of headroom to 1 when the heap is nearly full or
+ * the JVM spends a large share of its time collecting garbage. Sampled from the memory pool and
+ * GC MXBeans at most every SAMPLE_INTERVAL and shared by every export in the JVM.
+ * <p>
+ * Heap occupancy is taken after the last collection of each pool where the JVM reports it, since
+ * the current usage also counts garbage not collected yet. Pressure starts once the heap is half
+ * full and peaks at 90%, or when a tenth of the wall time since the last sample went into GC.
+ */
+public final class HeapPressure {
+
+    private static final long SAMPLE_INTERVAL = TimeUnit.MILLISECONDS.toNanos(250);
+    private static final double LOW_OCCUPANCY = 0.5;
+    private static final double HIGH_OCCUPANCY = 0.9;
+    private static final double MAX_GC_TIME_SHARE = 0.1;
+
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+    private static final List<MemoryPoolMXBean> MEMORY_POOLS = ManagementFactory.getMemoryPoolMXBeans();
+    private static final List<GarbageCollectorMXBean> COLLECTORS = ManagementFactory.getGarbageCollectorMXBeans();
+
+    private static volatile double pressure;
+    private static long sampledAt = System.nanoTime() - SAMPLE_INTERVAL;
+    private static long gcMillis = totalGcMillis();
+
+    private HeapPressure() {
+    }
+
+    /**
+     * The most recent sample, taken now if the last one is older than SAMPLE_INTERVAL
+     */
+    public static double current() {
+        long now = System.nanoTime();
+        synchronized (HeapPressure.class) {
+            if (now - sampledAt >= SAMPLE_INTERVAL) {
+                pressure = sample(now);
+                sampledAt = now;
+            }
+        }
+        return pressure;
+    }
+
+    private static double sample(long now) {
+        MemoryUsage heap = MEMORY.getHeapMemoryUsage();
+        long max = heap.getMax() >= 0 ? heap.getMax() : heap.getCommitted();
+        long used = 0;
+        for (MemoryPoolMXBean pool : MEMORY_POOLS) {
+            if (pool.getType() != MemoryType.HEAP || !pool.isValid()) {
+                continue;
+            }
+            MemoryUsage afterGc = pool.getCollectionUsage();
+            used += afterGc != null ? afterGc.getUsed() : pool.getUsage().getUsed();
+        }
+        double occupancy = max > 0 ? (double) used / max : 0;
+
+        long totalGcMillis = totalGcMillis();
+        double gcShare = TimeUnit.MILLISECONDS.toNanos(totalGcMillis - gcMillis) / (double) (now - sampledAt);
+        gcMillis = totalGcMillis;
+
+        return Math.max(scale(occupancy, LOW_OCCUPANCY, HIGH_OCCUPANCY), scale(gcShare, 0, MAX_GC_TIME_SHARE));
+    }
+
+    private static long totalGcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean collector : COLLECTORS) {
+            total += Math.max(0, collector.getCollectionTime());
+        }
+        return total;
+    }
+
+    private static double scale(double value, double low, double high) {
+        return Math.min(1, Math.max(0, (value - low) / (high - low)));
+    }
+}
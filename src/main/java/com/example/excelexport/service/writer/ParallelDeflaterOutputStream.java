@@ -0,0 +1,215 @@
+package com.example.excelexport.service.writer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Raw deflate stream compressed pigz-style: the input is cut into BLOCK_SIZE blocks, each deflated
+ * on its own {@link Deflater} on the executor, primed with the last 32 KB of the block before it so
+ * matches can still reach back across the cut. Every block but the last ends with a sync flush,
+ * which leaves it on a byte boundary without marking the stream final, so the outputs concatenate
+ * into one valid deflate stream. They are written in order; at most {@code maxInFlight} blocks are
+ * compressed or waiting at a time, and the writer blocks on the oldest beyond that. Input,
+ * dictionary and output buffers are recycled once their block is written.
+ * <p>
+ * Without an executor the blocks are deflated on the calling thread. The CRC-32 and sizes a zip
+ * entry needs are tracked on the way. {@link #finish} ends the deflate stream; the underlying
+ * stream is never closed.
+ */
+public class ParallelDeflaterOutputStream extends OutputStream {
+
+    static final int BLOCK_SIZE = 128 * 1024;
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+    /**
+     * Enough for a block that does not compress at all, plus the flush marker
+     */
+    private static final int OUTPUT_SIZE = BLOCK_SIZE + BLOCK_SIZE / 16 + 64;
+
+    private final OutputStream outputStream;
+    private final int level;
+    private final Executor executor;
+    private final int maxInFlight;
+
+    private final Deque<Block> inFlight = new ArrayDeque<>();
+    private final Deque<byte[]> freeInputs = new ArrayDeque<>();
+    private final Deque<byte[]> freeDictionaries = new ArrayDeque<>();
+    private final Deque<byte[]> freeOutputs = new ArrayDeque<>();
+    private final CRC32 crc = new CRC32();
+
+    private byte[] buffer = new byte[BLOCK_SIZE];
+    private int length;
+    private byte[] dictionary;
+    private boolean hasDictionary;
+    private long bytesIn;
+    private long bytesOut;
+    private boolean finished;
+
+    /**
+     * @param executor    runs the block compression, or null to compress on the calling thread
+     * @param maxInFlight blocks compressed ahead of the output before the writer waits
+     */
+    public ParallelDeflaterOutputStream(OutputStream outputStream, int level, Executor executor, int maxInFlight) {
+        this.outputStream = outputStream;
+        this.level = level;
+        this.executor = executor;
+        this.maxInFlight = Math.max(1, maxInFlight);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (length == BLOCK_SIZE) {
+            submitBlock(false);
+        }
+        buffer[length++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            if (length == BLOCK_SIZE) {
+                submitBlock(false);
+            }
+            int count = Math.min(len, BLOCK_SIZE - length);
+            System.arraycopy(b, off, buffer, length, count);
+            length += count;
+            off += count;
+            len -= count;
+        }
+    }
+
+    /**
+     * Compresses what is left as the final block and writes every outstanding block
+     */
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        submitBlock(true);
+        while (!inFlight.isEmpty()) {
+            writeOldest();
+        }
+        finished = true;
+    }
+
+    public long getCrc() {
+        return crc.getValue();
+    }
+
+    public long getBytesIn() {
+        return bytesIn;
+    }
+
+    public long getBytesOut() {
+        return bytesOut;
+    }
+
+    @Override
+    public void close() throws IOException {
+        finish();
+    }
+
+    private void submitBlock(boolean last) throws IOException {
+        Block block = new Block(buffer, length, hasDictionary ? dictionary : null, take(freeOutputs, OUTPUT_SIZE), last);
+        crc.update(buffer, 0, length);
+        bytesIn += length;
+
+        // Only the final block can be shorter than a dictionary
+        if (!last) {
+            dictionary = take(freeDictionaries, DICTIONARY_SIZE);
+            System.arraycopy(buffer, length - DICTIONARY_SIZE, dictionary, 0, DICTIONARY_SIZE);
+            hasDictionary = true;
+        }
+
+        if (executor == null) {
+            block.deflate(level);
+            block.done = CompletableFuture.completedFuture(null);
+        } else {
+            block.done = CompletableFuture.runAsync(() -> block.deflate(level), executor);
+        }
+        inFlight.addLast(block);
+
+        buffer = take(freeInputs, BLOCK_SIZE);
+        length = 0;
+        while (inFlight.size() > maxInFlight) {
+            writeOldest();
+        }
+    }
+
+    private void writeOldest() throws IOException {
+        Block block = inFlight.removeFirst();
+        try {
+            block.done.join();
+        } catch (CompletionException e) {
+            throw new IOException("Error compressing block", e.getCause());
+        }
+        outputStream.write(block.output, 0, block.outputLength);
+        bytesOut += block.outputLength;
+
+        freeInputs.addLast(block.input);
+        freeOutputs.addLast(block.output);
+        if (block.dictionary != null) {
+            freeDictionaries.addLast(block.dictionary);
+        }
+    }
+
+    private static byte[] take(Deque<byte[]> free, int size) {
+        return free.isEmpty() ? new byte[size] : free.removeFirst();
+    }
+
+    /**
+     * One block of input and its compressed form; {@link #deflate} runs on the executor
+     */
+    private static final class Block {
+        final byte[] input;
+        final int length;
+        final byte[] dictionary;
+        final boolean last;
+        byte[] output;
+        int outputLength;
+        CompletableFuture<Void> done;
+
+        Block(byte[] input, int length, byte[] dictionary, byte[] output, boolean last) {
+            this.input = input;
+            this.length = length;
+            this.dictionary = dictionary;
+            this.output = output;
+            this.last = last;
+        }
+
+        void deflate(int level) {
+            Deflater deflater = new Deflater(level, true);
+            try {
+                if (dictionary != null) {
+                    deflater.setDictionary(dictionary);
+                }
+                deflater.setInput(input, 0, length);
+                if (last) {
+                    deflater.finish();
+                }
+
+                int size = 0;
+                while (true) {
+                    if (size == output.length) {
+                        output = Arrays.copyOf(output, output.length * 2);
+                    }
+                    size += deflater.deflate(output, size, output.length - size, last ? Deflater.NO_FLUSH : Deflater.SYNC_FLUSH);
+                    // A sync flush is complete once it leaves room in the output
+                    if (last ? deflater.finished() : size < output.length) {
+                        outputLength = size;
+                        return;
+                    }
+                }
+            } finally {
+                deflater.end();
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.excelexport.service.writer;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link SheetWriter} backed by a POI SXSSF workbook; rows beyond the window are flushed to a temp file.
+ * The window is sized by an {@link AdaptiveFlushPolicy}.
+ */
+public class PoiSheetWriter implements SheetWriter {
+
+    private final OutputStream outputStream;
+    private final TempFileTrackingWorkbook workbook;
+    private final AdaptiveFlushPolicy windowPolicy = AdaptiveFlushPolicy.sxssfWindow();
+    private SXSSFSheet sheet;
+
+    private final Map<String, CellStyle> stylesByFormat = new HashMap<>();
+    private CellStyle[] columnStyles = new CellStyle[0];
+
+    private int rowNum;
+    private int column;
+    private int rowChars;
+    private Row row;
+    private long rowCount;
+
+    public PoiSheetWriter(OutputStream outputStream, String sheetName) {
+        this(outputStream, sheetName, SxssfTempStorage.getDefault());
+    }
+
+    public PoiSheetWriter(OutputStream outputStream, String sheetName, SxssfTempStorage tempStorage) {
+        this.outputStream = outputStream;
+        this.workbook = new TempFileTrackingWorkbook(windowPolicy.getRows(), tempStorage);
+        this.sheet = workbook.createSheet(sheetName);
+    }
+
+    @Override
+    public void writeHeader(List<String> headers) {
+        Row headerRow = sheet.createRow(rowNum++);
+        for (int i = 0; i < headers.size(); i++) {
+            headerRow.createCell(i).setCellValue(headers.get(i));
+        }
+    }
+
+    @Override
+    public void setColumnFormat(int column, String numberFormat) {
+        if (column >= columnStyles.length) {
+            columnStyles = Arrays.copyOf(columnStyles, column + 1);
+        }
+        columnStyles[column] = stylesByFormat.computeIfAbsent(numberFormat, format -> {
+            CellStyle style = workbook.createCellStyle();
+            style.setDataFormat(workbook.createDataFormat().getFormat(format));
+            return style;
+        });
+    }
+
+    @Override
+    public void startRow() {
+        row = sheet.createRow(rowNum++);
+        column = 0;
+        rowChars = 0;
+    }
+
+    @Override
+    public void writeNumber(long value) {
+        writeNumber((double) value);
+    }
+
+    @Override
+    public void writeNumber(double value) {
+        Cell cell = row.createCell(column);
+        cell.setCellValue(value);
+        if (column < columnStyles.length && columnStyles[column] != null) {
+            cell.setCellStyle(columnStyles[column]);
+        }
+        column++;
+    }
+
+    @Override
+    public void writeString(String value) {
+        if (value == null) {
+            writeBlank();
+        } else {
+            row.createCell(column++).setCellValue(value);
+            rowChars += value.length();
+        }
+    }
+
+    @Override
+    public void writeBlank() {
+        column++;
+    }
+
+    @Override
+    public void endRow() throws IOException {
+        rowCount++;
+        // SXSSF flushes the rows beyond the window to disk as new ones are created
+        if (windowPolicy.rowWritten(column, rowChars)) {
+            sheet.setRandomAccessWindowSize(windowPolicy.getRows());
+        }
+    }
+
+    @Override
+    public void startSheet(String sheetName) {
+        // The finished sheet stays in its temp file until the workbook is written
+        sheet = workbook.createSheet(sheetName);
+        sheet.setRandomAccessWindowSize(windowPolicy.getRows());
+        rowNum = 0;
+    }
+
+    @Override
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public long getTempFileBytes() {
+        return workbook.getTempFileBytes();
+    }
+
+    @Override
+    public void finish() throws IOException {
+        workbook.write(outputStream);
+    }
+
+    @Override
+    public void close() throws IOException {
+        workbook.close();
+    }
+}
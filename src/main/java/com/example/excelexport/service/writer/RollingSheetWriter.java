@@ -0,0 +1,132 @@
+package com.example.excelexport.service.writer;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Continues in a new worksheet, with the same header and column formats, whenever the current one
+ * holds {@code maxRowsPerSheet} data rows. A worksheet holds at most 1,048,576 rows including the
+ * header, and a workbook with more is rejected by Excel. Follow-up sheets are named
+ * "{@code <sheet name> (2)}", "{@code (3)}", ... within Excel's 31-character limit.
+ */
+public class RollingSheetWriter implements SheetWriter {
+
+    /**
+     * Data rows that fit a worksheet next to its header row
+     */
+    public static final int MAX_ROWS_PER_SHEET = 1_048_575;
+
+    private static final int MAX_SHEET_NAME_LENGTH = 31;
+
+    private final SheetWriter delegate;
+    private final String sheetName;
+    private final long maxRowsPerSheet;
+    private final Map<Integer, String> columnFormats = new TreeMap<>();
+
+    private List<String> headers;
+    private long rowsInSheet;
+    private int sheetCount = 1;
+
+    public RollingSheetWriter(SheetWriter delegate, String sheetName, long maxRowsPerSheet) {
+        if (maxRowsPerSheet < 1 || maxRowsPerSheet > MAX_ROWS_PER_SHEET) {
+            throw new IllegalArgumentException("Rows per sheet must be between 1 and " + MAX_ROWS_PER_SHEET + ": " + maxRowsPerSheet);
+        }
+        this.delegate = delegate;
+        this.sheetName = sheetName;
+        this.maxRowsPerSheet = maxRowsPerSheet;
+    }
+
+    @Override
+    public void writeHeader(List<String> headers) throws IOException {
+        this.headers = headers;
+        delegate.writeHeader(headers);
+    }
+
+    @Override
+    public void setColumnFormat(int column, String numberFormat) {
+        columnFormats.put(column, numberFormat);
+        delegate.setColumnFormat(column, numberFormat);
+    }
+
+    @Override
+    public void startRow() throws IOException {
+        if (rowsInSheet == maxRowsPerSheet) {
+            startSheet(nextSheetName());
+            if (headers != null) {
+                delegate.writeHeader(headers);
+            }
+            columnFormats.forEach(delegate::setColumnFormat);
+        }
+        delegate.startRow();
+    }
+
+    private String nextSheetName() {
+        String suffix = " (" + (sheetCount + 1) + ")";
+        String base = sheetName.length() + suffix.length() > MAX_SHEET_NAME_LENGTH
+            ? sheetName.substring(0, MAX_SHEET_NAME_LENGTH - suffix.length())
+            : sheetName;
+        return base + suffix;
+    }
+
+    @Override
+    public void writeNumber(long value) {
+        delegate.writeNumber(value);
+    }
+
+    @Override
+    public void writeNumber(double value) {
+        delegate.writeNumber(value);
+    }
+
+    @Override
+    public void writeString(String value) {
+        delegate.writeString(value);
+    }
+
+    @Override
+    public void writeBlank() {
+        delegate.writeBlank();
+    }
+
+    @Override
+    public void endRow() throws IOException {
+        delegate.endRow();
+        rowsInSheet++;
+    }
+
+    @Override
+    public void startSheet(String sheetName) throws IOException {
+        delegate.startSheet(sheetName);
+        sheetCount++;
+        rowsInSheet = 0;
+    }
+
+    /**
+     * Number of worksheets started so far
+     */
+    public int getSheetCount() {
+        return sheetCount;
+    }
+
+    @Override
+    public long getRowCount() {
+        return delegate.getRowCount();
+    }
+
+    @Override
+    public long getTempFileBytes() {
+        return delegate.getTempFileBytes();
+    }
+
+    @Override
+    public void finish() throws IOException {
+        delegate.finish();
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.excelexport.service.writer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Cell-level, push-style worksheet writer. Row sources that already hold primitive values
+ * (a JDBC ResultSet, a COPY stream) write them straight into the workbook without building
+ * an entity or a row object first.
+ * <p>
+ * Call {@link #writeHeader} once, optionally {@link #setColumnFormat} per column, then
+ * {@link #startRow}, one write per column and {@link #endRow} for every row, and finally
+ * {@link #finish} to emit the workbook. {@link #startSheet} continues in a further worksheet,
+ * where the header and column formats have to be set again. {@link #close} releases resources
+ * and must be called even when writing fails.
+ */
+public interface SheetWriter extends Closeable {
+
+    void writeHeader(List<String> headers) throws IOException;
+
+    /**
+     * Excel number format for the numeric cells of a column, e.g. {@code $#,##0.00}. Writers that
+     * cannot style cells ignore it.
+     */
+    void setColumnFormat(int column, String numberFormat);
+
+    void startRow() throws IOException;
+
+    void writeNumber(long value);
+
+    void writeNumber(double value);
+
+    /**
+     * Writes a string cell, or a blank cell when the value is null
+     */
+    void writeString(String value);
+
+    void writeBlank();
+
+    void endRow() throws IOException;
+
+    /**
+     * Completes the current worksheet and starts a new, empty one named {@code sheetName}
+     */
+    void startSheet(String sheetName) throws IOException;
+
+    /**
+     * Number of data rows written so far over all worksheets, excluding the headers
+     */
+    long getRowCount();
+
+    /**
+     * Bytes spooled to temp files so far; writers that keep no temp files return 0
+     */
+    default long getTempFileBytes() {
+        return 0;
+    }
+
+    /**
+     * Completes the workbook and writes whatever is still buffered to the output stream, leaving it open
+     */
+    void finish() throws IOException;
+}
@@ -0,0 +1,468 @@
+package com.example.excelexport.service.writer;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.zip.Deflater;
+
+/**
+ * Minimal xlsx {@link SheetWriter} for flat tables, with no spreadsheet library underneath. The sheet
+ * XML is UTF-8 encoded straight into a byte buffer that goes into the open zip entry once a row
+ * ends past FLUSH_THRESHOLD; nothing is spooled to disk and no cell, row or
+ * shared-strings model is kept. Strings are written inline, integers digit by digit, and the XML
+ * markup comes from precomputed byte templates, so a cell allocates nothing (only doubles with a
+ * fraction go through {@link Double#toString}).
+ * <p>
+ * The workbook, relationship, content-type and style parts are written once the sheets are done,
+ * since they list every worksheet and number format. Column number formats are the only styling.
+ * Entries are deflated in blocks by a {@link ParallelDeflaterOutputStream}, on the calling thread
+ * at {@link Deflater#BEST_SPEED} unless a level and compression executor are given.
+ */
+public class SpreadsheetMlSheetWriter implements SheetWriter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int FLUSH_THRESHOLD = 48 * 1024;
+
+    /**
+     * Doubles beyond this are not written as integers; it is below 2^53, where doubles stop being exact
+     */
+    private static final double MAX_INTEGRAL = 1e15;
+
+    /**
+     * First id for custom number formats; lower ids are built in
+     */
+    private static final int FIRST_CUSTOM_FORMAT_ID = 164;
+
+    private static final String XML_DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n";
+    private static final String MAIN_NAMESPACE = "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+    private static final String RELATIONSHIP_NAMESPACE = "http://schemas.openxmlformats.org/package/2006/relationships";
+    private static final String RELATIONSHIP_TYPE = "http://schemas.openxmlformats.org/officeDocument/2006/relationships/";
+
+    private static final byte[] SHEET_START = bytes(XML_DECLARATION
+        + "<worksheet xmlns=\"" + MAIN_NAMESPACE + "\"><sheetData>");
+    private static final byte[] SHEET_END = bytes("</sheetData></worksheet>");
+    private static final byte[] ROW_START = bytes("<row r=\"");
+    private static final byte[] ROW_END = bytes("</row>");
+    private static final byte[] CELL_START = bytes("<c r=\"");
+    private static final byte[] STYLE_ATTRIBUTE = bytes("\" s=\"");
+    private static final byte[] NUMBER_START = bytes("\"><v>");
+    private static final byte[] NUMBER_END = bytes("</v></c>");
+    private static final byte[] STRING_START = bytes("\" t=\"inlineStr\"><is><t>");
+    private static final byte[] PRESERVED_STRING_START = bytes("\" t=\"inlineStr\"><is><t xml:space=\"preserve\">");
+    private static final byte[] STRING_END = bytes("</t></is></c>");
+    private static final byte[] TAG_END = bytes("\">");
+    private static final byte[] AMP = bytes("&amp;");
+    private static final byte[] LT = bytes("&lt;");
+    private static final byte[] GT = bytes("&gt;");
+    private static final byte[] QUOT = bytes("&quot;");
+
+    private static final byte[] ROOT_RELS = bytes(XML_DECLARATION
+        + "<Relationships xmlns=\"" + RELATIONSHIP_NAMESPACE + "\">"
+        + "<Relationship Id=\"rId1\" Type=\"" + RELATIONSHIP_TYPE + "officeDocument\" Target=\"xl/workbook.xml\"/>"
+        + "</Relationships>");
+    private static final byte[] CONTENT_TYPES_START = bytes(XML_DECLARATION
+        + "<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">"
+        + "<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>"
+        + "<Default Extension=\"xml\" ContentType=\"application/xml\"/>"
+        + "<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>"
+        + "<Override PartName=\"/xl/styles.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.styles+xml\"/>");
+    private static final byte[] CONTENT_TYPES_END = bytes("</Types>");
+    private static final byte[] WORKBOOK_START = bytes(XML_DECLARATION
+        + "<workbook xmlns=\"" + MAIN_NAMESPACE + "\" xmlns:r=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships\"><sheets>");
+    private static final byte[] WORKBOOK_END = bytes("</sheets></workbook>");
+    private static final byte[] WORKBOOK_RELS_START = bytes(XML_DECLARATION
+        + "<Relationships xmlns=\"" + RELATIONSHIP_NAMESPACE + "\">"
+        + "<Relationship Id=\"rIdStyles\" Type=\"" + RELATIONSHIP_TYPE + "styles\" Target=\"styles.xml\"/>");
+    private static final byte[] WORKBOOK_RELS_END = bytes("</Relationships>");
+    private static final byte[] STYLES_START = bytes(XML_DECLARATION + "<styleSheet xmlns=\"" + MAIN_NAMESPACE + "\">");
+    private static final byte[] STYLES_FIXED = bytes(
+        "<fonts count=\"1\"><font><sz val=\"11\"/><name val=\"Calibri\"/></font></fonts>"
+        + "<fills count=\"2\"><fill><patternFill patternType=\"none\"/></fill><fill><patternFill patternType=\"gray125\"/></fill></fills>"
+        + "<borders count=\"1\"><border><left/><right/><top/><bottom/><diagonal/></border></borders>"
+        + "<cellStyleXfs count=\"1\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\"/></cellStyleXfs>");
+    private static final byte[] STYLES_END = bytes(
+        "<cellStyles count=\"1\"><cellStyle name=\"Normal\" xfId=\"0\" builtinId=\"0\"/></cellStyles></styleSheet>");
+
+    private final ZipStreamWriter zip;
+    private OutputStream part;
+
+    private byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+
+    private final List<String> sheetNames = new ArrayList<>();
+    private final List<String> numberFormats = new ArrayList<>();
+    private byte[][] columnNames = new byte[0][];
+    private int[] columnStyles = new int[0];
+
+    private final byte[] rowDigits = new byte[20];
+    private int rowDigitCount;
+    private long rowNum;
+    private int column;
+    private long rowCount;
+
+    public SpreadsheetMlSheetWriter(OutputStream outputStream, String sheetName) {
+        this(outputStream, sheetName, Deflater.BEST_SPEED, null, 1);
+    }
+
+    /**
+     * @param compressionExecutor deflates the blocks of each part in parallel, or null for the calling thread
+     * @param maxBlocksInFlight   blocks compressed ahead of the output per part
+     */
+    public SpreadsheetMlSheetWriter(OutputStream outputStream, String sheetName, int compressionLevel,
+                                    Executor compressionExecutor, int maxBlocksInFlight) {
+        // Headers and descriptors are a few bytes each, so they are collected before reaching the caller's stream
+        this.zip = new ZipStreamWriter(new BufferedOutputStream(outputStream, BUFFER_SIZE), compressionLevel,
+            compressionExecutor, maxBlocksInFlight);
+        try {
+            openSheet(sheetName);
+        } catch (IOException e) {
+            throw new RuntimeException("Error starting workbook", e);
+        }
+    }
+
+    @Override
+    public void writeHeader(List<String> headers) throws IOException {
+        startRow();
+        for (String header : headers) {
+            writeString(header);
+        }
+        endLine();
+    }
+
+    @Override
+    public void setColumnFormat(int column, String numberFormat) {
+        int format = numberFormats.indexOf(numberFormat);
+        if (format < 0) {
+            format = numberFormats.size();
+            numberFormats.add(numberFormat);
+        }
+        if (column >= columnStyles.length) {
+            columnStyles = Arrays.copyOf(columnStyles, column + 1);
+        }
+        // Style 0 is the default, custom formats follow in order
+        columnStyles[column] = format + 1;
+    }
+
+    @Override
+    public void startRow() {
+        rowNum++;
+        column = 0;
+        rowDigitCount = 0;
+        for (long rest = rowNum; rest > 0; rest /= 10) {
+            rowDigitCount++;
+        }
+        long rest = rowNum;
+        for (int i = rowDigitCount - 1; i >= 0; i--) {
+            rowDigits[i] = (byte) ('0' + rest % 10);
+            rest /= 10;
+        }
+        write(ROW_START);
+        write(rowDigits, rowDigitCount);
+        write(TAG_END);
+    }
+
+    @Override
+    public void writeNumber(long value) {
+        startNumber();
+        writeDigits(value);
+        write(NUMBER_END);
+        column++;
+    }
+
+    @Override
+    public void writeNumber(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < MAX_INTEGRAL) {
+            writeNumber((long) value);
+        } else if (Double.isNaN(value) || Double.isInfinite(value)) {
+            // Excel has no cell value for these
+            writeString(Double.toString(value));
+        } else {
+            startNumber();
+            String text = Double.toString(value);
+            ensureCapacity(text.length());
+            for (int i = 0; i < text.length(); i++) {
+                buffer[position++] = (byte) text.charAt(i);
+            }
+            write(NUMBER_END);
+            column++;
+        }
+    }
+
+    @Override
+    public void writeString(String value) {
+        if (value == null) {
+            column++;
+            return;
+        }
+        startCell();
+        boolean preserve = !value.isEmpty()
+            && (Character.isWhitespace(value.charAt(0)) || Character.isWhitespace(value.charAt(value.length() - 1)));
+        write(preserve ? PRESERVED_STRING_START : STRING_START);
+        encode(value);
+        write(STRING_END);
+        column++;
+    }
+
+    @Override
+    public void writeBlank() {
+        column++;
+    }
+
+    @Override
+    public void endRow() throws IOException {
+        endLine();
+        rowCount++;
+    }
+
+    @Override
+    public void startSheet(String sheetName) throws IOException {
+        closeSheet();
+        openSheet(sheetName);
+    }
+
+    @Override
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public void finish() throws IOException {
+        closeSheet();
+
+        part = zip.putNextEntry("[Content_Types].xml");
+        write(CONTENT_TYPES_START);
+        for (int sheet = 1; sheet <= sheetNames.size(); sheet++) {
+            writeAscii("<Override PartName=\"/xl/worksheets/sheet" + sheet + ".xml\" "
+                + "ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>");
+        }
+        write(CONTENT_TYPES_END);
+        closePart();
+
+        part = zip.putNextEntry("_rels/.rels");
+        write(ROOT_RELS);
+        closePart();
+
+        part = zip.putNextEntry("xl/workbook.xml");
+        write(WORKBOOK_START);
+        for (int sheet = 1; sheet <= sheetNames.size(); sheet++) {
+            writeAscii("<sheet name=\"");
+            encode(sheetNames.get(sheet - 1));
+            writeAscii("\" sheetId=\"" + sheet + "\" r:id=\"rId" + sheet + "\"/>");
+        }
+        write(WORKBOOK_END);
+        closePart();
+
+        part = zip.putNextEntry("xl/_rels/workbook.xml.rels");
+        write(WORKBOOK_RELS_START);
+        for (int sheet = 1; sheet <= sheetNames.size(); sheet++) {
+            writeAscii("<Relationship Id=\"rId" + sheet + "\" Type=\"" + RELATIONSHIP_TYPE + "worksheet\" "
+                + "Target=\"worksheets/sheet" + sheet + ".xml\"/>");
+        }
+        write(WORKBOOK_RELS_END);
+        closePart();
+
+        part = zip.putNextEntry("xl/styles.xml");
+        writeStyles();
+        closePart();
+
+        zip.finish();
+    }
+
+    @Override
+    public void close() {
+        // Block deflaters are released as they finish, and the caller's stream stays open
+    }
+
+    private void openSheet(String sheetName) throws IOException {
+        sheetNames.add(sheetName);
+        part = zip.putNextEntry("xl/worksheets/sheet" + sheetNames.size() + ".xml");
+        write(SHEET_START);
+        rowNum = 0;
+    }
+
+    private void closeSheet() throws IOException {
+        write(SHEET_END);
+        closePart();
+    }
+
+    private void closePart() throws IOException {
+        flushBuffer();
+        zip.closeEntry();
+    }
+
+    private void writeStyles() {
+        write(STYLES_START);
+        if (!numberFormats.isEmpty()) {
+            writeAscii("<numFmts count=\"" + numberFormats.size() + "\">");
+            for (int i = 0; i < numberFormats.size(); i++) {
+                writeAscii("<numFmt numFmtId=\"" + (FIRST_CUSTOM_FORMAT_ID + i) + "\" formatCode=\"");
+                encode(numberFormats.get(i));
+                writeAscii("\"/>");
+            }
+            writeAscii("</numFmts>");
+        }
+        write(STYLES_FIXED);
+        writeAscii("<cellXfs count=\"" + (numberFormats.size() + 1) + "\">"
+            + "<xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\"/>");
+        for (int i = 0; i < numberFormats.size(); i++) {
+            writeAscii("<xf numFmtId=\"" + (FIRST_CUSTOM_FORMAT_ID + i)
+                + "\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyNumberFormat=\"1\"/>");
+        }
+        writeAscii("</cellXfs>");
+        write(STYLES_END);
+    }
+
+    private void startCell() {
+        write(CELL_START);
+        write(getColumnName(column));
+        write(rowDigits, rowDigitCount);
+    }
+
+    private void startNumber() {
+        startCell();
+        int style = column < columnStyles.length ? columnStyles[column] : 0;
+        if (style > 0) {
+            write(STYLE_ATTRIBUTE);
+            writeDigits(style);
+        }
+        write(NUMBER_START);
+    }
+
+    private void endLine() throws IOException {
+        write(ROW_END);
+        if (position >= FLUSH_THRESHOLD) {
+            flushBuffer();
+        }
+    }
+
+    /**
+     * Column letters of each index, computed once: A..Z, AA..
+     */
+    private byte[] getColumnName(int index) {
+        if (index >= columnNames.length) {
+            columnNames = Arrays.copyOf(columnNames, Math.max(index + 1, columnNames.length * 2));
+        }
+        byte[] name = columnNames[index];
+        if (name == null) {
+            StringBuilder letters = new StringBuilder();
+            for (int rest = index + 1; rest > 0; rest = (rest - 1) / 26) {
+                letters.insert(0, (char) ('A' + (rest - 1) % 26));
+            }
+            name = bytes(letters.toString());
+            columnNames[index] = name;
+        }
+        return name;
+    }
+
+    private void writeDigits(long value) {
+        ensureCapacity(20);
+        if (value == Long.MIN_VALUE) {
+            writeAscii(Long.toString(value));
+            return;
+        }
+        if (value < 0) {
+            buffer[position++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        int end = position + digits;
+        for (int i = end - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        position = end;
+    }
+
+    /**
+     * UTF-8 encodes the value into the buffer as XML text, escaping markup characters and dropping
+     * characters XML 1.0 cannot contain
+     */
+    private void encode(String value) {
+        int length = value.length();
+        // At most 3 bytes per char (4 per surrogate pair), and 6 per escaped char
+        ensureCapacity(length * 6);
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                if (c == '&') {
+                    writeUnchecked(AMP);
+                } else if (c == '<') {
+                    writeUnchecked(LT);
+                } else if (c == '>') {
+                    writeUnchecked(GT);
+                } else if (c == '"') {
+                    writeUnchecked(QUOT);
+                } else if (c >= 0x20 || c == '\t' || c == '\n' || c == '\r') {
+                    buffer[position++] = (byte) c;
+                }
+            } else if (c < 0x800) {
+                buffer[position++] = (byte) (0xC0 | (c >> 6));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (!Character.isSurrogate(c) && c != 0xFFFE && c != 0xFFFF) {
+                buffer[position++] = (byte) (0xE0 | (c >> 12));
+                buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    /**
+     * For the markup of the once-per-workbook parts, which is plain ASCII
+     */
+    private void writeAscii(String value) {
+        ensureCapacity(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            buffer[position++] = (byte) value.charAt(i);
+        }
+    }
+
+    private void write(byte[] bytes) {
+        write(bytes, bytes.length);
+    }
+
+    private void write(byte[] bytes, int length) {
+        ensureCapacity(length);
+        System.arraycopy(bytes, 0, buffer, position, length);
+        position += length;
+    }
+
+    private void writeUnchecked(byte[] bytes) {
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    /**
+     * Grows the buffer for a value that does not fit; cell writes never do I/O
+     */
+    private void ensureCapacity(int bytes) {
+        if (position + bytes > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + bytes));
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        part.write(buffer, 0, position);
+        position = 0;
+        if (buffer.length > BUFFER_SIZE) {
+            buffer = new byte[BUFFER_SIZE];
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,251 @@
+package com.example.excelexport.service.writer;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Where SXSSF workbooks spool the rows that left their window: a directory of its own (a tmpfs
+ * mount keeps the spill off the disk), whether the files are gzipped, and disk quotas per export
+ * and across all exports. Each workbook charges its writes to an {@link Usage}, which fails the
+ * write with a {@link TempStorageQuotaExceededException} once a quota would be exceeded, and hands
+ * the bytes back when the workbook is closed and its files deleted.
+ */
+@Slf4j
+public class SxssfTempStorage {
+
+    private static final long DEFAULT_COMPRESS_BELOW_FREE_BYTES = 1L << 30;
+
+    private static final String PREFIX = "poi-sxssf-sheet";
+
+    /**
+     * Whether temp files are gzipped; compression saves about 90% of the disk at the cost of CPU
+     */
+    public enum Compression {
+        ALWAYS,
+        NEVER,
+        /**
+         * Only while the directory is short of space or the global quota is more than half used
+         */
+        AUTO;
+
+        /**
+         * Parses a policy by case-insensitive name
+         *
+         * @throws IllegalArgumentException if no policy has this name
+         */
+        public static Compression parse(String value) {
+            for (Compression compression : values()) {
+                if (compression.name().equalsIgnoreCase(value)) {
+                    return compression;
+                }
+            }
+            throw new IllegalArgumentException("Unknown temp file compression: " + value + ", expected one of always, never, auto");
+        }
+
+        @Override
+        public String toString() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final Path directory;
+    private final Compression compression;
+    private final long compressBelowFreeBytes;
+    private final long exportQuotaBytes;
+    private final long globalQuotaBytes;
+
+    private final AtomicLong bytesInUse = new AtomicLong();
+    private final AtomicInteger filesInUse = new AtomicInteger();
+    private final AtomicLong exportQuotaRejections = new AtomicLong();
+    private final AtomicLong globalQuotaRejections = new AtomicLong();
+
+    /**
+     * @param exportQuotaBytes bytes one workbook may spool, or 0 for no limit
+     * @param globalQuotaBytes bytes all workbooks together may spool, or 0 for no limit
+     */
+    public SxssfTempStorage(Path directory, Compression compression, long compressBelowFreeBytes,
+                            long exportQuotaBytes, long globalQuotaBytes) {
+        this.directory = directory;
+        this.compression = compression;
+        this.compressBelowFreeBytes = compressBelowFreeBytes;
+        this.exportQuotaBytes = exportQuotaBytes;
+        this.globalQuotaBytes = globalQuotaBytes;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create the temp file directory " + directory, e);
+        }
+    }
+
+    /**
+     * Storage of workbooks created outside the application context: an {@code excel-export}
+     * directory under {@code java.io.tmpdir}, compressed when space runs short, no quotas
+     */
+    public static SxssfTempStorage getDefault() {
+        return DefaultHolder.INSTANCE;
+    }
+
+    private static final class DefaultHolder {
+        static final SxssfTempStorage INSTANCE = new SxssfTempStorage(
+            Paths.get(System.getProperty("java.io.tmpdir"), "excel-export"),
+            Compression.AUTO, DEFAULT_COMPRESS_BELOW_FREE_BYTES, 0, 0);
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Whether a workbook created now should gzip its temp files
+     */
+    public boolean shouldCompress() {
+        switch (compression) {
+            case ALWAYS:
+                return true;
+            case NEVER:
+                return false;
+            default:
+                return globalQuotaBytes > 0 && bytesInUse.get() > globalQuotaBytes / 2
+                    || getUsableBytes() < compressBelowFreeBytes;
+        }
+    }
+
+    private long getUsableBytes() {
+        try {
+            return Files.getFileStore(directory).getUsableSpace();
+        } catch (IOException e) {
+            log.warn("Could not read the free space of {}", directory, e);
+            return 0;
+        }
+    }
+
+    /**
+     * Starts accounting the temp files of one workbook
+     */
+    public Usage openUsage() {
+        return new Usage();
+    }
+
+    public long getBytesInUse() {
+        return bytesInUse.get();
+    }
+
+    public int getFilesInUse() {
+        return filesInUse.get();
+    }
+
+    /**
+     * Workbooks that failed because they exceeded the per-export quota
+     */
+    public long getExportQuotaRejections() {
+        return exportQuotaRejections.get();
+    }
+
+    /**
+     * Workbooks that failed because all workbooks together exceeded the global quota
+     */
+    public long getGlobalQuotaRejections() {
+        return globalQuotaRejections.get();
+    }
+
+    /**
+     * Temp files and bytes of one workbook. Not thread-safe, like the workbook itself.
+     */
+    public final class Usage {
+
+        private final List<Path> files = new ArrayList<>();
+        private long bytes;
+        private boolean rejected;
+        private boolean released;
+
+        private Usage() {
+        }
+
+        public Path createTempFile(boolean compressed) throws IOException {
+            Path file = Files.createTempFile(directory, PREFIX, compressed ? ".xml.gz" : ".xml");
+            files.add(file);
+            filesInUse.incrementAndGet();
+            return file;
+        }
+
+        /**
+         * Wraps the stream of a temp file so every byte written is charged to the quotas
+         */
+        public OutputStream meter(OutputStream outputStream) {
+            return new FilterOutputStream(outputStream) {
+                @Override
+                public void write(int b) throws IOException {
+                    charge(1);
+                    out.write(b);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    charge(len);
+                    out.write(b, off, len);
+                }
+            };
+        }
+
+        /**
+         * Counts a workbook only once, however often it tries to write on after a rejection
+         */
+        private void charge(long length) throws TempStorageQuotaExceededException {
+            if (exportQuotaBytes > 0 && bytes + length > exportQuotaBytes) {
+                if (!rejected) {
+                    rejected = true;
+                    exportQuotaRejections.incrementAndGet();
+                }
+                throw new TempStorageQuotaExceededException(
+                    "Export exceeded its temp file quota of " + exportQuotaBytes + " bytes in " + directory);
+            }
+            long total = bytesInUse.addAndGet(length);
+            if (globalQuotaBytes > 0 && total > globalQuotaBytes) {
+                bytesInUse.addAndGet(-length);
+                if (!rejected) {
+                    rejected = true;
+                    globalQuotaRejections.incrementAndGet();
+                }
+                throw new TempStorageQuotaExceededException(
+                    "Exports exceeded the global temp file quota of " + globalQuotaBytes + " bytes in " + directory);
+            }
+            bytes += length;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * Deletes whatever temp files the workbook left behind and hands their bytes back to the
+         * storage; releasing again has no effect
+         */
+        public void release() {
+            if (released) {
+                return;
+            }
+            released = true;
+            for (Path file : files) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    log.warn("Could not delete the temp file {}", file, e);
+                }
+            }
+            bytesInUse.addAndGet(-bytes);
+            filesInUse.addAndGet(-files.size());
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.excelexport.service.writer;
+
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.streaming.SheetDataWriter;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * SXSSF workbook whose temp files live in an {@link SxssfTempStorage}, which decides when the
+ * workbook is created whether they are gzipped and charges every byte spooled to its quotas.
+ * {@link #close()} also deletes the temp files, which plain SXSSF leaves to {@link #dispose()},
+ * so they are gone whether the export succeeded, failed or was cancelled. Read
+ * {@link #getTempFileBytes()} before closing.
+ */
+public class TempFileTrackingWorkbook extends SXSSFWorkbook {
+
+    private final SxssfTempStorage.Usage usage;
+    private final boolean compressed;
+    private final List<TrackedSheetDataWriter> sheetDataWriters = new ArrayList<>();
+
+    public TempFileTrackingWorkbook(int rowAccessWindowSize) {
+        this(rowAccessWindowSize, SxssfTempStorage.getDefault());
+    }
+
+    public TempFileTrackingWorkbook(int rowAccessWindowSize, SxssfTempStorage storage) {
+        super(rowAccessWindowSize);
+        this.usage = storage.openUsage();
+        this.compressed = storage.shouldCompress();
+        setCompressTempFiles(compressed);
+    }
+
+    @Override
+    protected SheetDataWriter createSheetDataWriter() throws IOException {
+        TrackedSheetDataWriter writer = new TrackedSheetDataWriter();
+        sheetDataWriters.add(writer);
+        return writer;
+    }
+
+    public long getTempFileBytes() {
+        long bytes = 0;
+        for (TrackedSheetDataWriter writer : sheetDataWriters) {
+            bytes += writer.getTempFileBytes();
+        }
+        return bytes;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            try {
+                dispose();
+            } finally {
+                usage.release();
+            }
+        }
+    }
+
+    private final class TrackedSheetDataWriter extends SheetDataWriter {
+
+        TrackedSheetDataWriter() throws IOException {
+            super(_sharedStringSource);
+        }
+
+        @Override
+        public File createTempFile() throws IOException {
+            return usage.createTempFile(compressed).toFile();
+        }
+
+        @Override
+        protected OutputStream decorateOutputStream(FileOutputStream fos) throws IOException {
+            OutputStream metered = usage.meter(fos);
+            return compressed ? new GZIPOutputStream(metered) : metered;
+        }
+
+        @Override
+        protected InputStream decorateInputStream(FileInputStream fis) throws IOException {
+            return compressed ? new GZIPInputStream(fis) : fis;
+        }
+
+        long getTempFileBytes() {
+            File file = getTempFile();
+            return file == null ? 0 : file.length();
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.excelexport.service.writer;
+
+import java.io.IOException;
+
+/**
+ * An SXSSF workbook would spool more to disk than the {@link SxssfTempStorage} quotas allow
+ */
+public class TempStorageQuotaExceededException extends IOException {
+
+    public TempStorageQuotaExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.excelexport.service.writer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Writes a zip archive of deflated entries whose data comes from a {@link ParallelDeflaterOutputStream},
+ * which {@link java.util.zip.ZipOutputStream} cannot take since it runs its own deflater. Entries are
+ * streamed: the local header goes out first and the CRC and sizes follow in a data descriptor,
+ * as ZipOutputStream does for deflated entries. There is no Zip64, so entries and the archive stay
+ * below 4 GB. The underlying stream is never closed.
+ */
+public class ZipStreamWriter {
+
+    private static final int LOCAL_HEADER = 0x04034b50;
+    private static final int DATA_DESCRIPTOR = 0x08074b50;
+    private static final int CENTRAL_HEADER = 0x02014b50;
+    private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+
+    private static final int VERSION = 20;
+    /**
+     * Sizes and CRC in a data descriptor, names in UTF-8
+     */
+    private static final int FLAGS = 0x0808;
+    private static final int DEFLATED = 8;
+    private static final long MAX_SIZE = 0xFFFFFFFFL;
+
+    private final OutputStream outputStream;
+    private final int level;
+    private final Executor executor;
+    private final int maxInFlight;
+    private final int dosTime;
+
+    private final List<Entry> entries = new ArrayList<>();
+    private final byte[] scratch = new byte[46];
+    private Entry entry;
+    private ParallelDeflaterOutputStream entryStream;
+    private long offset;
+
+    /**
+     * @param executor compresses entry blocks in parallel, or null to compress on the calling thread
+     */
+    public ZipStreamWriter(OutputStream outputStream, int level, Executor executor, int maxInFlight) {
+        this.outputStream = outputStream;
+        this.level = level;
+        this.executor = executor;
+        this.maxInFlight = maxInFlight;
+        this.dosTime = toDosTime(LocalDateTime.now());
+    }
+
+    /**
+     * Starts a new entry, finishing the current one, and returns the stream for its uncompressed data
+     */
+    public OutputStream putNextEntry(String name) throws IOException {
+        closeEntry();
+        entry = new Entry(name.getBytes(StandardCharsets.UTF_8), offset);
+
+        int pos = putInt(0, LOCAL_HEADER);
+        pos = putShort(pos, VERSION);
+        pos = putShort(pos, FLAGS);
+        pos = putShort(pos, DEFLATED);
+        pos = putInt(pos, dosTime);
+        // CRC, compressed and uncompressed size follow in the data descriptor
+        pos = putInt(pos, 0);
+        pos = putInt(pos, 0);
+        pos = putInt(pos, 0);
+        pos = putShort(pos, entry.name.length);
+        pos = putShort(pos, 0);
+        writeRaw(scratch, pos);
+        writeRaw(entry.name, entry.name.length);
+
+        entryStream = new ParallelDeflaterOutputStream(new CountingStream(), level, executor, maxInFlight);
+        return entryStream;
+    }
+
+    public void closeEntry() throws IOException {
+        if (entry == null) {
+            return;
+        }
+        entryStream.finish();
+        entry.crc = entryStream.getCrc();
+        entry.compressedSize = entryStream.getBytesOut();
+        entry.size = entryStream.getBytesIn();
+        if (entry.size > MAX_SIZE || offset > MAX_SIZE) {
+            throw new IOException("Zip entry " + new String(entry.name, StandardCharsets.UTF_8) + " exceeds 4 GB");
+        }
+
+        int pos = putInt(0, DATA_DESCRIPTOR);
+        pos = putInt(pos, (int) entry.crc);
+        pos = putInt(pos, (int) entry.compressedSize);
+        pos = putInt(pos, (int) entry.size);
+        writeRaw(scratch, pos);
+
+        entries.add(entry);
+        entry = null;
+        entryStream = null;
+    }
+
+    /**
+     * Closes the current entry and writes the central directory
+     */
+    public void finish() throws IOException {
+        closeEntry();
+        long directoryOffset = offset;
+        for (Entry written : entries) {
+            int pos = putInt(0, CENTRAL_HEADER);
+            pos = putShort(pos, VERSION);
+            pos = putShort(pos, VERSION);
+            pos = putShort(pos, FLAGS);
+            pos = putShort(pos, DEFLATED);
+            pos = putInt(pos, dosTime);
+            pos = putInt(pos, (int) written.crc);
+            pos = putInt(pos, (int) written.compressedSize);
+            pos = putInt(pos, (int) written.size);
+            pos = putShort(pos, written.name.length);
+            // extra field, comment, disk number, internal and external attributes
+            pos = putShort(pos, 0);
+            pos = putShort(pos, 0);
+            pos = putShort(pos, 0);
+            pos = putShort(pos, 0);
+            pos = putInt(pos, 0);
+            pos = putInt(pos, (int) written.offset);
+            writeRaw(scratch, pos);
+            writeRaw(written.name, written.name.length);
+        }
+        long directorySize = offset - directoryOffset;
+        if (offset > MAX_SIZE || entries.size() > 0xFFFF) {
+            throw new IOException("Zip archive exceeds 4 GB or 65535 entries");
+        }
+
+        int pos = putInt(0, END_OF_CENTRAL_DIRECTORY);
+        pos = putShort(pos, 0);
+        pos = putShort(pos, 0);
+        pos = putShort(pos, entries.size());
+        pos = putShort(pos, entries.size());
+        pos = putInt(pos, (int) directorySize);
+        pos = putInt(pos, (int) directoryOffset);
+        pos = putShort(pos, 0);
+        writeRaw(scratch, pos);
+        outputStream.flush();
+    }
+
+    private void writeRaw(byte[] bytes, int length) throws IOException {
+        outputStream.write(bytes, 0, length);
+        offset += length;
+    }
+
+    private int putShort(int pos, int value) {
+        scratch[pos] = (byte) value;
+        scratch[pos + 1] = (byte) (value >> 8);
+        return pos + 2;
+    }
+
+    private int putInt(int pos, int value) {
+        putShort(pos, value);
+        putShort(pos + 2, value >> 16);
+        return pos + 4;
+    }
+
+    private static int toDosTime(LocalDateTime time) {
+        return (time.getYear() - 1980) << 25 | time.getMonthValue() << 21 | time.getDayOfMonth() << 16
+            | time.getHour() << 11 | time.getMinute() << 5 | time.getSecond() >> 1;
+    }
+
+    private static final class Entry {
+        final byte[] name;
+        final long offset;
+        long crc;
+        long compressedSize;
+        long size;
+
+        Entry(byte[] name, long offset) {
+            this.name = name;
+            this.offset = offset;
+        }
+    }
+
+    /**
+     * Compressed entry data, counted into the archive offset
+     */
+    private final class CountingStream extends OutputStream {
+
+        @Override
+        public void write(int b) throws IOException {
+            outputStream.write(b);
+            offset++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            outputStream.write(b, off, len);
+            offset += len;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+-- Runs on every startup, after Hibernate, so each statement must be repeatable.
+-- Statements end with @@ because the function body contains semicolons.
+
+-- Change counters of datasets, the version part of export cache keys
+CREATE TABLE IF NOT EXISTS dataset_versions (
+    name varchar(64) PRIMARY KEY,
+    version bigint NOT NULL
+)@@
+
+INSERT INTO dataset_versions (name, version) VALUES ('employees', 0) ON CONFLICT (name) DO NOTHING@@
+
+-- Bumped in the writing transaction, so the new version commits together with the rows.
+-- Concurrent writers of the table queue on the counter row until they commit.
+CREATE OR REPLACE FUNCTION bump_employees_version() RETURNS trigger AS $$
+BEGIN
+    UPDATE dataset_versions SET version = version + 1 WHERE name = 'employees';
+    RETURN NULL;
+END
+$$ LANGUAGE plpgsql@@
+
+DROP TRIGGER IF EXISTS employees_version ON employees@@
+
+CREATE TRIGGER employees_version AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON employees
+    FOR EACH STATEMENT EXECUTE PROCEDURE bump_employees_version()@@
@@ -0,0 +1,56 @@
+package com.example.excelexport.annotation;
+
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExcelRowContextTest {
+
+    @Test
+    void toExcelFormat_ShouldTranslateJavaPatterns() {
+        assertEquals("dd/mm/yyyy", ExcelRowContext.toExcelFormat("dd/MM/yyyy", Locale.ENGLISH));
+        assertEquals("yyyy-mm-dd hh:mm:ss.000", ExcelRowContext.toExcelFormat("yyyy-MM-dd HH:mm:ss.SSS", Locale.ENGLISH));
+        assertEquals("h:mm AM/PM", ExcelRowContext.toExcelFormat("h:mm a", Locale.ENGLISH));
+        assertEquals("[$-C0A]d \"de\" mmmm", ExcelRowContext.toExcelFormat("d 'de' MMMM", new Locale("es")));
+    }
+
+    @Test
+    void writeValue_ShouldWriteNativeCells() throws IOException {
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            Row row = workbook.createSheet().createRow(0);
+            String[] patterns = {"yyyy-MM-dd", "yyyy-MM-dd", "yyyy-MM-dd HH:mm", "HH:mm", "dd/MM/yyyy", "yyyy-MM", "yyyy-MM-dd"};
+            ExcelRowContext context = new ExcelRowContext(workbook, Locale.ENGLISH, patterns,
+                new String[] {"#,##0.00", null, null, null, null, null, null});
+
+            context.writeValue(row.createCell(0), 0, new BigDecimal("12.50"));
+            context.writeValue(row.createCell(1), 1, Boolean.TRUE);
+            context.writeValue(row.createCell(2), 2, LocalDateTime.of(2024, 3, 5, 14, 30));
+            context.writeValue(row.createCell(3), 3, LocalTime.of(12, 0));
+            context.writeValue(row.createCell(4), 4, LocalDate.of(1850, 7, 1));
+            context.writeValue(row.createCell(5), 5, YearMonth.of(2024, 3));
+            context.writeValue(row.createCell(6), 6, null);
+
+            assertEquals(12.5, row.getCell(0).getNumericCellValue());
+            assertEquals("#,##0.00", row.getCell(0).getCellStyle().getDataFormatString());
+            assertEquals(CellType.BOOLEAN, row.getCell(1).getCellType());
+            assertEquals(LocalDateTime.of(2024, 3, 5, 14, 30), row.getCell(2).getLocalDateTimeCellValue());
+            assertEquals("yyyy-mm-dd hh:mm", row.getCell(2).getCellStyle().getDataFormatString());
+            assertEquals(0.5, row.getCell(3).getNumericCellValue());
+            // Excel cannot hold dates before 1900, so those fall back to formatted text
+            assertEquals("01/07/1850", row.getCell(4).getStringCellValue());
+            assertEquals("2024-03", row.getCell(5).getStringCellValue());
+            assertEquals(CellType.BLANK, row.getCell(6).getCellType());
+        }
+    }
+}
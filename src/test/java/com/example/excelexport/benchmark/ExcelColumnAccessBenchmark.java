@@ -0,0 +1,100 @@
+package com.example.excelexport.benchmark;
+
+import com.example.excelexport.annotation.ExcelColumn;
+import com.example.excelexport.dto.UserDTO;
+import com.example.excelexport.service.ExcelColumnModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads every {@link ExcelColumn} value of 1000 DTOs, comparing the former per-request reflection
+ * path (class scan, {@code getAnnotation} and {@code Field.get} per cell) with the cached
+ * {@link ExcelColumnModel} accessors. Only value access is measured, not cell writing.
+ * <p>
+ * Run from the IDE, or with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.example.excelexport.benchmark.ExcelColumnAccessBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExcelColumnAccessBenchmark {
+
+    private static final int ROWS = 1000;
+
+    private List<UserDTO> rows;
+
+    @Setup
+    public void setUp() {
+        rows = new ArrayList<>(ROWS);
+        Date now = new Date();
+        for (int i = 0; i < ROWS; i++) {
+            UserDTO user = new UserDTO();
+            user.setId((long) i);
+            user.setFirstName("First" + i);
+            user.setLastName("Last" + i);
+            user.setEmail("user" + i + "@example.com");
+            user.setRegistrationDate(now);
+            user.setActive(i % 2 == 0);
+            rows.add(user);
+        }
+    }
+
+    @Benchmark
+    public void reflection(Blackhole blackhole) throws IllegalAccessException {
+        List<Field> fields = new ArrayList<>();
+        for (Field field : UserDTO.class.getDeclaredFields()) {
+            if (field.isAnnotationPresent(ExcelColumn.class)) {
+                field.setAccessible(true);
+                fields.add(field);
+            }
+        }
+        fields.sort(Comparator.comparingInt(field -> field.getAnnotation(ExcelColumn.class).order()));
+
+        for (UserDTO row : rows) {
+            for (Field field : fields) {
+                blackhole.consume(field.getAnnotation(ExcelColumn.class));
+                blackhole.consume(field.get(row));
+            }
+        }
+    }
+
+    @Benchmark
+    public void cachedAccessors(Blackhole blackhole) {
+        List<ExcelColumnModel.Column> columns = ExcelColumnModel.of(UserDTO.class).getColumns();
+
+        for (UserDTO row : rows) {
+            for (ExcelColumnModel.Column column : columns) {
+                blackhole.consume(column.isAmount());
+                blackhole.consume(column.getValue(row));
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(ExcelColumnAccessBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
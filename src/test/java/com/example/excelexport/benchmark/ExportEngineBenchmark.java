@@ -0,0 +1,242 @@
+package com.example.excelexport.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.example.excelexport.dto.UserDTO;
+import com.example.excelexport.entity.Employee;
+import com.example.excelexport.service.AnnotationExcelExportService;
+import com.example.excelexport.service.DirectExcelExportService;
+import com.example.excelexport.service.EasyExcelExportService;
+import com.example.excelexport.service.ExcelExportService;
+import com.example.excelexport.service.FastExcelExportService;
+import com.example.excelexport.service.writer.SheetWriter;
+import com.example.excelexport.service.writer.SpreadsheetMlSheetWriter;
+import com.example.excelexport.service.writer.SxssfTempStorage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.support.StaticMessageSource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+
+/**
+ * Writes {@code rows} synthetic employees with each export engine into a byte-counting sink, so only
+ * row generation and workbook writing are measured. Rows are cycled from a pool of POOL_SIZE
+ * prebuilt objects to keep the data source out of the allocation figures.
+ * <p>
+ * {@link #main} adds the GC profiler and prints a summary per engine and size: time per export,
+ * rows per second, bytes allocated per row ({@code gc.alloc.rate.norm / rows}) and output size.
+ * Run all sizes with {@code mvn -Pbenchmarks verify}, or pick some with
+ * {@code mvn -Pbenchmarks verify -Djmh.args="-p rows=10000 -p engine=fastexcel,direct"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ExportEngineBenchmark {
+
+    private static final int POOL_SIZE = 1000;
+
+    private static final List<String> HEADERS =
+        Arrays.asList("ID", "First Name", "Last Name", "Email", "Department", "Salary");
+
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+
+    @Param({"poi", "fastexcel", "direct", "easyexcel", "annotation", "spreadsheetml", "spreadsheetml-parallel"})
+    public String engine;
+
+    private Employee[] employees;
+    private List<String>[] stringRows;
+    private UserDTO[] users;
+
+    private ExcelExportService excelExportService;
+    private FastExcelExportService fastExcelExportService;
+    private DirectExcelExportService directExcelExportService;
+    private EasyExcelExportService easyExcelExportService;
+    private AnnotationExcelExportService annotationExcelExportService;
+    private ExecutorService compressionExecutor;
+
+    static {
+        // Without a Spring context logback falls back to DEBUG, and POI/EasyExcel debug logging would dominate
+        ((Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+    }
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        employees = new Employee[POOL_SIZE];
+        stringRows = new List[POOL_SIZE];
+        users = new UserDTO[POOL_SIZE];
+        Date registrationDate = new Date();
+        for (int i = 0; i < POOL_SIZE; i++) {
+            Employee employee = new Employee();
+            employee.setId((long) i);
+            employee.setFirstName("First" + i);
+            employee.setLastName("Last" + i);
+            employee.setEmail("employee" + i + "@example.com");
+            employee.setDepartment("Department " + i % 10);
+            employee.setSalary(30000 + i * 17.5);
+            employees[i] = employee;
+
+            stringRows[i] = Arrays.asList(String.valueOf(employee.getId()), employee.getFirstName(),
+                employee.getLastName(), employee.getEmail(), employee.getDepartment(), String.valueOf(employee.getSalary()));
+
+            UserDTO user = new UserDTO();
+            user.setId((long) i);
+            user.setFirstName(employee.getFirstName());
+            user.setLastName(employee.getLastName());
+            user.setEmail(employee.getEmail());
+            user.setRegistrationDate(registrationDate);
+            user.setActive(i % 2 == 0);
+            users[i] = user;
+        }
+
+        // The stream-based export methods touch neither the repository nor the engine registry
+        StaticMessageSource messageSource = new StaticMessageSource();
+        messageSource.setUseCodeAsDefaultMessage(true);
+        excelExportService = new ExcelExportService(null, null, SxssfTempStorage.getDefault());
+        fastExcelExportService = new FastExcelExportService(null, messageSource);
+        directExcelExportService = new DirectExcelExportService();
+        easyExcelExportService = new EasyExcelExportService();
+        annotationExcelExportService = new AnnotationExcelExportService(messageSource);
+        compressionExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    @TearDown
+    public void tearDown() {
+        compressionExecutor.shutdown();
+    }
+
+    @Benchmark
+    public long export() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        write(out);
+        return out.count;
+    }
+
+    void write(OutputStream out) throws IOException {
+        switch (engine) {
+            case "poi":
+                excelExportService.generateExcel(pooled(stringRows), HEADERS, out);
+                break;
+            case "fastexcel":
+                fastExcelExportService.exportEmployeesToExcel(pooled(employees), out);
+                break;
+            case "direct":
+                directExcelExportService.exportEmployeesToExcel(pooled(employees), out);
+                break;
+            case "easyexcel":
+                easyExcelExportService.exportEmployeesToExcel(pooled(employees), out);
+                break;
+            case "annotation":
+                annotationExcelExportService.generateExcelFromDTO(UserDTO.class, pooled(users).iterator(), out);
+                break;
+            case "spreadsheetml":
+                try (SheetWriter writer = new SpreadsheetMlSheetWriter(out, "Employees")) {
+                    writeEmployees(writer);
+                }
+                break;
+            case "spreadsheetml-parallel":
+                try (SheetWriter writer = new SpreadsheetMlSheetWriter(out, "Employees", Deflater.BEST_SPEED,
+                        compressionExecutor, 2 * Runtime.getRuntime().availableProcessors())) {
+                    writeEmployees(writer);
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown engine: " + engine);
+        }
+    }
+
+    /**
+     * The same cells as the fastexcel case, for engines that only come as a {@link SheetWriter}
+     */
+    private void writeEmployees(SheetWriter writer) throws IOException {
+        writer.writeHeader(HEADERS);
+        for (int i = 0; i < rows; i++) {
+            Employee employee = employees[i % POOL_SIZE];
+            writer.startRow();
+            writer.writeNumber(employee.getId());
+            writer.writeString(employee.getFirstName());
+            writer.writeString(employee.getLastName());
+            writer.writeString(employee.getEmail());
+            writer.writeString(employee.getDepartment());
+            writer.writeNumber(employee.getSalary());
+            writer.endRow();
+        }
+        writer.finish();
+    }
+
+    private <T> Stream<T> pooled(T[] pool) {
+        return IntStream.range(0, rows).mapToObj(i -> pool[i % POOL_SIZE]);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Collection<RunResult> results = new Runner(new OptionsBuilder()
+            .parent(new CommandLineOptions(args))
+            .include(ExportEngineBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .build()).run();
+
+        System.out.printf("%n%-12s %10s %12s %14s %14s %16s%n",
+            "engine", "rows", "ms/export", "rows/s", "alloc B/row", "output bytes");
+        for (RunResult result : results) {
+            ExportEngineBenchmark state = new ExportEngineBenchmark();
+            state.engine = result.getParams().getParam("engine");
+            state.rows = Integer.parseInt(result.getParams().getParam("rows"));
+            state.setUp();
+            CountingOutputStream out = new CountingOutputStream();
+            state.write(out);
+            state.tearDown();
+
+            double millis = result.getPrimaryResult().getScore();
+            Result<?> allocation = result.getSecondaryResults().get("gc.alloc.rate.norm");
+            System.out.printf("%-12s %10d %12.1f %14.0f %14.1f %16d%n",
+                state.engine, state.rows, millis, state.rows / (millis / 1000),
+                allocation == null ? Double.NaN : allocation.getScore() / state.rows, out.count);
+        }
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.excelexport.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VirtualThreadsTest {
+
+    @Test
+    void factory_ShouldMatchRuntimeVersion() throws Exception {
+        Optional<ThreadFactory> threadFactory = VirtualThreads.factory("test-virtual-");
+        if (Runtime.version().feature() < 21) {
+            assertTrue(threadFactory.isEmpty());
+            assertFalse(VirtualThreads.isSupported());
+            return;
+        }
+
+        CompletableFuture<String> name = new CompletableFuture<>();
+        Thread thread = threadFactory.orElseThrow().newThread(() -> name.complete(Thread.currentThread().getName()));
+        thread.start();
+        assertEquals("test-virtual-0", name.get(10, TimeUnit.SECONDS));
+        assertTrue((Boolean) Thread.class.getMethod("isVirtual").invoke(thread));
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.excelexport.controller;
+
+import com.example.excelexport.dto.UserDTO;
+import com.example.excelexport.metrics.ExportMetrics;
+import com.example.excelexport.service.AnnotationExcelExportService;
+import com.example.excelexport.service.ExportAdmissionService;
+import com.example.excelexport.service.engine.ExportEngineRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(AnnotationExcelController.class)
+public class AnnotationExcelControllerTest {
+
+    @TestConfiguration
+    static class MetricsConfig {
+        @Bean
+        ExportMetrics exportMetrics() {
+            return new ExportMetrics(new SimpleMeterRegistry());
+        }
+
+        // Room for one export at a time, with no queue
+        @Bean
+        ExportAdmissionService exportAdmissionService(ExportMetrics exportMetrics) {
+            return new ExportAdmissionService(new ExportEngineRegistry(Collections.emptyList()), exportMetrics,
+                1L << 30, 1, 0, 0, 256, 7);
+        }
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ExportAdmissionService exportAdmissionService;
+
+    @MockBean
+    private AnnotationExcelExportService annotationExcelExportService;
+
+    @Test
+    void exportUsers_ShouldReleaseAdmissionOnceRendered() throws Exception {
+        when(annotationExcelExportService.generateExcelFromDTO(anyList())).thenReturn(new byte[] {1, 2, 3});
+
+        mockMvc.perform(post("/api/excel/annotation/users/export")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"id\": 1, \"firstName\": \"John\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(new byte[] {1, 2, 3}));
+
+        assertEquals(0, exportAdmissionService.getThreadsInUse());
+    }
+
+    @Test
+    void exportUsers_WhenBudgetsAreUsedUp_ShouldReturnTooManyRequests() throws Exception {
+        try (ExportAdmissionService.Permit running = exportAdmissionService.admitBuffered("poi", 1)) {
+            mockMvc.perform(post("/api/excel/annotation/users/export")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("[{\"id\": 1}]"))
+                    .andExpect(status().isTooManyRequests())
+                    .andExpect(header().string("Retry-After", "7"));
+        }
+
+        verify(annotationExcelExportService, never()).generateExcelFromDTO(anyList());
+    }
+
+    @Test
+    void streamUsers_ShouldParseNdjsonIncrementally() throws Exception {
+        List<UserDTO> received = new ArrayList<>();
+        doAnswer(invocation -> {
+            Iterator<UserDTO> users = invocation.getArgument(1);
+            users.forEachRemaining(received::add);
+            invocation.<OutputStream>getArgument(2).write(new byte[] {1, 2, 3});
+            return null;
+        }).when(annotationExcelExportService).generateExcelFromDTO(eq(UserDTO.class), any(Iterator.class), any(OutputStream.class));
+
+        MvcResult mvcResult = mockMvc.perform(post("/api/excel/annotation/users/export/stream")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content("{\"id\": 1, \"firstName\": \"John\"}\n{\"id\": 2, \"firstName\": \"Jane\"}\n"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(new byte[] {1, 2, 3}));
+
+        assertEquals(2, received.size());
+        assertEquals("Jane", received.get(1).getFirstName());
+    }
+
+    @Test
+    void streamUsers_WithMalformedBody_ShouldReturnBadRequest() throws Exception {
+        doAnswer(invocation -> {
+            invocation.<Iterator<UserDTO>>getArgument(1).forEachRemaining(user -> { });
+            return null;
+        }).when(annotationExcelExportService).generateExcelFromDTO(eq(UserDTO.class), any(Iterator.class), any(OutputStream.class));
+
+        MvcResult mvcResult = mockMvc.perform(post("/api/excel/annotation/users/export/stream")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"id\": 1}, {\"id\": "))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -1,21 +1,63 @@
 package com.example.excelexport.controller;
 
 import com.example.excelexport.entity.Employee;
+import com.example.excelexport.metrics.ExportMetrics;
+import com.example.excelexport.service.CopyExcelExportService;
 import com.example.excelexport.service.DirectExcelExportService;
 import com.example.excelexport.service.EasyExcelExportService;
+import com.example.excelexport.service.EmployeeDataset;
 import com.example.excelexport.service.ExcelExportService;
+import com.example.excelexport.service.ExportAdmissionService;
+import com.example.excelexport.service.ExportCursor;
+import com.example.excelexport.service.ExportResultCache;
 import com.example.excelexport.service.FastExcelExportService;
+import com.example.excelexport.service.JdbcExcelExportService;
+import com.example.excelexport.service.PartitionLayout;
+import com.example.excelexport.service.PartitionedExportService;
+import com.example.excelexport.service.SpreadsheetExportService;
+import com.example.excelexport.service.engine.CompressionProfile;
+import com.example.excelexport.service.engine.ExportEngineRegistry;
+import com.example.excelexport.service.engine.ExportFormat;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.util.NestedServletException;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.time.Instant;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.startsWith;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -23,9 +65,31 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @WebMvcTest(ExcelExportController.class)
 public class ExcelExportControllerTest {
 
+    @TestConfiguration
+    static class MetricsConfig {
+        @Bean
+        ExportMetrics exportMetrics() {
+            return new ExportMetrics(new SimpleMeterRegistry());
+        }
+
+        @Bean
+        ExportResultCache exportResultCache() throws IOException {
+            return new ExportResultCache(Files.createTempDirectory("export-cache").toString(), 1 << 20);
+        }
+
+        @Bean
+        ExportAdmissionService exportAdmissionService(ExportMetrics exportMetrics) {
+            return new ExportAdmissionService(new ExportEngineRegistry(Collections.emptyList()), exportMetrics,
+                1L << 30, 2, 0, 16, 256, 7);
+        }
+    }
+
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private ExportAdmissionService exportAdmissionService;
+
     @MockBean
     private ExcelExportService excelExportService;
 
@@ -38,6 +102,24 @@ public class ExcelExportControllerTest {
     @MockBean
     private EasyExcelExportService easyExcelExportService;
 
+    @MockBean
+    private PartitionedExportService partitionedExportService;
+
+    @MockBean
+    private JdbcExcelExportService jdbcExcelExportService;
+
+    @MockBean
+    private CopyExcelExportService copyExcelExportService;
+
+    @MockBean
+    private SpreadsheetExportService spreadsheetExportService;
+
+    @MockBean
+    private EmployeeDataset employeeDataset;
+
+    @SpyBean(name = "exportStreamExecutor")
+    private ThreadPoolTaskExecutor exportStreamExecutor;
+
     private Employee testEmployee;
     private byte[] testExcelContent;
 
@@ -52,6 +134,7 @@ public class ExcelExportControllerTest {
         testEmployee.setSalary(75000.0);
 
         testExcelContent = "Test Excel Content".getBytes();
+        when(spreadsheetExportService.getFormat(any())).thenReturn(ExportFormat.XLSX);
     }
 
     @Test
@@ -65,6 +148,17 @@ public class ExcelExportControllerTest {
                 .andExpect(content().bytes(testExcelContent));
     }
 
+    @Test
+    void exportExcelZipPoi_WhenBudgetUsedUp_ShouldReturnTooManyRequests() throws Exception {
+        try (ExportAdmissionService.Permit first = exportAdmissionService.admit("poi", employeeDataset, false);
+             ExportAdmissionService.Permit second = exportAdmissionService.admit("poi", employeeDataset, false)) {
+            mockMvc.perform(get("/api/excel/export/zip/poi"))
+                    .andExpect(status().isTooManyRequests())
+                    .andExpect(header().string("Retry-After", "7"));
+        }
+        verify(excelExportService, times(0)).exportEmployeesToExcelZip();
+    }
+
     @Test
     void exportExcelZipFastExcel_ShouldReturnZipFile() throws Exception {
         when(fastExcelExportService.exportEmployeesToExcelZip()).thenReturn(testExcelContent);
@@ -98,6 +192,344 @@ public class ExcelExportControllerTest {
                 .andExpect(content().bytes(testExcelContent));
     }
 
+    @Test
+    void streamExcelPoi_ShouldStreamExcelFile() throws Exception {
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(0).write(testExcelContent);
+            return null;
+        }).when(excelExportService).exportEmployeesToExcel(any(OutputStream.class));
+
+        MvcResult mvcResult = mockMvc.perform(get("/api/excel/export/stream/poi"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"))
+                .andExpect(header().exists("Content-Disposition"))
+                .andExpect(header().doesNotExist("Content-Length"))
+                .andExpect(content().bytes(testExcelContent));
+        assertThat(exportAdmissionService.getThreadsInUse()).isZero();
+    }
+
+    @Test
+    void streamExcelFastExcel_ShouldStreamExcelFile() throws Exception {
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(0).write(testExcelContent);
+            return null;
+        }).when(fastExcelExportService).exportEmployeesToExcel(any(OutputStream.class));
+
+        MvcResult mvcResult = mockMvc.perform(get("/api/excel/export/stream/fastexcel"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(testExcelContent));
+    }
+
+    @Test
+    void streamExcel_WithEngine_ShouldStreamExcelFile() throws Exception {
+        when(spreadsheetExportService.supports("poi")).thenReturn(true);
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(3).write(testExcelContent);
+            return null;
+        }).when(spreadsheetExportService).export(eq("poi"), eq(employeeDataset), eq(CompressionProfile.DEFAULT), any(OutputStream.class));
+
+        MvcResult mvcResult = mockMvc.perform(get("/api/excel/export/stream").param("engine", "poi"))
+                .andExpect(request().asyncStarted())
+                .andExpect(header().string("Content-Disposition", startsWith("attachment; filename=employees_poi_")))
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(testExcelContent));
+    }
+
+    @Test
+    void streamExcel_WithCsvFormat_ShouldStreamCsvFile() throws Exception {
+        byte[] csv = "ID,Name\r\n1,John\r\n".getBytes();
+        when(spreadsheetExportService.supports("csv")).thenReturn(true);
+        when(spreadsheetExportService.getFormat("csv")).thenReturn(ExportFormat.CSV);
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(3).write(csv);
+            return null;
+        }).when(spreadsheetExportService).export(eq("csv"), eq(employeeDataset), eq(CompressionProfile.DEFAULT), any(OutputStream.class));
+
+        MvcResult mvcResult = mockMvc.perform(get("/api/excel/export/stream").param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andExpect(header().string("Content-Type", "text/csv"))
+                .andExpect(header().string("Content-Disposition", endsWith(".csv")))
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(csv));
+    }
+
+    @Test
+    void streamExcelPartitioned_WithCsvEngine_ShouldStreamCsvFile() throws Exception {
+        byte[] csv = "ID,Name\r\n1,John\r\n".getBytes();
+        when(partitionedExportService.supports("csv", PartitionLayout.MERGED)).thenReturn(true);
+        when(spreadsheetExportService.getFormat("csv")).thenReturn(ExportFormat.CSV);
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(2).write(csv);
+            return null;
+        }).when(partitionedExportService).exportEmployees(eq("csv"), eq(PartitionLayout.MERGED), any(OutputStream.class));
+
+        MvcResult mvcResult = mockMvc.perform(get("/api/excel/export/stream/partitioned").param("engine", "csv"))
+                .andExpect(request().asyncStarted())
+                .andExpect(header().string("Content-Type", "text/csv"))
+                .andExpect(header().string("Content-Disposition", endsWith(".csv")))
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(csv));
+    }
+
+    @Test
+    void streamExcel_WithAcceptHeader_ShouldPickMatchingEngine() throws Exception {
+        when(spreadsheetExportService.findEngineByMediaType("application/gzip")).thenReturn(Optional.of("csv-gzip"));
+        when(spreadsheetExportService.supports("csv-gzip")).thenReturn(true);
+        when(spreadsheetExportService.getFormat("csv-gzip")).thenReturn(ExportFormat.CSV_GZIP);
+
+        MvcResult mvcResult = mockMvc.perform(get("/api/excel/export/stream")
+                        .header("Accept", "application/json;q=0.5, application/gzip, */*;q=0.1"))
+                .andExpect(request().asyncStarted())
+                .andExpect(header().string("Content-Type", "application/gzip"))
+                .andExpect(header().string("Content-Disposition", endsWith(".csv.gz")))
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult)).andExpect(status().isOk());
+        verify(spreadsheetExportService).export(eq("csv-gzip"), eq(employeeDataset), eq(CompressionProfile.DEFAULT), any(OutputStream.class));
+    }
+
+    @Test
+    void streamExcel_WithXlsxAcceptHeader_ShouldKeepEngineParameter() throws Exception {
+        when(spreadsheetExportService.supports("poi")).thenReturn(true);
+
+        MvcResult mvcResult = mockMvc.perform(get("/api/excel/export/stream").param("engine", "poi")
+                        .header("Accept", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet, text/csv;q=0.5"))
+                .andExpect(request().asyncStarted())
+                .andExpect(header().string("Content-Disposition", endsWith(".xlsx")))
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult)).andExpect(status().isOk());
+        verify(spreadsheetExportService).export(eq("poi"), eq(employeeDataset), eq(CompressionProfile.DEFAULT), any(OutputStream.class));
+    }
+
+    @Test
+    void streamExcel_WithVersionedDataset_ShouldServeRepeatsFromCache() throws Exception {
+        when(spreadsheetExportService.supports("fastexcel")).thenReturn(true);
+        when(employeeDataset.getName()).thenReturn("employees");
+        when(employeeDataset.getVersion()).thenReturn("1/1/500");
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(3).write(testExcelContent);
+            return null;
+        }).when(spreadsheetExportService).export(eq("fastexcel"), eq(employeeDataset), eq(CompressionProfile.DEFAULT), any(OutputStream.class));
+
+        MvcResult rendered = mockMvc.perform(get("/api/excel/export/stream"))
+                .andExpect(request().asyncStarted())
+                .andExpect(header().string("Cache-Control", "no-cache, private"))
+                .andReturn();
+        String eTag = rendered.getResponse().getHeader("ETag");
+        mockMvc.perform(asyncDispatch(rendered))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(testExcelContent));
+
+        MvcResult cached = mockMvc.perform(get("/api/excel/export/stream"))
+                .andExpect(request().asyncStarted())
+                .andExpect(header().string("ETag", eTag))
+                .andExpect(header().longValue("Content-Length", testExcelContent.length))
+                .andReturn();
+        mockMvc.perform(asyncDispatch(cached))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(testExcelContent));
+
+        mockMvc.perform(get("/api/excel/export/stream").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", eTag));
+
+        verify(spreadsheetExportService, times(1)).export(eq("fastexcel"), eq(employeeDataset), eq(CompressionProfile.DEFAULT), any(OutputStream.class));
+    }
+
+    @Test
+    void streamExcel_WhenDatasetChanged_ShouldRenderAgain() throws Exception {
+        when(spreadsheetExportService.supports("fastexcel")).thenReturn(true);
+        when(employeeDataset.getName()).thenReturn("employees");
+        when(employeeDataset.getVersion()).thenReturn("2/2/600");
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(3).write(testExcelContent);
+            return null;
+        }).when(spreadsheetExportService).export(eq("fastexcel"), eq(employeeDataset), eq(CompressionProfile.DEFAULT), any(OutputStream.class));
+
+        MvcResult first = mockMvc.perform(get("/api/excel/export/stream")).andReturn();
+        mockMvc.perform(asyncDispatch(first)).andExpect(status().isOk());
+        String eTag = first.getResponse().getHeader("ETag");
+
+        when(employeeDataset.getVersion()).thenReturn("3/3/601");
+        MvcResult second = mockMvc.perform(get("/api/excel/export/stream").header("If-None-Match", eTag))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(second))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(testExcelContent));
+
+        verify(spreadsheetExportService, times(2)).export(eq("fastexcel"), eq(employeeDataset), eq(CompressionProfile.DEFAULT), any(OutputStream.class));
+    }
+
+    @Test
+    void streamExcelDelta_ShouldStreamChangedRowsWithNextCursor() throws Exception {
+        ExportCursor since = new ExportCursor(Instant.parse("2026-01-01T00:00:00Z"), 5);
+        ExportCursor latest = new ExportCursor(Instant.parse("2026-01-02T00:00:00Z"), 9);
+        EmployeeDataset delta = mock(EmployeeDataset.class);
+        when(spreadsheetExportService.supports("fastexcel")).thenReturn(true);
+        when(employeeDataset.getLatestCursor()).thenReturn(latest);
+        when(employeeDataset.changedBetween(since, latest)).thenReturn(delta);
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(2).write(testExcelContent);
+            return null;
+        }).when(spreadsheetExportService).export(eq("fastexcel"), eq(delta), any(OutputStream.class));
+
+        MvcResult mvcResult = mockMvc.perform(get("/api/excel/export/stream/delta").param("since", since.toString()))
+                .andExpect(request().asyncStarted())
+                .andExpect(header().string("X-Next-Cursor", "2026-01-02T00:00:00Z_9"))
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(testExcelContent));
+    }
+
+    @Test
+    void streamExcelDelta_WhenNothingChanged_ShouldReturnNoContent() throws Exception {
+        ExportCursor latest = new ExportCursor(Instant.parse("2026-01-02T00:00:00Z"), 9);
+        when(spreadsheetExportService.supports("fastexcel")).thenReturn(true);
+        when(employeeDataset.getLatestCursor()).thenReturn(latest);
+
+        mockMvc.perform(get("/api/excel/export/stream/delta").param("since", latest.toString()))
+                .andExpect(status().isNoContent())
+                .andExpect(header().string("X-Next-Cursor", latest.toString()));
+    }
+
+    @Test
+    void streamExcelDelta_WithInvalidCursor_ShouldReturnBadRequest() throws Exception {
+        when(spreadsheetExportService.supports("fastexcel")).thenReturn(true);
+
+        mockMvc.perform(get("/api/excel/export/stream/delta").param("since", "yesterday"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void streamExcel_WithCompression_ShouldPassProfile() throws Exception {
+        when(spreadsheetExportService.supports("spreadsheetml")).thenReturn(true);
+
+        MvcResult mvcResult = mockMvc.perform(get("/api/excel/export/stream")
+                        .param("engine", "spreadsheetml").param("compression", "small"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult)).andExpect(status().isOk());
+        verify(spreadsheetExportService).export(eq("spreadsheetml"), eq(employeeDataset), eq(CompressionProfile.SMALL), any(OutputStream.class));
+    }
+
+    @Test
+    void streamExcelPoi_WhenExecutorRejectsBody_ShouldReleaseAdmission() throws Exception {
+        doThrow(new TaskRejectedException("queue full")).when(exportStreamExecutor).submit(any(Runnable.class));
+
+        AtomicReference<MockHttpServletRequest> request = new AtomicReference<>();
+        NestedServletException error = assertThrows(NestedServletException.class, () ->
+            mockMvc.perform(get("/api/excel/export/stream/poi").with(servletRequest -> {
+                request.set(servletRequest);
+                return servletRequest;
+            })));
+        assertThat(error.getCause()).isInstanceOf(TaskRejectedException.class);
+        assertThat(exportAdmissionService.getThreadsInUse()).isEqualTo(1);
+        // The container ends the async request after the failed dispatch
+        request.get().getAsyncContext().complete();
+
+        assertThat(exportAdmissionService.getThreadsInUse()).isZero();
+        verify(excelExportService, never()).exportEmployeesToExcel(any(OutputStream.class));
+    }
+
+    @Test
+    void streamExcelPoi_WhenRequestEndsWhileBodyRuns_ShouldKeepAdmissionUntilBodyEnds() throws Exception {
+        CountDownLatch bodyStarted = new CountDownLatch(1);
+        CountDownLatch finishBody = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            bodyStarted.countDown();
+            finishBody.await();
+            return null;
+        }).when(excelExportService).exportEmployeesToExcel(any(OutputStream.class));
+
+        MvcResult result = mockMvc.perform(get("/api/excel/export/stream/poi"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertThat(bodyStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        // A timeout or a client error ends the async request while the body is still writing
+        result.getRequest().getAsyncContext().complete();
+        assertThat(exportAdmissionService.getThreadsInUse()).isEqualTo(1);
+
+        finishBody.countDown();
+        for (int i = 0; i < 100 && exportAdmissionService.getThreadsInUse() > 0; i++) {
+            Thread.sleep(50);
+        }
+        assertThat(exportAdmissionService.getThreadsInUse()).isZero();
+    }
+
+    @Test
+    void streamExcel_WithUnknownCompression_ShouldReturnBadRequest() throws Exception {
+        when(spreadsheetExportService.supports("fastexcel")).thenReturn(true);
+
+        mockMvc.perform(get("/api/excel/export/stream").param("compression", "tiny"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void streamExcel_WithUnknownEngine_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/api/excel/export/stream").param("engine", "unknown"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void streamNonBlocking_WithEngineWritingWholeWorkbook_ShouldReturnBadRequest() throws Exception {
+        when(jdbcExcelExportService.supportsIncrementalExport("poi")).thenReturn(false);
+
+        mockMvc.perform(get("/api/excel/export/stream/nonblocking").param("engine", "poi"))
+                .andExpect(status().isBadRequest());
+        assertThat(exportAdmissionService.getThreadsInUse()).isZero();
+    }
+
+    @Test
+    void streamNonBlocking_WhenBudgetUsedUp_ShouldReturnTooManyRequests() throws Exception {
+        when(jdbcExcelExportService.supportsIncrementalExport("csv")).thenReturn(true);
+
+        try (ExportAdmissionService.Permit first = exportAdmissionService.admit("csv", employeeDataset, false);
+             ExportAdmissionService.Permit second = exportAdmissionService.admit("csv", employeeDataset, false)) {
+            mockMvc.perform(get("/api/excel/export/stream/nonblocking").param("engine", "csv"))
+                    .andExpect(status().isTooManyRequests());
+        }
+        verify(jdbcExcelExportService, never()).openIncrementalExport(any());
+    }
+
+    @Test
+    void streamExcelJdbcFastExcel_ShouldStreamExcelFile() throws Exception {
+        when(spreadsheetExportService.supports("fastexcel")).thenReturn(true);
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(1).write(testExcelContent);
+            return null;
+        }).when(jdbcExcelExportService).exportEmployees(eq("fastexcel"), any(OutputStream.class));
+
+        MvcResult mvcResult = mockMvc.perform(get("/api/excel/export/stream/jdbc").param("engine", "fastexcel"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(testExcelContent));
+    }
+
     @Test
     void getAllEmployees_ShouldReturnEmployeeList() throws Exception {
         when(excelExportService.getAllEmployees()).thenReturn(Arrays.asList(testEmployee));
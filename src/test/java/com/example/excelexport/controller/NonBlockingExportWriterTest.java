@@ -0,0 +1,169 @@
+package com.example.excelexport.controller;
+
+import com.example.excelexport.metrics.ExportMetrics;
+import com.example.excelexport.service.ExportAdmissionService;
+import com.example.excelexport.service.ExportDataset;
+import com.example.excelexport.service.IncrementalExport;
+import com.example.excelexport.service.engine.ExportEngineRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.invocation.InvocationOnMock;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class NonBlockingExportWriterTest {
+
+    private static final int ROWS = 10;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ExportMetrics exportMetrics;
+    private ExportAdmissionService admissionService;
+    private IncrementalExport export;
+    private AsyncContext asyncContext;
+    private ClientStream client;
+    private int rendered;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        meterRegistry = new SimpleMeterRegistry();
+        exportMetrics = new ExportMetrics(meterRegistry);
+        admissionService = new ExportAdmissionService(new ExportEngineRegistry(Collections.emptyList()),
+            exportMetrics, 1L << 30, 4, 0, 16, 256, 5);
+        asyncContext = mock(AsyncContext.class);
+        client = new ClientStream();
+
+        // One row of output per render call, ROWS rows in total
+        ByteArrayOutputStream pending = new ByteArrayOutputStream();
+        export = mock(IncrementalExport.class);
+        doAnswer(invocation -> {
+            pending.write(("row" + rendered++ + "\n").getBytes());
+            return null;
+        }).when(export).render(anyInt());
+        when(export.hasPending()).thenAnswer(invocation -> pending.size() > 0);
+        when(export.getRowCount()).thenAnswer(invocation -> (long) rendered);
+        when(export.isComplete()).thenAnswer(invocation -> rendered == ROWS && pending.size() == 0);
+        doAnswer((InvocationOnMock invocation) -> {
+            pending.writeTo(invocation.<OutputStream>getArgument(0));
+            pending.reset();
+            return null;
+        }).when(export).writePendingTo(any(OutputStream.class));
+    }
+
+    @Test
+    void onWritePossible_ShouldRenderOnlyWhatTheClientAccepts() throws Exception {
+        NonBlockingExportWriter writer = writer();
+        writer.start(asyncContext, client);
+
+        client.accept(3);
+        writer.onWritePossible();
+        assertEquals("row0\nrow1\nrow2\n", client.received());
+        assertEquals(3, rendered);
+        verify(asyncContext, never()).complete();
+
+        client.accept(Integer.MAX_VALUE);
+        writer.onWritePossible();
+        assertEquals(ROWS, rendered);
+        assertTrue(client.received().endsWith("row9\n"));
+        verify(asyncContext).complete();
+    }
+
+    @Test
+    void onComplete_ShouldReleaseExportAndPermit() throws Exception {
+        NonBlockingExportWriter writer = writer();
+        writer.start(asyncContext, client);
+        assertEquals(1, admissionService.getThreadsInUse());
+
+        writer.onComplete(null);
+        writer.onError(new IllegalStateException("connection reset"));
+
+        verify(export, times(2)).close();
+        assertEquals(0, admissionService.getThreadsInUse());
+    }
+
+    @Test
+    void onComplete_ShouldRecordRowsAndBytesOfWrittenExport() throws Exception {
+        NonBlockingExportWriter writer = writer();
+        writer.start(asyncContext, client);
+
+        client.accept(Integer.MAX_VALUE);
+        writer.onWritePossible();
+        writer.onComplete(null);
+
+        Tags tags = Tags.of("engine", "csv", "endpoint", "/export/stream/nonblocking");
+        assertEquals(1, meterRegistry.get("excel.export.duration").tags(tags).tag("outcome", "success").timer().count());
+        assertEquals(ROWS, meterRegistry.get("excel.export.rows").tags(tags).counter().count());
+        assertEquals(client.received().length(), meterRegistry.get("excel.export.output.bytes").tags(tags).summary().totalAmount());
+        assertEquals(1, meterRegistry.get("excel.export.phase").tags(tags).tag("phase", "response-write").timer().count());
+        assertEquals(0, meterRegistry.get("excel.export.active").tags(tags).gauge().value());
+    }
+
+    @Test
+    void onError_ShouldRecordFailedExport() throws Exception {
+        NonBlockingExportWriter writer = writer();
+        writer.start(asyncContext, client);
+
+        client.accept(3);
+        writer.onWritePossible();
+        writer.onError(new IOException("connection reset"));
+
+        Tags tags = Tags.of("engine", "csv", "endpoint", "/export/stream/nonblocking");
+        assertEquals(1, meterRegistry.get("excel.export.duration").tags(tags).tag("outcome", "failure").timer().count());
+        assertEquals(1, meterRegistry.get("excel.export.failures").tags(tags).tag("exception", "IOException").counter().count());
+        assertEquals(0, admissionService.getThreadsInUse());
+    }
+
+    private NonBlockingExportWriter writer() {
+        return new NonBlockingExportWriter(export, admissionService.admit("csv", mock(ExportDataset.class), false),
+            exportMetrics, "csv", "/export/stream/nonblocking", 1);
+    }
+
+    /**
+     * Response stream of a client that takes a given number of writes before it stops reading
+     */
+    private static class ClientStream extends ServletOutputStream {
+
+        private final ByteArrayOutputStream received = new ByteArrayOutputStream();
+        private int writesAccepted;
+
+        void accept(int writes) {
+            writesAccepted = writes;
+        }
+
+        String received() {
+            return received.toString();
+        }
+
+        @Override
+        public boolean isReady() {
+            return writesAccepted > 0;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+        }
+
+        @Override
+        public void write(int b) {
+            received.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            received.write(b, off, len);
+            writesAccepted--;
+        }
+    }
+}
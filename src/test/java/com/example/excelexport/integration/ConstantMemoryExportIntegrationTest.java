@@ -0,0 +1,89 @@
+package com.example.excelexport.integration;
+
+import com.example.excelexport.service.ExcelExportService;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Exports one million employees through the streaming POI path. Run with {@code mvn test -Pmemory-tests},
+ * which forks the JVM with a heap far smaller than the entities of the table would need if the
+ * persistence context (or anything else) retained them.
+ */
+@Tag("memory")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+    properties = "spring.jpa.hibernate.ddl-auto=create-drop")
+public class ConstantMemoryExportIntegrationTest {
+
+    private static final int ROW_COUNT = 1_000_000;
+    private static final long MAX_HEAP_BYTES = 256L * 1024 * 1024;
+
+    private static EmbeddedPostgres postgres;
+
+    @Autowired
+    private ExcelExportService excelExportService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) throws IOException {
+        postgres = EmbeddedPostgres.start();
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+    }
+
+    @AfterAll
+    static void stopPostgres() throws IOException {
+        postgres.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("TRUNCATE TABLE employees");
+        jdbcTemplate.update(
+            "INSERT INTO employees (first_name, last_name, email, department, salary) " +
+            "SELECT 'First' || g, 'Last' || g, 'employee' || g || '@example.com', 'Department' || (g % 20), 50000 + g " +
+            "FROM generate_series(1, ?) AS g", ROW_COUNT);
+    }
+
+    @Test
+    void exportEmployeesToExcel_ShouldStreamOneMillionRowsWithinSmallHeap() throws IOException {
+        long maxHeap = Runtime.getRuntime().maxMemory();
+        assumeTrue(maxHeap <= MAX_HEAP_BYTES, "Run with -Pmemory-tests to fork a JVM with a small -Xmx");
+
+        CountingOutputStream outputStream = new CountingOutputStream();
+        excelExportService.exportEmployeesToExcel(outputStream);
+
+        // A 1M-row sheet with six columns compresses to well over 10 MB
+        assertTrue(outputStream.count > 10L * 1024 * 1024, "Unexpectedly small export: " + outputStream.count);
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
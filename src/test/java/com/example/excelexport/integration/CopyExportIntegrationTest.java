@@ -0,0 +1,130 @@
+package com.example.excelexport.integration;
+
+import com.example.excelexport.service.CopyExcelExportService;
+import com.example.excelexport.service.IncrementalExport;
+import com.example.excelexport.service.JdbcExcelExportService;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the COPY and JDBC sources against zonky's embedded PostgreSQL and checks that they produce
+ * the same cells, including escaped characters and NULLs.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+    properties = "spring.jpa.hibernate.ddl-auto=create-drop")
+public class CopyExportIntegrationTest {
+
+    private static final int ROW_COUNT = 2_500;
+
+    private static EmbeddedPostgres postgres;
+
+    @Autowired
+    private CopyExcelExportService copyExcelExportService;
+
+    @Autowired
+    private JdbcExcelExportService jdbcExcelExportService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) throws IOException {
+        postgres = EmbeddedPostgres.start();
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+    }
+
+    @AfterAll
+    static void stopPostgres() throws IOException {
+        postgres.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("TRUNCATE TABLE employees RESTART IDENTITY");
+        jdbcTemplate.update(
+            "INSERT INTO employees (first_name, last_name, email, department, salary) " +
+            "SELECT 'First' || g, 'Last' || g, 'employee' || g || '@example.com', 'Department' || (g % 20), 50000 + g / 4.0 " +
+            "FROM generate_series(1, ?) AS g", ROW_COUNT);
+        jdbcTemplate.update(
+            "INSERT INTO employees (first_name, last_name, email, department, salary) VALUES (?, ?, ?, ?, ?)",
+            "Tab\tand\\backslash", "Line\nbreak", null, "Café", null);
+    }
+
+    @Test
+    void exportEmployees_WithFastExcel_ShouldMatchJdbcExport() throws IOException {
+        ByteArrayOutputStream copyOutput = new ByteArrayOutputStream();
+        copyExcelExportService.exportEmployees("fastexcel", copyOutput);
+        ByteArrayOutputStream jdbcOutput = new ByteArrayOutputStream();
+        jdbcExcelExportService.exportEmployees("fastexcel", jdbcOutput);
+
+        try (XSSFWorkbook copyWorkbook = new XSSFWorkbook(new ByteArrayInputStream(copyOutput.toByteArray()));
+             XSSFWorkbook jdbcWorkbook = new XSSFWorkbook(new ByteArrayInputStream(jdbcOutput.toByteArray()))) {
+            Sheet copySheet = copyWorkbook.getSheetAt(0);
+            Sheet jdbcSheet = jdbcWorkbook.getSheetAt(0);
+            assertEquals(ROW_COUNT + 1, copySheet.getLastRowNum());
+            assertEquals(jdbcSheet.getLastRowNum(), copySheet.getLastRowNum());
+
+            for (int i = 0; i <= copySheet.getLastRowNum(); i++) {
+                Row copyRow = copySheet.getRow(i);
+                Row jdbcRow = jdbcSheet.getRow(i);
+                for (int c = 0; c < 6; c++) {
+                    assertEquals(String.valueOf(jdbcRow.getCell(c)), String.valueOf(copyRow.getCell(c)), "row " + i + " column " + c);
+                }
+            }
+
+            Row special = copySheet.getRow(ROW_COUNT + 1);
+            assertEquals("Tab\tand\\backslash", special.getCell(1).getStringCellValue());
+            assertEquals("Line\nbreak", special.getCell(2).getStringCellValue());
+            assertNull(special.getCell(3));
+            assertEquals("Café", special.getCell(4).getStringCellValue());
+            assertNull(special.getCell(5));
+        }
+    }
+
+    @Test
+    void openIncrementalExport_RenderedInSmallChunks_ShouldMatchJdbcExport() throws Exception {
+        ByteArrayOutputStream jdbcOutput = new ByteArrayOutputStream();
+        jdbcExcelExportService.exportEmployees("csv", jdbcOutput);
+
+        ByteArrayOutputStream incrementalOutput = new ByteArrayOutputStream();
+        try (IncrementalExport export = jdbcExcelExportService.openIncrementalExport("csv")) {
+            while (!export.isComplete()) {
+                export.render(1024);
+                export.writePendingTo(incrementalOutput);
+            }
+            assertEquals(ROW_COUNT + 1, export.getRowCount());
+        }
+        assertArrayEquals(jdbcOutput.toByteArray(), incrementalOutput.toByteArray());
+    }
+
+    @Test
+    void exportEmployees_WithPoi_ShouldWriteAllRows() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        copyExcelExportService.exportEmployees("poi", output);
+
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(output.toByteArray()))) {
+            Sheet sheet = workbook.getSheetAt(0);
+            assertEquals(ROW_COUNT + 1, sheet.getLastRowNum());
+            assertEquals(1.0, sheet.getRow(1).getCell(0).getNumericCellValue());
+            assertEquals(50000.25, sheet.getRow(1).getCell(5).getNumericCellValue());
+        }
+    }
+}
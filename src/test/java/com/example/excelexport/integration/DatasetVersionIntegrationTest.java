@@ -0,0 +1,117 @@
+package com.example.excelexport.integration;
+
+import com.example.excelexport.entity.Employee;
+import com.example.excelexport.service.EmployeeDataset;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks against zonky's embedded PostgreSQL that the employee dataset version changes on every
+ * kind of write, which is what keeps cached exports from going stale.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+    properties = "spring.jpa.hibernate.ddl-auto=create-drop")
+public class DatasetVersionIntegrationTest {
+
+    private static EmbeddedPostgres postgres;
+
+    @Autowired
+    private EmployeeDataset employeeDataset;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) throws IOException {
+        postgres = EmbeddedPostgres.start();
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+    }
+
+    @AfterAll
+    static void stopPostgres() throws IOException {
+        postgres.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("TRUNCATE TABLE employees RESTART IDENTITY");
+        jdbcTemplate.update(
+            "INSERT INTO employees (first_name, last_name, email, department, salary) " +
+            "SELECT 'First' || g, 'Last' || g, 'employee' || g || '@example.com', 'Department' || (g % 2), 50000 " +
+            "FROM generate_series(1, 10) AS g");
+    }
+
+    @Test
+    void getVersion_ShouldChangeOnInsertUpdateAndDelete() {
+        String initial = employeeDataset.getVersion();
+        assertNotNull(initial);
+        assertEquals(initial, employeeDataset.getVersion());
+
+        jdbcTemplate.update("UPDATE employees SET salary = 60000 WHERE id = 3");
+        String updated = employeeDataset.getVersion();
+        assertNotEquals(initial, updated);
+
+        jdbcTemplate.update("DELETE FROM employees WHERE id = 4");
+        String deleted = employeeDataset.getVersion();
+        assertNotEquals(updated, deleted);
+
+        jdbcTemplate.update("INSERT INTO employees (first_name, last_name, email, department, salary) VALUES ('A', 'B', 'a@b.c', 'X', 1)");
+        assertNotEquals(deleted, employeeDataset.getVersion());
+    }
+
+    @Test
+    void getVersion_ShouldNotChangeOnRolledBackWrite() {
+        String initial = employeeDataset.getVersion();
+
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> {
+            jdbcTemplate.update("DELETE FROM employees WHERE id = 4");
+            status.setRollbackOnly();
+        });
+
+        assertEquals(initial, employeeDataset.getVersion());
+    }
+
+    @Test
+    void estimateRowCount_ShouldUseStatisticsOnceAnalyzed() {
+        jdbcTemplate.execute("ANALYZE employees");
+        jdbcTemplate.update("DELETE FROM employees WHERE id <= 4");
+
+        // Stale statistics are good enough for an estimate
+        assertEquals(10, employeeDataset.estimateRowCount());
+        assertEquals(10, employeeDataset.forDepartment("Department1").estimateRowCount());
+    }
+
+    @Test
+    void forDepartment_ShouldOnlyStreamThatDepartment() {
+        EmployeeDataset department = employeeDataset.forDepartment("Department1");
+
+        assertEquals("Department1", department.getFilters().get("department"));
+        assertEquals(employeeDataset.getVersion(), department.getVersion());
+        Long rows = new TransactionTemplate(transactionManager).execute(status -> {
+            try (Stream<Employee> employees = department.openRows()) {
+                return employees.filter(employee -> employee.getDepartment().equals("Department1")).count();
+            }
+        });
+        assertEquals(5, rows);
+    }
+}
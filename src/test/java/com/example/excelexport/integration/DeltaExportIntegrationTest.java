@@ -0,0 +1,130 @@
+package com.example.excelexport.integration;
+
+import com.example.excelexport.entity.Employee;
+import com.example.excelexport.repository.EmployeeRepository;
+import com.example.excelexport.service.EmployeeDataset;
+import com.example.excelexport.service.ExportCursor;
+import com.example.excelexport.service.SpreadsheetExportService;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs delta exports against zonky's embedded PostgreSQL: rows inserted or updated after a cursor,
+ * whether through JPA or plain SQL, are exported exactly once, also when they commit after a later
+ * row. Write transactions are assumed to take at most a second here.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+    properties = {"spring.jpa.hibernate.ddl-auto=create-drop", "excel.export.delta.max-transaction-duration=PT1S"})
+public class DeltaExportIntegrationTest {
+
+    private static final long MAX_TRANSACTION_MILLIS = 1000;
+
+    private static EmbeddedPostgres postgres;
+
+    @Autowired
+    private EmployeeDataset employeeDataset;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private SpreadsheetExportService spreadsheetExportService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) throws IOException {
+        postgres = EmbeddedPostgres.start();
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+    }
+
+    @AfterAll
+    static void stopPostgres() throws IOException {
+        postgres.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("TRUNCATE TABLE employees RESTART IDENTITY");
+        jdbcTemplate.update(
+            "INSERT INTO employees (first_name, last_name, email, department, salary, updated_at) " +
+            "SELECT 'First' || g, 'Last' || g, 'employee' || g || '@example.com', 'Sales', 50000, current_timestamp - interval '1 hour' " +
+            "FROM generate_series(1, 100) AS g");
+    }
+
+    @Test
+    void delta_ShouldExportOnlyRowsChangedAfterCursor() throws IOException, InterruptedException {
+        ExportCursor first = employeeDataset.getLatestCursor();
+        assertEquals(100, exportedIds(ExportCursor.START, first).size());
+        assertEquals(first, ExportCursor.parse(first.toString()));
+
+        Employee updated = employeeRepository.findById(42L).orElseThrow();
+        updated.setSalary(99000.0);
+        employeeRepository.save(updated);
+        jdbcTemplate.update("UPDATE employees SET department = 'IT', updated_at = current_timestamp WHERE id = 7");
+        jdbcTemplate.update("INSERT INTO employees (first_name, last_name, email, department, salary) VALUES ('New', 'Hire', 'new@example.com', 'IT', 1)");
+        assertEquals(first, employeeDataset.getLatestCursor());
+
+        Thread.sleep(MAX_TRANSACTION_MILLIS + 100);
+        ExportCursor second = employeeDataset.getLatestCursor();
+        assertTrue(second.compareTo(first) > 0);
+        List<Double> ids = exportedIds(first, second);
+        assertEquals(3, ids.size(), ids.toString());
+        assertTrue(ids.containsAll(List.of(42.0, 7.0, 101.0)), ids.toString());
+
+        assertEquals(second, employeeDataset.getLatestCursor());
+        assertTrue(exportedIds(second, second).isEmpty());
+    }
+
+    @Test
+    void delta_ShouldExportRowCommittedAfterExportBehindNewerRow() throws IOException, InterruptedException {
+        Instant stamped = Instant.now();
+        jdbcTemplate.update("INSERT INTO employees (first_name, last_name, email, department, salary) VALUES ('New', 'Hire', 'new@example.com', 'IT', 1)");
+
+        ExportCursor first = employeeDataset.getLatestCursor();
+        assertEquals(100, exportedIds(ExportCursor.START, first).size());
+
+        // A transaction that stamped its update before the insert above commits only after the export
+        jdbcTemplate.update("UPDATE employees SET department = 'IT', updated_at = ? WHERE id = 7", Timestamp.from(stamped));
+
+        Thread.sleep(MAX_TRANSACTION_MILLIS + 100);
+        List<Double> ids = exportedIds(first, employeeDataset.getLatestCursor());
+        assertEquals(List.of(7.0, 101.0), ids);
+    }
+
+    private List<Double> exportedIds(ExportCursor since, ExportCursor until) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        spreadsheetExportService.export("fastexcel", employeeDataset.changedBetween(since, until), out);
+
+        List<Double> ids = new ArrayList<>();
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            Sheet sheet = workbook.getSheetAt(0);
+            for (int i = 1; i <= sheet.getLastRowNum(); i++) {
+                ids.add(sheet.getRow(i).getCell(0).getNumericCellValue());
+            }
+        }
+        return ids;
+    }
+}
@@ -2,9 +2,10 @@ package com.example.excelexport.integration;
 
 import com.example.excelexport.entity.Employee;
 import com.example.excelexport.repository.EmployeeRepository;
-import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,6 +15,8 @@ import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.core.io.ByteArrayResource;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
@@ -24,10 +27,12 @@ import java.util.zip.ZipInputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
-@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
-@AutoConfigureEmbeddedDatabase(provider = AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = "spring.jpa.hibernate.ddl-auto=create-drop")
 public class ExcelExportZonkyIntegrationTest {
 
+    private static EmbeddedPostgres postgres;
+
     @LocalServerPort
     private int port;
 
@@ -39,6 +44,19 @@ public class ExcelExportZonkyIntegrationTest {
 
     private String baseUrl;
 
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) throws IOException {
+        postgres = EmbeddedPostgres.start();
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+    }
+
+    @AfterAll
+    static void stopPostgres() throws IOException {
+        postgres.close();
+    }
+
     @BeforeEach
     void setUp() {
         baseUrl = "http://localhost:" + port + "/api/excel";
@@ -63,7 +81,7 @@ public class ExcelExportZonkyIntegrationTest {
     void testExportToExcel_Apache() throws IOException {
         // Test Apache POI export
         ResponseEntity<ByteArrayResource> response = restTemplate.getForEntity(
-                baseUrl + "/apache-poi", ByteArrayResource.class);
+                baseUrl + "/export/stream/poi", ByteArrayResource.class);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(response.getBody());
@@ -80,7 +98,7 @@ public class ExcelExportZonkyIntegrationTest {
     void testExportToExcel_FastExcel() throws IOException {
         // Test FastExcel export
         ResponseEntity<ByteArrayResource> response = restTemplate.getForEntity(
-                baseUrl + "/fastexcel", ByteArrayResource.class);
+                baseUrl + "/export/stream/fastexcel", ByteArrayResource.class);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(response.getBody());
@@ -97,7 +115,7 @@ public class ExcelExportZonkyIntegrationTest {
     void testExportToExcel_EasyExcel() throws IOException {
         // Test EasyExcel export
         ResponseEntity<ByteArrayResource> response = restTemplate.getForEntity(
-                baseUrl + "/easyexcel", ByteArrayResource.class);
+                baseUrl + "/export/excel/easyexcel", ByteArrayResource.class);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(response.getBody());
@@ -111,10 +129,10 @@ public class ExcelExportZonkyIntegrationTest {
     }
 
     @Test
-    void testBatchExportToZip() throws IOException {
-        // Test batch export to ZIP
+    void testExportToZip() throws IOException {
+        // Test the zipped POI export
         ResponseEntity<ByteArrayResource> response = restTemplate.getForEntity(
-                baseUrl + "/batch/10", ByteArrayResource.class);
+                baseUrl + "/export/zip/poi", ByteArrayResource.class);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(response.getBody());
@@ -128,7 +146,7 @@ public class ExcelExportZonkyIntegrationTest {
                 assertTrue(entry.getName().endsWith(".xlsx"));
                 fileCount++;
             }
-            assertEquals(10, fileCount); // Verify we have 10 files in the ZIP
+            assertEquals(1, fileCount); // The workbook is the only entry
         }
     }
 }
@@ -0,0 +1,103 @@
+package com.example.excelexport.metrics;
+
+import com.example.excelexport.service.ExportColumn;
+import com.example.excelexport.service.ExportDataset;
+import com.example.excelexport.service.SpreadsheetExportService;
+import com.example.excelexport.service.engine.ExportEngineRegistry;
+import com.example.excelexport.service.engine.PoiExportEngine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExportMetricsTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExportMetrics exportMetrics = new ExportMetrics(meterRegistry);
+    private final SpreadsheetExportService exportService = new SpreadsheetExportService(
+        new ExportEngineRegistry(Collections.singletonList(new PoiExportEngine())));
+
+    @Test
+    void record_ShouldPublishRowsPhasesAndBytes() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exportMetrics.record("poi", "/test", out, metered -> exportService.export("poi", new NumberDataset(2500), metered));
+
+        assertEquals(2500, meterRegistry.get("excel.export.rows").tags("engine", "poi", "endpoint", "/test").counter().count());
+        assertEquals(out.size(), meterRegistry.get("excel.export.output.bytes").summary().totalAmount());
+        assertTrue(meterRegistry.get("excel.export.temp.bytes").summary().totalAmount() > 0);
+        assertTrue(meterRegistry.get("excel.export.throughput").summary().max() > 0);
+        assertEquals(1, meterRegistry.get("excel.export.duration").tag("outcome", "success").timer().count());
+        for (String phase : new String[] {"query-open", "first-row", "render", "compression", "response-write"}) {
+            assertEquals(1, meterRegistry.get("excel.export.phase").tag("phase", phase).timer().count(), phase);
+        }
+        assertEquals(0, meterRegistry.get("excel.export.active").gauge().value());
+        assertSame(ExportRecording.NONE, ExportMetrics.current());
+    }
+
+    @Test
+    void record_WhenExportFails_ShouldCountFailure() {
+        assertThrows(IllegalStateException.class, () -> exportMetrics.record("poi", "/test", new ByteArrayOutputStream(), metered -> {
+            assertEquals(1, meterRegistry.get("excel.export.active").gauge().value());
+            throw new IllegalStateException("database down");
+        }));
+
+        assertEquals(1, meterRegistry.get("excel.export.failures").tag("exception", "IllegalStateException").counter().count());
+        assertEquals(1, meterRegistry.get("excel.export.duration").tag("outcome", "failure").timer().count());
+        assertEquals(0, meterRegistry.get("excel.export.active").gauge().value());
+        assertNull(meterRegistry.find("excel.export.rows").counter());
+    }
+
+    @Test
+    void current_OutsideOfExport_ShouldIgnoreCalls() {
+        ExportRecording recording = ExportMetrics.current();
+        recording.queryOpened();
+        recording.rowWritten();
+        recording.close();
+
+        assertTrue(meterRegistry.getMeters().isEmpty());
+    }
+
+    private static final class NumberDataset implements ExportDataset<Integer> {
+
+        private final int rows;
+
+        NumberDataset(int rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public String getName() {
+            return "numbers";
+        }
+
+        @Override
+        public List<ExportColumn<Integer>> getColumns() {
+            return Collections.singletonList(ExportColumn.number(value -> value));
+        }
+
+        @Override
+        public List<String> getHeaders(Locale locale) {
+            return Collections.singletonList("Value");
+        }
+
+        @Override
+        public String getSheetName(Locale locale) {
+            return "Numbers";
+        }
+
+        @Override
+        public Stream<Integer> openRows() {
+            return IntStream.range(0, rows).boxed();
+        }
+    }
+}
@@ -6,7 +6,6 @@ import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.context.MessageSource;
@@ -15,7 +14,6 @@ import org.springframework.context.i18n.LocaleContextHolder;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.math.BigDecimal;
-import java.text.SimpleDateFormat;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
@@ -25,7 +23,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.lenient;
 
 @ExtendWith(MockitoExtension.class)
 class AnnotationExcelExportServiceTest {
@@ -33,7 +31,6 @@ class AnnotationExcelExportServiceTest {
     @Mock
     private MessageSource messageSource;
 
-    @InjectMocks
     private AnnotationExcelExportService service;
 
     private List<TestDTO> testData;
@@ -41,6 +38,8 @@ class AnnotationExcelExportServiceTest {
 
     @BeforeEach
     void setUp() {
+        service = new AnnotationExcelExportService(messageSource);
+
         // Set up test locale
         LocaleContextHolder.setLocale(Locale.ENGLISH);
 
@@ -65,13 +64,13 @@ class AnnotationExcelExportServiceTest {
                 .build()
         );
 
-        // Set up message source responses
-        when(messageSource.getMessage(eq("excel.header.userId"), any(), any(), any())).thenReturn("Test ID");
-        when(messageSource.getMessage(eq("excel.header.firstName"), any(), any(), any())).thenReturn("Test First Name");
-        when(messageSource.getMessage(eq("excel.header.lastName"), any(), any(), any())).thenReturn("Test Last Name");
-        when(messageSource.getMessage(eq("excel.header.amount"), any(), any(), any())).thenReturn("Test Amount");
-        when(messageSource.getMessage(eq("excel.header.registrationDate"), any(), any(), any())).thenReturn("Test Date");
-        when(messageSource.getMessage(eq("excel.sheet.data"), any(), any(), any())).thenReturn("Test Sheet");
+        // Set up message source responses; lenient since the null and empty list tests fail before reading headers
+        lenient().when(messageSource.getMessage(eq("excel.header.userId"), any(), any(), any())).thenReturn("Test ID");
+        lenient().when(messageSource.getMessage(eq("excel.header.firstName"), any(), any(), any())).thenReturn("Test First Name");
+        lenient().when(messageSource.getMessage(eq("excel.header.lastName"), any(), any(), any())).thenReturn("Test Last Name");
+        lenient().when(messageSource.getMessage(eq("excel.header.amount"), any(), any(), any())).thenReturn("Test Amount");
+        lenient().when(messageSource.getMessage(eq("excel.header.registrationDate"), any(), any(), any())).thenReturn("Test Date");
+        lenient().when(messageSource.getMessage(eq("excel.sheet.data"), any(), any(), any())).thenReturn("Test Sheet");
     }
 
     @Test
@@ -103,10 +102,9 @@ class AnnotationExcelExportServiceTest {
             assertEquals("Doe", firstDataRow.getCell(2).getStringCellValue());
             assertEquals(1234.56, firstDataRow.getCell(3).getNumericCellValue(), 0.001);
             
-            // Verify date formatting
-            SimpleDateFormat dateFormat = new SimpleDateFormat("dd/MM/yyyy");
-            String expectedDate = dateFormat.format(testDate);
-            assertEquals(expectedDate, firstDataRow.getCell(4).getStringCellValue());
+            // Verify dates are native date cells formatted with the column pattern
+            assertEquals(testDate, firstDataRow.getCell(4).getDateCellValue());
+            assertEquals("dd/mm/yyyy", firstDataRow.getCell(4).getCellStyle().getDataFormatString());
 
             // Verify amount formatting
             CellStyle amountStyle = firstDataRow.getCell(3).getCellStyle();
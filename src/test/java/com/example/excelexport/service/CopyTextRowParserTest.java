@@ -0,0 +1,67 @@
+package com.example.excelexport.service;
+
+import com.example.excelexport.service.CopyTextRowParser.ColumnType;
+import com.example.excelexport.service.writer.SheetWriter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.times;
+
+@ExtendWith(MockitoExtension.class)
+class CopyTextRowParserTest {
+
+    @Mock
+    private SheetWriter writer;
+
+    @Test
+    void write_ShouldDecodeFieldsAcrossChunkBoundaries() throws IOException {
+        CopyTextRowParser parser = new CopyTextRowParser(writer, ColumnType.LONG, ColumnType.STRING, ColumnType.DOUBLE);
+        byte[] data = "1\tJohn\\tDoe\t75000.5\n-2\t\\N\t\\N\n3\tJosé\t1e+20\n".getBytes(StandardCharsets.UTF_8);
+
+        // Feed one byte at a time to make sure no state is lost between writes
+        for (byte b : data) {
+            parser.write(b);
+        }
+        parser.close();
+
+        InOrder inOrder = inOrder(writer);
+        inOrder.verify(writer).startRow();
+        inOrder.verify(writer).writeNumber(1L);
+        inOrder.verify(writer).writeString("John\tDoe");
+        inOrder.verify(writer).writeNumber(75000.5);
+        inOrder.verify(writer).endRow();
+        inOrder.verify(writer).startRow();
+        inOrder.verify(writer).writeNumber(-2L);
+        inOrder.verify(writer, times(2)).writeBlank();
+        inOrder.verify(writer).endRow();
+        inOrder.verify(writer).startRow();
+        inOrder.verify(writer).writeNumber(3L);
+        inOrder.verify(writer).writeString("José");
+        inOrder.verify(writer).writeNumber(1e20);
+        inOrder.verify(writer).endRow();
+        assertEquals(3, parser.getRowCount());
+    }
+
+    @Test
+    void write_ShouldRejectRowWithWrongColumnCount() {
+        CopyTextRowParser parser = new CopyTextRowParser(writer, ColumnType.LONG, ColumnType.STRING);
+
+        assertThrows(IOException.class, () -> parser.write("1\n".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void close_ShouldRejectTruncatedRow() throws IOException {
+        CopyTextRowParser parser = new CopyTextRowParser(writer, ColumnType.LONG, ColumnType.STRING);
+        parser.write("1\tJo".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(IOException.class, parser::close);
+    }
+}
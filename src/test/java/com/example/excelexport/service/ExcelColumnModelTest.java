@@ -0,0 +1,89 @@
+package com.example.excelexport.service;
+
+import com.example.excelexport.annotation.ExcelColumn;
+import com.example.excelexport.annotation.ExcelRowContext;
+import com.example.excelexport.annotation.ExcelRowWriter;
+import com.example.excelexport.dto.TestDTO;
+import com.example.excelexport.dto.UserDTO;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExcelColumnModelTest {
+
+    @Test
+    void of_ShouldResolveColumnsOnceInAnnotationOrder() {
+        ExcelColumnModel model = ExcelColumnModel.of(TestDTO.class);
+
+        assertSame(model, ExcelColumnModel.of(TestDTO.class));
+        assertThat(model.getColumns().stream().map(ExcelColumnModel.Column::getFieldName).collect(Collectors.toList()))
+            .containsExactly("id", "firstName", "lastName", "amount", "registrationDate");
+        assertThat(model.getAmountFormats()).containsExactly("#,##0.00");
+        assertEquals("dd/MM/yyyy", model.getColumns().get(4).getDateFormat());
+    }
+
+    @Test
+    void getValue_ShouldReadThroughGettersAndFields() {
+        Date date = new Date();
+        TestDTO dto = TestDTO.builder().id(7L).firstName("John").amount(new BigDecimal("1.50")).registrationDate(date).build();
+        List<ExcelColumnModel.Column> columns = ExcelColumnModel.of(TestDTO.class).getColumns();
+
+        assertEquals(7L, columns.get(0).getValue(dto));
+        assertEquals("John", columns.get(1).getValue(dto));
+        assertNull(columns.get(2).getValue(dto));
+        assertEquals(new BigDecimal("1.50"), columns.get(3).getValue(dto));
+        assertEquals(date, columns.get(4).getValue(dto));
+
+        // No getters: falls back to the field handle
+        List<ExcelColumnModel.Column> fieldColumns = ExcelColumnModel.of(NoGetterDTO.class).getColumns();
+        assertEquals("Header", fieldColumns.get(0).getName());
+        assertEquals(true, fieldColumns.get(0).getValue(new NoGetterDTO()));
+    }
+
+    @Test
+    void getRowWriter_ShouldUseGeneratedWriterWhenPresent() throws IOException {
+        // Main sources go through ExcelColumnProcessor, test sources do not
+        assertNull(ExcelColumnModel.of(TestDTO.class).getRowWriter());
+        ExcelRowWriter<Object> rowWriter = ExcelColumnModel.of(UserDTO.class).getRowWriter();
+        assertNotNull(rowWriter);
+        assertArrayEquals(new String[] {"id", "firstName", "lastName", "email", "registrationDate", "active"},
+            rowWriter.getFieldNames());
+
+        UserDTO user = new UserDTO();
+        user.setId(3L);
+        user.setFirstName("Jane");
+        user.setRegistrationDate(new GregorianCalendar(2024, Calendar.MARCH, 5).getTime());
+        user.setActive(true);
+
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            Row row = workbook.createSheet().createRow(0);
+            String[] datePatterns = {"yyyy-MM-dd", "yyyy-MM-dd", "yyyy-MM-dd", "yyyy-MM-dd", "dd/MM/yyyy", "yyyy-MM-dd"};
+            rowWriter.writeRow(row, user, new ExcelRowContext(workbook, Locale.ENGLISH, datePatterns, new String[6]));
+
+            assertEquals(3.0, row.getCell(0).getNumericCellValue());
+            assertEquals("Jane", row.getCell(1).getStringCellValue());
+            assertEquals(CellType.BLANK, row.getCell(2).getCellType());
+            assertEquals(user.getRegistrationDate(), row.getCell(4).getDateCellValue());
+            assertEquals("dd/mm/yyyy", row.getCell(4).getCellStyle().getDataFormatString());
+            assertTrue(row.getCell(5).getBooleanCellValue());
+        }
+    }
+
+    static class NoGetterDTO {
+        @ExcelColumn(name = "Header")
+        private boolean flag = true;
+    }
+}
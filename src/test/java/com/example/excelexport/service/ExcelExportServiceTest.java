@@ -2,18 +2,28 @@ package com.example.excelexport.service;
 
 import com.example.excelexport.entity.Employee;
 import com.example.excelexport.repository.EmployeeRepository;
+import com.example.excelexport.service.engine.CsvExportEngine;
+import com.example.excelexport.service.engine.ExportEngineRegistry;
+import com.example.excelexport.service.engine.TsvExportEngine;
+import com.example.excelexport.service.writer.SxssfTempStorage;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -25,13 +35,15 @@ public class ExcelExportServiceTest {
     @Mock
     private EmployeeRepository employeeRepository;
 
-    @InjectMocks
     private ExcelExportService excelExportService;
 
     private Employee testEmployee;
 
     @BeforeEach
     void setUp() {
+        excelExportService = new ExcelExportService(employeeRepository,
+            new ExportEngineRegistry(Arrays.asList(new CsvExportEngine(), new TsvExportEngine())), SxssfTempStorage.getDefault());
+
         testEmployee = new Employee();
         testEmployee.setId(1L);
         testEmployee.setFirstName("John");
@@ -41,6 +53,16 @@ public class ExcelExportServiceTest {
         testEmployee.setSalary(75000.0);
     }
 
+    @Test
+    void generate_WithCsvEngine_ShouldWriteDelimitedText() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        excelExportService.generate("csv", Stream.of(Arrays.asList("1", "Doe, John"), Arrays.asList("2", null)),
+            Arrays.asList("ID", "Name"), out);
+
+        assertEquals("ID,Name\r\n1,\"Doe, John\"\r\n2,\r\n", out.toString(StandardCharsets.UTF_8));
+    }
+
     @Test
     void getAllEmployees_ShouldReturnListOfEmployees() {
         when(employeeRepository.findAll()).thenReturn(Arrays.asList(testEmployee));
@@ -96,4 +118,26 @@ public class ExcelExportServiceTest {
             verify(employeeRepository).streamAll();
         }
     }
+
+    @Test
+    void exportEmployeesToExcelZip_Stored_ShouldStoreWorkbookWithoutRecompression() throws IOException {
+        try (Stream<Employee> employeeStream = Stream.of(testEmployee)) {
+            when(employeeRepository.streamAll()).thenReturn(employeeStream);
+
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            excelExportService.exportEmployeesToExcelZip(outputStream, ZipEntryMode.STORED);
+
+            try (ZipInputStream zipInputStream = new ZipInputStream(new ByteArrayInputStream(outputStream.toByteArray()))) {
+                ZipEntry entry = zipInputStream.getNextEntry();
+                assertNotNull(entry);
+                assertEquals(ZipEntry.STORED, entry.getMethod());
+                assertTrue(entry.getName().endsWith(".xlsx"));
+
+                try (Workbook workbook = WorkbookFactory.create(zipInputStream)) {
+                    assertEquals(1, workbook.getSheetAt(0).getLastRowNum());
+                    assertEquals("John", workbook.getSheetAt(0).getRow(1).getCell(1).getStringCellValue());
+                }
+            }
+        }
+    }
 }
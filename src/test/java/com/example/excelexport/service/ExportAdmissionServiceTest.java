@@ -0,0 +1,107 @@
+package com.example.excelexport.service;
+
+import com.example.excelexport.metrics.ExportMetrics;
+import com.example.excelexport.service.engine.CsvExportEngine;
+import com.example.excelexport.service.engine.ExportEngineRegistry;
+import com.example.excelexport.service.engine.PoiExportEngine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ExportAdmissionServiceTest {
+
+    private static final long MB = 1L << 20;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExportEngineRegistry engineRegistry =
+        new ExportEngineRegistry(Arrays.asList(new PoiExportEngine(), new CsvExportEngine()));
+
+    @Test
+    void admit_ShouldChargeEngineWorkingSetAndBufferedRows() {
+        ExportAdmissionService admission = createService(1024 * MB, 8, 0, 0);
+        ExportDataset<?> dataset = datasetOf(1000);
+
+        try (ExportAdmissionService.Permit permit = admission.admit("poi", dataset, true)) {
+            assertEquals(32 * MB + 1000 * 256, admission.getMemoryInUse());
+            assertEquals(1, admission.getThreadsInUse());
+        }
+        try (ExportAdmissionService.Permit permit = admission.admit("csv", dataset, false)) {
+            assertEquals(MB, admission.getMemoryInUse());
+        }
+        assertEquals(0, admission.getMemoryInUse());
+        assertEquals(0, admission.getThreadsInUse());
+        assertEquals(2, meterRegistry.get("excel.export.admission").tag("result", "admitted").counters().stream()
+            .mapToDouble(counter -> counter.count()).sum());
+    }
+
+    @Test
+    void admit_WhenBudgetUsedUp_ShouldRejectWithRetryAfter() {
+        ExportAdmissionService admission = createService(65 * MB, 8, 0, 16);
+        ExportDataset<?> dataset = datasetOf(0);
+
+        try (ExportAdmissionService.Permit first = admission.admit("poi", dataset, false);
+             ExportAdmissionService.Permit second = admission.admit("poi", dataset, false)) {
+            ExportRejectedException e = assertThrows(ExportRejectedException.class, () -> admission.admit("poi", dataset, false));
+            assertEquals(5, e.getRetryAfterSeconds());
+            // Fits in what is left
+            admission.admit("csv", dataset, false).close();
+        }
+        assertEquals(1, meterRegistry.get("excel.export.admission").tag("result", "rejected").counter().count());
+    }
+
+    @Test
+    void admit_WhenQueueFull_ShouldRejectWithoutWaiting() {
+        ExportAdmissionService admission = createService(1024 * MB, 1, 60_000, 0);
+        ExportDataset<?> dataset = datasetOf(0);
+
+        try (ExportAdmissionService.Permit permit = admission.admit("csv", dataset, false)) {
+            assertThrows(ExportRejectedException.class, () -> admission.admit("csv", dataset, false));
+        }
+    }
+
+    @Test
+    void admit_ShouldQueueUntilPermitIsReleased() throws Exception {
+        ExportAdmissionService admission = createService(1024 * MB, 1, 60_000, 16);
+        ExportDataset<?> dataset = datasetOf(0);
+
+        ExportAdmissionService.Permit first = admission.admit("csv", dataset, false);
+        CompletableFuture<ExportAdmissionService.Permit> second = CompletableFuture.supplyAsync(() -> admission.admit("csv", dataset, false));
+        Thread.sleep(100);
+        assertFalse(second.isDone());
+
+        first.close();
+        first.close();
+        second.get(10, TimeUnit.SECONDS).close();
+        assertEquals(0, admission.getThreadsInUse());
+        assertEquals(1, meterRegistry.get("excel.export.admission").tag("result", "queued").counter().count());
+    }
+
+    @Test
+    void admit_WhenCostExceedsBudget_ShouldRunAlone() {
+        ExportAdmissionService admission = createService(64 * MB, 8, 0, 16);
+        ExportDataset<?> dataset = datasetOf(10_000_000);
+
+        try (ExportAdmissionService.Permit permit = admission.admit("poi", dataset, true)) {
+            assertEquals(64 * MB, admission.getMemoryInUse());
+            assertThrows(ExportRejectedException.class, () -> admission.admit("csv", dataset, false));
+        }
+    }
+
+    private ExportAdmissionService createService(long memoryBudget, int threadBudget, long queueTimeoutMs, int maxQueued) {
+        return new ExportAdmissionService(engineRegistry, new ExportMetrics(meterRegistry),
+            memoryBudget, threadBudget, queueTimeoutMs, maxQueued, 256, 5);
+    }
+
+    private static ExportDataset<?> datasetOf(long rows) {
+        ExportDataset<?> dataset = mock(ExportDataset.class);
+        when(dataset.estimateRowCount()).thenReturn(rows);
+        return dataset;
+    }
+}
@@ -0,0 +1,234 @@
+package com.example.excelexport.service;
+
+import com.example.excelexport.dto.ExportJobRequest;
+import com.example.excelexport.entity.Employee;
+import com.example.excelexport.metrics.ExportMetrics;
+import com.example.excelexport.repository.EmployeeRepository;
+import com.example.excelexport.service.engine.ExportEngineRegistry;
+import com.example.excelexport.service.engine.ExportFormat;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ExportJobServiceTest {
+
+    @Mock
+    private SpreadsheetExportService spreadsheetExportService;
+
+    @Mock
+    private EmployeeDataset employeeDataset;
+
+    @Mock
+    private EmployeeRepository employeeRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path jobDirectory;
+
+    private ThreadPoolTaskExecutor executor;
+    private ExportAdmissionService exportAdmissionService;
+    private ExportJobService exportJobService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.initialize();
+
+        ExportMetrics exportMetrics = new ExportMetrics(new SimpleMeterRegistry());
+        // Room for one export at a time, with no queue for rejectable ones
+        exportAdmissionService = new ExportAdmissionService(new ExportEngineRegistry(Collections.emptyList()), exportMetrics,
+            1L << 30, 1, 0, 0, 256, 5);
+        exportJobService = new ExportJobService(spreadsheetExportService, employeeDataset, exportMetrics,
+            exportAdmissionService, employeeRepository, transactionManager, executor, jobDirectory.toString(), 60);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void submit_ShouldWriteResultFileAndTrackProgress() throws Exception {
+        Employee employee = new Employee();
+        employee.setId(1L);
+        when(spreadsheetExportService.supports("fastexcel")).thenReturn(true);
+        when(spreadsheetExportService.getFormat("fastexcel")).thenReturn(ExportFormat.XLSX);
+        when(employeeRepository.countByDepartment("IT")).thenReturn(2L);
+        when(employeeRepository.streamByDepartment("IT")).thenReturn(Stream.of(employee, employee));
+        doAnswer(invocation -> {
+            Stream<Employee> employees = invocation.getArgument(2);
+            OutputStream outputStream = invocation.getArgument(3);
+            employees.forEach(e -> { });
+            outputStream.write("xlsx".getBytes());
+            return null;
+        }).when(spreadsheetExportService).export(eq("fastexcel"), eq(employeeDataset), any(Stream.class), any(OutputStream.class));
+
+        ExportJobRequest request = new ExportJobRequest();
+        request.setDepartment("IT");
+        ExportJob job = exportJobService.submit(request);
+
+        awaitFinished(job);
+        assertEquals(ExportJob.State.COMPLETED, job.getState());
+        assertEquals(2, job.getTotalRows());
+        assertEquals(2, job.getRowsWritten().get());
+        assertEquals("xlsx", new String(Files.readAllBytes(job.getFile())));
+
+        assertTrue(exportJobService.cancel(job.getId()));
+        assertFalse(Files.exists(job.getFile()));
+        assertFalse(exportJobService.getJob(job.getId()).isPresent());
+    }
+
+    @Test
+    void submit_WithUnknownEngine_ShouldThrowException() {
+        ExportJobRequest request = new ExportJobRequest();
+        request.setEngine("unknown");
+
+        assertThrows(IllegalArgumentException.class, () -> exportJobService.submit(request));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void submit_WithTextEngine_ShouldWriteResultInEngineFormat() throws Exception {
+        when(spreadsheetExportService.supports("csv")).thenReturn(true);
+        when(spreadsheetExportService.getFormat("csv")).thenReturn(ExportFormat.CSV);
+        when(employeeRepository.count()).thenReturn(0L);
+        when(employeeRepository.streamAll()).thenReturn(Stream.empty());
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(3).write("ID\r\n".getBytes());
+            return null;
+        }).when(spreadsheetExportService).export(eq("csv"), eq(employeeDataset), any(Stream.class), any(OutputStream.class));
+
+        ExportJobRequest request = new ExportJobRequest();
+        request.setEngine("csv");
+        ExportJob job = exportJobService.submit(request);
+
+        awaitFinished(job);
+        assertEquals(ExportJob.State.COMPLETED, job.getState());
+        assertEquals("csv", job.getFormat());
+        assertEquals("text/csv", job.getMediaType());
+        assertTrue(job.getFile().toString().endsWith(".csv"));
+        assertTrue(exportJobService.getDownloadFilename(job).endsWith(".csv"));
+    }
+
+    @Test
+    void submit_WithFormatOtherThanEngines_ShouldThrowException() {
+        when(spreadsheetExportService.supports("csv")).thenReturn(true);
+        when(spreadsheetExportService.getFormat("csv")).thenReturn(ExportFormat.CSV);
+        ExportJobRequest request = new ExportJobRequest();
+        request.setEngine("csv");
+        request.setFormat("xlsx");
+
+        assertThrows(IllegalArgumentException.class, () -> exportJobService.submit(request));
+        assertEquals(0, executor.getThreadPoolExecutor().getTaskCount());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void submit_WhenBudgetsAreUsedUp_ShouldWaitForAdmission() throws Exception {
+        when(spreadsheetExportService.supports("fastexcel")).thenReturn(true);
+        when(spreadsheetExportService.getFormat("fastexcel")).thenReturn(ExportFormat.XLSX);
+        when(employeeRepository.count()).thenReturn(0L);
+        when(employeeRepository.streamAll()).thenReturn(Stream.empty());
+
+        ExportJob job;
+        try (ExportAdmissionService.Permit running = exportAdmissionService.admit("fastexcel", employeeDataset, false)) {
+            job = exportJobService.submit(new ExportJobRequest());
+
+            Thread.sleep(200);
+            assertEquals(ExportJob.State.QUEUED, job.getState());
+            verify(spreadsheetExportService, never()).export(any(), any(), any(Stream.class), any());
+        }
+
+        awaitFinished(job);
+        assertEquals(ExportJob.State.COMPLETED, job.getState());
+        assertEquals(0, exportAdmissionService.getThreadsInUse());
+    }
+
+    @Test
+    void submit_WhenExportFails_ShouldMarkJobFailed() throws Exception {
+        when(spreadsheetExportService.supports("fastexcel")).thenReturn(true);
+        when(spreadsheetExportService.getFormat("fastexcel")).thenReturn(ExportFormat.XLSX);
+        when(employeeRepository.count()).thenThrow(new IllegalStateException("database down"));
+
+        ExportJob job = exportJobService.submit(new ExportJobRequest());
+
+        awaitFinished(job);
+        assertEquals(ExportJob.State.FAILED, job.getState());
+        assertEquals("database down", job.getError());
+        try (Stream<Path> files = Files.list(jobDirectory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void cancel_WhileJobCompletes_ShouldDeleteResultFile() throws Exception {
+        when(spreadsheetExportService.supports("fastexcel")).thenReturn(true);
+        when(spreadsheetExportService.getFormat("fastexcel")).thenReturn(ExportFormat.XLSX);
+        when(employeeRepository.count()).thenReturn(0L);
+        when(employeeRepository.streamAll()).thenReturn(Stream.empty());
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(3).write("xlsx".getBytes());
+            return null;
+        }).when(spreadsheetExportService).export(eq("fastexcel"), eq(employeeDataset), any(Stream.class), any(OutputStream.class));
+
+        // Cancel once the workbook is written but before the result file has been moved into place
+        AtomicReference<ExportJob> submitted = new AtomicReference<>();
+        CountDownLatch jobSubmitted = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            jobSubmitted.await();
+            assertTrue(exportJobService.cancel(submitted.get().getId()));
+            return null;
+        }).when(transactionManager).commit(any());
+
+        ExportJob job = exportJobService.submit(new ExportJobRequest());
+        submitted.set(job);
+        jobSubmitted.countDown();
+
+        awaitFinished(job);
+        executor.shutdown();
+        executor.getThreadPoolExecutor().awaitTermination(10, TimeUnit.SECONDS);
+        assertEquals(ExportJob.State.CANCELLED, job.getState());
+        assertFalse(exportJobService.getJob(job.getId()).isPresent());
+        try (Stream<Path> files = Files.list(jobDirectory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    private void awaitFinished(ExportJob job) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!job.isFinished() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(job.isFinished(), "Export job did not finish in time");
+    }
+}
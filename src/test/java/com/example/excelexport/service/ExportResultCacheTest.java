@@ -0,0 +1,146 @@
+package com.example.excelexport.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExportResultCacheTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void write_ShouldServeCopyUnderSameKey() throws IOException {
+        ExportResultCache cache = new ExportResultCache(directory.toString(), 1024);
+        String key = cache.getKey(new VersionedDataset("7", Collections.emptyMap()), "poi", Locale.US);
+
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        cache.write(key, response, out -> out.write(new byte[] {1, 2, 3}));
+        assertArrayEquals(new byte[] {1, 2, 3}, response.toByteArray());
+
+        ExportResultCache.CachedExport cached = cache.open(key).orElseThrow();
+        assertEquals(3, cached.getSize());
+        ByteArrayOutputStream copy = new ByteArrayOutputStream();
+        cached.writeTo(copy);
+        assertArrayEquals(new byte[] {1, 2, 3}, copy.toByteArray());
+    }
+
+    @Test
+    void getKey_ShouldChangeWithVersionEngineLocaleAndFilters() throws IOException {
+        ExportResultCache cache = new ExportResultCache(directory.toString(), 1024);
+        String key = cache.getKey(new VersionedDataset("7", Collections.emptyMap()), "poi", Locale.US);
+
+        assertEquals(key, cache.getKey(new VersionedDataset("7", Collections.emptyMap()), "poi", Locale.US));
+        assertNotEquals(key, cache.getKey(new VersionedDataset("8", Collections.emptyMap()), "poi", Locale.US));
+        assertNotEquals(key, cache.getKey(new VersionedDataset("7", Collections.emptyMap()), "fastexcel", Locale.US));
+        assertNotEquals(key, cache.getKey(new VersionedDataset("7", Collections.emptyMap()), "poi", Locale.FRANCE));
+        assertNotEquals(key, cache.getKey(new VersionedDataset("7", Map.of("department", "IT")), "poi", Locale.US));
+        assertNull(cache.getKey(new VersionedDataset(null, Collections.emptyMap()), "poi", Locale.US));
+
+        assertTrue(cache.getETag(key).startsWith("W/\""));
+        assertNotEquals(cache.getETag(key), cache.getETag(key + "x"));
+    }
+
+    @Test
+    void write_WhenOverMaxBytes_ShouldEvictLeastRecentlyUsed() throws IOException {
+        ExportResultCache cache = new ExportResultCache(directory.toString(), 250);
+        cache.write("a", new ByteArrayOutputStream(), out -> out.write(new byte[100]));
+        cache.write("b", new ByteArrayOutputStream(), out -> out.write(new byte[100]));
+        cache.open("a").orElseThrow().writeTo(new ByteArrayOutputStream());
+
+        cache.write("c", new ByteArrayOutputStream(), out -> out.write(new byte[100]));
+
+        assertTrue(cache.open("a").isPresent());
+        assertFalse(cache.open("b").isPresent());
+        assertTrue(cache.open("c").isPresent());
+        assertEquals(200, cache.getTotalBytes());
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(2, files.count());
+        }
+    }
+
+    @Test
+    void write_WhenExportFails_ShouldNotCacheOrLeaveFiles() throws IOException {
+        ExportResultCache cache = new ExportResultCache(directory.toString(), 1024);
+
+        assertThrows(IOException.class, () -> cache.write("a", new ByteArrayOutputStream(), out -> {
+            out.write(new byte[10]);
+            throw new IOException("broken pipe");
+        }));
+
+        assertFalse(cache.open("a").isPresent());
+        assertEquals(0, cache.size());
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void constructor_ShouldDeleteOnlyLeftoverCacheFiles() throws IOException {
+        Path part = Files.createFile(directory.resolve("export-123.part"));
+        Path export = Files.createFile(directory.resolve("0b5c.export"));
+        Path other = Files.createFile(directory.resolve("report.xlsx"));
+
+        new ExportResultCache(directory.toString(), 1024);
+
+        assertFalse(Files.exists(part));
+        assertFalse(Files.exists(export));
+        assertTrue(Files.exists(other));
+    }
+
+    private static final class VersionedDataset implements ExportDataset<Object> {
+        private final String version;
+        private final Map<String, String> filters;
+
+        VersionedDataset(String version, Map<String, String> filters) {
+            this.version = version;
+            this.filters = filters;
+        }
+
+        @Override
+        public String getName() {
+            return "numbers";
+        }
+
+        @Override
+        public List<ExportColumn<Object>> getColumns() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public List<String> getHeaders(Locale locale) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public String getSheetName(Locale locale) {
+            return "Numbers";
+        }
+
+        @Override
+        public Map<String, String> getFilters() {
+            return filters;
+        }
+
+        @Override
+        public String getVersion() {
+            return version;
+        }
+
+        @Override
+        public Stream<Object> openRows() {
+            return Stream.empty();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.excelexport.service;
+
+import com.example.excelexport.dto.UserDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonRowReaderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void next_ShouldReadJsonArrayElementByElement() throws IOException {
+        List<UserDTO> users = readAll("[{\"id\": 1, \"firstName\": \"John\"}, {\"id\": 2, \"active\": true}]");
+
+        assertEquals(2, users.size());
+        assertEquals("John", users.get(0).getFirstName());
+        assertEquals(2L, users.get(1).getId());
+        assertTrue(users.get(1).isActive());
+    }
+
+    @Test
+    void next_ShouldReadNdjson() throws IOException {
+        List<UserDTO> users = readAll("{\"id\": 1}\n{\"id\": 2}\n\n{\"id\": 3}\n");
+
+        assertEquals(3, users.size());
+        assertEquals(3L, users.get(2).getId());
+    }
+
+    @Test
+    void hasNext_ShouldBeFalseForEmptyArrayAndEmptyBody() throws IOException {
+        assertTrue(readAll("[]").isEmpty());
+        assertTrue(readAll("").isEmpty());
+    }
+
+    @Test
+    void next_ShouldFailOnNonObjectElement() {
+        assertThrows(UncheckedIOException.class, () -> readAll("[{\"id\": 1}, 42]"));
+    }
+
+    private List<UserDTO> readAll(String json) throws IOException {
+        List<UserDTO> users = new ArrayList<>();
+        try (JsonRowReader<UserDTO> reader = new JsonRowReader<>(objectMapper,
+                new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), UserDTO.class)) {
+            reader.forEachRemaining(users::add);
+            assertEquals(users.size(), reader.getCount());
+        }
+        return users;
+    }
+}
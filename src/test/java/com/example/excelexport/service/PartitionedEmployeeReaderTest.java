@@ -0,0 +1,111 @@
+package com.example.excelexport.service;
+
+import com.example.excelexport.entity.Employee;
+import com.example.excelexport.repository.EmployeeRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class PartitionedEmployeeReaderTest {
+
+    @Mock
+    private EmployeeRepository employeeRepository;
+
+    private ThreadPoolTaskExecutor executor;
+    private PartitionedEmployeeReader reader;
+    private List<Long> storedIds;
+
+    @BeforeEach
+    void setUp() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(3);
+        executor.setMaxPoolSize(3);
+        executor.initialize();
+
+        // 2 partitions of 5-id chunks over ids 1..25, with a few gaps
+        reader = new PartitionedEmployeeReader(employeeRepository, executor, 2, 5, 3);
+        storedIds = LongStream.rangeClosed(1, 25)
+            .filter(id -> id % 7 != 0)
+            .boxed()
+            .collect(Collectors.toList());
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void streamMerged_ShouldReturnAllEmployeesInKeyOrder() {
+        stubRepository();
+
+        List<Long> ids;
+        try (Stream<Employee> employees = reader.streamMerged()) {
+            ids = employees.map(Employee::getId).collect(Collectors.toList());
+        }
+
+        assertEquals(storedIds, ids);
+        // 13 ids per partition -> 3 chunks each
+        verify(employeeRepository, times(6)).findByIdBetweenOrderByIdAsc(anyLong(), anyLong());
+    }
+
+    @Test
+    void readPartitions_ShouldHandEachPartitionToConsumerInOrder() throws IOException {
+        stubRepository();
+
+        Map<Integer, List<Long>> partitions = new TreeMap<>();
+        reader.readPartitions((partition, employees) ->
+            partitions.put(partition, employees.map(Employee::getId).collect(Collectors.toList())));
+
+        assertEquals(2, partitions.size());
+        assertEquals(storedIds.stream().filter(id -> id <= 13).collect(Collectors.toList()), partitions.get(0));
+        assertEquals(storedIds.stream().filter(id -> id > 13).collect(Collectors.toList()), partitions.get(1));
+    }
+
+    @Test
+    void readPartitions_WithEmptyTable_ShouldNotCallConsumer() throws IOException {
+        when(employeeRepository.findMinId()).thenReturn(null);
+        when(employeeRepository.findMaxId()).thenReturn(null);
+
+        List<Integer> partitions = new ArrayList<>();
+        reader.readPartitions((partition, employees) -> partitions.add(partition));
+
+        assertTrue(partitions.isEmpty());
+        verify(employeeRepository, never()).findByIdBetweenOrderByIdAsc(anyLong(), anyLong());
+    }
+
+    private void stubRepository() {
+        when(employeeRepository.findMinId()).thenReturn(1L);
+        when(employeeRepository.findMaxId()).thenReturn(25L);
+        when(employeeRepository.findByIdBetweenOrderByIdAsc(anyLong(), anyLong())).thenAnswer(invocation -> {
+            long fromId = invocation.getArgument(0);
+            long toId = invocation.getArgument(1);
+            return storedIds.stream()
+                .filter(id -> id >= fromId && id <= toId)
+                .map(id -> {
+                    Employee employee = new Employee();
+                    employee.setId(id);
+                    return employee;
+                })
+                .collect(Collectors.toList());
+        });
+    }
+}
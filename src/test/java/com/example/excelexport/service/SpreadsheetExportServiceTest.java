@@ -0,0 +1,152 @@
+package com.example.excelexport.service;
+
+import com.example.excelexport.service.engine.CsvExportEngine;
+import com.example.excelexport.service.engine.DirectExportEngine;
+import com.example.excelexport.service.engine.EasyExcelExportEngine;
+import com.example.excelexport.service.engine.ExportEngineRegistry;
+import com.example.excelexport.service.engine.ExportFormat;
+import com.example.excelexport.service.engine.FastExcelExportEngine;
+import com.example.excelexport.service.engine.PoiExportEngine;
+import com.example.excelexport.service.engine.SpreadsheetMlExportEngine;
+import com.example.excelexport.service.engine.TsvExportEngine;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpreadsheetExportServiceTest {
+
+    private final SpreadsheetExportService exportService = new SpreadsheetExportService(new ExportEngineRegistry(Arrays.asList(
+        new PoiExportEngine(), new FastExcelExportEngine(), new DirectExportEngine(), new EasyExcelExportEngine(),
+        new SpreadsheetMlExportEngine())));
+
+    @Test
+    void export_ShouldWriteSameCellsWithEveryEngine() throws IOException {
+        assertEquals(Arrays.asList("poi", "fastexcel", "direct", "easyexcel", "spreadsheetml"), exportService.getEngineNames());
+
+        for (String engine : exportService.getEngineNames()) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            exportService.export(engine, new ProductDataset(), out);
+
+            try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+                Sheet sheet = workbook.getSheet("Products");
+                assertNotNull(sheet, engine);
+                assertEquals("Price", sheet.getRow(0).getCell(2).getStringCellValue(), engine);
+                assertEquals(2, sheet.getLastRowNum(), engine);
+
+                Row first = sheet.getRow(1);
+                assertEquals(7.0, first.getCell(0).getNumericCellValue(), engine);
+                assertEquals("Widget", first.getCell(1).getStringCellValue(), engine);
+                assertEquals(9.99, first.getCell(2).getNumericCellValue(), engine);
+                assertEquals("Gadget", sheet.getRow(2).getCell(1).getStringCellValue(), engine);
+            }
+        }
+    }
+
+    @Test
+    void export_WithUnknownEngine_ShouldThrowException() {
+        assertFalse(exportService.supports("unknown"));
+        assertThrows(IllegalArgumentException.class,
+            () -> exportService.export("unknown", new ProductDataset(), new ByteArrayOutputStream()));
+    }
+
+    @Test
+    void export_WithRowLimit_ShouldRollOverToNewSheets() throws IOException {
+        SpreadsheetExportService rollingService = new SpreadsheetExportService(new ExportEngineRegistry(Arrays.asList(
+            new PoiExportEngine(), new FastExcelExportEngine(), new DirectExportEngine(), new EasyExcelExportEngine(),
+            new SpreadsheetMlExportEngine()), 1));
+
+        for (String engine : rollingService.getEngineNames()) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            rollingService.export(engine, new ProductDataset(), out);
+
+            try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+                assertEquals(2, workbook.getNumberOfSheets(), engine);
+                Sheet second = workbook.getSheet("Products (2)");
+                assertEquals("Price", second.getRow(0).getCell(2).getStringCellValue(), engine);
+                assertEquals("Gadget", second.getRow(1).getCell(1).getStringCellValue(), engine);
+                assertEquals(1, second.getLastRowNum(), engine);
+            }
+        }
+    }
+
+    @Test
+    void export_WithTextEngines_ShouldWriteOneFileWithoutRollOver() throws IOException {
+        SpreadsheetExportService textService = new SpreadsheetExportService(new ExportEngineRegistry(Arrays.asList(
+            new PoiExportEngine(), new CsvExportEngine(), new TsvExportEngine()), 1));
+
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        textService.export("csv", new ProductDataset(), csv);
+        assertEquals("ID,Name,Price\r\n7,Widget,9.99\r\n8,Gadget,\r\n", csv.toString(StandardCharsets.UTF_8));
+
+        ByteArrayOutputStream tsv = new ByteArrayOutputStream();
+        textService.export("tsv", new ProductDataset(), tsv);
+        assertEquals("ID\tName\tPrice\n7\tWidget\t9.99\n8\tGadget\t\n", tsv.toString(StandardCharsets.UTF_8));
+
+        assertEquals(ExportFormat.CSV, textService.getFormat("csv"));
+        assertEquals(Optional.of("tsv"), textService.findEngineByMediaType("text/tab-separated-values"));
+        assertEquals(Optional.of("poi"), textService.findEngineByMediaType(ExportFormat.XLSX.getMediaType()));
+        assertEquals(Optional.empty(), textService.findEngineByMediaType("application/json"));
+    }
+
+    @Test
+    void registry_WithDuplicateEngineNames_ShouldFail() {
+        assertThrows(IllegalStateException.class,
+            () -> new ExportEngineRegistry(Arrays.asList(new PoiExportEngine(), new PoiExportEngine())));
+    }
+
+    private static final class Product {
+        final long id;
+        final String name;
+        final Double price;
+
+        Product(long id, String name, Double price) {
+            this.id = id;
+            this.name = name;
+            this.price = price;
+        }
+    }
+
+    private static final class ProductDataset implements ExportDataset<Product> {
+
+        @Override
+        public String getName() {
+            return "products";
+        }
+
+        @Override
+        public List<ExportColumn<Product>> getColumns() {
+            return Arrays.asList(
+                ExportColumn.number(product -> product.id),
+                ExportColumn.text(product -> product.name),
+                ExportColumn.<Product>number(product -> product.price).withFormat("#,##0.00"));
+        }
+
+        @Override
+        public List<String> getHeaders(Locale locale) {
+            return Arrays.asList("ID", "Name", "Price");
+        }
+
+        @Override
+        public String getSheetName(Locale locale) {
+            return "Products";
+        }
+
+        @Override
+        public Stream<Product> openRows() {
+            return Stream.of(new Product(7, "Widget", 9.99), new Product(8, "Gadget", null));
+        }
+    }
+}
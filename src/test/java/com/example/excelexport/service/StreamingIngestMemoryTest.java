@@ -0,0 +1,80 @@
+package com.example.excelexport.service;
+
+import com.example.excelexport.dto.UserDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.StaticMessageSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Feeds a 500k-element NDJSON body through {@link JsonRowReader} into the annotation exporter.
+ * Run with {@code mvn test -Pmemory-tests}; binding the same payload to a List would not fit the heap.
+ */
+@Tag("memory")
+class StreamingIngestMemoryTest {
+
+    private static final int ROW_COUNT = 500_000;
+    private static final long MAX_HEAP_BYTES = 256L * 1024 * 1024;
+
+    @Test
+    void generateExcelFromDTO_ShouldStreamLargeNdjsonBodyWithinSmallHeap() throws IOException {
+        assumeTrue(Runtime.getRuntime().maxMemory() <= MAX_HEAP_BYTES, "Run with -Pmemory-tests to fork a JVM with a small -Xmx");
+
+        AnnotationExcelExportService service = new AnnotationExcelExportService(new StaticMessageSource());
+        long[] written = new long[1];
+        OutputStream counting = new OutputStream() {
+            @Override
+            public void write(int b) {
+                written[0]++;
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                written[0] += len;
+            }
+        };
+
+        try (JsonRowReader<UserDTO> users = new JsonRowReader<>(new ObjectMapper(), new NdjsonUsers(ROW_COUNT), UserDTO.class)) {
+            service.generateExcelFromDTO(UserDTO.class, users, counting);
+            assertEquals(ROW_COUNT, users.getCount());
+        }
+        assertTrue(written[0] > 1024 * 1024, "Unexpectedly small export: " + written[0]);
+    }
+
+    /**
+     * Generates the body on the fly so the test itself holds no payload
+     */
+    private static class NdjsonUsers extends InputStream {
+        private final int rows;
+        private int row;
+        private byte[] line = new byte[0];
+        private int position;
+
+        NdjsonUsers(int rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public int read() {
+            if (position == line.length) {
+                if (row == rows) {
+                    return -1;
+                }
+                row++;
+                line = ("{\"id\":" + row + ",\"firstName\":\"First" + row + "\",\"lastName\":\"Last" + row
+                    + "\",\"email\":\"user" + row + "@example.com\",\"registrationDate\":1700000000000,\"active\":true}\n")
+                    .getBytes(StandardCharsets.UTF_8);
+                position = 0;
+            }
+            return line[position++] & 0xFF;
+        }
+    }
+}
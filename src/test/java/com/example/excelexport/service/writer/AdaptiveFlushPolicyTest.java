@@ -0,0 +1,73 @@
+package com.example.excelexport.service.writer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveFlushPolicyTest {
+
+    @Test
+    void rowWritten_ShouldFollowHeapPressure() {
+        AtomicReference<Double> pressure = new AtomicReference<>(0.0);
+        AdaptiveFlushPolicy policy = new AdaptiveFlushPolicy(100, 1000, 8000, pressure::get);
+        assertEquals(1000, policy.getRows());
+
+        assertTrue(writeRows(policy, 100, 6, 60));
+        assertEquals(8000, policy.getRows());
+
+        pressure.set(0.5);
+        assertTrue(writeRows(policy, 100, 6, 60));
+        assertEquals(4000, policy.getRows());
+
+        pressure.set(1.0);
+        assertTrue(writeRows(policy, 100, 6, 60));
+        assertEquals(100, policy.getRows());
+        assertFalse(writeRows(policy, 100, 6, 60));
+    }
+
+    @Test
+    void rowWritten_WithWideRows_ShouldCapBufferedBytes() {
+        AdaptiveFlushPolicy policy = new AdaptiveFlushPolicy(20, 100, 1000, () -> 0.0);
+
+        // 64 + 200 * 64 + 2 * 20000 bytes per row leaves room for 158 rows in 8 MB
+        writeRows(policy, 20, 200, 20_000);
+        assertEquals(158, policy.getRows());
+
+        writeRows(policy, 20, 10_000, 1_000_000);
+        assertEquals(20, policy.getRows());
+    }
+
+    @Test
+    void rowWritten_ShouldOnlyUpdateEveryMinRows() {
+        AdaptiveFlushPolicy policy = new AdaptiveFlushPolicy(20, 100, 1000, () -> 0.0);
+
+        assertFalse(writeRows(policy, 19, 6, 60));
+        assertEquals(100, policy.getRows());
+        assertTrue(policy.rowWritten(6, 60));
+        assertEquals(1000, policy.getRows());
+    }
+
+    @Test
+    void heapPressure_ShouldStayBetweenZeroAndOne() {
+        double pressure = HeapPressure.current();
+        assertTrue(pressure >= 0 && pressure <= 1, String.valueOf(pressure));
+    }
+
+    @Test
+    void textLength_ShouldSkipNulls() {
+        assertEquals(5, AdaptiveFlushPolicy.textLength("ab", null, "cde"));
+    }
+
+    /**
+     * @return whether the last of the rows changed the limit
+     */
+    private static boolean writeRows(AdaptiveFlushPolicy policy, int rows, int cells, int chars) {
+        boolean changed = false;
+        for (int i = 0; i < rows; i++) {
+            changed = policy.rowWritten(cells, chars);
+        }
+        return changed;
+    }
+}
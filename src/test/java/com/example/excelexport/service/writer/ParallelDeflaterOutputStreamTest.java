@@ -0,0 +1,111 @@
+package com.example.excelexport.service.writer;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelDeflaterOutputStreamTest {
+
+    @Test
+    void blocksDeflatedInParallel_ShouldFormOneDeflateStream() throws Exception {
+        byte[] data = sampleData(5 * ParallelDeflaterOutputStream.BLOCK_SIZE + 1234);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            ParallelDeflaterOutputStream out = new ParallelDeflaterOutputStream(compressed, Deflater.BEST_SPEED, executor, 2);
+            // Uneven writes, so blocks are cut in the middle of them
+            for (int off = 0; off < data.length; off += 7777) {
+                out.write(data, off, Math.min(7777, data.length - off));
+            }
+            out.finish();
+
+            CRC32 crc = new CRC32();
+            crc.update(data);
+            assertEquals(crc.getValue(), out.getCrc());
+            assertEquals(data.length, out.getBytesIn());
+            assertEquals(compressed.size(), out.getBytesOut());
+            assertArrayEquals(data, inflate(compressed.toByteArray(), data.length));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void emptyInput_ShouldStillEndTheStream() throws Exception {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        ParallelDeflaterOutputStream out = new ParallelDeflaterOutputStream(compressed, Deflater.BEST_SPEED, null, 1);
+        out.finish();
+
+        assertArrayEquals(new byte[0], inflate(compressed.toByteArray(), 0));
+    }
+
+    @Test
+    void zipStreamWriter_ShouldWriteReadableArchive() throws IOException {
+        byte[] large = sampleData(3 * ParallelDeflaterOutputStream.BLOCK_SIZE);
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            ZipStreamWriter zip = new ZipStreamWriter(archive, Deflater.BEST_COMPRESSION, executor, 4);
+            zip.putNextEntry("xl/worksheets/sheet1.xml").write(large);
+            zip.putNextEntry("[Content_Types].xml").write("<Types/>".getBytes(StandardCharsets.UTF_8));
+            zip.finish();
+        } finally {
+            executor.shutdown();
+        }
+
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(archive.toByteArray()))) {
+            ZipEntry first = in.getNextEntry();
+            assertEquals("xl/worksheets/sheet1.xml", first.getName());
+            assertArrayEquals(large, in.readAllBytes());
+            assertEquals("[Content_Types].xml", in.getNextEntry().getName());
+            assertEquals("<Types/>", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            assertNull(in.getNextEntry());
+        }
+    }
+
+    /**
+     * Repetitive but not uniform, like sheet XML
+     */
+    private byte[] sampleData(int length) {
+        Random random = new Random(42);
+        StringBuilder text = new StringBuilder(length + 100);
+        while (text.length() < length) {
+            text.append("<row r=\"").append(random.nextInt(100000)).append("\"><c><v>")
+                .append(random.nextInt()).append("</v></c></row>");
+        }
+        return text.substring(0, length).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private byte[] inflate(byte[] compressed, int length) throws Exception {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(compressed);
+            // One spare byte, so zlib has room to see the end of the stream
+            byte[] output = new byte[length + 1];
+            int size = 0;
+            while (!inflater.finished()) {
+                int count = inflater.inflate(output, size, output.length - size);
+                assertFalse(count == 0 && inflater.needsInput() && !inflater.finished(), "truncated stream");
+                size += count;
+            }
+            assertEquals(0, inflater.getRemaining());
+            return Arrays.copyOf(output, size);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,365 @@
+package com.example.excelexport.service.writer;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SheetWriterTest {
+
+    @Test
+    void poiSheetWriter_ShouldWriteTypedCells() throws IOException {
+        assertWritesTypedCells(PoiSheetWriter::new);
+    }
+
+    @Test
+    void fastExcelSheetWriter_ShouldWriteTypedCells() throws IOException {
+        assertWritesTypedCells(FastExcelSheetWriter::new);
+    }
+
+    @Test
+    void directSheetWriter_ShouldWriteTypedCells() throws IOException {
+        assertWritesTypedCells(DirectSheetWriter::new);
+    }
+
+    @Test
+    void easyExcelSheetWriter_ShouldWriteTypedCells() throws IOException {
+        assertWritesTypedCells(EasyExcelSheetWriter::new);
+    }
+
+    @Test
+    void easyExcelSheetWriter_WhenRowFails_ShouldNotWriteWorkbook() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        IllegalStateException error = assertThrows(IllegalStateException.class, () -> {
+            try (SheetWriter writer = new EasyExcelSheetWriter(out, "Employees")) {
+                writer.writeHeader(Arrays.asList("ID"));
+                // More than a batch, so rows have already reached EasyExcel
+                for (int i = 0; i < 1500; i++) {
+                    writer.startRow();
+                    writer.writeNumber(i);
+                    writer.endRow();
+                }
+                writer.startRow();
+                throw new IllegalStateException("row could not be read");
+            }
+        });
+        assertEquals("row could not be read", error.getMessage());
+
+        assertEquals(0, out.size());
+        assertThrows(Exception.class, () -> new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray())));
+    }
+
+    @Test
+    void spreadsheetMlSheetWriter_ShouldWriteTypedCells() throws IOException {
+        assertWritesTypedCells(SpreadsheetMlSheetWriter::new);
+    }
+
+    @Test
+    void spreadsheetMlSheetWriter_ShouldEscapeTextAndRollOver() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        String sheetName = "R&D <\"Team\">";
+        try (SheetWriter writer = new RollingSheetWriter(new SpreadsheetMlSheetWriter(out, sheetName), sheetName, 2)) {
+            writer.writeHeader(Arrays.asList("ID", "Name"));
+            writer.setColumnFormat(0, "\"No.\" 0");
+            for (int i = 0; i < 5; i++) {
+                writer.startRow();
+                writer.writeNumber(i * 1.5);
+                writer.writeString(" Tom & <Jerry> \u0001\u00e9\u20ac ");
+                writer.endRow();
+            }
+            writer.finish();
+        }
+
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            assertEquals(3, workbook.getNumberOfSheets());
+            assertEquals(sheetName, workbook.getSheetName(0));
+            Sheet last = workbook.getSheetAt(2);
+            assertEquals("Name", last.getRow(0).getCell(1).getStringCellValue());
+            assertEquals(6.0, last.getRow(1).getCell(0).getNumericCellValue());
+            assertEquals("\"No.\" 0", last.getRow(1).getCell(0).getCellStyle().getDataFormatString());
+            assertEquals(" Tom & <Jerry> \u00e9\u20ac ", last.getRow(1).getCell(1).getStringCellValue());
+            assertEquals(1.5, workbook.getSheetAt(0).getRow(2).getCell(0).getNumericCellValue());
+        }
+    }
+
+    @Test
+    void spreadsheetMlSheetWriter_WithParallelCompression_ShouldWriteReadableWorkbook() throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (SheetWriter writer = new SpreadsheetMlSheetWriter(out, "Employees", Deflater.BEST_COMPRESSION, executor, 4)) {
+            writer.writeHeader(Arrays.asList("ID", "Email"));
+            for (int i = 0; i < 20_000; i++) {
+                writer.startRow();
+                writer.writeNumber(i);
+                writer.writeString("employee" + i + "@example.com");
+                writer.endRow();
+            }
+            writer.finish();
+        } finally {
+            executor.shutdown();
+        }
+
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            Sheet sheet = workbook.getSheet("Employees");
+            assertEquals(20_000, sheet.getLastRowNum());
+            assertEquals("employee19999@example.com", sheet.getRow(20_000).getCell(1).getStringCellValue());
+        }
+    }
+
+    @Test
+    void asyncSheetWriter_ShouldWriteTypedCells() throws IOException {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            assertWritesTypedCells((out, sheetName) -> new AsyncSheetWriter(new FastExcelSheetWriter(out, sheetName), executor));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void asyncSheetWriter_WhenRenderFails_ShouldThrowOnFinish() {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        OutputStream broken = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("connection reset");
+            }
+        };
+        try {
+            IOException error = assertThrows(IOException.class, () -> {
+                try (SheetWriter writer = new AsyncSheetWriter(new FastExcelSheetWriter(broken, "Employees"), executor)) {
+                    writer.writeHeader(Arrays.asList("ID"));
+                    for (int i = 0; i < 5000; i++) {
+                        writer.startRow();
+                        writer.writeNumber(i);
+                        writer.endRow();
+                    }
+                    writer.finish();
+                }
+            });
+            assertEquals("connection reset", error.getMessage());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void rollingSheetWriter_ShouldContinueInNewSheets() throws IOException {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        List<BiFunction<OutputStream, String, SheetWriter>> factories = Arrays.asList(
+            PoiSheetWriter::new, FastExcelSheetWriter::new, DirectSheetWriter::new, EasyExcelSheetWriter::new,
+            (out, sheetName) -> new AsyncSheetWriter(new FastExcelSheetWriter(out, sheetName), executor));
+        try {
+            for (BiFunction<OutputStream, String, SheetWriter> factory : factories) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                try (RollingSheetWriter writer = new RollingSheetWriter(factory.apply(out, "Employees"), "Employees", 3)) {
+                    writer.writeHeader(Arrays.asList("ID", "Salary"));
+                    writer.setColumnFormat(1, "#,##0.00");
+                    for (int i = 1; i <= 7; i++) {
+                        writer.startRow();
+                        writer.writeNumber(i);
+                        writer.writeNumber(i * 1000.5);
+                        writer.endRow();
+                    }
+                    writer.finish();
+                    assertEquals(7, writer.getRowCount());
+                    assertEquals(3, writer.getSheetCount());
+                }
+
+                try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+                    assertEquals(3, workbook.getNumberOfSheets());
+                    assertEquals("Employees (3)", workbook.getSheetName(2));
+                    double id = 1;
+                    for (int s = 0; s < 3; s++) {
+                        Sheet sheet = workbook.getSheetAt(s);
+                        assertEquals("Salary", sheet.getRow(0).getCell(1).getStringCellValue());
+                        for (int r = 1; r <= sheet.getLastRowNum(); r++) {
+                            assertEquals(id++, sheet.getRow(r).getCell(0).getNumericCellValue());
+                        }
+                    }
+                    assertEquals(8, id);
+                    assertEquals(1, workbook.getSheetAt(2).getLastRowNum());
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void rollingSheetWriter_ShouldShortenLongSheetNames() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        String sheetName = "Employees of the whole company";
+        try (SheetWriter writer = new RollingSheetWriter(new FastExcelSheetWriter(out, sheetName), sheetName, 1)) {
+            writer.writeHeader(Arrays.asList("ID"));
+            for (int i = 0; i < 2; i++) {
+                writer.startRow();
+                writer.writeNumber(i);
+                writer.endRow();
+            }
+            writer.finish();
+        }
+
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            assertEquals("Employees of the whole comp (2)", workbook.getSheetName(1));
+        }
+    }
+
+    @Test
+    void setColumnFormat_ShouldApplyNumberFormat() throws IOException {
+        for (BiFunction<OutputStream, String, SheetWriter> factory : Arrays.<BiFunction<OutputStream, String, SheetWriter>>asList(
+                PoiSheetWriter::new, FastExcelSheetWriter::new, DirectSheetWriter::new, SpreadsheetMlSheetWriter::new)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (SheetWriter writer = factory.apply(out, "Employees")) {
+                writer.writeHeader(Arrays.asList("ID", "Salary"));
+                writer.setColumnFormat(1, "#,##0.00");
+                writer.startRow();
+                writer.writeNumber(1L);
+                writer.writeNumber(75000.5);
+                writer.endRow();
+                writer.finish();
+            }
+
+            try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+                Row row = workbook.getSheet("Employees").getRow(1);
+                assertEquals("#,##0.00", row.getCell(1).getCellStyle().getDataFormatString());
+                assertNotEquals("#,##0.00", row.getCell(0).getCellStyle().getDataFormatString());
+            }
+        }
+    }
+
+    @Test
+    void csvSheetWriter_ShouldQuoteAsInRfc4180() throws IOException {
+        String csv = new String(writeDelimited(DelimitedSheetWriter::csv), StandardCharsets.UTF_8);
+
+        assertEquals("ID,Name,Salary\r\n"
+            + "1,\"Doe, \"\"Johnny\"\"\",75000.5\r\n"
+            + "-42,\"line\nbreak\",3\r\n"
+            + "9223372036854775807,Zo\u00eb \uD83D\uDE00,\r\n", csv);
+    }
+
+    @Test
+    void tsvSheetWriter_ShouldEscapeTabsAndLineBreaks() throws IOException {
+        String tsv = new String(writeDelimited(DelimitedSheetWriter::tsv), StandardCharsets.UTF_8);
+
+        assertEquals("ID\tName\tSalary\n"
+            + "1\tDoe, \"Johnny\"\t75000.5\n"
+            + "-42\tline\\nbreak\t3\n"
+            + "9223372036854775807\tZo\u00eb \uD83D\uDE00\t\n", tsv);
+    }
+
+    @Test
+    void gzipCsvSheetWriter_ShouldCompressCsvAndLeaveStreamOpen() throws IOException {
+        byte[] gzip = writeDelimited(DelimitedSheetWriter::gzipCsv);
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+            assertArrayEquals(writeDelimited(DelimitedSheetWriter::csv), in.readAllBytes());
+        }
+    }
+
+    @Test
+    void csvSheetWriter_ShouldFlushLargeOutputInOrder() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (SheetWriter writer = DelimitedSheetWriter.csv(out)) {
+            writer.writeHeader(Arrays.asList("ID"));
+            for (int i = 0; i < 100_000; i++) {
+                writer.startRow();
+                writer.writeNumber(i);
+                writer.endRow();
+            }
+            writer.finish();
+            assertEquals(100_000, writer.getRowCount());
+        }
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(100_001, lines.length);
+        assertEquals("99999", lines[100_000]);
+    }
+
+    private byte[] writeDelimited(Function<OutputStream, SheetWriter> factory) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (SheetWriter writer = factory.apply(out)) {
+            writer.writeHeader(Arrays.asList("ID", "Name", "Salary"));
+            writer.setColumnFormat(2, "#,##0.00");
+            writer.startRow();
+            writer.writeNumber(1L);
+            writer.writeString("Doe, \"Johnny\"");
+            writer.writeNumber(75000.5);
+            writer.endRow();
+            writer.startRow();
+            writer.writeNumber(-42L);
+            writer.writeString("line\nbreak");
+            writer.writeNumber(3.0);
+            writer.endRow();
+            writer.startRow();
+            writer.writeNumber(Long.MAX_VALUE);
+            writer.writeString("Zo\u00eb \uD83D\uDE00");
+            writer.writeBlank();
+            writer.endRow();
+            writer.finish();
+            assertEquals(3, writer.getRowCount());
+        }
+        return out.toByteArray();
+    }
+
+    private void assertWritesTypedCells(BiFunction<OutputStream, String, SheetWriter> factory) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (SheetWriter writer = factory.apply(out, "Employees")) {
+            writer.writeHeader(Arrays.asList("ID", "Name", "Salary"));
+            writer.startRow();
+            writer.writeNumber(1L);
+            writer.writeString("John");
+            writer.writeNumber(75000.5);
+            writer.endRow();
+            writer.startRow();
+            writer.writeNumber(2L);
+            writer.writeString(null);
+            writer.writeBlank();
+            writer.endRow();
+            writer.finish();
+            assertEquals(2, writer.getRowCount());
+        }
+
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            Sheet sheet = workbook.getSheet("Employees");
+            assertNotNull(sheet);
+            assertEquals("Salary", sheet.getRow(0).getCell(2).getStringCellValue());
+
+            Row first = sheet.getRow(1);
+            assertEquals(CellType.NUMERIC, first.getCell(0).getCellType());
+            assertEquals(1.0, first.getCell(0).getNumericCellValue());
+            assertEquals("John", first.getCell(1).getStringCellValue());
+            assertEquals(75000.5, first.getCell(2).getNumericCellValue());
+
+            Row second = sheet.getRow(2);
+            assertEquals(2.0, second.getCell(0).getNumericCellValue());
+            assertBlank(second.getCell(1));
+            assertBlank(second.getCell(2));
+        }
+    }
+
+    private void assertBlank(Cell cell) {
+        // Styling writers may emit an empty styled cell instead of none at all
+        assertTrue(cell == null || cell.getCellType() == CellType.BLANK
+            || (cell.getCellType() == CellType.STRING && cell.getStringCellValue().isEmpty()));
+    }
+}
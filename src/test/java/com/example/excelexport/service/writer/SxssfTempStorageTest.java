@@ -0,0 +1,106 @@
+package com.example.excelexport.service.writer;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SxssfTempStorageTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void close_ShouldDeleteTempFilesAndReleaseUsage() throws IOException {
+        SxssfTempStorage storage = new SxssfTempStorage(directory, SxssfTempStorage.Compression.NEVER, 0, 0, 0);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        try (TempFileTrackingWorkbook workbook = new TempFileTrackingWorkbook(10, storage)) {
+            writeRows(workbook.createSheet("Data"), 1000);
+            assertEquals(1, storage.getFilesInUse());
+            assertTrue(storage.getBytesInUse() > 0);
+            assertEquals(1, countFiles(".xml"));
+            workbook.write(output);
+        }
+
+        assertEquals(0, countFiles(""));
+        assertEquals(0, storage.getFilesInUse());
+        assertEquals(0, storage.getBytesInUse());
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(output.toByteArray()))) {
+            assertEquals(999, workbook.getSheetAt(0).getLastRowNum());
+        }
+    }
+
+    @Test
+    void exportQuota_WhenExceeded_ShouldFailAndStillDeleteTempFiles() throws IOException {
+        SxssfTempStorage storage = new SxssfTempStorage(directory, SxssfTempStorage.Compression.NEVER, 0, 16 << 10, 0);
+
+        // SXSSF rethrows the failed flush unchecked
+        RuntimeException e = assertThrows(RuntimeException.class, () -> {
+            try (TempFileTrackingWorkbook workbook = new TempFileTrackingWorkbook(10, storage)) {
+                writeRows(workbook.createSheet("Data"), 10_000);
+            }
+        });
+        assertInstanceOf(TempStorageQuotaExceededException.class, e.getCause());
+
+        assertEquals(0, countFiles(""));
+        assertEquals(0, storage.getBytesInUse());
+        assertEquals(1, storage.getExportQuotaRejections());
+    }
+
+    @Test
+    void globalQuota_ShouldCountAllOpenWorkbooks() throws IOException {
+        SxssfTempStorage storage = new SxssfTempStorage(directory, SxssfTempStorage.Compression.NEVER, 0, 0, 160 << 10);
+
+        try (TempFileTrackingWorkbook first = new TempFileTrackingWorkbook(10, storage);
+             TempFileTrackingWorkbook second = new TempFileTrackingWorkbook(10, storage)) {
+            writeRows(first.createSheet("Data"), 1000);
+            long firstBytes = storage.getBytesInUse();
+            assertTrue(firstBytes > 80 << 10);
+
+            RuntimeException e = assertThrows(RuntimeException.class, () -> writeRows(second.createSheet("Data"), 1000));
+            assertInstanceOf(TempStorageQuotaExceededException.class, e.getCause());
+            assertTrue(storage.getBytesInUse() <= 160 << 10);
+            assertEquals(1, storage.getGlobalQuotaRejections());
+        }
+        assertEquals(0, storage.getBytesInUse());
+    }
+
+    @Test
+    void shouldCompress_ShouldFollowPolicy() throws IOException {
+        assertTrue(new SxssfTempStorage(directory, SxssfTempStorage.Compression.ALWAYS, 0, 0, 0).shouldCompress());
+        assertFalse(new SxssfTempStorage(directory, SxssfTempStorage.Compression.NEVER, Long.MAX_VALUE, 0, 0).shouldCompress());
+        assertFalse(new SxssfTempStorage(directory, SxssfTempStorage.Compression.AUTO, 0, 0, 0).shouldCompress());
+        assertTrue(new SxssfTempStorage(directory, SxssfTempStorage.Compression.AUTO, Long.MAX_VALUE, 0, 0).shouldCompress());
+
+        SxssfTempStorage storage = new SxssfTempStorage(directory, SxssfTempStorage.Compression.ALWAYS, 0, 0, 0);
+        try (TempFileTrackingWorkbook workbook = new TempFileTrackingWorkbook(10, storage)) {
+            writeRows(workbook.createSheet("Data"), 1000);
+            assertEquals(1, countFiles(".xml.gz"));
+        }
+    }
+
+    private static void writeRows(SXSSFSheet sheet, int rows) {
+        for (int i = 0; i < rows; i++) {
+            Row row = sheet.createRow(i);
+            row.createCell(0).setCellValue(i);
+            row.createCell(1).setCellValue("employee" + i + "@example.com");
+        }
+    }
+
+    private long countFiles(String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(suffix)).count();
+        }
+    }
+}